@@ -19,6 +19,7 @@ package com.torchmind.padlock;
 import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
 
 /**
@@ -29,15 +30,27 @@ class AuthenticationClaim<M extends AuthenticationClaimMetadata> implements IAut
         private final M metadata;
         private final Class<M> metadataType;
         private final ByteBuffer signature;
+        private final ByteBuffer encodedMetadata;
+        private final String keyId;
 
-        public AuthenticationClaim (@Nonnull Class<M> metadataType, @Nonnull M metadata, @Nonnull ByteBuffer signature) {
+        public AuthenticationClaim (@Nonnull Class<M> metadataType, @Nonnull M metadata, @Nonnull ByteBuffer signature, @Nullable ByteBuffer encodedMetadata, @Nullable String keyId) {
                 this.metadataType = metadataType;
                 this.metadata = metadata;
                 this.signature = signature;
+                this.encodedMetadata = encodedMetadata;
+                this.keyId = keyId;
+        }
+
+        public AuthenticationClaim (@Nonnull Class<M> metadataType, @Nonnull M metadata, @Nonnull ByteBuffer signature, @Nullable ByteBuffer encodedMetadata) {
+                this (metadataType, metadata, signature, encodedMetadata, null);
+        }
+
+        public AuthenticationClaim (@Nonnull Class<M> metadataType, @Nonnull M metadata, @Nonnull ByteBuffer signature) {
+                this (metadataType, metadata, signature, null);
         }
 
         public AuthenticationClaim (@Nonnull AuthenticationClaim<M> claim) {
-                this (claim.metadataType (), claim.metadata (), claim.signature ());
+                this (claim.metadataType (), claim.metadata (), claim.signature (), claim.encodedMetadata (), claim.keyId ());
         }
 
         /**
@@ -67,6 +80,25 @@ class AuthenticationClaim<M extends AuthenticationClaimMetadata> implements IAut
                 return this.signature;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public ByteBuffer encodedMetadata () {
+                if (this.encodedMetadata == null) return null;
+                return this.encodedMetadata.duplicate ();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public String keyId () {
+                return this.keyId;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -79,6 +111,7 @@ class AuthenticationClaim<M extends AuthenticationClaimMetadata> implements IAut
 
                 if (!metadata.equals (that.metadata)) { return false; }
                 if (!metadataType.equals (that.metadataType)) { return false; }
+                if (keyId != null ? !keyId.equals (that.keyId) : that.keyId != null) { return false; }
                 return signature.equals (that.signature);
 
         }
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Provides an exception-free codec for the URL-safe Base64 alphabet used within encoded claims.
+ * Unlike {@link java.util.Base64.Decoder}, malformed input is signalled through return values which keeps the cost of
+ * rejecting garbage input at a minimum. Encoding writes directly into caller supplied targets and produces padded output
+ * identical to {@link java.util.Base64#getUrlEncoder()}.
+ * @author Johannes Donath
+ */
+final class Base64Url {
+        private static final byte[] DECODE_TABLE = new byte[128];
+        private static final byte[] ENCODE_TABLE = new byte[64];
+        private static final byte PADDING = '=';
+
+        static {
+                Arrays.fill (DECODE_TABLE, (byte) -1);
+
+                String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+                for (int i = 0; i < alphabet.length (); ++i) {
+                        DECODE_TABLE[alphabet.charAt (i)] = (byte) i;
+                        ENCODE_TABLE[i] = (byte) alphabet.charAt (i);
+                }
+        }
+
+        private Base64Url () {
+        }
+
+        /**
+         * Calculates the amount of bytes encoded within a range of characters.
+         * @param source The source.
+         * @param offset The range offset.
+         * @param length The range length.
+         * @return The length or -1 if the range is not a valid encoding.
+         */
+        static int decodedLength (@Nonnull CharSequence source, int offset, int length) {
+                int padding = 0;
+
+                while (padding < 2 && length > padding && source.charAt (offset + length - padding - 1) == '=') ++padding;
+                if (padding != 0 && (length & 3) != 0) return -1;
+
+                int significant = (length - padding);
+                if ((significant & 3) == 1) return -1;
+
+                return ((significant >> 2) * 3 + Math.max (0, (significant & 3) - 1));
+        }
+
+        /**
+         * Decodes a range of characters.
+         * @param source The source.
+         * @param offset The range offset.
+         * @param length The range length.
+         * @return The decoded bytes or null if the range is not a valid encoding.
+         */
+        @Nullable
+        static byte[] decode (@Nonnull CharSequence source, int offset, int length) {
+                int decodedLength = decodedLength (source, offset, length);
+                if (decodedLength == -1) return null;
+
+                byte[] decoded = new byte[decodedLength];
+                if (decode (source, offset, decoded) == -1) return null;
+
+                return decoded;
+        }
+
+        /**
+         * Decodes a range of characters into a buffer.
+         * The amount of characters consumed is derived from the length of the target buffer.
+         * @param source The source.
+         * @param offset The range offset.
+         * @param target The target buffer (as sized by {@link #decodedLength(CharSequence, int, int)}).
+         * @return The amount of decoded bytes or -1 if the range contains illegal characters.
+         */
+        static int decode (@Nonnull CharSequence source, int offset, @Nonnull byte[] target) {
+                return decode (source, offset, target, 0, target.length);
+        }
+
+        /**
+         * Decodes a range of characters into a region of a buffer.
+         * The amount of characters consumed is derived from the length of the target region.
+         * @param source The source.
+         * @param offset The range offset.
+         * @param target The target buffer.
+         * @param targetOffset The target region offset.
+         * @param length The target region length (as calculated by {@link #decodedLength(CharSequence, int, int)}).
+         * @return The amount of decoded bytes or -1 if the range contains illegal characters.
+         */
+        static int decode (@Nonnull CharSequence source, int offset, @Nonnull byte[] target, int targetOffset, int length) {
+                int targetIndex = targetOffset;
+                int targetLimit = (targetOffset + length);
+                int sourceIndex = offset;
+
+                while (targetIndex < targetLimit) {
+                        int remaining = Math.min (3, (targetLimit - targetIndex));
+                        int bits = 0;
+
+                        for (int i = 0; i <= remaining; ++i) {
+                                int value = value (source.charAt (sourceIndex++));
+                                if (value == -1) return -1;
+
+                                bits |= (value << (18 - 6 * i));
+                        }
+
+                        target[targetIndex++] = (byte) (bits >> 16);
+                        if (remaining > 1) target[targetIndex++] = (byte) (bits >> 8);
+                        if (remaining > 2) target[targetIndex++] = (byte) bits;
+                }
+
+                return length;
+        }
+
+        /**
+         * Calculates the amount of bytes encoded within a range of ASCII characters.
+         * @param source The source.
+         * @param offset The absolute range offset.
+         * @param length The range length.
+         * @return The length or -1 if the range is not a valid encoding.
+         */
+        static int decodedLength (@Nonnull ByteBuffer source, int offset, int length) {
+                int padding = 0;
+
+                while (padding < 2 && length > padding && source.get (offset + length - padding - 1) == PADDING) ++padding;
+                if (padding != 0 && (length & 3) != 0) return -1;
+
+                int significant = (length - padding);
+                if ((significant & 3) == 1) return -1;
+
+                return ((significant >> 2) * 3 + Math.max (0, (significant & 3) - 1));
+        }
+
+        /**
+         * Decodes a range of ASCII characters into a region of a buffer.
+         * The amount of characters consumed is derived from the length of the target region. The position of the source
+         * buffer is not modified.
+         * @param source The source.
+         * @param offset The absolute range offset.
+         * @param target The target buffer.
+         * @param targetOffset The target region offset.
+         * @param length The target region length (as calculated by {@link #decodedLength(ByteBuffer, int, int)}).
+         * @return The amount of decoded bytes or -1 if the range contains illegal characters.
+         */
+        static int decode (@Nonnull ByteBuffer source, int offset, @Nonnull byte[] target, int targetOffset, int length) {
+                int targetIndex = targetOffset;
+                int targetLimit = (targetOffset + length);
+                int sourceIndex = offset;
+
+                while (targetIndex < targetLimit) {
+                        int remaining = Math.min (3, (targetLimit - targetIndex));
+                        int bits = 0;
+
+                        for (int i = 0; i <= remaining; ++i) {
+                                int value = value ((char) (source.get (sourceIndex++) & 0xFF));
+                                if (value == -1) return -1;
+
+                                bits |= (value << (18 - 6 * i));
+                        }
+
+                        target[targetIndex++] = (byte) (bits >> 16);
+                        if (remaining > 1) target[targetIndex++] = (byte) (bits >> 8);
+                        if (remaining > 2) target[targetIndex++] = (byte) bits;
+                }
+
+                return length;
+        }
+
+        /**
+         * Calculates the amount of characters required to encode a certain amount of bytes.
+         * @param length The amount of bytes.
+         * @return The amount of characters (including padding).
+         */
+        static int encodedLength (int length) {
+                return (((length + 2) / 3) << 2);
+        }
+
+        /**
+         * Encodes the remaining bytes of a buffer into an array.
+         * The position of the source buffer is not modified.
+         * @param source The source.
+         * @param target The target array.
+         * @param offset The target offset.
+         * @return The offset following the last written character.
+         */
+        static int encode (@Nonnull ByteBuffer source, @Nonnull byte[] target, int offset) {
+                int position = source.position ();
+                int limit = source.limit ();
+
+                while ((limit - position) >= 3) {
+                        int bits = ((source.get (position++) & 0xFF) << 16) | ((source.get (position++) & 0xFF) << 8) | (source.get (position++) & 0xFF);
+
+                        target[offset++] = ENCODE_TABLE[(bits >>> 18) & 0x3F];
+                        target[offset++] = ENCODE_TABLE[(bits >>> 12) & 0x3F];
+                        target[offset++] = ENCODE_TABLE[(bits >>> 6) & 0x3F];
+                        target[offset++] = ENCODE_TABLE[bits & 0x3F];
+                }
+
+                int remaining = (limit - position);
+
+                if (remaining != 0) {
+                        int bits = ((source.get (position++) & 0xFF) << 16);
+                        if (remaining == 2) bits |= ((source.get (position) & 0xFF) << 8);
+
+                        target[offset++] = ENCODE_TABLE[(bits >>> 18) & 0x3F];
+                        target[offset++] = ENCODE_TABLE[(bits >>> 12) & 0x3F];
+                        target[offset++] = (remaining == 2 ? ENCODE_TABLE[(bits >>> 6) & 0x3F] : PADDING);
+                        target[offset++] = PADDING;
+                }
+
+                return offset;
+        }
+
+        /**
+         * Encodes the remaining bytes of a buffer into another buffer.
+         * The position of the source buffer is not modified while the position of the target buffer is advanced past the
+         * written characters.
+         * @param source The source.
+         * @param target The target.
+         */
+        static void encode (@Nonnull ByteBuffer source, @Nonnull ByteBuffer target) {
+                int length = encodedLength (source.remaining ());
+
+                if (target.hasArray ()) {
+                        int offset = target.arrayOffset () + target.position ();
+                        encode (source, target.array (), offset);
+                        target.position (target.position () + length);
+                        return;
+                }
+
+                for (int i = 0; i < length; ++i) target.put (character (source, i));
+        }
+
+        /**
+         * Encodes the remaining bytes of a buffer into an appendable.
+         * The position of the source buffer is not modified.
+         * @param source The source.
+         * @param target The target.
+         * @throws java.io.IOException when appending fails.
+         */
+        static void encode (@Nonnull ByteBuffer source, @Nonnull Appendable target) throws IOException {
+                int length = encodedLength (source.remaining ());
+                for (int i = 0; i < length; ++i) target.append ((char) character (source, i));
+        }
+
+        /**
+         * Retrieves a single character of the encoded representation of a buffer.
+         * @param source The source.
+         * @param index The character index.
+         * @return The character.
+         */
+        private static byte character (@Nonnull ByteBuffer source, int index) {
+                int group = (source.position () + (index >> 2) * 3);
+                int remaining = (source.limit () - group);
+                int digit = (index & 3);
+
+                if (digit >= remaining + 1) return PADDING;
+
+                int bits = ((source.get (group) & 0xFF) << 16);
+                if (remaining > 1) bits |= ((source.get (group + 1) & 0xFF) << 8);
+                if (remaining > 2) bits |= (source.get (group + 2) & 0xFF);
+
+                return ENCODE_TABLE[(bits >>> (18 - 6 * digit)) & 0x3F];
+        }
+
+        /**
+         * Retrieves the value of a single Base64 character.
+         * @param character The character.
+         * @return The value or -1 if the character is not part of the alphabet.
+         */
+        private static int value (char character) {
+                if (character >= DECODE_TABLE.length) return -1;
+                return DECODE_TABLE[character];
+        }
+}
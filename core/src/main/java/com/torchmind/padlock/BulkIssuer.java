@@ -0,0 +1,325 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Issues large amounts of authentication claims in parallel.
+ * Metadata is consumed in chunks which are signed and encoded on an executor while the resulting tokens are written to
+ * their destination in their original order (separated by line feeds). At most a fixed amount of chunks is in flight at
+ * any given time in order to keep the memory consumption bounded regardless of the amount of issued claims.
+ *
+ * <strong>Note:</strong> Each chunk acquires a single signature provider from its {@link com.torchmind.padlock.Padlock}
+ * for its entire duration. Signing will thus only scale with instances which maintain multiple providers (e.g. instances
+ * constructed from provider factories).
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class BulkIssuer {
+        public static final int DEFAULT_CHUNK_SIZE = 1024;
+        private static final byte SEPARATOR = '\n';
+
+        private final Padlock padlock;
+        private final Executor executor;
+        private final int chunkSize;
+        private final int maximumPendingChunks;
+
+        private final LongAdder issued = new LongAdder ();
+        private final LongAdder bytesWritten = new LongAdder ();
+        private final LongAdder signingTime = new LongAdder ();
+        private final LongAdder encodingTime = new LongAdder ();
+        private final LongAdder writingTime = new LongAdder ();
+
+        public BulkIssuer (@Nonnull Padlock padlock, @Nonnull Executor executor, int chunkSize, int maximumPendingChunks) {
+                if (chunkSize <= 0) throw new IllegalArgumentException ("Chunk size must be positive");
+                if (maximumPendingChunks <= 0) throw new IllegalArgumentException ("Maximum amount of pending chunks must be positive");
+
+                this.padlock = padlock;
+                this.executor = executor;
+                this.chunkSize = chunkSize;
+                this.maximumPendingChunks = maximumPendingChunks;
+        }
+
+        public BulkIssuer (@Nonnull Padlock padlock, @Nonnull Executor executor) {
+                this (padlock, executor, DEFAULT_CHUNK_SIZE, (Runtime.getRuntime ().availableProcessors () * 2));
+        }
+
+        /**
+         * Issues a claim for every metadata element and writes the encoded tokens to a file.
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param path The file path.
+         * @param <M> The metadata type.
+         * @return The amount of issued claims.
+         * @throws java.io.IOException when writing fails.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding a signature fails.
+         */
+        public <M extends AuthenticationClaimMetadata> long issue (@Nonnull Class<M> metadataType, @Nonnull Iterator<? extends M> metadata, @Nonnull Path path) throws IOException, IllegalStateException, SignatureException {
+                try (FileChannel channel = FileChannel.open (path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        return this.issue (metadataType, metadata, channel);
+                }
+        }
+
+        /**
+         * Issues a claim for every metadata element and writes the encoded tokens to a channel.
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param channel The channel.
+         * @param <M> The metadata type.
+         * @return The amount of issued claims.
+         * @throws java.io.IOException when writing fails.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding a signature fails.
+         */
+        public <M extends AuthenticationClaimMetadata> long issue (@Nonnull Class<M> metadataType, @Nonnull Stream<? extends M> metadata, @Nonnull WritableByteChannel channel) throws IOException, IllegalStateException, SignatureException {
+                return this.issue (metadataType, metadata.iterator (), channel);
+        }
+
+        /**
+         * Issues a claim for every metadata element and writes the encoded tokens to a channel.
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param channel The channel.
+         * @param <M> The metadata type.
+         * @return The amount of issued claims.
+         * @throws java.io.IOException when writing fails.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding a signature fails.
+         */
+        public <M extends AuthenticationClaimMetadata> long issue (@Nonnull Class<M> metadataType, @Nonnull Iterator<? extends M> metadata, @Nonnull WritableByteChannel channel) throws IOException, IllegalStateException, SignatureException {
+                Deque<CompletableFuture<ByteBuffer>> pending = new ArrayDeque<> (this.maximumPendingChunks);
+                long count = 0;
+
+                try {
+                        while (metadata.hasNext ()) {
+                                AuthenticationClaimMetadata[] chunk = new AuthenticationClaimMetadata[this.chunkSize];
+                                int length = 0;
+
+                                while (length < chunk.length && metadata.hasNext ()) chunk[length++] = metadata.next ();
+
+                                if (pending.size () == this.maximumPendingChunks) this.write (pending.poll (), channel);
+
+                                final int chunkLength = length;
+                                pending.add (CompletableFuture.supplyAsync (() -> this.process (metadataType, chunk, chunkLength), this.executor));
+                                count += length;
+                        }
+
+                        while (!pending.isEmpty ()) this.write (pending.poll (), channel);
+                } finally {
+                        pending.forEach ((f) -> f.cancel (false));
+                }
+
+                return count;
+        }
+
+        /**
+         * Signs and encodes a chunk of metadata.
+         * @param metadataType The metadata type.
+         * @param chunk The chunk.
+         * @param length The amount of metadata elements within the chunk.
+         * @param <M> The metadata type.
+         * @return The encoded tokens.
+         */
+        @Nonnull
+        @SuppressWarnings ("unchecked")
+        private <M extends AuthenticationClaimMetadata> ByteBuffer process (@Nonnull Class<M> metadataType, @Nonnull AuthenticationClaimMetadata[] chunk, int length) {
+                IAuthenticationClaim<?>[] claims = new IAuthenticationClaim<?>[length];
+
+                {
+                        long start = System.nanoTime ();
+                        ISignatureProvider provider = this.padlock.acquireSignatureProvider ();
+
+                        if (provider == null)
+                                throw new IllegalStateException ("Cannot sign authentication claims: No signature provider available");
+
+                        try {
+                                for (int i = 0; i < length; ++i) claims[i] = this.padlock.sign (provider, metadataType, (M) chunk[i]);
+                        } catch (SignatureException ex) {
+                                throw new CompletionException (ex);
+                        } finally {
+                                this.padlock.releaseSignatureProvider (provider);
+                        }
+
+                        this.signingTime.add ((System.nanoTime () - start));
+                }
+
+                {
+                        long start = System.nanoTime ();
+                        int capacity = 0;
+
+                        for (int i = 0; i < length; ++i) capacity += this.padlock.encodedLength (claims[i]) + 1;
+
+                        ByteBuffer buffer = ByteBuffer.allocate (capacity);
+
+                        for (int i = 0; i < length; ++i) {
+                                this.padlock.encode (claims[i], buffer);
+                                buffer.put (SEPARATOR);
+                        }
+
+                        buffer.flip ();
+                        this.encodingTime.add ((System.nanoTime () - start));
+                        this.issued.add (length);
+                        return buffer;
+                }
+        }
+
+        /**
+         * Awaits the completion of a chunk and writes it to a channel.
+         * @param chunk The chunk.
+         * @param channel The channel.
+         * @throws java.io.IOException when writing fails.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding a signature fails.
+         */
+        private void write (@Nonnull CompletableFuture<ByteBuffer> chunk, @Nonnull WritableByteChannel channel) throws IOException, IllegalStateException, SignatureException {
+                ByteBuffer buffer;
+
+                try {
+                        buffer = chunk.join ();
+                } catch (CompletionException ex) {
+                        Throwable cause = ex.getCause ();
+
+                        if (cause instanceof SignatureException) throw (SignatureException) cause;
+                        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                        throw ex;
+                }
+
+                long start = System.nanoTime ();
+                long length = buffer.remaining ();
+
+                while (buffer.hasRemaining ()) channel.write (buffer);
+
+                this.writingTime.add ((System.nanoTime () - start));
+                this.bytesWritten.add (length);
+        }
+
+        /**
+         * Retrieves the chunk size.
+         * @return The amount of claims per chunk.
+         */
+        public int chunkSize () {
+                return this.chunkSize;
+        }
+
+        /**
+         * Retrieves the maximum amount of chunks in flight.
+         * @return The amount of chunks.
+         */
+        public int maximumPendingChunks () {
+                return this.maximumPendingChunks;
+        }
+
+        /**
+         * Retrieves the total amount of issued claims.
+         * @return The amount of claims.
+         */
+        public long issued () {
+                return this.issued.sum ();
+        }
+
+        /**
+         * Retrieves the total amount of written bytes.
+         * @return The amount of bytes.
+         */
+        public long bytesWritten () {
+                return this.bytesWritten.sum ();
+        }
+
+        /**
+         * Retrieves the cumulative time spent signing (summed across all workers).
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration signingTime () {
+                return Duration.ofNanos (this.signingTime.sum ());
+        }
+
+        /**
+         * Retrieves the cumulative time spent encoding (summed across all workers).
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration encodingTime () {
+                return Duration.ofNanos (this.encodingTime.sum ());
+        }
+
+        /**
+         * Retrieves the cumulative time spent writing.
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration writingTime () {
+                return Duration.ofNanos (this.writingTime.sum ());
+        }
+
+        /**
+         * Retrieves the signing throughput per worker.
+         * @return The amount of claims per second.
+         */
+        public double signingThroughput () {
+                return throughput (this.issued.sum (), this.signingTime.sum ());
+        }
+
+        /**
+         * Retrieves the encoding throughput per worker.
+         * @return The amount of claims per second.
+         */
+        public double encodingThroughput () {
+                return throughput (this.issued.sum (), this.encodingTime.sum ());
+        }
+
+        /**
+         * Retrieves the write throughput.
+         * @return The amount of bytes per second.
+         */
+        public double writingThroughput () {
+                return throughput (this.bytesWritten.sum (), this.writingTime.sum ());
+        }
+
+        /**
+         * Calculates a throughput.
+         * @param amount The amount of processed elements.
+         * @param nanos The time spent processing in nanoseconds.
+         * @return The amount of elements per second.
+         */
+        private static double throughput (long amount, long nanos) {
+                if (nanos == 0) return 0;
+                return ((amount * 1_000_000_000d) / nanos);
+        }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Represents an authentication claim.
+ * @author Johannes Donath
+ */
+public interface IAuthenticationClaim<M extends AuthenticationClaimMetadata> {
+
+        /**
+         * Retrieves the claim metadata.
+         * @return The metadata.
+         */
+        @Nonnull
+        M metadata ();
+
+        /**
+         * Retrieves the base fields of the claim metadata.
+         * <strong>Note:</strong> Implementations may return an object which only carries the base fields in order to
+         * avoid binding the full metadata. The returned object may thus not be an instance of the actual metadata type.
+         * @return The base metadata.
+         */
+        @Nonnull
+        default AuthenticationClaimMetadata baseMetadata () {
+                return this.metadata ();
+        }
+
+        /**
+         * Retrieves the claim identifier.
+         * @return The identifier.
+         */
+        @Nonnull
+        default UUID identifier () {
+                return this.baseMetadata ().identifier ();
+        }
+
+        /**
+         * Retrieves the claim issuance.
+         * @return The issuance.
+         */
+        @Nonnull
+        default Instant issuance () {
+                return this.baseMetadata ().issuance ();
+        }
+
+        /**
+         * Retrieves the claim expiration.
+         * @return The expiration.
+         */
+        @Nullable
+        default Instant expiration () {
+                return this.baseMetadata ().expiration ();
+        }
+
+        /**
+         * Retrieves the claim metadata type.
+         * @return The type.
+         */
+        @Nonnull
+        Class<M> metadataType ();
+
+        /**
+         * Retrieves the claim signature.
+         * @return The signature.
+         */
+        @Nonnull
+        ByteBuffer signature ();
+
+        /**
+         * Retrieves the encoded claim metadata exactly as it has been signed.
+         * <strong>Note:</strong> Claims which have been constructed in memory may return {@code null} in which case the
+         * metadata will be re-encoded when required.
+         * @return The encoded metadata or null.
+         */
+        @Nullable
+        default ByteBuffer encodedMetadata () {
+                return null;
+        }
+
+        /**
+         * Retrieves the identifier of the key which has been used to sign this claim.
+         * @return The identifier or null if the claim does not reference a key.
+         * @see com.torchmind.padlock.security.KeyRing
+         */
+        @Nullable
+        default String keyId () {
+                return null;
+        }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+
+/**
+ * Provides an implementation of {@link com.torchmind.padlock.IAuthenticationClaim} which retains the encoded metadata
+ * and binds the full metadata object on first access only.
+ * The base fields are decoded through {@link com.torchmind.padlock.metadata.codec.IMetadataCodec#decodeBase(Class, java.nio.ByteBuffer)}
+ * which permits codecs to skip any additional fields of the actual metadata type.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+class LazyAuthenticationClaim<M extends AuthenticationClaimMetadata> implements IAuthenticationClaim<M> {
+        private final IMetadataCodec metadataCodec;
+        private final Class<M> metadataType;
+        private final ByteBuffer signature;
+        private final ByteBuffer encodedMetadata;
+        private final String keyId;
+        private volatile AuthenticationClaimMetadata baseMetadata;
+        private volatile M metadata;
+
+        public LazyAuthenticationClaim (@Nonnull IMetadataCodec metadataCodec, @Nonnull Class<M> metadataType, @Nonnull ByteBuffer encodedMetadata, @Nonnull ByteBuffer signature, @Nullable String keyId) {
+                this.metadataCodec = metadataCodec;
+                this.metadataType = metadataType;
+                this.encodedMetadata = encodedMetadata;
+                this.signature = signature;
+                this.keyId = keyId;
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws java.lang.IllegalArgumentException when the metadata is malformed.
+         */
+        @Nonnull
+        @Override
+        public M metadata () throws IllegalArgumentException {
+                M metadata = this.metadata;
+
+                if (metadata == null) {
+                        metadata = this.metadataCodec.decode (this.metadataType, this.encodedMetadata.duplicate ());
+                        this.metadata = metadata;
+                }
+
+                return metadata;
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws java.lang.IllegalArgumentException when the metadata is malformed.
+         */
+        @Nonnull
+        @Override
+        public AuthenticationClaimMetadata baseMetadata () throws IllegalArgumentException {
+                AuthenticationClaimMetadata baseMetadata = this.baseMetadata;
+
+                if (baseMetadata == null) {
+                        baseMetadata = this.metadata;
+                        if (baseMetadata == null) baseMetadata = this.metadataCodec.decodeBase (this.metadataType, this.encodedMetadata.duplicate ());
+                        if (baseMetadata == null) baseMetadata = this.metadata ();
+
+                        this.baseMetadata = baseMetadata;
+                }
+
+                return baseMetadata;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Class<M> metadataType () {
+                return this.metadataType;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public ByteBuffer signature () {
+                return this.signature;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public ByteBuffer encodedMetadata () {
+                return this.encodedMetadata.duplicate ();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public String keyId () {
+                return this.keyId;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals (Object o) {
+                if (this == o) { return true; }
+                if (!(o instanceof LazyAuthenticationClaim)) { return false; }
+
+                LazyAuthenticationClaim<?> that = (LazyAuthenticationClaim<?>) o;
+
+                if (!encodedMetadata.equals (that.encodedMetadata)) { return false; }
+                if (!metadataType.equals (that.metadataType)) { return false; }
+                if (keyId != null ? !keyId.equals (that.keyId) : that.keyId != null) { return false; }
+                return signature.equals (that.signature);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode () {
+                int result = encodedMetadata.hashCode ();
+                result = 31 * result + metadataType.hashCode ();
+                result = 31 * result + signature.hashCode ();
+                return result;
+        }
+}
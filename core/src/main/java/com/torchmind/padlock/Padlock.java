@@ -0,0 +1,2345 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import com.torchmind.padlock.cache.RejectedTokenCache;
+import com.torchmind.padlock.cache.VerifiedClaimCache;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.CompositeMetadataCodec;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.revocation.IRevocationCheck;
+import com.torchmind.padlock.security.KeyRing;
+import com.torchmind.padlock.security.ProviderPool;
+import com.torchmind.padlock.security.ReloadableProviderFactory;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.signature.ISignatureProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProvider;
+import com.torchmind.padlock.security.verification.IVerificationProviderFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Provides access to the Padlock en/de-coders.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public abstract class Padlock {
+        private static final ThreadLocal<TokenScratch> TOKEN_SCRATCH = ThreadLocal.withInitial (TokenScratch::new);
+
+        private final Duration maximumValidityDuration;
+        private final IMetadataCodec metadataCodec;
+        private final VerifiedClaimCache verifiedClaimCache;
+        private final RejectedTokenCache rejectedTokenCache;
+        private final Executor asyncExecutor;
+        private final ForkJoinPool batchPool;
+        private final boolean expiryPrecheck;
+        private final IRevocationCheck revocationCheck;
+
+        protected Padlock (@Nonnull Builder builder) {
+                IMetadataCodec metadataCodec = builder.metadataCodec ();
+                if (metadataCodec == null) metadataCodec = new JacksonMetadataCodec ();
+                if (builder.discoverMetadataCodecs ()) metadataCodec = CompositeMetadataCodec.discover (metadataCodec);
+
+                this.maximumValidityDuration = builder.maximumValidityDuration ();
+                this.metadataCodec = metadataCodec;
+                this.verifiedClaimCache = builder.verifiedClaimCache ();
+                this.rejectedTokenCache = builder.rejectedTokenCache ();
+                this.asyncExecutor = builder.asyncExecutor ();
+                this.batchPool = builder.batchPool ();
+                this.expiryPrecheck = builder.expiryPrecheck ();
+                this.revocationCheck = builder.revocationCheck ();
+        }
+
+        protected Padlock (@Nullable Duration maximumValidityDuration, @Nonnull IMetadataCodec metadataCodec) {
+                this (new Builder ().maximumValidityDuration (maximumValidityDuration).metadataCodec (metadataCodec));
+        }
+
+        /**
+         * Retrieves a {@link com.torchmind.padlock.Padlock} instance factory.
+         * @return The factory.
+         */
+        public static Builder builder () {
+                return (new Builder ());
+        }
+
+        /**
+         * Decodes an authentication claim.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull String claim) throws IllegalArgumentException {
+                return this.decode (type, (CharSequence) claim);
+        }
+
+        /**
+         * Decodes an authentication claim.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull CharSequence claim) throws IllegalArgumentException {
+                return this.decode (type, claim, false);
+        }
+
+        /**
+         * Decodes an authentication claim without binding its full metadata.
+         * The base fields (identifier, issuance and expiration) are decoded on first access while the full metadata object
+         * is only bound when {@link com.torchmind.padlock.IAuthenticationClaim#metadata()} is invoked. As a result, malformed
+         * metadata may not be reported until either of them is accessed.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decodeLazily (@Nonnull Class<M> type, @Nonnull String claim) throws IllegalArgumentException {
+                return this.decode (type, claim, true);
+        }
+
+        /**
+         * Decodes an authentication claim without binding its full metadata.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         * @see #decodeLazily(Class, String)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decodeLazily (@Nonnull Class<M> type, @Nonnull CharSequence claim) throws IllegalArgumentException {
+                return this.decode (type, claim, true);
+        }
+
+        /**
+         * Decodes an authentication claim from the remaining ASCII encoded bytes of a buffer without binding its full
+         * metadata.
+         * The buffer position is not modified.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         * @see #decodeLazily(Class, String)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decodeLazily (@Nonnull Class<M> type, @Nonnull ByteBuffer claim) throws IllegalArgumentException {
+                return this.decode (type, claim, true);
+        }
+
+        /**
+         * Decodes an authentication claim.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param lazily True if the metadata is to be bound on first access.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        private <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull CharSequence claim, boolean lazily) throws IllegalArgumentException {
+                int separatorIndex = indexOfSeparator (claim, 0);
+                if (separatorIndex == -1) throw new IllegalArgumentException ("Missing signature separator in claim");
+
+                int metadataOffset = 0;
+                String keyId = null;
+
+                int nextSeparatorIndex = indexOfSeparator (claim, (separatorIndex + 1));
+
+                if (nextSeparatorIndex != -1) {
+                        keyId = keyId (claim, 0, separatorIndex);
+                        if (keyId == null) throw new IllegalArgumentException ("Illegal key identifier in claim");
+
+                        metadataOffset = (separatorIndex + 1);
+                        separatorIndex = nextSeparatorIndex;
+                }
+
+                int signatureOffset = (separatorIndex + 1);
+                int metadataLength = Base64Url.decodedLength (claim, metadataOffset, (separatorIndex - metadataOffset));
+                int signatureLength = Base64Url.decodedLength (claim, signatureOffset, (claim.length () - signatureOffset));
+                if (metadataLength == -1 || signatureLength == -1) throw new IllegalArgumentException ("Illegal Base64 encoding in claim");
+
+                byte[] metadataBytes = new byte[metadataLength];
+                byte[] signatureBytes = new byte[signatureLength];
+
+                if (Base64Url.decode (claim, metadataOffset, metadataBytes) == -1 || Base64Url.decode (claim, signatureOffset, signatureBytes) == -1)
+                        throw new IllegalArgumentException ("Illegal Base64 character in claim");
+
+                return this.decode (type, metadataBytes, signatureBytes, keyId, lazily);
+        }
+
+        /**
+         * Decodes an authentication claim from a range of ASCII encoded bytes.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param offset The token offset.
+         * @param length The token length.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull byte[] claim, int offset, int length) throws IllegalArgumentException {
+                return this.decode (type, ByteBuffer.wrap (claim, offset, length));
+        }
+
+        /**
+         * Decodes an authentication claim from the remaining ASCII encoded bytes of a buffer.
+         * The buffer position is not modified.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull ByteBuffer claim) throws IllegalArgumentException {
+                return this.decode (type, claim, false);
+        }
+
+        /**
+         * Decodes an authentication claim from the remaining ASCII encoded bytes of a buffer.
+         * @param type The metadata type.
+         * @param claim The encoded token.
+         * @param lazily True if the metadata is to be bound on first access.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the claim is malformed.
+         */
+        @Nonnull
+        private <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull ByteBuffer claim, boolean lazily) throws IllegalArgumentException {
+                int separatorIndex = indexOfSeparator (claim, claim.position ());
+                if (separatorIndex == -1) throw new IllegalArgumentException ("Missing signature separator in claim");
+
+                int metadataOffset = claim.position ();
+                String keyId = null;
+
+                int nextSeparatorIndex = indexOfSeparator (claim, (separatorIndex + 1));
+
+                if (nextSeparatorIndex != -1) {
+                        keyId = keyId (claim, claim.position (), (separatorIndex - claim.position ()));
+                        if (keyId == null) throw new IllegalArgumentException ("Illegal key identifier in claim");
+
+                        metadataOffset = (separatorIndex + 1);
+                        separatorIndex = nextSeparatorIndex;
+                }
+
+                int signatureOffset = (separatorIndex + 1);
+                int metadataLength = Base64Url.decodedLength (claim, metadataOffset, (separatorIndex - metadataOffset));
+                int signatureLength = Base64Url.decodedLength (claim, signatureOffset, (claim.limit () - signatureOffset));
+                if (metadataLength == -1 || signatureLength == -1) throw new IllegalArgumentException ("Illegal Base64 encoding in claim");
+
+                byte[] metadataBytes = new byte[metadataLength];
+                byte[] signatureBytes = new byte[signatureLength];
+
+                if (Base64Url.decode (claim, metadataOffset, metadataBytes, 0, metadataLength) == -1 || Base64Url.decode (claim, signatureOffset, signatureBytes, 0, signatureLength) == -1)
+                        throw new IllegalArgumentException ("Illegal Base64 character in claim");
+
+                return this.decode (type, metadataBytes, signatureBytes, keyId, lazily);
+        }
+
+        /**
+         * Decodes an authentication claim from its raw components.
+         * @param type The metadata type.
+         * @param metadataBytes The encoded metadata.
+         * @param signatureBytes The signature.
+         * @param keyId The key identifier (or null).
+         * @param lazily True if the metadata is to be bound on first access.
+         * @param <M> The metadata type.
+         * @return The claim.
+         * @throws java.lang.IllegalArgumentException when the metadata is malformed.
+         */
+        @Nonnull
+        private <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> decode (@Nonnull Class<M> type, @Nonnull byte[] metadataBytes, @Nonnull byte[] signatureBytes, @Nullable String keyId, boolean lazily) throws IllegalArgumentException {
+                ByteBuffer metadataBuffer = ByteBuffer.wrap (metadataBytes);
+                ByteBuffer signatureBuffer = ByteBuffer.wrap (signatureBytes);
+                if (lazily) return (new LazyAuthenticationClaim<> (this.metadataCodec (), type, metadataBuffer, signatureBuffer, keyId));
+
+                M metadata = this.metadataCodec ().decode (type, metadataBuffer.duplicate ());
+
+                return (new AuthenticationClaim<> (type, metadata, signatureBuffer, metadataBuffer, keyId));
+        }
+
+        /**
+         * Encodes an authentication claim.
+         * @param claim The claim.
+         * @param <M> The claim type.
+         * @return The encoded claim.
+         */
+        public <M extends AuthenticationClaimMetadata> String encode (@Nonnull IAuthenticationClaim<M> claim) {
+                ByteBuffer metadataBuffer = this.encodedMetadata (claim);
+                ByteBuffer signatureBuffer = claim.signature ();
+
+                byte[] encoded = new byte[encodedLength (claim.keyId (), metadataBuffer, signatureBuffer)];
+                encode (claim.keyId (), metadataBuffer, signatureBuffer, encoded, 0);
+
+                return new String (encoded, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Calculates the exact length of an encoded authentication claim.
+         * @param claim The claim.
+         * @param <M> The claim type.
+         * @return The amount of characters (or bytes respectively).
+         */
+        public <M extends AuthenticationClaimMetadata> int encodedLength (@Nonnull IAuthenticationClaim<M> claim) {
+                return encodedLength (claim.keyId (), this.encodedMetadata (claim), claim.signature ());
+        }
+
+        /**
+         * Encodes an authentication claim into a buffer.
+         * The buffer position is advanced past the encoded claim.
+         * @param claim The claim.
+         * @param target The target buffer.
+         * @param <M> The claim type.
+         * @return The amount of written bytes.
+         * @throws java.nio.BufferOverflowException when the target buffer cannot hold the encoded claim (no bytes are
+         * written in this case).
+         */
+        public <M extends AuthenticationClaimMetadata> int encode (@Nonnull IAuthenticationClaim<M> claim, @Nonnull ByteBuffer target) throws BufferOverflowException {
+                ByteBuffer metadataBuffer = this.encodedMetadata (claim);
+                ByteBuffer signatureBuffer = claim.signature ();
+
+                String keyId = claim.keyId ();
+                int length = encodedLength (keyId, metadataBuffer, signatureBuffer);
+                if (target.remaining () < length) throw new BufferOverflowException ();
+
+                if (keyId != null) {
+                        for (int i = 0; i < keyId.length (); ++i) target.put ((byte) keyId.charAt (i));
+                        target.put ((byte) '.');
+                }
+
+                Base64Url.encode (metadataBuffer, target);
+                target.put ((byte) '.');
+                Base64Url.encode (signatureBuffer, target);
+
+                return length;
+        }
+
+        /**
+         * Encodes an authentication claim into an array.
+         * @param claim The claim.
+         * @param target The target array.
+         * @param offset The target offset.
+         * @param <M> The claim type.
+         * @return The amount of written bytes.
+         * @throws java.lang.IndexOutOfBoundsException when the target array cannot hold the encoded claim (no bytes are
+         * written in this case).
+         */
+        public <M extends AuthenticationClaimMetadata> int encode (@Nonnull IAuthenticationClaim<M> claim, @Nonnull byte[] target, int offset) throws IndexOutOfBoundsException {
+                ByteBuffer metadataBuffer = this.encodedMetadata (claim);
+                ByteBuffer signatureBuffer = claim.signature ();
+
+                String keyId = claim.keyId ();
+                int length = encodedLength (keyId, metadataBuffer, signatureBuffer);
+                if (offset < 0 || (target.length - offset) < length)
+                        throw new IndexOutOfBoundsException ("Cannot encode claim of length " + length + " at offset " + offset + " into array of length " + target.length);
+
+                encode (keyId, metadataBuffer, signatureBuffer, target, offset);
+                return length;
+        }
+
+        /**
+         * Encodes an authentication claim into an appendable (such as a {@link java.lang.StringBuilder}).
+         * @param claim The claim.
+         * @param target The target.
+         * @param <M> The claim type.
+         * @return The amount of written characters.
+         * @throws java.io.IOException when appending fails.
+         */
+        public <M extends AuthenticationClaimMetadata> int encode (@Nonnull IAuthenticationClaim<M> claim, @Nonnull Appendable target) throws IOException {
+                ByteBuffer metadataBuffer = this.encodedMetadata (claim);
+                ByteBuffer signatureBuffer = claim.signature ();
+
+                String keyId = claim.keyId ();
+                int length = encodedLength (keyId, metadataBuffer, signatureBuffer);
+                if (target instanceof StringBuilder) ((StringBuilder) target).ensureCapacity (((StringBuilder) target).length () + length);
+                if (keyId != null) target.append (keyId).append ('.');
+
+                Base64Url.encode (metadataBuffer, target);
+                target.append ('.');
+                Base64Url.encode (signatureBuffer, target);
+
+                return length;
+        }
+
+        /**
+         * Calculates the length of an encoded claim.
+         * @param keyId The key identifier (or null).
+         * @param metadata The encoded metadata.
+         * @param signature The signature.
+         * @return The amount of characters.
+         */
+        private static int encodedLength (@Nullable String keyId, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) {
+                int length = (Base64Url.encodedLength (metadata.remaining ()) + 1 + Base64Url.encodedLength (signature.remaining ()));
+                if (keyId != null) length += (keyId.length () + 1);
+
+                return length;
+        }
+
+        /**
+         * Encodes a claim into an array.
+         * @param keyId The key identifier (or null).
+         * @param metadata The encoded metadata.
+         * @param signature The signature.
+         * @param target The target array.
+         * @param offset The target offset.
+         */
+        private static void encode (@Nullable String keyId, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature, @Nonnull byte[] target, int offset) {
+                if (keyId != null) {
+                        for (int i = 0; i < keyId.length (); ++i) target[offset++] = (byte) keyId.charAt (i);
+                        target[offset++] = '.';
+                }
+
+                offset = Base64Url.encode (metadata, target, offset);
+                target[offset++] = '.';
+                Base64Url.encode (signature, target, offset);
+        }
+
+        /**
+         * Signs an authentication claim.
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param <M> The metadata type.
+         * @return The signed claim.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding the signature fails.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> sign (@Nonnull Class<M> metadataType, @Nonnull M metadata) throws IllegalStateException, SignatureException {
+                return this.sign (null, metadataType, metadata);
+        }
+
+        /**
+         * Signs an authentication claim.
+         * @param provider The provider to sign with (if null, a provider is acquired for the duration of the call).
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param <M> The metadata type.
+         * @return The signed claim.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when encoding the signature fails.
+         * @see #sign(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)
+         */
+        @Nonnull
+        protected <M extends AuthenticationClaimMetadata> IAuthenticationClaim<M> sign (@Nullable ISignatureProvider provider, @Nonnull Class<M> metadataType, @Nonnull M metadata) throws IllegalStateException, SignatureException {
+                if (this.maximumValidityDuration () != null && metadata.validity ().compareTo (this.maximumValidityDuration ()) == 1)
+                        throw new IllegalArgumentException ("Cannot sign claim with period of " + metadata.validity ().getSeconds () + " seconds (limit is " + this.maximumValidityDuration ().getSeconds () + " seconds)");
+
+                ByteBuffer metadataBuffer = this.metadataCodec ().encode (metadataType, metadata);
+                ByteBuffer signatureBuffer;
+
+                if (provider != null)
+                        return (new AuthenticationClaim<> (metadataType, metadata, provider.sign (metadataBuffer.duplicate ()), metadataBuffer, keyId (provider)));
+
+                provider = this.acquireSignatureProvider ();
+
+                if (provider == null)
+                        throw new IllegalStateException ("Cannot sign authentication claims: No signature provider available");
+
+                String keyId = keyId (provider);
+
+                try {
+                        signatureBuffer = provider.sign (metadataBuffer.duplicate ());
+                } finally {
+                        this.releaseSignatureProvider (provider);
+                }
+
+                return (new AuthenticationClaim<> (metadataType, metadata, signatureBuffer, metadataBuffer, keyId));
+        }
+
+        /**
+         * Exchanges a token for a session claim signed by another (typically HMAC based) instance.
+         * The token is fully verified by this instance. The resulting session claim carries the identifier of the
+         * original claim and expires after the supplied duration or along with the original claim (whichever comes
+         * first), thus subsequent hops only need to verify the session claim through the (considerably cheaper) session
+         * instance.
+         * <strong>Note:</strong> Session claims consist of base metadata only.
+         * @param type The metadata type.
+         * @param token The encoded claim.
+         * @param sessionPadlock The instance which signs session claims.
+         * @param duration The maximum session claim validity.
+         * @param <M> The metadata type.
+         * @return The session claim or null if the token is invalid, revoked, expired or not yet valid.
+         * @throws java.lang.IllegalStateException when either instance lacks the required provider.
+         * @throws java.security.SignatureException when signing the session claim fails.
+         */
+        @Nullable
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<AuthenticationClaimMetadata> exchange (@Nonnull Class<M> type, @Nonnull String token, @Nonnull Padlock sessionPadlock, @Nonnull Duration duration) throws IllegalStateException, SignatureException {
+                M metadata = this.verifyToken (type, token);
+                if (metadata == null) return null;
+
+                return exchange (metadata, sessionPadlock, duration);
+        }
+
+        /**
+         * Exchanges a claim for a session claim signed by another (typically HMAC based) instance.
+         * @param claim The claim.
+         * @param sessionPadlock The instance which signs session claims.
+         * @param duration The maximum session claim validity.
+         * @param <M> The metadata type.
+         * @return The session claim or null if the claim is invalid, revoked, expired or not yet valid.
+         * @throws java.lang.IllegalStateException when either instance lacks the required provider.
+         * @throws java.security.SignatureException when signing the session claim fails.
+         * @see #exchange(Class, String, Padlock, java.time.Duration)
+         */
+        @Nullable
+        public <M extends AuthenticationClaimMetadata> IAuthenticationClaim<AuthenticationClaimMetadata> exchange (@Nonnull IAuthenticationClaim<M> claim, @Nonnull Padlock sessionPadlock, @Nonnull Duration duration) throws IllegalStateException, SignatureException {
+                if (!this.verify (claim)) return null;
+                return exchange (claim.metadata (), sessionPadlock, duration);
+        }
+
+        /**
+         * Issues a session claim for verified metadata.
+         * @param metadata The verified metadata.
+         * @param sessionPadlock The instance which signs session claims.
+         * @param duration The maximum session claim validity.
+         * @return The session claim or null if the metadata is expired or not yet valid.
+         * @throws java.lang.IllegalStateException when the session instance lacks a signature provider.
+         * @throws java.security.SignatureException when signing the session claim fails.
+         */
+        @Nullable
+        private static IAuthenticationClaim<AuthenticationClaimMetadata> exchange (@Nonnull AuthenticationClaimMetadata metadata, @Nonnull Padlock sessionPadlock, @Nonnull Duration duration) throws IllegalStateException, SignatureException {
+                Instant now = Instant.now ();
+                Instant expiration = now.plus (duration);
+
+                if (metadata.issuance ().isAfter (now)) return null;
+
+                if (metadata.expiration () != null) {
+                        if (!metadata.expiration ().isAfter (now)) return null;
+                        if (metadata.expiration ().isBefore (expiration)) expiration = metadata.expiration ();
+                }
+
+                return sessionPadlock.sign (AuthenticationClaimMetadata.class, new AuthenticationClaimMetadata (metadata.identifier (), now, expiration));
+        }
+
+        /**
+         * Verifies an authentication claim.
+         * Claims which carry a valid signature are rejected nonetheless if they have been revoked (see
+         * {@link #revocationCheck()}). Their validity period, however, is not checked.
+         * @param claim The claim.
+         * @param <M> The claim metadata type.
+         * @return True if valid.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        public <M extends AuthenticationClaimMetadata> boolean verify (@Nonnull IAuthenticationClaim<M> claim) throws IllegalStateException {
+                ByteBuffer metadataBuffer = this.encodedMetadata (claim);
+                ByteBuffer signatureBuffer = claim.signature ();
+
+                return (this.verify (null, claim.keyId (), metadataBuffer, signatureBuffer) && !this.revoked (claim.metadata ()));
+        }
+
+        /**
+         * Verifies a batch of authentication claims in parallel.
+         * The batch is split across the {@link #batchPool()} where every worker acquires a single verification provider
+         * for its entire share of the batch.
+         * @param claims The claims.
+         * @param <M> The claim metadata type.
+         * @return A bitmap in which the bit at a claim's position is set if the claim is valid.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verify(IAuthenticationClaim)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> BitSet verifyAll (@Nonnull Collection<? extends IAuthenticationClaim<M>> claims) throws IllegalStateException {
+                IAuthenticationClaim<?>[] claimArray = claims.toArray (new IAuthenticationClaim<?>[claims.size ()]);
+                long[] words = new long[(claimArray.length + 63) >>> 6];
+
+                this.batch (claimArray.length, (provider, index) -> {
+                        IAuthenticationClaim<?> claim = claimArray[index];
+
+                        if (this.verify (provider, claim.keyId (), this.encodedMetadata (claim), claim.signature ()) && !this.revoked (claim.metadata ()))
+                                words[index >>> 6] |= (1L << index);
+                });
+
+                return BitSet.valueOf (words);
+        }
+
+        /**
+         * Verifies a batch of encoded authentication claims in parallel and decodes their metadata.
+         * The batch is split across the {@link #batchPool()} where every worker acquires a single verification provider
+         * for its entire share of the batch.
+         * @param type The metadata type.
+         * @param tokens The encoded tokens.
+         * @param <M> The metadata type.
+         * @return An array containing the metadata of each token at its respective position (or null if the token has
+         * been rejected).
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> M[] decodeAndVerifyAll (@Nonnull Class<M> type, @Nonnull Collection<String> tokens) throws IllegalStateException {
+                String[] tokenArray = tokens.toArray (new String[tokens.size ()]);
+
+                @SuppressWarnings ("unchecked")
+                M[] metadata = (M[]) Array.newInstance (type, tokenArray.length);
+
+                this.batch (tokenArray.length, (provider, index) -> this.verifyToken (provider, type, tokenArray[index], (m) -> metadata[index] = m));
+                return metadata;
+        }
+
+        /**
+         * Executes a batch operation on the batch pool.
+         * @param length The batch length.
+         * @param operation The operation to apply to every index of the batch.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        private void batch (int length, @Nonnull BatchOperation operation) throws IllegalStateException {
+                if (length == 0) return;
+                this.batchPool ().invoke (new BatchTask (0, length, operation));
+        }
+
+        /**
+         * Signs an authentication claim on the asynchronous executor.
+         * @param metadataType The metadata type.
+         * @param metadata The metadata.
+         * @param <M> The metadata type.
+         * @return A future which completes with the signed claim.
+         * @throws java.lang.IllegalStateException when no asynchronous executor is available.
+         * @see #sign(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> CompletableFuture<IAuthenticationClaim<M>> signAsync (@Nonnull Class<M> metadataType, @Nonnull M metadata) throws IllegalStateException {
+                return this.supplyAsync (() -> {
+                        try {
+                                return this.sign (metadataType, metadata);
+                        } catch (SignatureException ex) {
+                                throw new CompletionException (ex);
+                        }
+                });
+        }
+
+        /**
+         * Verifies an authentication claim on the asynchronous executor.
+         * @param claim The claim.
+         * @param <M> The claim metadata type.
+         * @return A future which completes with true if the claim is valid.
+         * @throws java.lang.IllegalStateException when no asynchronous executor is available.
+         * @see #verify(IAuthenticationClaim)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> CompletableFuture<Boolean> verifyAsync (@Nonnull IAuthenticationClaim<M> claim) throws IllegalStateException {
+                return this.supplyAsync (() -> this.verify (claim));
+        }
+
+        /**
+         * Verifies an encoded authentication claim and decodes its metadata on the asynchronous executor.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param <M> The metadata type.
+         * @return A future which completes with the metadata or null if the claim has been rejected.
+         * @throws java.lang.IllegalStateException when no asynchronous executor is available.
+         * @see #verifyToken(Class, String)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> CompletableFuture<M> decodeAndVerifyAsync (@Nonnull Class<M> type, @Nonnull String token) throws IllegalStateException {
+                return this.supplyAsync (() -> this.verifyToken (type, token));
+        }
+
+        /**
+         * Executes a task on the asynchronous executor.
+         * Tasks rejected by the executor (for instance due to a full queue) result in an exceptionally completed future.
+         * @param supplier The task.
+         * @param <R> The result type.
+         * @return The future.
+         * @throws java.lang.IllegalStateException when no asynchronous executor is available.
+         */
+        @Nonnull
+        private <R> CompletableFuture<R> supplyAsync (@Nonnull Supplier<R> supplier) throws IllegalStateException {
+                Executor executor = this.asyncExecutor ();
+
+                if (executor == null)
+                        throw new IllegalStateException ("Cannot execute asynchronous operation: No executor available");
+
+                try {
+                        return CompletableFuture.supplyAsync (supplier, executor);
+                } catch (RejectedExecutionException ex) {
+                        CompletableFuture<R> future = new CompletableFuture<> ();
+                        future.completeExceptionally (ex);
+                        return future;
+                }
+        }
+
+        /**
+         * Verifies an encoded authentication claim and decodes its metadata.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param <M> The metadata type.
+         * @return The metadata or null if the claim has been rejected.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String, java.util.function.Consumer)
+         */
+        @Nullable
+        public <M extends AuthenticationClaimMetadata> M verifyToken (@Nonnull Class<M> type, @Nonnull String token) throws IllegalStateException {
+                AtomicReference<M> metadata = new AtomicReference<> ();
+                if (!this.verifyToken (type, token, metadata::set).valid ()) return null;
+
+                return metadata.get ();
+        }
+
+        /**
+         * Verifies an encoded authentication claim and decodes its metadata.
+         * Unlike calling {@link #decode(Class, String)} followed by {@link #verify(IAuthenticationClaim)}, the signature
+         * is checked against the raw metadata bytes before any metadata is decoded. Claims with invalid signatures are
+         * thus rejected without invoking the metadata codec while no intermediate claim object is constructed for valid
+         * claims. Rejections are reported through the returned status rather than exceptions.
+         * When a {@link com.torchmind.padlock.cache.VerifiedClaimCache} is configured, previously verified tokens are
+         * served from the cache without repeating the signature verification. Similarly, a
+         * {@link com.torchmind.padlock.cache.RejectedTokenCache} is consulted before any decoding takes place.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nonnull Class<M> type, @Nonnull String token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                return this.verifyToken (null, type, token, consumer);
+        }
+
+        /**
+         * Verifies an encoded authentication claim and decodes its metadata.
+         * @param provider The provider to verify with (if null, a provider is acquired when required).
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String, java.util.function.Consumer)
+         */
+        @Nonnull
+        protected <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nullable IVerificationProvider provider, @Nonnull Class<M> type, @Nonnull String token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                VerifiedClaimCache cache = this.verifiedClaimCache ();
+
+                // captured before verifying so that results obtained with retired keys are never served later on
+                long generation = this.keyGeneration ();
+
+                if (cache != null) {
+                        M metadata = cache.get (type, token, generation);
+
+                        if (metadata != null) {
+                                // claims may have been revoked after they were cached
+                                if (this.revoked (metadata)) return TokenStatus.REVOKED;
+
+                                consumer.accept (metadata);
+                                return TokenStatus.VALID;
+                        }
+                }
+
+                RejectedTokenCache rejectedCache = this.rejectedTokenCache ();
+
+                if (rejectedCache != null) {
+                        TokenStatus status = rejectedCache.get (token, generation);
+                        if (status != null) return status;
+                }
+
+                Consumer<? super M> target = consumer;
+                if (cache != null) target = (m) -> {
+                        cache.put (type, token, m, generation);
+                        consumer.accept (m);
+                };
+
+                TokenStatus status = this.verifyToken (provider, type, (CharSequence) token, target);
+                if (status == TokenStatus.NOT_YET_VALID || status == TokenStatus.UNKNOWN_KEY || status.valid ()) return status;
+
+                return this.reject (token, status, generation);
+        }
+
+        /**
+         * Verifies an encoded authentication claim and decodes its metadata.
+         * Tokens are decoded in place into a per-thread scratch buffer and thus no heap memory is allocated apart from the
+         * resulting metadata. Caches are only consulted for {@link java.lang.String} tokens.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String, java.util.function.Consumer)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nonnull Class<M> type, @Nonnull CharSequence token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                if (token instanceof String) return this.verifyToken (null, type, (String) token, consumer);
+                return this.verifyToken (null, type, token, consumer);
+        }
+
+        /**
+         * Verifies an encoded authentication claim stored as a range of ASCII encoded bytes and decodes its metadata.
+         * Tokens are decoded in place into a per-thread scratch buffer and thus no heap memory is allocated apart from the
+         * resulting metadata. Caches are not consulted.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param offset The token offset.
+         * @param length The token length.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String, java.util.function.Consumer)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nonnull Class<M> type, @Nonnull byte[] token, int offset, int length, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                return this.verifyToken (null, type, ByteBuffer.wrap (token, offset, length), consumer);
+        }
+
+        /**
+         * Verifies an encoded authentication claim stored as the remaining ASCII encoded bytes of a buffer and decodes its
+         * metadata.
+         * Tokens are decoded in place into a per-thread scratch buffer and thus no heap memory is allocated apart from the
+         * resulting metadata. Caches are not consulted and the buffer position is not modified.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         * @see #verifyToken(Class, String, java.util.function.Consumer)
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nonnull Class<M> type, @Nonnull ByteBuffer token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                return this.verifyToken (null, type, token, consumer);
+        }
+
+        /**
+         * Verifies an encoded authentication claim without consulting any caches.
+         * @param provider The provider to verify with (if null, a provider is acquired when required).
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        @Nonnull
+        protected <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nullable IVerificationProvider provider, @Nonnull Class<M> type, @Nonnull CharSequence token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                int separatorIndex = indexOfSeparator (token, 0);
+                if (separatorIndex == -1) return TokenStatus.MALFORMED;
+
+                int metadataOffset = 0;
+                String keyId = null;
+
+                int nextSeparatorIndex = indexOfSeparator (token, (separatorIndex + 1));
+
+                if (nextSeparatorIndex != -1) {
+                        keyId = keyId (token, 0, separatorIndex);
+                        if (keyId == null) return TokenStatus.MALFORMED;
+
+                        metadataOffset = (separatorIndex + 1);
+                        separatorIndex = nextSeparatorIndex;
+                }
+
+                int signatureOffset = (separatorIndex + 1);
+                int metadataLength = Base64Url.decodedLength (token, metadataOffset, (separatorIndex - metadataOffset));
+                int signatureLength = Base64Url.decodedLength (token, signatureOffset, (token.length () - signatureOffset));
+                if (metadataLength == -1 || signatureLength == -1) return TokenStatus.MALFORMED;
+
+                TokenScratch scratch = TOKEN_SCRATCH.get ();
+                ByteBuffer metadataBuffer = scratch.metadata (metadataLength);
+                ByteBuffer signatureBuffer = scratch.signature (signatureLength);
+
+                if (Base64Url.decode (token, metadataOffset, metadataBuffer.array (), 0, metadataLength) == -1 || Base64Url.decode (token, signatureOffset, signatureBuffer.array (), 0, signatureLength) == -1)
+                        return TokenStatus.MALFORMED;
+
+                return this.verifyToken (provider, type, keyId, metadataBuffer, signatureBuffer, consumer);
+        }
+
+        /**
+         * Verifies an encoded authentication claim stored as ASCII encoded bytes without consulting any caches.
+         * @param provider The provider to verify with (if null, a provider is acquired when required).
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        @Nonnull
+        protected <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nullable IVerificationProvider provider, @Nonnull Class<M> type, @Nonnull ByteBuffer token, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                int separatorIndex = indexOfSeparator (token, token.position ());
+                if (separatorIndex == -1) return TokenStatus.MALFORMED;
+
+                int metadataOffset = token.position ();
+                String keyId = null;
+
+                int nextSeparatorIndex = indexOfSeparator (token, (separatorIndex + 1));
+
+                if (nextSeparatorIndex != -1) {
+                        keyId = keyId (token, token.position (), (separatorIndex - token.position ()));
+                        if (keyId == null) return TokenStatus.MALFORMED;
+
+                        metadataOffset = (separatorIndex + 1);
+                        separatorIndex = nextSeparatorIndex;
+                }
+
+                int signatureOffset = (separatorIndex + 1);
+                int metadataLength = Base64Url.decodedLength (token, metadataOffset, (separatorIndex - metadataOffset));
+                int signatureLength = Base64Url.decodedLength (token, signatureOffset, (token.limit () - signatureOffset));
+                if (metadataLength == -1 || signatureLength == -1) return TokenStatus.MALFORMED;
+
+                TokenScratch scratch = TOKEN_SCRATCH.get ();
+                ByteBuffer metadataBuffer = scratch.metadata (metadataLength);
+                ByteBuffer signatureBuffer = scratch.signature (signatureLength);
+
+                if (Base64Url.decode (token, metadataOffset, metadataBuffer.array (), 0, metadataLength) == -1 || Base64Url.decode (token, signatureOffset, signatureBuffer.array (), 0, signatureLength) == -1)
+                        return TokenStatus.MALFORMED;
+
+                return this.verifyToken (provider, type, keyId, metadataBuffer, signatureBuffer, consumer);
+        }
+
+        /**
+         * Verifies a decoded authentication claim and decodes its metadata.
+         * Any runtime exception raised by the metadata codec is reported as
+         * {@link com.torchmind.padlock.TokenStatus#MALFORMED}.
+         * @param provider The provider to verify with (if null, a provider is acquired when required).
+         * @param type The metadata type.
+         * @param keyId The key identifier (or null).
+         * @param metadataBuffer The encoded metadata.
+         * @param signatureBuffer The signature.
+         * @param consumer The consumer which receives the metadata of valid claims.
+         * @param <M> The metadata type.
+         * @return The verification status.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        @Nonnull
+        private <M extends AuthenticationClaimMetadata> TokenStatus verifyToken (@Nullable IVerificationProvider provider, @Nonnull Class<M> type, @Nullable String keyId, @Nonnull ByteBuffer metadataBuffer, @Nonnull ByteBuffer signatureBuffer, @Nonnull Consumer<? super M> consumer) throws IllegalStateException {
+                if (!this.knowsKey (keyId)) return TokenStatus.UNKNOWN_KEY;
+
+                Instant now = Instant.now ();
+
+                if (this.expiryPrecheck ()) {
+                        AuthenticationClaimMetadata baseMetadata;
+
+                        try {
+                                baseMetadata = this.metadataCodec ().decodeBase (type, metadataBuffer.duplicate ());
+                        } catch (RuntimeException ex) {
+                                return TokenStatus.MALFORMED;
+                        }
+
+                        if (baseMetadata != null) {
+                                if (baseMetadata.notYetValid (now)) return TokenStatus.NOT_YET_VALID;
+                                if (baseMetadata.expired (now)) return TokenStatus.EXPIRED;
+                        }
+                }
+
+                if (!this.verify (provider, keyId, metadataBuffer, signatureBuffer)) return TokenStatus.INVALID_SIGNATURE;
+                metadataBuffer.rewind ();
+
+                M metadata;
+
+                try {
+                        metadata = this.metadataCodec ().decode (type, metadataBuffer);
+                } catch (RuntimeException ex) {
+                        return TokenStatus.MALFORMED;
+                }
+
+                if (metadata.notYetValid (now)) return TokenStatus.NOT_YET_VALID;
+                if (metadata.expired (now)) return TokenStatus.EXPIRED;
+                if (this.revoked (metadata)) return TokenStatus.REVOKED;
+
+                consumer.accept (metadata);
+                return TokenStatus.VALID;
+        }
+
+        /**
+         * Checks whether a claim has been revoked.
+         * @param metadata The claim metadata.
+         * @return True if revoked, false otherwise.
+         */
+        private boolean revoked (@Nonnull AuthenticationClaimMetadata metadata) {
+                IRevocationCheck revocationCheck = this.revocationCheck ();
+                return (revocationCheck != null && revocationCheck.revoked (metadata.identifier ()));
+        }
+
+        /**
+         * Locates the next separator within an encoded token.
+         * @param token The encoded token.
+         * @param offset The offset to start searching at.
+         * @return The separator index or -1 if no separator is present.
+         */
+        private static int indexOfSeparator (@Nonnull CharSequence token, int offset) {
+                for (int i = offset; i < token.length (); ++i)
+                        if (token.charAt (i) == '.') return i;
+
+                return -1;
+        }
+
+        /**
+         * Locates the next separator within the remaining bytes of an encoded token.
+         * @param token The encoded token.
+         * @param offset The absolute offset to start searching at.
+         * @return The absolute separator index or -1 if no separator is present.
+         */
+        private static int indexOfSeparator (@Nonnull ByteBuffer token, int offset) {
+                for (int i = offset; i < token.limit (); ++i)
+                        if (token.get (i) == '.') return i;
+
+                return -1;
+        }
+
+        /**
+         * Extracts a key identifier from an encoded token.
+         * @param token The encoded token.
+         * @param offset The identifier offset.
+         * @param length The identifier length.
+         * @return The identifier or null if the identifier is invalid.
+         */
+        @Nullable
+        private static String keyId (@Nonnull CharSequence token, int offset, int length) {
+                CharSequence keyId = token.subSequence (offset, (offset + length));
+                if (!KeyRing.validKeyId (keyId)) return null;
+
+                return keyId.toString ();
+        }
+
+        /**
+         * Extracts a key identifier from the ASCII encoded bytes of a token.
+         * @param token The encoded token.
+         * @param offset The absolute identifier offset.
+         * @param length The identifier length.
+         * @return The identifier or null if the identifier is invalid.
+         */
+        @Nullable
+        private static String keyId (@Nonnull ByteBuffer token, int offset, int length) {
+                if (length < 1 || length > KeyRing.MAXIMUM_KEY_ID_LENGTH) return null;
+
+                byte[] keyIdBytes = new byte[length];
+                for (int i = 0; i < length; ++i) keyIdBytes[i] = token.get (offset + i);
+
+                String keyId = new String (keyIdBytes, StandardCharsets.US_ASCII);
+                if (!KeyRing.validKeyId (keyId)) return null;
+
+                return keyId;
+        }
+
+        /**
+         * Retrieves the identifier of the key a signature provider signs with.
+         * @param provider The provider.
+         * @return The identifier or null if the provider is not associated with a key ring.
+         */
+        @Nullable
+        private static String keyId (@Nonnull ISignatureProvider provider) {
+                if (provider instanceof KeyRing.KeyedSignatureProvider) return ((KeyRing.KeyedSignatureProvider) provider).keyId ();
+                return null;
+        }
+
+        /**
+         * Records the rejection of a token within the rejected token cache (if any).
+         * @param token The encoded token.
+         * @param status The rejection status.
+         * @param generation The key generation the token has been rejected under.
+         * @return The rejection status.
+         */
+        @Nonnull
+        private TokenStatus reject (@Nonnull String token, @Nonnull TokenStatus status, long generation) {
+                RejectedTokenCache cache = this.rejectedTokenCache ();
+                if (cache != null) cache.put (token, status, generation);
+
+                return status;
+        }
+
+        /**
+         * Verifies a signature against its encoded metadata.
+         * @param provider The provider to verify with (if null, a provider is acquired for the duration of the call).
+         * @param metadata The encoded metadata.
+         * @param signature The signature.
+         * @return True if valid.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        protected boolean verify (@Nullable IVerificationProvider provider, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) throws IllegalStateException {
+                if (provider != null) return provider.verify (metadata, signature);
+
+                provider = this.acquireVerificationProvider ();
+
+                if (provider == null)
+                        throw new IllegalStateException ("Cannot verify authentication claims: No verification provider available");
+
+                try {
+                        return provider.verify (metadata, signature);
+                } finally {
+                        this.releaseVerificationProvider (provider);
+                }
+        }
+
+        /**
+         * Verifies a signature against its encoded metadata using a specific key.
+         * Implementations which are not backed by a {@link com.torchmind.padlock.security.KeyRing} ignore the key
+         * identifier.
+         * @param provider The provider to verify with (if null, a provider is acquired for the duration of the call).
+         * @param keyId The key identifier (or null).
+         * @param metadata The encoded metadata.
+         * @param signature The signature.
+         * @return True if valid.
+         * @throws java.lang.IllegalStateException when no verification provider is available.
+         */
+        protected boolean verify (@Nullable IVerificationProvider provider, @Nullable String keyId, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) throws IllegalStateException {
+                return this.verify (provider, metadata, signature);
+        }
+
+        /**
+         * Checks whether a key is known to this instance.
+         * Implementations which are not backed by a {@link com.torchmind.padlock.security.KeyRing} accept any key.
+         * @param keyId The key identifier (or null).
+         * @return True if known.
+         */
+        protected boolean knowsKey (@Nullable String keyId) {
+                return true;
+        }
+
+        /**
+         * Retrieves the generation of the keys backing this instance.
+         * The generation changes whenever keys are removed, replaced or reloaded and invalidates all previously cached
+         * verification results.
+         * @return The generation.
+         */
+        protected long keyGeneration () {
+                return 0;
+        }
+
+        /**
+         * Retrieves the encoded metadata of an authentication claim.
+         * Claims which retain their original encoding (such as claims produced by {@link #decode(Class, String)}) are
+         * passed on as-is while all other claims are re-encoded using the configured codec.
+         * @param claim The claim.
+         * @param <M> The claim metadata type.
+         * @return The encoded metadata.
+         */
+        @Nonnull
+        protected <M extends AuthenticationClaimMetadata> ByteBuffer encodedMetadata (@Nonnull IAuthenticationClaim<M> claim) {
+                ByteBuffer metadataBuffer = claim.encodedMetadata ();
+                if (metadataBuffer != null) return metadataBuffer;
+
+                return this.metadataCodec ().encode (claim.metadataType (), claim.metadata ());
+        }
+
+        /**
+         * Retrieves the maximum validity duration.
+         * @return The duration.
+         */
+        @Nullable
+        public Duration maximumValidityDuration () {
+                return this.maximumValidityDuration;
+        }
+
+        /**
+         * Retrieves the metadata codec.
+         * @return The codec.
+         */
+        @Nonnull
+        public IMetadataCodec metadataCodec () {
+                return this.metadataCodec;
+        }
+
+        /**
+         * Retrieves the verified claim cache.
+         * @return The cache (or null if caching is disabled).
+         */
+        @Nullable
+        public VerifiedClaimCache verifiedClaimCache () {
+                return this.verifiedClaimCache;
+        }
+
+        /**
+         * Retrieves the rejected token cache.
+         * @return The cache (or null if caching is disabled).
+         */
+        @Nullable
+        public RejectedTokenCache rejectedTokenCache () {
+                return this.rejectedTokenCache;
+        }
+
+        /**
+         * Retrieves the executor used for asynchronous operations.
+         * @return The executor (or null if asynchronous operations are disabled).
+         */
+        @Nullable
+        public Executor asyncExecutor () {
+                return this.asyncExecutor;
+        }
+
+        /**
+         * Retrieves the pool used for batch operations.
+         * @return The pool.
+         */
+        @Nonnull
+        public ForkJoinPool batchPool () {
+                if (this.batchPool == null) return ForkJoinPool.commonPool ();
+                return this.batchPool;
+        }
+
+        /**
+         * Checks whether the validity period of tokens is checked before their signature is verified.
+         * When enabled, {@link com.torchmind.padlock.TokenStatus#EXPIRED} and
+         * {@link com.torchmind.padlock.TokenStatus#NOT_YET_VALID} may be reported for tokens with invalid signatures.
+         * @return True if enabled.
+         */
+        public boolean expiryPrecheck () {
+                return this.expiryPrecheck;
+        }
+
+        /**
+         * Retrieves the revocation check.
+         * @return The check (or null if claims cannot be revoked).
+         */
+        @Nullable
+        public IRevocationCheck revocationCheck () {
+                return this.revocationCheck;
+        }
+
+        /**
+         * Retrieves the key ring.
+         * @return The ring (or null if this instance is bound to a single key).
+         */
+        @Nullable
+        public KeyRing keyRing () {
+                return null;
+        }
+
+        /**
+         * Retrieves the signature provider.
+         * @return The provider.
+         */
+        @Nullable
+        public abstract ISignatureProvider signatureProvider ();
+
+        /**
+         * Acquires exclusive access to a signature provider.
+         * Every provider returned by this method is passed back to {@link #releaseSignatureProvider(ISignatureProvider)}
+         * once the operation has completed.
+         * @return The provider or null if no provider is available.
+         */
+        @Nullable
+        protected ISignatureProvider acquireSignatureProvider () {
+                return this.signatureProvider ();
+        }
+
+        /**
+         * Releases a signature provider previously acquired via {@link #acquireSignatureProvider()}.
+         * @param provider The provider.
+         */
+        protected void releaseSignatureProvider (@Nonnull ISignatureProvider provider) {
+        }
+
+        /**
+         * Retrieves the verification provider.
+         * @return The provider.
+         */
+        @Nullable
+        public abstract IVerificationProvider verificationProvider ();
+
+        /**
+         * Acquires exclusive access to a verification provider.
+         * Every provider returned by this method is passed back to
+         * {@link #releaseVerificationProvider(IVerificationProvider)} once the operation has completed.
+         * @return The provider or null if no provider is available.
+         */
+        @Nullable
+        protected IVerificationProvider acquireVerificationProvider () {
+                return this.verificationProvider ();
+        }
+
+        /**
+         * Releases a verification provider previously acquired via {@link #acquireVerificationProvider()}.
+         * @param provider The provider.
+         */
+        protected void releaseVerificationProvider (@Nonnull IVerificationProvider provider) {
+        }
+
+        /**
+         * Provides per-thread buffers which encoded tokens are decoded into prior to their verification.
+         * Buffers grow up to {@link #MAXIMUM_RETAINED_CAPACITY} bytes. Larger tokens are decoded into one-off buffers
+         * in order to keep the memory retained by each thread bounded.
+         */
+        private static final class TokenScratch {
+                private static final int MAXIMUM_RETAINED_CAPACITY = 4096;
+
+                private ByteBuffer metadata = ByteBuffer.allocate (256);
+                private ByteBuffer signature = ByteBuffer.allocate (256);
+
+                /**
+                 * Retrieves a buffer of the required length.
+                 * @param buffer The retained buffer.
+                 * @param length The required length.
+                 * @return The buffer (limited to the required length).
+                 */
+                @Nonnull
+                private static ByteBuffer buffer (@Nonnull ByteBuffer buffer, int length) {
+                        if (buffer.capacity () < length) return ByteBuffer.allocate (length);
+
+                        buffer.clear ().limit (length);
+                        return buffer;
+                }
+
+                /**
+                 * Retrieves the metadata buffer.
+                 * @param length The required length.
+                 * @return The buffer (limited to the required length).
+                 */
+                @Nonnull
+                private ByteBuffer metadata (int length) {
+                        if (this.metadata.capacity () < length && length <= MAXIMUM_RETAINED_CAPACITY) this.metadata = ByteBuffer.allocate (length);
+                        return buffer (this.metadata, length);
+                }
+
+                /**
+                 * Retrieves the signature buffer.
+                 * @param length The required length.
+                 * @return The buffer (limited to the required length).
+                 */
+                @Nonnull
+                private ByteBuffer signature (int length) {
+                        if (this.signature.capacity () < length && length <= MAXIMUM_RETAINED_CAPACITY) this.signature = ByteBuffer.allocate (length);
+                        return buffer (this.signature, length);
+                }
+        }
+
+        /**
+         * Represents an operation applied to a single element of a batch.
+         */
+        @FunctionalInterface
+        private interface BatchOperation {
+
+                /**
+                 * Applies the operation.
+                 * @param provider The verification provider acquired by the executing worker (or null if providers are
+                 *                 selected per key).
+                 * @param index The element index.
+                 */
+                void apply (@Nullable IVerificationProvider provider, int index);
+        }
+
+        /**
+         * Splits batch operations into ranges which are processed in parallel.
+         * Ranges are split at multiples of 64 in order to permit workers to update disjoint words of result bitmaps
+         * without synchronization.
+         */
+        private final class BatchTask extends RecursiveAction {
+                private static final long serialVersionUID = 1L;
+                private static final int THRESHOLD = 256;
+
+                private final int from;
+                private final int to;
+                private final BatchOperation operation;
+
+                private BatchTask (int from, int to, @Nonnull BatchOperation operation) {
+                        this.from = from;
+                        this.to = to;
+                        this.operation = operation;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void compute () {
+                        if ((this.to - this.from) > THRESHOLD) {
+                                int middle = (((this.from + this.to) >>> 1) & ~63);
+                                invokeAll (new BatchTask (this.from, middle, this.operation), new BatchTask (middle, this.to, this.operation));
+                                return;
+                        }
+
+                        if (Padlock.this.keyRing () != null) {
+                                for (int i = this.from; i < this.to; ++i) this.operation.apply (null, i);
+                                return;
+                        }
+
+                        IVerificationProvider provider = Padlock.this.acquireVerificationProvider ();
+
+                        if (provider == null)
+                                throw new IllegalStateException ("Cannot verify authentication claims: No verification provider available");
+
+                        try {
+                                for (int i = this.from; i < this.to; ++i) this.operation.apply (provider, i);
+                        } finally {
+                                Padlock.this.releaseVerificationProvider (provider);
+                        }
+                }
+        }
+
+        /**
+         * Provides a simple locking-based implementation of {@link com.torchmind.padlock.Padlock}.
+         */
+        public static class BlockingPadlock extends Padlock {
+                private final Lock signatureLock = new ReentrantLock ();
+                private final Lock verificationLock;
+
+                private final ISignatureProvider signatureProvider;
+                private final IVerificationProvider verificationProvider;
+
+                protected BlockingPadlock (@Nonnull Builder builder) {
+                        super (builder);
+
+                        ISignatureProvider signatureProvider = builder.signatureProvider ();
+                        IVerificationProvider verificationProvider = builder.verificationProvider ();
+
+                        this.signatureProvider = signatureProvider;
+                        this.verificationProvider = verificationProvider;
+
+                        // universal providers are shared between both operations and thus need to be guarded by the
+                        // same lock
+                        this.verificationLock = (signatureProvider == verificationProvider ? this.signatureLock : new ReentrantLock ());
+                }
+
+                protected BlockingPadlock (@Nullable Duration maximumValidityDuration, @Nonnull IMetadataCodec metadataCodec, @Nullable ISignatureProvider signatureProvider, @Nullable IVerificationProvider verificationProvider) {
+                        this (new Builder (maximumValidityDuration, metadataCodec, signatureProvider, verificationProvider));
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public ISignatureProvider signatureProvider () {
+                        return this.signatureProvider;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public IVerificationProvider verificationProvider () {
+                        return this.verificationProvider;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                protected ISignatureProvider acquireSignatureProvider () {
+                        if (this.signatureProvider == null) return null;
+
+                        this.signatureLock.lock ();
+                        return this.signatureProvider;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void releaseSignatureProvider (@Nonnull ISignatureProvider provider) {
+                        this.signatureLock.unlock ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                protected IVerificationProvider acquireVerificationProvider () {
+                        if (this.verificationProvider == null) return null;
+
+                        this.verificationLock.lock ();
+                        return this.verificationProvider;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void releaseVerificationProvider (@Nonnull IVerificationProvider provider) {
+                        this.verificationLock.unlock ();
+                }
+        }
+
+        /**
+         * Provides a {@link java.lang.ThreadLocal} based implementation of {@link com.torchmind.padlock.Padlock}.
+         * <strong>Note:</strong> A new provider is constructed (and keyed) for every thread which accesses this
+         * instance. When operating on large elastic thread pools or virtual threads, {@link PooledPadlock} should be
+         * preferred (see {@link Builder#providerPoolSize(int)}).
+         * Keys may be replaced at runtime through {@link #providerFactory()}. Each thread compares the generation of its
+         * cached providers against the current generation upon access and constructs replacements once they went stale.
+         */
+        public static class ThreadLocalPadlock extends Padlock {
+                private final ReloadableProviderFactory providerFactory;
+                private final ThreadLocal<ProviderSlot> providerSlot = ThreadLocal.withInitial (ProviderSlot::new);
+
+                protected ThreadLocalPadlock (@Nonnull Builder builder, @Nonnull ReloadableProviderFactory providerFactory) {
+                        super (builder);
+                        this.providerFactory = providerFactory;
+                }
+
+                protected ThreadLocalPadlock (@Nonnull Builder builder) {
+                        this (builder, new ReloadableProviderFactory (builder.signatureProviderFactory (), builder.verificationProviderFactory ()));
+                }
+
+                protected ThreadLocalPadlock (@Nullable Duration maximumValidityDuration, @Nonnull IMetadataCodec metadataCodec, @Nullable final ISignatureProviderFactory signatureProviderFactory, @Nullable final IVerificationProviderFactory verificationProviderFactory) {
+                        this (new Builder ().maximumValidityDuration (maximumValidityDuration).metadataCodec (metadataCodec).signatureProviderFactory (signatureProviderFactory).verificationProviderFactory (verificationProviderFactory));
+                }
+
+                /**
+                 * Retrieves the provider factory.
+                 * Reloading this factory replaces the providers of all threads without interrupting operations which are
+                 * currently in progress.
+                 * @return The factory.
+                 */
+                @Nonnull
+                public ReloadableProviderFactory providerFactory () {
+                        return this.providerFactory;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected long keyGeneration () {
+                        return this.providerFactory.generation ().number ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public ISignatureProvider signatureProvider () {
+                        ReloadableProviderFactory.Generation generation = this.providerFactory.generation ();
+                        ProviderSlot slot = this.providerSlot.get ();
+
+                        if (slot.signatureProviderGeneration != generation.number ()) {
+                                ISignatureProviderFactory factory = generation.signatureProviderFactory ();
+
+                                slot.signatureProvider = (factory != null ? factory.build () : null);
+                                slot.signatureProviderGeneration = generation.number ();
+                        }
+
+                        return slot.signatureProvider;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public IVerificationProvider verificationProvider () {
+                        ReloadableProviderFactory.Generation generation = this.providerFactory.generation ();
+                        ProviderSlot slot = this.providerSlot.get ();
+
+                        if (slot.verificationProviderGeneration != generation.number ()) {
+                                IVerificationProviderFactory factory = generation.verificationProviderFactory ();
+
+                                slot.verificationProvider = (factory != null ? factory.build () : null);
+                                slot.verificationProviderGeneration = generation.number ();
+                        }
+
+                        return slot.verificationProvider;
+                }
+
+                /**
+                 * Stores the providers of a single thread along with the generation they were constructed from.
+                 */
+                private static final class ProviderSlot {
+                        private ISignatureProvider signatureProvider;
+                        private long signatureProviderGeneration = -1;
+                        private IVerificationProvider verificationProvider;
+                        private long verificationProviderGeneration = -1;
+                }
+        }
+
+        /**
+         * Provides a {@link com.torchmind.padlock.security.ProviderPool} based implementation of
+         * {@link com.torchmind.padlock.Padlock}.
+         * <strong>Note:</strong> Pooled providers are only handed out for the duration of a single operation. Thus
+         * {@link #signatureProvider()} and {@link #verificationProvider()} will always return {@code null}.
+         */
+        public static class PooledPadlock extends Padlock {
+                private final ProviderPool<ISignatureProvider> signatureProviderPool;
+                private final ProviderPool<IVerificationProvider> verificationProviderPool;
+
+                protected PooledPadlock (@Nonnull Builder builder) {
+                        super (builder);
+
+                        ISignatureProviderFactory signatureProviderFactory = builder.signatureProviderFactory ();
+                        IVerificationProviderFactory verificationProviderFactory = builder.verificationProviderFactory ();
+                        int providerPoolSize = builder.providerPoolSize ();
+                        ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy = builder.providerPoolExhaustionPolicy ();
+                        Duration providerPoolTimeout = builder.providerPoolTimeout ();
+
+                        if (signatureProviderFactory != null)
+                                this.signatureProviderPool = new ProviderPool<> (signatureProviderFactory::build, providerPoolSize, providerPoolExhaustionPolicy, providerPoolTimeout);
+                        else
+                                this.signatureProviderPool = null;
+
+                        if (verificationProviderFactory != null)
+                                this.verificationProviderPool = new ProviderPool<> (verificationProviderFactory::build, providerPoolSize, providerPoolExhaustionPolicy, providerPoolTimeout);
+                        else
+                                this.verificationProviderPool = null;
+                }
+
+                /**
+                 * Retrieves the signature provider pool.
+                 * @return The pool.
+                 */
+                @Nullable
+                public ProviderPool<ISignatureProvider> signatureProviderPool () {
+                        return this.signatureProviderPool;
+                }
+
+                /**
+                 * Retrieves the verification provider pool.
+                 * @return The pool.
+                 */
+                @Nullable
+                public ProviderPool<IVerificationProvider> verificationProviderPool () {
+                        return this.verificationProviderPool;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public ISignatureProvider signatureProvider () {
+                        return null;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public IVerificationProvider verificationProvider () {
+                        return null;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                protected ISignatureProvider acquireSignatureProvider () {
+                        if (this.signatureProviderPool == null) return null;
+                        return this.signatureProviderPool.borrow ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void releaseSignatureProvider (@Nonnull ISignatureProvider provider) {
+                        this.signatureProviderPool.release (provider);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                protected IVerificationProvider acquireVerificationProvider () {
+                        if (this.verificationProviderPool == null) return null;
+                        return this.verificationProviderPool.borrow ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void releaseVerificationProvider (@Nonnull IVerificationProvider provider) {
+                        this.verificationProviderPool.release (provider);
+                }
+        }
+
+        /**
+         * Provides a {@link com.torchmind.padlock.security.KeyRing} based implementation of
+         * {@link com.torchmind.padlock.Padlock}.
+         * Claims are signed with the primary key of the ring and carry its identifier while tokens are verified with the
+         * key they reference. Tokens which do not reference any key are verified with the primary key.
+         * <strong>Note:</strong> Providers are only handed out for the duration of a single operation. Thus
+         * {@link #signatureProvider()} and {@link #verificationProvider()} will always return {@code null}.
+         */
+        public static class KeyRingPadlock extends Padlock {
+                private final KeyRing keyRing;
+
+                protected KeyRingPadlock (@Nonnull Builder builder) throws IllegalArgumentException {
+                        super (builder);
+
+                        KeyRing keyRing = builder.keyRing ();
+                        if (keyRing == null) throw new IllegalArgumentException ("Cannot construct key ring instance: No key ring configured");
+
+                        this.keyRing = keyRing;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nonnull
+                @Override
+                public KeyRing keyRing () {
+                        return this.keyRing;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public ISignatureProvider signatureProvider () {
+                        return null;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                public IVerificationProvider verificationProvider () {
+                        return null;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nullable
+                @Override
+                protected ISignatureProvider acquireSignatureProvider () {
+                        KeyRing.Entry entry = this.keyRing.primaryEntry ();
+                        if (entry == null || entry.signatureProviderPool () == null) return null;
+
+                        return entry.signatureProviderPool ().borrow ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void releaseSignatureProvider (@Nonnull ISignatureProvider provider) {
+                        KeyRing.KeyedSignatureProvider keyedProvider = (KeyRing.KeyedSignatureProvider) provider;
+                        keyedProvider.entry ().signatureProviderPool ().release (keyedProvider);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean verify (@Nullable IVerificationProvider provider, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) throws IllegalStateException {
+                        return this.verify (provider, null, metadata, signature);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean verify (@Nullable IVerificationProvider provider, @Nullable String keyId, @Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) throws IllegalStateException {
+                        KeyRing.Entry entry = (keyId == null ? this.keyRing.primaryEntry () : this.keyRing.entry (keyId));
+                        if (entry == null) return false;
+
+                        ProviderPool<IVerificationProvider> pool = entry.verificationProviderPool ();
+
+                        if (pool == null)
+                                throw new IllegalStateException ("Cannot verify authentication claims: No verification provider available for key " + entry.keyId ());
+
+                        IVerificationProvider verificationProvider = pool.borrow ();
+
+                        try {
+                                return verificationProvider.verify (metadata, signature);
+                        } finally {
+                                pool.release (verificationProvider);
+                        }
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean knowsKey (@Nullable String keyId) {
+                        if (keyId == null) return (this.keyRing.primary () != null);
+                        return (this.keyRing.entry (keyId) != null);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected long keyGeneration () {
+                        return this.keyRing.generation ();
+                }
+        }
+
+        /**
+         * Provides a factory for {@link com.torchmind.padlock.Padlock} instances.
+         * Implementations (including custom subclasses) read their settings from the builder upon construction, thus
+         * their constructors retain their signatures as new settings are introduced.
+         */
+        public static class Builder {
+                private Duration maximumValidityDuration;
+                private IMetadataCodec metadataCodec;
+                private boolean discoverMetadataCodecs;
+                private VerifiedClaimCache verifiedClaimCache;
+                private RejectedTokenCache rejectedTokenCache;
+                private Executor asyncExecutor;
+                private ForkJoinPool batchPool;
+                private boolean expiryPrecheck;
+                private IRevocationCheck revocationCheck;
+
+                private KeyRing keyRing;
+
+                private ISignatureProvider signatureProvider;
+                private IVerificationProvider verificationProvider;
+
+                private ISignatureProviderFactory signatureProviderFactory;
+                private IVerificationProviderFactory verificationProviderFactory;
+
+                private int providerPoolSize;
+                private ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy;
+                private Duration providerPoolTimeout;
+
+                protected Builder () {
+                        this.reset ();
+                }
+
+                protected Builder (@Nullable Duration maximumValidityDuration, @Nullable IMetadataCodec metadataCodec, @Nullable ISignatureProvider signatureProvider, @Nullable IVerificationProvider verificationProvider) {
+                        this.reset ();
+
+                        this.maximumValidityDuration (maximumValidityDuration);
+                        this.metadataCodec (metadataCodec);
+                        this.signatureProvider (signatureProvider);
+                        this.verificationProvider (verificationProvider);
+                }
+
+                public Builder (@Nonnull Builder builder) {
+                        this (builder.maximumValidityDuration (), builder.metadataCodec (), builder.signatureProvider (), builder.verificationProvider ());
+                        this.discoverMetadataCodecs (builder.discoverMetadataCodecs ());
+                        this.verifiedClaimCache (builder.verifiedClaimCache ());
+                        this.rejectedTokenCache (builder.rejectedTokenCache ());
+                        this.asyncExecutor (builder.asyncExecutor ());
+                        this.batchPool (builder.batchPool ());
+                        this.expiryPrecheck (builder.expiryPrecheck ());
+                        this.revocationCheck (builder.revocationCheck ());
+                        this.keyRing (builder.keyRing ());
+                        this.signatureProviderFactory (builder.signatureProviderFactory ());
+                        this.verificationProviderFactory (builder.verificationProviderFactory ());
+                        this.providerPoolSize (builder.providerPoolSize ());
+                        this.providerPoolExhaustionPolicy (builder.providerPoolExhaustionPolicy ());
+                        this.providerPoolTimeout (builder.providerPoolTimeout ());
+                }
+
+                /**
+                 * Builds the {@link com.torchmind.padlock.Padlock} instance.
+                 * @param reset If true, resets the factory after building.
+                 * @return The instance.
+                 */
+                @Nonnull
+                public Padlock build (boolean reset) {
+                        try {
+                                if (this.keyRing != null)
+                                        return (new KeyRingPadlock (this));
+                                else if ((this.signatureProviderFactory != null || this.verificationProviderFactory != null) && this.providerPoolSize > 0)
+                                        return (new PooledPadlock (this));
+                                else if (this.signatureProviderFactory != null || this.verificationProviderFactory != null)
+                                        return (new ThreadLocalPadlock (this));
+                                else
+                                        return (new BlockingPadlock (this));
+                        } finally {
+                                if (reset) this.reset ();
+                        }
+                }
+
+                /**
+                 * Builds the {@link com.torchmind.padlock.Padlock} instance.
+                 * @return The instance.
+                 */
+                @Nonnull
+                public Padlock build () {
+                        return this.build (true);
+                }
+
+                /**
+                 * Copies the builder.
+                 * @return The new builder.
+                 */
+                protected Builder copy () {
+                        return (new Builder (this));
+                }
+
+                /**
+                 * Resets the builder state.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder reset () {
+                        this.maximumValidityDuration (Duration.ofDays (2));
+                        this.metadataCodec (null);
+                        this.discoverMetadataCodecs (false);
+                        this.verifiedClaimCache (null);
+                        this.rejectedTokenCache (null);
+                        this.asyncExecutor (null);
+                        this.batchPool (null);
+                        this.expiryPrecheck (false);
+                        this.revocationCheck (null);
+
+                        this.keyRing (null);
+
+                        this.signatureProvider (null);
+                        this.verificationProvider (null);
+
+                        this.signatureProviderFactory (null);
+                        this.verificationProviderFactory (null);
+
+                        this.providerPoolSize (0);
+                        this.providerPoolExhaustionPolicy (ProviderPool.ExhaustionPolicy.BLOCK);
+                        this.providerPoolTimeout (null);
+
+                        return this;
+                }
+
+                /**
+                 * Retrieves the maximum validity duration (rejects claims with longer durations).
+                 * If {@code null}, period length checks are disabled.
+                 * @return The duration.
+                 */
+                @Nullable
+                public Duration maximumValidityDuration () {
+                        return this.maximumValidityDuration;
+                }
+
+                /**
+                 * Sets the maximum validity duration (rejects claim with longer durations).
+                 * If {@code null}, period length checks are disabled.
+                 * @param maximumValidityDuration The duration (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder maximumValidityDuration (@Nullable Duration maximumValidityDuration) {
+                        this.maximumValidityDuration = maximumValidityDuration;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the metadata codec.
+                 * <strong>Note:</strong> Defaults to {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec} if set to
+                 * {@code null}.
+                 * @return The codec.
+                 */
+                @Nullable
+                public IMetadataCodec metadataCodec () {
+                        return this.metadataCodec;
+                }
+
+                /**
+                 * Sets the metadata codec.
+                 * <strong>Note:</strong> Defaults to {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec} if set to
+                 * {@code null}.
+                 * @param metadataCodec The codec.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder metadataCodec (@Nullable IMetadataCodec metadataCodec) {
+                        this.metadataCodec = metadataCodec;
+                        return this;
+                }
+
+                /**
+                 * Checks whether generated metadata codecs are discovered on the class path.
+                 * @return True if enabled.
+                 */
+                public boolean discoverMetadataCodecs () {
+                        return this.discoverMetadataCodecs;
+                }
+
+                /**
+                 * Sets whether generated metadata codecs are discovered on the class path.
+                 * When enabled, all codecs registered as {@link java.util.ServiceLoader} services are combined with the
+                 * configured metadata codec (see
+                 * {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#discover(IMetadataCodec)}) which
+                 * then only handles types without a dedicated codec.
+                 * <strong>Note:</strong> Defaults to {@code false}.
+                 * @param discoverMetadataCodecs True if enabled.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder discoverMetadataCodecs (boolean discoverMetadataCodecs) {
+                        this.discoverMetadataCodecs = discoverMetadataCodecs;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the verified claim cache.
+                 * @return The cache (or null if caching is disabled).
+                 */
+                @Nullable
+                public VerifiedClaimCache verifiedClaimCache () {
+                        return this.verifiedClaimCache;
+                }
+
+                /**
+                 * Sets the verified claim cache which is consulted by {@link Padlock#verifyToken(Class, String)}.
+                 * If {@code null}, caching is disabled.
+                 * @param verifiedClaimCache The cache (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder verifiedClaimCache (@Nullable VerifiedClaimCache verifiedClaimCache) {
+                        this.verifiedClaimCache = verifiedClaimCache;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the rejected token cache.
+                 * @return The cache (or null if caching is disabled).
+                 */
+                @Nullable
+                public RejectedTokenCache rejectedTokenCache () {
+                        return this.rejectedTokenCache;
+                }
+
+                /**
+                 * Sets the rejected token cache which is consulted by {@link Padlock#verifyToken(Class, String)}.
+                 * If {@code null}, caching is disabled.
+                 * @param rejectedTokenCache The cache (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder rejectedTokenCache (@Nullable RejectedTokenCache rejectedTokenCache) {
+                        this.rejectedTokenCache = rejectedTokenCache;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the executor used for asynchronous operations.
+                 * @return The executor (or null if asynchronous operations are disabled).
+                 */
+                @Nullable
+                public Executor asyncExecutor () {
+                        return this.asyncExecutor;
+                }
+
+                /**
+                 * Sets the executor used for asynchronous operations.
+                 * A bounded executor such as {@link com.torchmind.padlock.concurrent.CryptoExecutor} is recommended in
+                 * order to keep callers from queueing an unlimited amount of work. If {@code null}, asynchronous
+                 * operations are disabled.
+                 * @param asyncExecutor The executor (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder asyncExecutor (@Nullable Executor asyncExecutor) {
+                        this.asyncExecutor = asyncExecutor;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the pool used for batch operations.
+                 * <strong>Note:</strong> Defaults to {@link java.util.concurrent.ForkJoinPool#commonPool()} if set to
+                 * {@code null}.
+                 * @return The pool.
+                 */
+                @Nullable
+                public ForkJoinPool batchPool () {
+                        return this.batchPool;
+                }
+
+                /**
+                 * Sets the pool used for batch operations.
+                 * <strong>Note:</strong> Defaults to {@link java.util.concurrent.ForkJoinPool#commonPool()} if set to
+                 * {@code null}.
+                 * @param batchPool The pool (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder batchPool (@Nullable ForkJoinPool batchPool) {
+                        this.batchPool = batchPool;
+                        return this;
+                }
+
+                /**
+                 * Checks whether the validity period of tokens is checked before their signature is verified.
+                 * @return True if enabled.
+                 */
+                public boolean expiryPrecheck () {
+                        return this.expiryPrecheck;
+                }
+
+                /**
+                 * Sets whether the validity period of tokens is checked before their signature is verified.
+                 * When enabled, the base fields are read through
+                 * {@link com.torchmind.padlock.metadata.codec.IMetadataCodec#decodeBase(Class, java.nio.ByteBuffer)} and
+                 * tokens outside of their validity period are rejected without performing any cryptographic operations.
+                 * Such tokens are reported as {@link com.torchmind.padlock.TokenStatus#EXPIRED} or
+                 * {@link com.torchmind.padlock.TokenStatus#NOT_YET_VALID} even if their signature is invalid. Both
+                 * statuses are thus unauthenticated in this mode and must not be taken as proof that the token has
+                 * been issued by a trusted party (for instance to prompt a token refresh).
+                 * <strong>Note:</strong> Defaults to {@code false}.
+                 * @param expiryPrecheck True if enabled.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder expiryPrecheck (boolean expiryPrecheck) {
+                        this.expiryPrecheck = expiryPrecheck;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the revocation check.
+                 * @return The check.
+                 */
+                @Nullable
+                public IRevocationCheck revocationCheck () {
+                        return this.revocationCheck;
+                }
+
+                /**
+                 * Sets the revocation check.
+                 * The check is consulted for every claim which passed signature verification (including claims served from
+                 * the verified claim cache and claims passed to {@link com.torchmind.padlock.Padlock#verify(IAuthenticationClaim)},
+                 * {@link com.torchmind.padlock.Padlock#verifyAll(java.util.Collection)} or the exchange methods). Encoded
+                 * claims it reports are rejected as {@link com.torchmind.padlock.TokenStatus#REVOKED}.
+                 * @param revocationCheck The check (or null to disable revocation).
+                 * @return The builder.
+                 * @see com.torchmind.padlock.revocation.RevocationSet
+                 */
+                @Nonnull
+                public Builder revocationCheck (@Nullable IRevocationCheck revocationCheck) {
+                        this.revocationCheck = revocationCheck;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the key ring.
+                 * @return The ring.
+                 */
+                @Nullable
+                public KeyRing keyRing () {
+                        return this.keyRing;
+                }
+
+                /**
+                 * Sets the key ring.
+                 * When set, claims are signed with the primary key of the ring and tokens are verified with the key they
+                 * reference. Any configured providers, provider factories and provider pool settings are ignored in this
+                 * case.
+                 * @param keyRing The ring (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder keyRing (@Nullable KeyRing keyRing) {
+                        this.keyRing = keyRing;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the signature provider.
+                 * @return The provider.
+                 */
+                @Nullable
+                public ISignatureProvider signatureProvider () {
+                        return this.signatureProvider;
+                }
+
+                /**
+                 * Sets the signature provider.
+                 * <strong>Note:</strong> When called with non-null argument, reverts {@link #signatureProviderFactory()}
+                 * and {@link #verificationProviderFactory()}.
+                 * @param signatureProvider The provider.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder signatureProvider (@Nullable ISignatureProvider signatureProvider) {
+                        this.signatureProvider = signatureProvider;
+
+                        if (signatureProvider != null) {
+                                this.signatureProviderFactory (null);
+                                this.verificationProviderFactory (null);
+                        }
+
+                        return this;
+                }
+
+                /**
+                 * Retrieves the verification provider.
+                 * @return The provider.
+                 */
+                @Nullable
+                public IVerificationProvider verificationProvider () {
+                        return this.verificationProvider;
+                }
+
+                /**
+                 * Sets the verification provider.
+                 * <strong>Note:</strong> When called with non-null argument, reverts {@link #signatureProviderFactory()}
+                 * and {@link #verificationProviderFactory()}.
+                 * @param verificationProvider The provider.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder verificationProvider (@Nullable IVerificationProvider verificationProvider) {
+                        this.verificationProvider = verificationProvider;
+
+                        if (verificationProvider != null) {
+                                this.signatureProviderFactory (null);
+                                this.verificationProviderFactory (null);
+                        }
+
+                        return this;
+                }
+
+                /**
+                 * Retrieves the signature provider factory.
+                 * @return The factory.
+                 */
+                @Nullable
+                public ISignatureProviderFactory signatureProviderFactory () {
+                        return this.signatureProviderFactory;
+                }
+
+                /**
+                 * Sets the signature provider factory.
+                 * <strong>Note:</strong> When called with non-null argument, reverts {@link #signatureProvider()} and
+                 * {@link #verificationProvider()}.
+                 * @param signatureProviderFactory The factory.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder signatureProviderFactory (@Nullable ISignatureProviderFactory signatureProviderFactory) {
+                        this.signatureProviderFactory = signatureProviderFactory;
+
+                        if (signatureProviderFactory != null) {
+                                this.signatureProvider (null);
+                                this.verificationProvider (null);
+                        }
+
+                        return this;
+                }
+
+                /**
+                 * Retrieves the verification provider factory.
+                 * @return The factory.
+                 */
+                @Nullable
+                public IVerificationProviderFactory verificationProviderFactory () {
+                        return this.verificationProviderFactory;
+                }
+
+                /**
+                 * Sets the verification provider factory.
+                 * <strong>Note:</strong> When called with non-null argument, reverts {@link #signatureProvider()} and
+                 * {@link #verificationProvider()}.
+                 * @param verificationProviderFactory The factory.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder verificationProviderFactory (@Nullable IVerificationProviderFactory verificationProviderFactory) {
+                        this.verificationProviderFactory = verificationProviderFactory;
+
+                        if (verificationProviderFactory != null) {
+                                this.signatureProvider (null);
+                                this.verificationProvider (null);
+                        }
+
+                        return this;
+                }
+
+                /**
+                 * Retrieves the provider pool size.
+                 * @return The size.
+                 */
+                public int providerPoolSize () {
+                        return this.providerPoolSize;
+                }
+
+                /**
+                 * Sets the provider pool size.
+                 * When set to a positive value, providers constructed by {@link #signatureProviderFactory()} and
+                 * {@link #verificationProviderFactory()} are shared through pools of the specified size instead of being
+                 * bound to individual threads. If zero, pooling is disabled.
+                 * Pooling is recommended when operating on virtual threads or large elastic thread pools. A pool size in
+                 * the order of the available processors is usually sufficient as cryptographic operations are CPU
+                 * bound.
+                 * @param providerPoolSize The size.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder providerPoolSize (int providerPoolSize) {
+                        if (providerPoolSize < 0) throw new IllegalArgumentException ("Pool size cannot be negative: " + providerPoolSize);
+
+                        this.providerPoolSize = providerPoolSize;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the policy applied when all pooled providers are in use.
+                 * @return The policy.
+                 */
+                @Nonnull
+                public ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy () {
+                        return this.providerPoolExhaustionPolicy;
+                }
+
+                /**
+                 * Sets the policy applied when all pooled providers are in use.
+                 * @param providerPoolExhaustionPolicy The policy.
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder providerPoolExhaustionPolicy (@Nonnull ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy) {
+                        this.providerPoolExhaustionPolicy = providerPoolExhaustionPolicy;
+                        return this;
+                }
+
+                /**
+                 * Retrieves the maximum time spent waiting for a pooled provider.
+                 * If {@code null}, callers wait indefinitely.
+                 * @return The timeout (or null).
+                 */
+                @Nullable
+                public Duration providerPoolTimeout () {
+                        return this.providerPoolTimeout;
+                }
+
+                /**
+                 * Sets the maximum time spent waiting for a pooled provider.
+                 * If {@code null}, callers wait indefinitely.
+                 * @param providerPoolTimeout The timeout (or null).
+                 * @return The builder.
+                 */
+                @Nonnull
+                public Builder providerPoolTimeout (@Nullable Duration providerPoolTimeout) {
+                        this.providerPoolTimeout = providerPoolTimeout;
+                        return this;
+                }
+        }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides a bounded pool of authentication claims which have been signed ahead of time.
+ * A low priority background thread signs claims which consist of base metadata only (a random identifier, the time of
+ * signing and a fixed validity duration) whenever the pool has spare capacity. Issuing a claim merely removes it from
+ * the pool, thus expensive signature schemes (such as RSA) no longer contribute to issuance latency as long as the
+ * producer keeps up. Claims are issued inline whenever the pool runs dry.
+ *
+ * Since pre-signed claims are issued some time after they have been signed, their issuance lies slightly in the past.
+ * Claims which have been pooled for longer than the configured maximum age are discarded (and replaced by the
+ * producer) in order to keep their remaining validity predictable. {@link #clear()} should be called when the signing
+ * key is replaced.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class PresignedClaimPool implements Closeable {
+        private final Padlock padlock;
+        private final Duration validity;
+        private final Duration maximumAge;
+        private final BlockingQueue<IAuthenticationClaim<AuthenticationClaimMetadata>> claims;
+
+        private final LongAdder produced = new LongAdder ();
+        private final LongAdder hits = new LongAdder ();
+        private final LongAdder fallbacks = new LongAdder ();
+        private final LongAdder discarded = new LongAdder ();
+        private final LongAdder failures = new LongAdder ();
+        private volatile Exception lastFailure;
+
+        private Thread thread;
+        private volatile boolean closed;
+
+        public PresignedClaimPool (@Nonnull Padlock padlock, @Nonnull Duration validity, int capacity, @Nonnull Duration maximumAge) {
+                if (capacity < 1) throw new IllegalArgumentException ("Pool capacity must be positive: " + capacity);
+                if (maximumAge.isNegative () || maximumAge.isZero ()) throw new IllegalArgumentException ("Maximum age must be positive: " + maximumAge);
+
+                this.padlock = padlock;
+                this.validity = validity;
+                this.maximumAge = maximumAge;
+                this.claims = new ArrayBlockingQueue<> (capacity);
+        }
+
+        public PresignedClaimPool (@Nonnull Padlock padlock, @Nonnull Duration validity, int capacity) {
+                this (padlock, validity, capacity, Duration.ofSeconds (30));
+        }
+
+        /**
+         * Starts the background producer.
+         * @return The pool.
+         * @throws java.lang.IllegalStateException when the pool has already been started or closed.
+         */
+        @Nonnull
+        public synchronized PresignedClaimPool start () throws IllegalStateException {
+                if (this.thread != null || this.closed) throw new IllegalStateException ("Pool has already been started");
+
+                this.thread = new Thread (this::produce, "padlock-presigned-claim-pool");
+                this.thread.setDaemon (true);
+                this.thread.setPriority (Thread.MIN_PRIORITY);
+                this.thread.start ();
+
+                return this;
+        }
+
+        /**
+         * Issues a new authentication claim.
+         * @return The claim.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when signing fails.
+         */
+        @Nonnull
+        public IAuthenticationClaim<AuthenticationClaimMetadata> issue () throws IllegalStateException, SignatureException {
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim;
+                Instant threshold = Instant.now ().minus (this.maximumAge);
+
+                while ((claim = this.claims.poll ()) != null) {
+                        if (!claim.metadata ().issuance ().isBefore (threshold)) {
+                                this.hits.increment ();
+                                return claim;
+                        }
+
+                        this.discarded.increment ();
+                }
+
+                this.fallbacks.increment ();
+                return this.sign ();
+        }
+
+        /**
+         * Discards all pooled claims (for instance after the signing key has been replaced).
+         */
+        public void clear () {
+                int count = 0;
+                while (this.claims.poll () != null) ++count;
+
+                this.discarded.add (count);
+        }
+
+        /**
+         * Signs a new claim.
+         * @return The claim.
+         * @throws java.lang.IllegalStateException when no signature provider is available.
+         * @throws java.security.SignatureException when signing fails.
+         */
+        @Nonnull
+        private IAuthenticationClaim<AuthenticationClaimMetadata> sign () throws IllegalStateException, SignatureException {
+                return this.padlock.sign (AuthenticationClaimMetadata.class, new AuthenticationClaimMetadata (UUID.randomUUID (), this.validity));
+        }
+
+        /**
+         * Fills the pool until it is closed.
+         */
+        private void produce () {
+                // stale claims are evicted well ahead of reaching their maximum age
+                long timeout = Math.max (1, (this.maximumAge.toMillis () / 4));
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = null;
+
+                while (!this.closed) {
+                        try {
+                                if (claim != null && this.stale (claim)) {
+                                        this.discarded.increment ();
+                                        claim = null;
+                                }
+
+                                if (claim == null) claim = this.sign ();
+
+                                if (this.claims.offer (claim, timeout, TimeUnit.MILLISECONDS)) {
+                                        this.produced.increment ();
+                                        claim = null;
+                                } else
+                                        this.evict ();
+                        } catch (InterruptedException ex) {
+                                return;
+                        } catch (SignatureException | RuntimeException ex) {
+                                this.lastFailure = ex;
+                                this.failures.increment ();
+
+                                try {
+                                        Thread.sleep (timeout);
+                                } catch (InterruptedException ignore) {
+                                        return;
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Checks whether a claim has spent more than half of its maximum age waiting.
+         * @param claim The claim.
+         * @return True if stale, false otherwise.
+         */
+        private boolean stale (@Nonnull IAuthenticationClaim<AuthenticationClaimMetadata> claim) {
+                return claim.metadata ().issuance ().isBefore (Instant.now ().minus (this.maximumAge.dividedBy (2)));
+        }
+
+        /**
+         * Evicts claims which are about to exceed their maximum age.
+         */
+        private void evict () {
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim;
+
+                // claims are queued in order of issuance, thus the head is always the oldest claim
+                while ((claim = this.claims.peek ()) != null && this.stale (claim)) {
+                        if (this.claims.remove (claim)) this.discarded.increment ();
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void close () {
+                this.closed = true;
+                if (this.thread != null) this.thread.interrupt ();
+        }
+
+        /**
+         * Retrieves the validity duration of issued claims.
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration validity () {
+                return this.validity;
+        }
+
+        /**
+         * Retrieves the maximum amount of time a claim is kept in the pool.
+         * @return The age.
+         */
+        @Nonnull
+        public Duration maximumAge () {
+                return this.maximumAge;
+        }
+
+        /**
+         * Retrieves the pool capacity.
+         * @return The capacity.
+         */
+        public int capacity () {
+                return (this.claims.size () + this.claims.remainingCapacity ());
+        }
+
+        /**
+         * Retrieves the amount of claims currently held by the pool.
+         * @return The depth.
+         */
+        public int depth () {
+                return this.claims.size ();
+        }
+
+        /**
+         * Retrieves the amount of claims signed by the background producer.
+         * @return The amount.
+         */
+        public long produced () {
+                return this.produced.sum ();
+        }
+
+        /**
+         * Retrieves the amount of claims issued from the pool.
+         * @return The amount.
+         */
+        public long hits () {
+                return this.hits.sum ();
+        }
+
+        /**
+         * Retrieves the amount of claims signed inline since the pool was empty.
+         * @return The amount.
+         */
+        public long fallbacks () {
+                return this.fallbacks.sum ();
+        }
+
+        /**
+         * Retrieves the amount of claims discarded due to their age (or due to {@link #clear()}).
+         * @return The amount.
+         */
+        public long discarded () {
+                return this.discarded.sum ();
+        }
+
+        /**
+         * Retrieves the amount of failed attempts of the background producer.
+         * @return The amount.
+         */
+        public long failures () {
+                return this.failures.sum ();
+        }
+
+        /**
+         * Retrieves the cause of the most recent failure of the background producer.
+         * @return The cause or null if no failure occurred yet.
+         */
+        @Nullable
+        public Exception lastFailure () {
+                return this.lastFailure;
+        }
+}
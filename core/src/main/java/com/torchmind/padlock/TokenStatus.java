@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock;
+
+/**
+ * Represents the outcome of verifying an encoded authentication claim.
+ * @author Johannes Donath
+ */
+public enum TokenStatus {
+
+        /**
+         * The claim carries a valid signature and is valid at the current time.
+         */
+        VALID,
+
+        /**
+         * The claim is not a well-formed encoded claim or its metadata could not be decoded.
+         */
+        MALFORMED,
+
+        /**
+         * The claim signature does not match its metadata.
+         */
+        INVALID_SIGNATURE,
+
+        /**
+         * The claim references a key which is not known to the verifying instance.
+         */
+        UNKNOWN_KEY,
+
+        /**
+         * The claim has already expired.
+         * Unless {@link com.torchmind.padlock.Padlock#expiryPrecheck()} is enabled, the claim also carries a valid
+         * signature. With the precheck enabled, this status is unauthenticated and may be reported for forged claims.
+         */
+        EXPIRED,
+
+        /**
+         * The claim is not valid yet.
+         * Unless {@link com.torchmind.padlock.Padlock#expiryPrecheck()} is enabled, the claim also carries a valid
+         * signature. With the precheck enabled, this status is unauthenticated and may be reported for forged claims.
+         */
+        NOT_YET_VALID,
+
+        /**
+         * The claim carries a valid signature but has been revoked.
+         */
+        REVOKED;
+
+        /**
+         * Checks whether this status indicates a valid claim.
+         * @return True if valid.
+         */
+        public boolean valid () {
+                return (this == VALID);
+        }
+}
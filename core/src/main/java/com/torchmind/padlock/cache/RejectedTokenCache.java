@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.cache;
+
+import com.torchmind.padlock.TokenStatus;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides a small, bounded cache of recently rejected encoded claims.
+ * The cache is direct-mapped: Every token is assigned a single slot based on its hash which is overwritten by newer
+ * rejections. Lookups and insertions are thus lock-free and constant time at the cost of occasionally displacing
+ * entries before their time-to-live elapses.
+ *
+ * <strong>Note:</strong> Tokens which exceed {@link #maximumTokenLength()} are never cached in order to bound the
+ * amount of memory retained by the cache. Entries are tagged with the key generation they were rejected under and are
+ * disregarded once the keys of the owning {@link com.torchmind.padlock.Padlock} instance are removed, replaced or
+ * reloaded. The amount of slots is rounded up to the next power of two and limited to {@link #MAXIMUM_CAPACITY}.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class RejectedTokenCache {
+        public static final int DEFAULT_MAXIMUM_TOKEN_LENGTH = 4096;
+        public static final int MAXIMUM_CAPACITY = (1 << 24);
+
+        private final Clock clock;
+        private final Duration timeToLive;
+        private final int maximumTokenLength;
+        private final AtomicReferenceArray<Entry> slots;
+
+        private final LongAdder hits = new LongAdder ();
+
+        public RejectedTokenCache (int size, @Nonnull Duration timeToLive, int maximumTokenLength, @Nonnull Clock clock) {
+                if (size < 1) throw new IllegalArgumentException ("Cache size must be positive: " + size);
+
+                this.clock = clock;
+                this.timeToLive = timeToLive;
+                this.maximumTokenLength = maximumTokenLength;
+                this.slots = new AtomicReferenceArray<> (Integer.highestOneBit ((Math.min (size, MAXIMUM_CAPACITY) << 1) - 1));
+        }
+
+        public RejectedTokenCache (int size, @Nonnull Duration timeToLive) {
+                this (size, timeToLive, DEFAULT_MAXIMUM_TOKEN_LENGTH, Clock.systemUTC ());
+        }
+
+        /**
+         * Retrieves the slot index of a token.
+         * @param token The token.
+         * @return The index.
+         */
+        private int slot (@Nonnull String token) {
+                int hash = token.hashCode ();
+                hash ^= (hash >>> 16);
+
+                return (hash & (this.slots.length () - 1));
+        }
+
+        /**
+         * Retrieves the status a token has previously been rejected with.
+         * @param token The encoded token.
+         * @return The status or null if the token has not been rejected recently.
+         */
+        @Nullable
+        public TokenStatus get (@Nonnull String token) {
+                return this.get (token, 0);
+        }
+
+        /**
+         * Retrieves the status a token has previously been rejected with.
+         * @param token The encoded token.
+         * @param generation The current key generation.
+         * @return The status or null if the token has not been rejected recently within the requested generation.
+         */
+        @Nullable
+        public TokenStatus get (@Nonnull String token, long generation) {
+                if (token.length () > this.maximumTokenLength) return null;
+
+                Entry entry = this.slots.get (this.slot (token));
+                if (entry == null || entry.deadline <= this.clock.millis () || entry.generation != generation || !entry.token.equals (token)) return null;
+
+                this.hits.increment ();
+                return entry.status;
+        }
+
+        /**
+         * Records the rejection of a token.
+         * @param token The encoded token.
+         * @param status The rejection status.
+         */
+        public void put (@Nonnull String token, @Nonnull TokenStatus status) {
+                this.put (token, status, 0);
+        }
+
+        /**
+         * Records the rejection of a token.
+         * @param token The encoded token.
+         * @param status The rejection status.
+         * @param generation The key generation the token has been rejected under.
+         */
+        public void put (@Nonnull String token, @Nonnull TokenStatus status, long generation) {
+                if (status.valid ()) throw new IllegalArgumentException ("Cannot cache valid tokens");
+                if (token.length () > this.maximumTokenLength) return;
+
+                this.slots.set (this.slot (token), new Entry (token, status, this.clock.millis () + this.timeToLive.toMillis (), generation));
+        }
+
+        /**
+         * Removes all entries from the cache.
+         */
+        public void invalidateAll () {
+                for (int i = 0; i < this.slots.length (); ++i) this.slots.set (i, null);
+        }
+
+        /**
+         * Retrieves the amount of slots within this cache.
+         * @return The slot count.
+         */
+        public int capacity () {
+                return this.slots.length ();
+        }
+
+        /**
+         * Retrieves the time-to-live of cache entries.
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration timeToLive () {
+                return this.timeToLive;
+        }
+
+        /**
+         * Retrieves the maximum length of cached tokens.
+         * @return The length.
+         */
+        public int maximumTokenLength () {
+                return this.maximumTokenLength;
+        }
+
+        /**
+         * Retrieves the amount of rejections served from this cache.
+         * @return The hit count.
+         */
+        public long hits () {
+                return this.hits.sum ();
+        }
+
+        /**
+         * Represents a rejected token.
+         */
+        private static final class Entry {
+                private final String token;
+                private final TokenStatus status;
+                private final long deadline;
+                private final long generation;
+
+                private Entry (@Nonnull String token, @Nonnull TokenStatus status, long deadline, long generation) {
+                        this.token = token;
+                        this.status = status;
+                        this.deadline = deadline;
+                        this.generation = generation;
+                }
+        }
+}
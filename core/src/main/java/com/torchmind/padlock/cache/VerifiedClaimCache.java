@@ -0,0 +1,359 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.cache;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides a bounded cache of successfully verified encoded claims.
+ * Entries are evicted in least-recently-used order once the cache exceeds its maximum size and are never served past
+ * the expiration of their metadata (or the configured maximum age).
+ *
+ * Metadata is copied (see {@link com.torchmind.padlock.metadata.AuthenticationClaimMetadata#clone()}) when it is
+ * stored and whenever it is retrieved, thus callers may modify the validity period of the instances they receive
+ * without affecting the cached claim or its deadline. Copies are shallow by default: Metadata subclasses which hold
+ * mutable state must override {@code clone()} in order to isolate said state as well.
+ *
+ * <strong>Note:</strong> Caches are bound to the keys of a single {@link com.torchmind.padlock.Padlock} instance and may not be
+ * shared between instances. Entries are tagged with the key generation they were verified against and are disregarded
+ * once the instance's keys are removed, replaced or reloaded.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class VerifiedClaimCache {
+        private static final int MAXIMUM_SEGMENT_COUNT = 16;
+
+        private final Clock clock;
+        private final int maximumSize;
+        private final Duration maximumAge;
+        private final Segment[] segments;
+
+        private final LongAdder hits = new LongAdder ();
+        private final LongAdder misses = new LongAdder ();
+        private final LongAdder evictions = new LongAdder ();
+        private final LongAdder expirations = new LongAdder ();
+
+        public VerifiedClaimCache (int maximumSize, @Nullable Duration maximumAge, @Nonnull Clock clock) {
+                if (maximumSize < 1) throw new IllegalArgumentException ("Cache size must be positive: " + maximumSize);
+
+                this.clock = clock;
+                this.maximumSize = maximumSize;
+                this.maximumAge = maximumAge;
+
+                int segmentCount = Integer.highestOneBit (Math.min (MAXIMUM_SEGMENT_COUNT, maximumSize));
+                int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+
+                this.segments = new Segment[segmentCount];
+                for (int i = 0; i < segmentCount; ++i) this.segments[i] = new Segment (segmentCapacity);
+        }
+
+        public VerifiedClaimCache (int maximumSize, @Nullable Duration maximumAge) {
+                this (maximumSize, maximumAge, Clock.systemUTC ());
+        }
+
+        public VerifiedClaimCache (int maximumSize) {
+                this (maximumSize, null);
+        }
+
+        /**
+         * Retrieves the segment responsible for a token.
+         * @param token The token.
+         * @return The segment.
+         */
+        @Nonnull
+        private Segment segment (@Nonnull String token) {
+                int hash = token.hashCode ();
+                hash ^= (hash >>> 16);
+
+                return this.segments[hash & (this.segments.length - 1)];
+        }
+
+        /**
+         * Retrieves the verified metadata of a token.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param <M> The metadata type.
+         * @return The metadata or null if no valid entry of the requested type is present.
+         */
+        @Nullable
+        public <M extends AuthenticationClaimMetadata> M get (@Nonnull Class<M> type, @Nonnull String token) {
+                return this.get (type, token, 0);
+        }
+
+        /**
+         * Retrieves the verified metadata of a token.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param generation The current key generation.
+         * @param <M> The metadata type.
+         * @return A copy of the metadata or null if no valid entry of the requested type and generation is present.
+         */
+        @Nullable
+        public <M extends AuthenticationClaimMetadata> M get (@Nonnull Class<M> type, @Nonnull String token, long generation) {
+                Segment segment = this.segment (token);
+                Entry entry;
+
+                synchronized (segment) {
+                        entry = segment.get (token);
+
+                        if (entry != null && entry.deadline <= this.clock.millis ()) {
+                                segment.remove (token);
+                                this.expirations.increment ();
+
+                                entry = null;
+                        } else if (entry != null && entry.generation != generation) {
+                                segment.remove (token);
+                                entry = null;
+                        }
+                }
+
+                if (entry == null || entry.type != type) {
+                        this.misses.increment ();
+                        return null;
+                }
+
+                this.hits.increment ();
+                return type.cast (entry.metadata.clone ());
+        }
+
+        /**
+         * Stores the verified metadata of a token.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param metadata The metadata.
+         * @param <M> The metadata type.
+         */
+        public <M extends AuthenticationClaimMetadata> void put (@Nonnull Class<M> type, @Nonnull String token, @Nonnull M metadata) {
+                this.put (type, token, metadata, 0);
+        }
+
+        /**
+         * Stores the verified metadata of a token.
+         * @param type The metadata type.
+         * @param token The encoded token.
+         * @param metadata The metadata.
+         * @param generation The key generation the token has been verified against.
+         * @param <M> The metadata type.
+         */
+        public <M extends AuthenticationClaimMetadata> void put (@Nonnull Class<M> type, @Nonnull String token, @Nonnull M metadata, long generation) {
+                long now = this.clock.millis ();
+                long deadline = deadline (metadata.expiration ());
+
+                if (this.maximumAge != null) deadline = Math.min (deadline, now + this.maximumAge.toMillis ());
+                if (deadline <= now) return;
+
+                Segment segment = this.segment (token);
+
+                synchronized (segment) {
+                        segment.put (token, new Entry (type, metadata.clone (), deadline, generation));
+                }
+        }
+
+        /**
+         * Converts an expiration into a deadline in milliseconds since the epoch.
+         * @param expiration The expiration (or null).
+         * @return The deadline.
+         */
+        private static long deadline (@Nullable Instant expiration) {
+                if (expiration == null) return Long.MAX_VALUE;
+
+                try {
+                        return expiration.toEpochMilli ();
+                } catch (ArithmeticException ex) {
+                        return (expiration.getEpochSecond () < 0 ? Long.MIN_VALUE : Long.MAX_VALUE);
+                }
+        }
+
+        /**
+         * Removes a token from the cache.
+         * @param token The encoded token.
+         */
+        public void invalidate (@Nonnull String token) {
+                Segment segment = this.segment (token);
+
+                synchronized (segment) {
+                        segment.remove (token);
+                }
+        }
+
+        /**
+         * Removes all tokens from the cache.
+         */
+        public void invalidateAll () {
+                for (Segment segment : this.segments) {
+                        synchronized (segment) {
+                                segment.clear ();
+                        }
+                }
+        }
+
+        /**
+         * Removes all expired entries from the cache.
+         * Expired entries are otherwise removed lazily when they are accessed or displaced by newer entries.
+         */
+        public void purge () {
+                long now = this.clock.millis ();
+
+                for (Segment segment : this.segments) {
+                        synchronized (segment) {
+                                Iterator<Entry> it = segment.values ().iterator ();
+
+                                while (it.hasNext ()) {
+                                        if (it.next ().deadline > now) continue;
+
+                                        it.remove ();
+                                        this.expirations.increment ();
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Retrieves the maximum cache size.
+         * @return The size.
+         */
+        public int maximumSize () {
+                return this.maximumSize;
+        }
+
+        /**
+         * Retrieves the maximum age of cache entries.
+         * If {@code null}, entries are kept until their claim expires or they are evicted.
+         * @return The age (or null).
+         */
+        @Nullable
+        public Duration maximumAge () {
+                return this.maximumAge;
+        }
+
+        /**
+         * Retrieves the current amount of cached entries.
+         * @return The size.
+         */
+        public int size () {
+                int size = 0;
+
+                for (Segment segment : this.segments) {
+                        synchronized (segment) {
+                                size += segment.size ();
+                        }
+                }
+
+                return size;
+        }
+
+        /**
+         * Retrieves the amount of cache hits.
+         * @return The hit count.
+         */
+        public long hits () {
+                return this.hits.sum ();
+        }
+
+        /**
+         * Retrieves the amount of cache misses.
+         * @return The miss count.
+         */
+        public long misses () {
+                return this.misses.sum ();
+        }
+
+        /**
+         * Retrieves the ratio of hits to lookups.
+         * @return The ratio (or zero if no lookups have been performed).
+         */
+        public double hitRate () {
+                long hits = this.hits ();
+                long lookups = hits + this.misses ();
+
+                if (lookups == 0) return 0;
+                return ((double) hits / lookups);
+        }
+
+        /**
+         * Retrieves the amount of entries which have been evicted in order to keep the cache within its size limit.
+         * @return The eviction count.
+         */
+        public long evictions () {
+                return this.evictions.sum ();
+        }
+
+        /**
+         * Retrieves the amount of entries which have been removed due to their expiration.
+         * @return The expiration count.
+         */
+        public long expirations () {
+                return this.expirations.sum ();
+        }
+
+        /**
+         * Represents a cached claim.
+         */
+        private static final class Entry {
+                private final Class<?> type;
+                private final AuthenticationClaimMetadata metadata;
+                private final long deadline;
+                private final long generation;
+
+                private Entry (@Nonnull Class<?> type, @Nonnull AuthenticationClaimMetadata metadata, long deadline, long generation) {
+                        this.type = type;
+                        this.metadata = metadata;
+                        this.deadline = deadline;
+                        this.generation = generation;
+                }
+        }
+
+        /**
+         * Represents an access ordered cache segment.
+         */
+        private final class Segment extends LinkedHashMap<String, Entry> {
+                private static final long serialVersionUID = 1L;
+
+                private final int capacity;
+
+                private Segment (int capacity) {
+                        super (16, 0.75f, true);
+                        this.capacity = capacity;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry (Map.Entry<String, Entry> eldest) {
+                        if (this.size () <= this.capacity) return false;
+
+                        if (eldest.getValue ().deadline <= VerifiedClaimCache.this.clock.millis ())
+                                VerifiedClaimCache.this.expirations.increment ();
+                        else
+                                VerifiedClaimCache.this.evictions.increment ();
+
+                        return true;
+                }
+        }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.concurrent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides a bounded executor for cryptographic operations.
+ * Tasks are executed by a fixed amount of daemon threads and queued up to a fixed depth. Once the queue is full, further
+ * tasks are rejected with a {@link java.util.concurrent.RejectedExecutionException} instead of piling up.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class CryptoExecutor extends ThreadPoolExecutor {
+        private static final AtomicInteger POOL_COUNTER = new AtomicInteger ();
+
+        private final int queueCapacity;
+
+        public CryptoExecutor (int threads, int queueCapacity) {
+                super (threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<> (queueCapacity), new CryptoThreadFactory (), new AbortPolicy ());
+                this.queueCapacity = queueCapacity;
+        }
+
+        public CryptoExecutor (int queueCapacity) {
+                this (Runtime.getRuntime ().availableProcessors (), queueCapacity);
+        }
+
+        /**
+         * Retrieves the maximum amount of queued tasks.
+         * @return The capacity.
+         */
+        public int queueCapacity () {
+                return this.queueCapacity;
+        }
+
+        /**
+         * Retrieves the amount of currently queued tasks.
+         * @return The depth.
+         */
+        public int queueDepth () {
+                return this.getQueue ().size ();
+        }
+
+        /**
+         * Provides a factory for named daemon threads.
+         */
+        private static final class CryptoThreadFactory implements ThreadFactory {
+                private final int pool = POOL_COUNTER.incrementAndGet ();
+                private final AtomicInteger counter = new AtomicInteger ();
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public Thread newThread (@Nonnull Runnable runnable) {
+                        Thread thread = new Thread (runnable, "padlock-crypto-" + this.pool + "-" + this.counter.incrementAndGet ());
+                        thread.setDaemon (true);
+                        return thread;
+                }
+        }
+}
@@ -30,7 +30,7 @@ import java.util.function.Consumer;
  * @author Johannes Donath
  */
 @JsonAutoDetect (fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.NONE, getterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
-public class AuthenticationClaimMetadata {
+public class AuthenticationClaimMetadata implements Cloneable {
         private final UUID identifier;
         private Instant issuance;
         private Instant expiration;
@@ -304,6 +304,23 @@ public class AuthenticationClaimMetadata {
                 return this.expiration (expiration);
         }
 
+        /**
+         * Creates a copy of this metadata which retains its runtime type.
+         * The default implementation performs a shallow copy. Subclasses which hold mutable state (such as collections
+         * or arrays) must override this method in order to copy said state as well, otherwise modifications made to
+         * copies handed out by {@link com.torchmind.padlock.cache.VerifiedClaimCache} leak into the cached claim.
+         * @return The copy.
+         */
+        @Nonnull
+        @Override
+        public AuthenticationClaimMetadata clone () {
+                try {
+                        return ((AuthenticationClaimMetadata) super.clone ());
+                } catch (CloneNotSupportedException ex) {
+                        throw new IllegalStateException ("Cannot copy metadata: " + ex.getMessage (), ex);
+                }
+        }
+
         /**
          * {@inheritDoc}
          */
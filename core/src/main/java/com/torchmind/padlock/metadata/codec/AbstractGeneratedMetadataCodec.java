@@ -0,0 +1,454 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides a base for metadata codecs generated from types annotated with
+ * {@link com.torchmind.padlock.metadata.codec.GenerateCodec}.
+ * Documents are read and written through Jackson's streaming API using the same representation as
+ * {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec}.
+ * @param <M> The metadata type.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public abstract class AbstractGeneratedMetadataCodec<M extends AuthenticationClaimMetadata> implements ITypedMetadataCodec<M> {
+        private static final JsonFactory FACTORY = new JsonFactory ();
+        private static final BigDecimal ONE_BILLION = new BigDecimal (1_000_000_000L);
+
+        private final Class<M> type;
+
+        protected AbstractGeneratedMetadataCodec (@Nonnull Class<M> type) {
+                this.type = type;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Class<M> type () {
+                return this.type;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings ("unchecked")
+        public <T extends AuthenticationClaimMetadata> T decode (@Nonnull Class<T> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                if (type != this.type) throw new IllegalArgumentException ("Could not decode claim metadata: Unsupported type " + type.getName ());
+
+                try (JsonParser parser = createParser (encoded)) {
+                        parser.nextToken ();
+                        expect (parser, JsonToken.START_OBJECT);
+
+                        return ((T) this.read (parser));
+                } catch (IOException | DateTimeException | ArithmeticException ex) {
+                        throw new IllegalArgumentException ("Could not decode claim metadata: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Fields of the actual metadata type are skipped. Documents which specify a base field more than once are rejected
+         * as their interpretation would otherwise depend on the decoder.
+         */
+        @Nonnull
+        @Override
+        public AuthenticationClaimMetadata decodeBase (@Nonnull Class<? extends AuthenticationClaimMetadata> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                UUID identifier = null;
+                Instant issuance = null;
+                Instant expiration = null;
+                int seen = 0;
+
+                try (JsonParser parser = createParser (encoded)) {
+                        parser.nextToken ();
+                        expect (parser, JsonToken.START_OBJECT);
+
+                        while (parser.nextToken () == JsonToken.FIELD_NAME) {
+                                String name = parser.getCurrentName ();
+                                parser.nextToken ();
+
+                                switch (name) {
+                                        case "identifier":
+                                                seen = seen (parser, seen, 0x1, name);
+                                                identifier = readUUID (parser);
+                                                break;
+                                        case "issuance":
+                                                seen = seen (parser, seen, 0x2, name);
+                                                issuance = readInstant (parser);
+                                                break;
+                                        case "expiration":
+                                                seen = seen (parser, seen, 0x4, name);
+                                                expiration = readInstant (parser);
+                                                break;
+                                        default:
+                                                parser.skipChildren ();
+                                }
+                        }
+
+                        return new AuthenticationClaimMetadata (required (parser, "identifier", identifier), required (parser, "issuance", issuance), expiration);
+                } catch (IOException | DateTimeException | ArithmeticException ex) {
+                        throw new IllegalArgumentException ("Could not decode claim metadata: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Creates a parser for the remaining bytes of a buffer.
+         * The buffer position is not modified.
+         * @param encoded The encoded metadata.
+         * @return The parser.
+         * @throws java.io.IOException when creating the parser fails.
+         */
+        @Nonnull
+        private static JsonParser createParser (@Nonnull ByteBuffer encoded) throws IOException {
+                if (encoded.hasArray ()) return FACTORY.createParser (encoded.array (), (encoded.arrayOffset () + encoded.position ()), encoded.remaining ());
+
+                byte[] encodedBytes = new byte[encoded.remaining ()];
+                encoded.duplicate ().get (encodedBytes);
+                return FACTORY.createParser (encodedBytes);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings ("unchecked")
+        public <T extends AuthenticationClaimMetadata> ByteBuffer encode (@Nonnull Class<T> type, @Nonnull T decoded) throws IllegalStateException {
+                if (decoded.getClass () != this.type) throw new IllegalStateException ("Could not encode claim metadata: Unsupported type " + decoded.getClass ().getName ());
+
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream (128);
+
+                try (JsonGenerator generator = FACTORY.createGenerator (outputStream)) {
+                        generator.writeStartObject ();
+                        this.write (generator, (M) decoded);
+                        generator.writeEndObject ();
+                } catch (IOException ex) {
+                        throw new IllegalStateException ("Could not encode claim metadata: " + ex.getMessage (), ex);
+                }
+
+                return ByteBuffer.wrap (outputStream.toByteArray ());
+        }
+
+        /**
+         * Reads the fields of an object.
+         * The parser is positioned at the start of the object.
+         * @param parser The parser.
+         * @return The metadata.
+         * @throws java.io.IOException when the document is malformed.
+         */
+        @Nonnull
+        protected abstract M read (@Nonnull JsonParser parser) throws IOException;
+
+        /**
+         * Writes the fields of an object.
+         * @param generator The generator.
+         * @param metadata The metadata.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected abstract void write (@Nonnull JsonGenerator generator, @Nonnull M metadata) throws IOException;
+
+        /**
+         * Creates an exception for an unknown field.
+         * @param parser The parser.
+         * @param name The field name.
+         * @return The exception.
+         */
+        @Nonnull
+        protected static JsonParseException unknownField (@Nonnull JsonParser parser, @Nonnull String name) {
+                return new JsonParseException ("Unknown field \"" + name + "\"", parser.getCurrentLocation ());
+        }
+
+        /**
+         * Ensures that a required value is present.
+         * @param parser The parser.
+         * @param name The field name.
+         * @param value The value.
+         * @param <T> The value type.
+         * @return The value.
+         * @throws com.fasterxml.jackson.core.JsonParseException when the value is missing.
+         */
+        @Nonnull
+        protected static <T> T required (@Nonnull JsonParser parser, @Nonnull String name, @Nullable T value) throws JsonParseException {
+                if (value == null) throw new JsonParseException ("Missing field \"" + name + "\"", parser.getCurrentLocation ());
+                return value;
+        }
+
+        /**
+         * Marks a base field as seen.
+         * @param parser The parser.
+         * @param seen The fields seen so far.
+         * @param field The field flag.
+         * @param name The field name.
+         * @return The updated fields.
+         * @throws com.fasterxml.jackson.core.JsonParseException when the field has been seen before.
+         */
+        private static int seen (@Nonnull JsonParser parser, int seen, int field, @Nonnull String name) throws JsonParseException {
+                if ((seen & field) != 0) throw new JsonParseException ("Duplicate field \"" + name + "\"", parser.getCurrentLocation ());
+                return (seen | field);
+        }
+
+        /**
+         * Ensures the parser is positioned at a certain token.
+         * @param parser The parser.
+         * @param token The expected token.
+         * @throws com.fasterxml.jackson.core.JsonParseException when the parser is positioned at a different token.
+         */
+        protected static void expect (@Nonnull JsonParser parser, @Nonnull JsonToken token) throws JsonParseException {
+                if (parser.getCurrentToken () != token) throw new JsonParseException ("Expected " + token + " but got " + parser.getCurrentToken (), parser.getCurrentLocation ());
+        }
+
+        /**
+         * Writes a string field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeString (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable String value) throws IOException {
+                generator.writeFieldName (name);
+
+                if (value == null) generator.writeNull ();
+                else generator.writeString (value);
+        }
+
+        /**
+         * Reads a string value.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static String readString (@Nonnull JsonParser parser) throws IOException {
+                if (parser.getCurrentToken () == JsonToken.VALUE_NULL) return null;
+
+                expect (parser, JsonToken.VALUE_STRING);
+                return parser.getText ();
+        }
+
+        /**
+         * Writes a UUID field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeUUID (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable UUID value) throws IOException {
+                writeString (generator, name, (value == null ? null : value.toString ()));
+        }
+
+        /**
+         * Reads a UUID value.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static UUID readUUID (@Nonnull JsonParser parser) throws IOException {
+                String value = readString (parser);
+                if (value == null) return null;
+
+                try {
+                        return UUID.fromString (value);
+                } catch (IllegalArgumentException ex) {
+                        throw new JsonParseException ("Malformed UUID: " + ex.getMessage (), parser.getCurrentLocation (), ex);
+                }
+        }
+
+        /**
+         * Writes an instant field as decimal timestamp.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeInstant (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable Instant value) throws IOException {
+                generator.writeFieldName (name);
+
+                if (value == null) {
+                        generator.writeNull ();
+                        return;
+                }
+
+                char[] nanos = new char[] { '0', '0', '0', '0', '0', '0', '0', '0', '0' };
+                int remaining = value.getNano ();
+
+                for (int i = (nanos.length - 1); i >= 0 && remaining != 0; --i) {
+                        nanos[i] = (char) ('0' + (remaining % 10));
+                        remaining /= 10;
+                }
+
+                generator.writeNumber (value.getEpochSecond () + "." + new String (nanos));
+        }
+
+        /**
+         * Reads an instant value from a decimal timestamp.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static Instant readInstant (@Nonnull JsonParser parser) throws IOException {
+                if (parser.getCurrentToken () == JsonToken.VALUE_NULL) return null;
+                expect (parser, JsonToken.VALUE_NUMBER_FLOAT);
+
+                BigDecimal value = parser.getDecimalValue ();
+                long seconds = value.longValue ();
+                int nanos = value.subtract (new BigDecimal (seconds)).multiply (ONE_BILLION).intValue ();
+
+                return Instant.ofEpochSecond (seconds, nanos);
+        }
+
+        /**
+         * Writes a boolean field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeBoolean (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable Boolean value) throws IOException {
+                generator.writeFieldName (name);
+
+                if (value == null) generator.writeNull ();
+                else generator.writeBoolean (value);
+        }
+
+        /**
+         * Reads a boolean value.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static Boolean readBoolean (@Nonnull JsonParser parser) throws IOException {
+                JsonToken token = parser.getCurrentToken ();
+
+                if (token == JsonToken.VALUE_NULL) return null;
+                if (token == JsonToken.VALUE_TRUE) return Boolean.TRUE;
+
+                expect (parser, JsonToken.VALUE_FALSE);
+                return Boolean.FALSE;
+        }
+
+        /**
+         * Writes an integral number field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeLong (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable Number value) throws IOException {
+                generator.writeFieldName (name);
+
+                if (value == null) generator.writeNull ();
+                else generator.writeNumber (value.longValue ());
+        }
+
+        /**
+         * Reads an integral number value.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static Long readLong (@Nonnull JsonParser parser) throws IOException {
+                if (parser.getCurrentToken () == JsonToken.VALUE_NULL) return null;
+
+                expect (parser, JsonToken.VALUE_NUMBER_INT);
+                return parser.getLongValue ();
+        }
+
+        /**
+         * Writes a floating point number field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeDouble (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable Number value) throws IOException {
+                generator.writeFieldName (name);
+
+                if (value == null) generator.writeNull ();
+                else if (value instanceof Float) generator.writeNumber (value.floatValue ());
+                else generator.writeNumber (value.doubleValue ());
+        }
+
+        /**
+         * Reads a floating point number value.
+         * @param parser The parser.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static Double readDouble (@Nonnull JsonParser parser) throws IOException {
+                JsonToken token = parser.getCurrentToken ();
+                if (token == JsonToken.VALUE_NULL) return null;
+                if (token != JsonToken.VALUE_NUMBER_INT) expect (parser, JsonToken.VALUE_NUMBER_FLOAT);
+
+                return parser.getDoubleValue ();
+        }
+
+        /**
+         * Writes an enum field.
+         * @param generator The generator.
+         * @param name The field name.
+         * @param value The value.
+         * @throws java.io.IOException when writing fails.
+         */
+        protected static void writeEnum (@Nonnull JsonGenerator generator, @Nonnull String name, @Nullable Enum<?> value) throws IOException {
+                writeString (generator, name, (value == null ? null : value.name ()));
+        }
+
+        /**
+         * Reads an enum value.
+         * @param parser The parser.
+         * @param type The enum type.
+         * @param <E> The enum type.
+         * @return The value.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        protected static <E extends Enum<E>> E readEnum (@Nonnull JsonParser parser, @Nonnull Class<E> type) throws IOException {
+                String value = readString (parser);
+                if (value == null) return null;
+
+                try {
+                        return Enum.valueOf (type, value);
+                } catch (IllegalArgumentException ex) {
+                        throw new JsonParseException ("Unknown constant \"" + value + "\" of " + type.getName (), parser.getCurrentLocation (), ex);
+                }
+        }
+}
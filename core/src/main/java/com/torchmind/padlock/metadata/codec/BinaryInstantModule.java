@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.InstantDeserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+
+/**
+ * Provides a module which represents instants as pairs of epoch seconds and nanoseconds within binary data formats.
+ * The JSR-310 module emits pre-formatted decimal strings which some binary formats (such as CBOR) store as text values
+ * while decimal numbers are not universally supported by their parsers. Integer pairs on the other hand are compact in
+ * all binary formats and preserve nanosecond precision. Other representations are still accepted when decoding.
+ * @author Johannes Donath
+ */
+class BinaryInstantModule extends SimpleModule {
+        private static final long serialVersionUID = 1L;
+
+        BinaryInstantModule () {
+                super ("BinaryInstantModule");
+
+                this.addSerializer (Instant.class, new Serializer ());
+                this.addDeserializer (Instant.class, new Deserializer ());
+        }
+
+        /**
+         * Serializes instants as pairs of epoch seconds and nanoseconds.
+         */
+        private static final class Serializer extends StdSerializer<Instant> {
+
+                private Serializer () {
+                        super (Instant.class);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public void serialize (Instant value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                        generator.writeStartArray ();
+                        generator.writeNumber (value.getEpochSecond ());
+                        generator.writeNumber (value.getNano ());
+                        generator.writeEndArray ();
+                }
+        }
+
+        /**
+         * Deserializes instants from pairs of epoch seconds and nanoseconds.
+         */
+        private static final class Deserializer extends StdDeserializer<Instant> {
+                private static final long serialVersionUID = 1L;
+
+                private Deserializer () {
+                        super (Instant.class);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public Instant deserialize (JsonParser parser, DeserializationContext context) throws IOException {
+                        if (parser.getCurrentToken () != JsonToken.START_ARRAY) return InstantDeserializer.INSTANT.deserialize (parser, context);
+
+                        if (parser.nextToken () != JsonToken.VALUE_NUMBER_INT) throw context.mappingException ("Expected epoch seconds");
+                        long seconds = parser.getLongValue ();
+
+                        if (parser.nextToken () != JsonToken.VALUE_NUMBER_INT) throw context.mappingException ("Expected nanoseconds");
+                        long nanos = parser.getLongValue ();
+
+                        if (parser.nextToken () != JsonToken.END_ARRAY) throw context.mappingException ("Expected end of instant");
+
+                        try {
+                                return Instant.ofEpochSecond (seconds, nanos);
+                        } catch (DateTimeException | ArithmeticException ex) {
+                                throw context.mappingException (ex.getMessage ());
+                        }
+                }
+        }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a metadata codec implementation utilizing a compact fixed binary layout.
+ *
+ * All values are stored in network byte order:
+ * <pre>
+ * offset  size  field
+ *      0     1  version
+ *      1     1  flags (bit 0: expiration present)
+ *      2    16  identifier (most significant bits followed by least significant bits)
+ *     18     8  issuance (epoch seconds)
+ *     26     4  issuance (nanoseconds)
+ *     30     8  expiration (epoch seconds, zero if absent)
+ *     38     4  expiration (nanoseconds, zero if absent)
+ *     42     2  extension length (unsigned)
+ *     44     n  extension area
+ * </pre>
+ * Additional fields of metadata subclasses are stored within the extension area by an
+ * {@link com.torchmind.padlock.metadata.codec.IBinaryMetadataExtension} registered for the respective type.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class BinaryMetadataCodec implements IMetadataCodec {
+        public static final byte VERSION = 1;
+        public static final int BASE_LENGTH = 44;
+        public static final int MAXIMUM_EXTENSION_LENGTH = 0xFFFF;
+
+        private static final byte FLAG_EXPIRATION = 0x01;
+
+        private static final int OFFSET_VERSION = 0;
+        private static final int OFFSET_FLAGS = 1;
+        private static final int OFFSET_IDENTIFIER = 2;
+        private static final int OFFSET_ISSUANCE = 18;
+        private static final int OFFSET_EXPIRATION = 30;
+        private static final int OFFSET_EXTENSION_LENGTH = 42;
+
+        private final Map<Class<?>, IBinaryMetadataExtension<?>> extensions = new ConcurrentHashMap<> ();
+
+        /**
+         * Registers an extension for a metadata type.
+         * @param type The metadata type.
+         * @param extension The extension.
+         * @param <M> The metadata type.
+         * @return The codec.
+         */
+        @Nonnull
+        public <M extends AuthenticationClaimMetadata> BinaryMetadataCodec extension (@Nonnull Class<M> type, @Nonnull IBinaryMetadataExtension<M> extension) {
+                this.extensions.put (type, extension);
+                return this;
+        }
+
+        /**
+         * Retrieves the extension registered for a metadata type.
+         * @param type The metadata type.
+         * @param <M> The metadata type.
+         * @return The extension or null if none was registered.
+         */
+        @Nullable
+        @SuppressWarnings ("unchecked")
+        public <M extends AuthenticationClaimMetadata> IBinaryMetadataExtension<M> extension (@Nonnull Class<M> type) {
+                return ((IBinaryMetadataExtension<M>) this.extensions.get (type));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings ("unchecked")
+        public <M extends AuthenticationClaimMetadata> M decode (@Nonnull Class<M> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                IBinaryMetadataExtension<M> extension = this.extension (type);
+                if (extension == null && type != AuthenticationClaimMetadata.class)
+                        throw new IllegalArgumentException ("Could not decode claim metadata: No extension registered for type " + type.getName ());
+
+                int offset = encoded.position ();
+                int extensionLength = extensionLength (encoded);
+
+                UUID identifier = new UUID (encoded.getLong (offset + OFFSET_IDENTIFIER), encoded.getLong (offset + OFFSET_IDENTIFIER + 8));
+                Instant issuance = instant (encoded, (offset + OFFSET_ISSUANCE));
+                Instant expiration = ((encoded.get (offset + OFFSET_FLAGS) & FLAG_EXPIRATION) != 0 ? instant (encoded, (offset + OFFSET_EXPIRATION)) : null);
+
+                if (extension == null) {
+                        if (extensionLength != 0) throw new IllegalArgumentException ("Could not decode claim metadata: Unexpected extension area");
+                        return ((M) new AuthenticationClaimMetadata (identifier, issuance, expiration));
+                }
+
+                ByteBuffer extensionBuffer = encoded.duplicate ();
+                extensionBuffer.position (offset + BASE_LENGTH);
+                return extension.decode (identifier, issuance, expiration, extensionBuffer.slice ());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public AuthenticationClaimMetadata decodeBase (@Nonnull Class<? extends AuthenticationClaimMetadata> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                int offset = encoded.position ();
+                extensionLength (encoded);
+
+                UUID identifier = new UUID (encoded.getLong (offset + OFFSET_IDENTIFIER), encoded.getLong (offset + OFFSET_IDENTIFIER + 8));
+                Instant issuance = instant (encoded, (offset + OFFSET_ISSUANCE));
+                Instant expiration = ((encoded.get (offset + OFFSET_FLAGS) & FLAG_EXPIRATION) != 0 ? instant (encoded, (offset + OFFSET_EXPIRATION)) : null);
+
+                return new AuthenticationClaimMetadata (identifier, issuance, expiration);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <M extends AuthenticationClaimMetadata> ByteBuffer encode (@Nonnull Class<M> type, @Nonnull M decoded) throws IllegalStateException {
+                IBinaryMetadataExtension<M> extension = this.extension (type);
+                if (extension == null && type != AuthenticationClaimMetadata.class)
+                        throw new IllegalStateException ("Could not encode claim metadata: No extension registered for type " + type.getName ());
+
+                int extensionLength = (extension == null ? 0 : extension.encodedLength (decoded));
+                if (extensionLength < 0 || extensionLength > MAXIMUM_EXTENSION_LENGTH)
+                        throw new IllegalStateException ("Could not encode claim metadata: Extension area of " + extensionLength + " bytes exceeds limit of " + MAXIMUM_EXTENSION_LENGTH + " bytes");
+
+                ByteBuffer buffer = ByteBuffer.allocate (BASE_LENGTH + extensionLength);
+                Instant expiration = decoded.expiration ();
+
+                buffer.put (VERSION);
+                buffer.put ((expiration != null ? FLAG_EXPIRATION : 0));
+                buffer.putLong (decoded.identifier ().getMostSignificantBits ());
+                buffer.putLong (decoded.identifier ().getLeastSignificantBits ());
+                buffer.putLong (decoded.issuance ().getEpochSecond ());
+                buffer.putInt (decoded.issuance ().getNano ());
+                buffer.putLong ((expiration != null ? expiration.getEpochSecond () : 0));
+                buffer.putInt ((expiration != null ? expiration.getNano () : 0));
+                buffer.putShort ((short) extensionLength);
+
+                if (extension != null) {
+                        extension.encode (decoded, buffer);
+                        if (buffer.hasRemaining ()) throw new IllegalStateException ("Could not encode claim metadata: Extension wrote less than the announced " + extensionLength + " bytes");
+                }
+
+                buffer.flip ();
+                return buffer;
+        }
+
+        /**
+         * Validates the header of an encoded metadata object.
+         * @param encoded The encoded metadata.
+         * @return The length of the extension area.
+         * @throws java.lang.IllegalArgumentException when the header is malformed.
+         */
+        private static int extensionLength (@Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                int offset = encoded.position ();
+                int length = encoded.remaining ();
+                if (length < BASE_LENGTH) throw new IllegalArgumentException ("Could not decode claim metadata: Expected at least " + BASE_LENGTH + " bytes but got " + length);
+
+                byte version = encoded.get (offset + OFFSET_VERSION);
+                if (version != VERSION) throw new IllegalArgumentException ("Could not decode claim metadata: Unsupported version " + version);
+
+                int extensionLength = (encoded.getShort (offset + OFFSET_EXTENSION_LENGTH) & 0xFFFF);
+                if (length != BASE_LENGTH + extensionLength) throw new IllegalArgumentException ("Could not decode claim metadata: Expected " + (BASE_LENGTH + extensionLength) + " bytes but got " + length);
+
+                return extensionLength;
+        }
+
+        /**
+         * Reads an instant from a buffer.
+         * @param buffer The buffer.
+         * @param offset The absolute offset.
+         * @return The instant.
+         * @throws java.lang.IllegalArgumentException when the encoded instant is out of range.
+         */
+        @Nonnull
+        private static Instant instant (@Nonnull ByteBuffer buffer, int offset) throws IllegalArgumentException {
+                long seconds = buffer.getLong (offset);
+                int nanos = buffer.getInt (offset + 8);
+                if (nanos < 0 || nanos > 999_999_999) throw new IllegalArgumentException ("Could not decode claim metadata: Nanoseconds out of range");
+
+                try {
+                        return Instant.ofEpochSecond (seconds, nanos);
+                } catch (DateTimeException ex) {
+                        throw new IllegalArgumentException ("Could not decode claim metadata: " + ex.getMessage (), ex);
+                }
+        }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Provides a metadata codec which dispatches to dedicated codecs based on the metadata type.
+ * Types without a dedicated codec are handled by a fallback codec.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class CompositeMetadataCodec implements IMetadataCodec {
+        private final IMetadataCodec fallback;
+        private final Map<Class<?>, ITypedMetadataCodec<?>> codecs;
+
+        public CompositeMetadataCodec (@Nonnull IMetadataCodec fallback, @Nonnull Iterable<? extends ITypedMetadataCodec<?>> codecs) {
+                Map<Class<?>, ITypedMetadataCodec<?>> codecMap = new HashMap<> ();
+                for (ITypedMetadataCodec<?> codec : codecs) codecMap.put (codec.type (), codec);
+
+                this.fallback = fallback;
+                this.codecs = Collections.unmodifiableMap (codecMap);
+        }
+
+        /**
+         * Discovers all dedicated codecs registered as {@link java.util.ServiceLoader} services.
+         * @param fallback The codec to fall back to for types without a dedicated codec.
+         * @param classLoader The class loader to search.
+         * @return The composite codec or the fallback codec if no dedicated codecs are registered.
+         */
+        @Nonnull
+        public static IMetadataCodec discover (@Nonnull IMetadataCodec fallback, @Nullable ClassLoader classLoader) {
+                ServiceLoader<ITypedMetadataCodec<?>> loader = loader (classLoader);
+                if (!loader.iterator ().hasNext ()) return fallback;
+
+                return new CompositeMetadataCodec (fallback, loader);
+        }
+
+        /**
+         * Discovers all dedicated codecs registered as {@link java.util.ServiceLoader} services within the class loader
+         * of this class.
+         * The class path is only scanned once and the discovered codecs are shared between all calls of this method.
+         * @param fallback The codec to fall back to for types without a dedicated codec.
+         * @return The composite codec or the fallback codec if no dedicated codecs are registered.
+         */
+        @Nonnull
+        public static IMetadataCodec discover (@Nonnull IMetadataCodec fallback) {
+                if (DiscoveredCodecs.CODECS.isEmpty ()) return fallback;
+                return new CompositeMetadataCodec (fallback, DiscoveredCodecs.CODECS);
+        }
+
+        /**
+         * Creates a service loader for dedicated codecs.
+         * @param classLoader The class loader to search.
+         * @return The loader.
+         */
+        @Nonnull
+        @SuppressWarnings ("unchecked")
+        private static ServiceLoader<ITypedMetadataCodec<?>> loader (@Nullable ClassLoader classLoader) {
+                return ServiceLoader.load ((Class<ITypedMetadataCodec<?>>) (Class<?>) ITypedMetadataCodec.class, classLoader);
+        }
+
+        /**
+         * Retrieves the dedicated codec for a type.
+         * @param type The type.
+         * @param <M> The metadata type.
+         * @return The codec or null if no dedicated codec is registered.
+         */
+        @Nullable
+        @SuppressWarnings ("unchecked")
+        public <M extends AuthenticationClaimMetadata> ITypedMetadataCodec<M> codec (@Nonnull Class<M> type) {
+                return ((ITypedMetadataCodec<M>) this.codecs.get (type));
+        }
+
+        /**
+         * Retrieves all dedicated codecs.
+         * @return A map of types and their respective codecs.
+         */
+        @Nonnull
+        public Map<Class<?>, ITypedMetadataCodec<?>> codecs () {
+                return this.codecs;
+        }
+
+        /**
+         * Retrieves the fallback codec.
+         * @return The codec.
+         */
+        @Nonnull
+        public IMetadataCodec fallback () {
+                return this.fallback;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <M extends AuthenticationClaimMetadata> M decode (@Nonnull Class<M> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                ITypedMetadataCodec<M> codec = this.codec (type);
+                if (codec == null) return this.fallback.decode (type, encoded);
+
+                return codec.decode (type, encoded);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public AuthenticationClaimMetadata decodeBase (@Nonnull Class<? extends AuthenticationClaimMetadata> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                ITypedMetadataCodec<?> codec = this.codecs.get (type);
+                if (codec == null) return this.fallback.decodeBase (type, encoded);
+
+                return codec.decodeBase (type, encoded);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings ("unchecked")
+        public <M extends AuthenticationClaimMetadata> ByteBuffer encode (@Nonnull Class<M> type, @Nonnull M decoded) throws IllegalStateException {
+                ITypedMetadataCodec<M> codec = (ITypedMetadataCodec<M>) this.codecs.get (decoded.getClass ());
+                if (codec == null) return this.fallback.encode (type, decoded);
+
+                return codec.encode (codec.type (), decoded);
+        }
+
+        /**
+         * Lazily discovers the codecs registered within the class loader of this class.
+         */
+        private static final class DiscoveredCodecs {
+                private static final List<ITypedMetadataCodec<?>> CODECS;
+
+                static {
+                        List<ITypedMetadataCodec<?>> codecs = new ArrayList<> ();
+                        loader (CompositeMetadataCodec.class.getClassLoader ()).forEach (codecs::add);
+
+                        CODECS = Collections.unmodifiableList (codecs);
+                }
+        }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link com.torchmind.padlock.metadata.AuthenticationClaimMetadata} type for which a dedicated
+ * {@link com.torchmind.padlock.metadata.codec.ITypedMetadataCodec} is generated at compile time.
+ *
+ * Generated codecs are placed within the package of the annotated type and registered as services in order to be
+ * discovered by {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#discover(IMetadataCodec)} (see
+ * {@link com.torchmind.padlock.Padlock.Builder#discoverMetadataCodecs(boolean)}). The
+ * annotated type is required to provide a non-private constructor which accepts the identifier, issuance and expiration
+ * followed by its own fields in declaration order. Fields are read directly unless they are private in which case a
+ * non-private accessor method of the same name is used.
+ *
+ * <strong>Note:</strong> Code generation requires the {@code padlock-processor} artifact to be present on the annotation
+ * processor path.
+ * @author Johannes Donath
+ */
+@Documented
+@Retention (RetentionPolicy.CLASS)
+@Target (ElementType.TYPE)
+public @interface GenerateCodec {
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides a base interface for extensions which encode the additional fields of metadata subclasses within the
+ * extension area of a {@link com.torchmind.padlock.metadata.codec.BinaryMetadataCodec}.
+ * @param <M> The metadata type.
+ * @author Johannes Donath
+ */
+public interface IBinaryMetadataExtension<M extends AuthenticationClaimMetadata> {
+
+        /**
+         * Constructs metadata from its base fields and extension area.
+         * @param identifier The claim identifier.
+         * @param issuance The claim issuance.
+         * @param expiration The claim expiration.
+         * @param extension The extension area.
+         * @return The decoded metadata.
+         * @throws java.lang.IllegalArgumentException when the extension area is malformed.
+         */
+        @Nonnull
+        M decode (@Nonnull UUID identifier, @Nonnull Instant issuance, @Nullable Instant expiration, @Nonnull ByteBuffer extension) throws IllegalArgumentException;
+
+        /**
+         * Calculates the size of the extension area for a certain metadata instance.
+         * @param metadata The metadata.
+         * @return The amount of bytes.
+         */
+        int encodedLength (@Nonnull M metadata);
+
+        /**
+         * Writes the extension area of a metadata instance.
+         * Exactly {@link #encodedLength(AuthenticationClaimMetadata)} bytes are expected to be written.
+         * @param metadata The metadata.
+         * @param target The target buffer.
+         */
+        void encode (@Nonnull M metadata, @Nonnull ByteBuffer target);
+}
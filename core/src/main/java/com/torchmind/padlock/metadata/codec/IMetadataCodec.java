@@ -19,6 +19,7 @@ package com.torchmind.padlock.metadata.codec;
 import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
 
 /**
@@ -37,6 +38,21 @@ public interface IMetadataCodec {
          */
         <M extends AuthenticationClaimMetadata> M decode (@Nonnull Class<M> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException;
 
+        /**
+         * Decodes the base fields of authentication claim metadata without binding any fields of the actual metadata type.
+         * <strong>Note:</strong> Codecs which do not support partial decoding return {@code null} in which case callers
+         * are expected to fall back to {@link #decode(Class, java.nio.ByteBuffer)}. Documents may only be validated as far
+         * as required in order to locate the base fields.
+         * @param type The metadata type.
+         * @param encoded The encoded metadata.
+         * @return The base metadata or null if partial decoding is not supported.
+         * @throws java.lang.IllegalArgumentException when decoding the metadata fails.
+         */
+        @Nullable
+        default AuthenticationClaimMetadata decodeBase (@Nonnull Class<? extends AuthenticationClaimMetadata> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                return null;
+        }
+
         /**
          * Encodes authentication claim metadata.
          * @param type The metadata type.
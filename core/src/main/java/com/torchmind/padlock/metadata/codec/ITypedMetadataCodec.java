@@ -14,37 +14,23 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.torchmind.padlock;
+package com.torchmind.padlock.metadata.codec;
 
 import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
 
 import javax.annotation.Nonnull;
-import java.nio.ByteBuffer;
 
 /**
- * Represents an authentication claim.
+ * Provides a base interface for metadata codecs which are dedicated to a single metadata type.
+ * @param <M> The metadata type.
  * @author Johannes Donath
  */
-public interface IAuthenticationClaim<M extends AuthenticationClaimMetadata> {
+public interface ITypedMetadataCodec<M extends AuthenticationClaimMetadata> extends IMetadataCodec {
 
         /**
-         * Retrieves the claim metadata.
-         * @return The metadata.
-         */
-        @Nonnull
-        M metadata ();
-
-        /**
-         * Retrieves the claim metadata type.
+         * Retrieves the metadata type handled by this codec.
          * @return The type.
          */
         @Nonnull
-        Class<M> metadataType ();
-
-        /**
-         * Retrieves the claim signature.
-         * @return The signature.
-         */
-        @Nonnull
-        ByteBuffer signature ();
+        Class<M> type ();
 }
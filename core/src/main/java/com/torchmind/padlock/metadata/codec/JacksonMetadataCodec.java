@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides a metadata codec implementation utilizing Jackson's {@link com.fasterxml.jackson.databind.ObjectMapper}.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class JacksonMetadataCodec implements IMetadataCodec {
+        private static final BigDecimal ONE_BILLION = new BigDecimal (1_000_000_000L);
+
+        private final ObjectReader reader;
+        private final ObjectWriter writer;
+        private final boolean baseDecode;
+        private final ClassValue<ObjectReader> typedReaders = new ClassValue<ObjectReader> () {
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected ObjectReader computeValue (Class<?> type) {
+                        return JacksonMetadataCodec.this.reader ().withType (type);
+                }
+        };
+
+        public JacksonMetadataCodec () {
+                ObjectMapper mapper = this.createMapper ();
+
+                this.reader = mapper.reader ();
+                this.writer = mapper.writer ();
+
+                DeserializationConfig config = this.reader.getConfig ();
+                this.baseDecode = (config.isEnabled (DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS) && config.getPropertyNamingStrategy () == null);
+        }
+
+        /**
+         * Retrieves a new mapper.
+         * @return The mapper.
+         */
+        @Nonnull
+        protected ObjectMapper createMapper () {
+                ObjectMapper mapper = new ObjectMapper ();
+                mapper.findAndRegisterModules ();
+                return mapper;
+        }
+
+        /**
+         * Retrieves the object reader.
+         * @return The reader.
+         */
+        public ObjectReader reader () {
+                return this.reader;
+        }
+
+        /**
+         * Retrieves the object reader for a certain type.
+         * Readers are constructed once per type and cached for subsequent calls.
+         * @param type The type.
+         * @return The reader.
+         */
+        @Nonnull
+        public ObjectReader reader (@Nonnull Class<?> type) {
+                return this.typedReaders.get (type);
+        }
+
+        /**
+         * Retrieves the object writer.
+         * @return The writer.
+         */
+        public ObjectWriter writer () {
+                return this.writer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <M extends AuthenticationClaimMetadata> M decode (@Nonnull Class<M> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                try {
+                        if (encoded.hasArray ())
+                                return this.reader (type).readValue (encoded.array (), (encoded.arrayOffset () + encoded.position ()), encoded.remaining ());
+
+                        byte[] encodedBytes = new byte[encoded.remaining ()];
+                        encoded.get (encodedBytes);
+                        encoded.rewind ();
+
+                        return this.reader (type).readValue (encodedBytes);
+                } catch (IOException ex) {
+                        throw new IllegalArgumentException ("Could not decode claim metadata: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * The document is traversed through the streaming API of the underlying factory. Documents which specify a base
+         * field more than once are rejected as databind would silently pick the last occurrence. Mappers which rename
+         * properties or interpret numeric timestamps as milliseconds are not supported.
+         */
+        @Nullable
+        @Override
+        public AuthenticationClaimMetadata decodeBase (@Nonnull Class<? extends AuthenticationClaimMetadata> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                if (!this.baseDecode) return null;
+
+                byte[] encodedBytes;
+                int offset;
+
+                if (encoded.hasArray ()) {
+                        encodedBytes = encoded.array ();
+                        offset = (encoded.arrayOffset () + encoded.position ());
+                } else {
+                        encodedBytes = new byte[encoded.remaining ()];
+                        encoded.duplicate ().get (encodedBytes);
+                        offset = 0;
+                }
+
+                UUID identifier = null;
+                Instant issuance = null;
+                Instant expiration = null;
+                int seen = 0;
+
+                try (JsonParser parser = this.reader ().getFactory ().createParser (encodedBytes, offset, encoded.remaining ())) {
+                        if (parser.nextToken () != JsonToken.START_OBJECT) throw new JsonParseException ("Expected start of object", parser.getCurrentLocation ());
+
+                        while (parser.nextToken () == JsonToken.FIELD_NAME) {
+                                String name = parser.getCurrentName ();
+                                JsonToken value = parser.nextToken ();
+
+                                switch (name) {
+                                        case "identifier":
+                                                seen = seen (parser, seen, 0x1, name);
+                                                if (value != JsonToken.VALUE_STRING) throw new JsonParseException ("Expected identifier string", parser.getCurrentLocation ());
+                                                identifier = UUID.fromString (parser.getText ());
+                                                break;
+                                        case "issuance":
+                                                seen = seen (parser, seen, 0x2, name);
+                                                issuance = readInstant (parser);
+                                                break;
+                                        case "expiration":
+                                                seen = seen (parser, seen, 0x4, name);
+                                                expiration = readInstant (parser);
+                                                break;
+                                        default:
+                                                parser.skipChildren ();
+                                }
+                        }
+                } catch (IOException | DateTimeException | ArithmeticException ex) {
+                        throw new IllegalArgumentException ("Could not decode claim metadata: " + ex.getMessage (), ex);
+                }
+
+                if (identifier == null || issuance == null) throw new IllegalArgumentException ("Could not decode claim metadata: Missing base fields");
+                return new AuthenticationClaimMetadata (identifier, issuance, expiration);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <M extends AuthenticationClaimMetadata> ByteBuffer encode (@Nonnull Class<M> type, @Nonnull M decoded) throws IllegalStateException {
+                try {
+                        return ByteBuffer.wrap (this.writer ().writeValueAsBytes (decoded));
+                } catch (IOException ex) {
+                        throw new IllegalStateException ("Could not encode claim metadata: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Marks a base field as seen.
+         * @param parser The parser.
+         * @param seen The fields seen so far.
+         * @param field The field flag.
+         * @param name The field name.
+         * @return The updated fields.
+         * @throws com.fasterxml.jackson.core.JsonParseException when the field has been seen before.
+         */
+        private static int seen (@Nonnull JsonParser parser, int seen, int field, @Nonnull String name) throws JsonParseException {
+                if ((seen & field) != 0) throw new JsonParseException ("Duplicate field \"" + name + "\"", parser.getCurrentLocation ());
+                return (seen | field);
+        }
+
+        /**
+         * Reads an instant in any of the representations produced by the supported mapper configurations.
+         * The parser is positioned at the first token of the value.
+         * @param parser The parser.
+         * @return The instant or null.
+         * @throws java.io.IOException when the value is malformed.
+         */
+        @Nullable
+        private static Instant readInstant (@Nonnull JsonParser parser) throws IOException {
+                switch (parser.getCurrentToken ()) {
+                        case VALUE_NULL:
+                                return null;
+                        case VALUE_NUMBER_INT:
+                                return Instant.ofEpochSecond (parser.getLongValue ());
+                        case VALUE_NUMBER_FLOAT:
+                                return instant (parser.getDecimalValue ());
+                        case VALUE_STRING:
+                                return Instant.parse (parser.getText ());
+                        case START_ARRAY:
+                                if (parser.nextToken () != JsonToken.VALUE_NUMBER_INT) break;
+                                long seconds = parser.getLongValue ();
+                                if (parser.nextToken () != JsonToken.VALUE_NUMBER_INT) break;
+                                long nanos = parser.getLongValue ();
+                                if (parser.nextToken () != JsonToken.END_ARRAY) break;
+
+                                return Instant.ofEpochSecond (seconds, nanos);
+                }
+
+                throw new JsonParseException ("Unexpected instant representation", parser.getCurrentLocation ());
+        }
+
+        /**
+         * Converts a decimal timestamp into an instant.
+         * @param value The timestamp in seconds.
+         * @return The instant.
+         */
+        @Nonnull
+        static Instant instant (@Nonnull BigDecimal value) {
+                long seconds = value.longValue ();
+                int nanos = value.subtract (new BigDecimal (seconds)).multiply (ONE_BILLION).intValue ();
+
+                return Instant.ofEpochSecond (seconds, nanos);
+        }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides a metadata codec implementation utilizing Jackson's Smile (binary JSON) data format.
+ * Like {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec}, arbitrary fields of metadata subclasses are
+ * supported while the text parsing overhead of JSON is avoided.
+ * <strong>Note:</strong> This codec requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} to be
+ * present on the classpath.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class SmileMetadataCodec extends JacksonMetadataCodec {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        protected ObjectMapper createMapper () {
+                ObjectMapper mapper = new ObjectMapper (new SmileFactory ());
+                mapper.findAndRegisterModules ();
+                mapper.registerModule (new BinaryInstantModule ());
+                return mapper;
+        }
+}
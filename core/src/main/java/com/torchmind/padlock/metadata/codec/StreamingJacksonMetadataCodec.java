@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.metadata.codec;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides a metadata codec implementation which reads and writes the fields of
+ * {@link com.torchmind.padlock.metadata.AuthenticationClaimMetadata} through Jackson's streaming API.
+ * The produced documents are identical to those of {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec}
+ * (as long as subclasses retain the default property order in which the base fields come first).
+ *
+ * The base fields are streamed for every metadata type. The remaining fields of subclasses are buffered and passed to
+ * the databind implementation on their own, so the timestamps are never converted through databind. Documents which
+ * deviate from the expected shape, subclasses which cannot be constructed without their base fields and mapper
+ * configurations which alter the representation of the base fields are handled by the databind implementation.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class StreamingJacksonMetadataCodec extends JacksonMetadataCodec {
+        private static final String FIELD_IDENTIFIER = "identifier";
+        private static final String FIELD_ISSUANCE = "issuance";
+        private static final String FIELD_EXPIRATION = "expiration";
+
+        private static final Field IDENTIFIER = baseField (FIELD_IDENTIFIER);
+        private static final Field ISSUANCE = baseField (FIELD_ISSUANCE);
+        private static final Field EXPIRATION = baseField (FIELD_EXPIRATION);
+
+        private final JsonFactory factory;
+        private final ObjectWriter remainderWriter;
+        private final boolean streamingDecode;
+        private final boolean streamingEncode;
+
+        public StreamingJacksonMetadataCodec () {
+                super ();
+
+                this.factory = this.writer ().getFactory ();
+
+                ObjectMapper remainderMapper = this.createMapper ();
+                remainderMapper.addMixInAnnotations (AuthenticationClaimMetadata.class, BaseFieldExclusion.class);
+                this.remainderWriter = remainderMapper.writer ();
+
+                DeserializationConfig deserializationConfig = this.reader ().getConfig ();
+                this.streamingDecode = (deserializationConfig.isEnabled (DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS) && deserializationConfig.getPropertyNamingStrategy () == null);
+
+                SerializationConfig serializationConfig = this.writer ().getConfig ();
+                this.streamingEncode = (serializationConfig.isEnabled (SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) && serializationConfig.isEnabled (SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS) && !serializationConfig.isEnabled (MapperFeature.SORT_PROPERTIES_ALPHABETICALLY) && serializationConfig.getSerializationInclusion () == JsonInclude.Include.ALWAYS && serializationConfig.getPropertyNamingStrategy () == null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings ("unchecked")
+        public <M extends AuthenticationClaimMetadata> M decode (@Nonnull Class<M> type, @Nonnull ByteBuffer encoded) throws IllegalArgumentException {
+                if (!this.streamingDecode || !encoded.hasArray ()) return super.decode (type, encoded);
+
+                M metadata = this.read (type, encoded.array (), (encoded.arrayOffset () + encoded.position ()), encoded.remaining ());
+                if (metadata == null) return super.decode (type, encoded);
+
+                return metadata;
+        }
+
+        /**
+         * Reads the base metadata fields and passes all remaining fields to databind.
+         * @param type The metadata type.
+         * @param encoded The encoded metadata.
+         * @param offset The offset.
+         * @param length The length.
+         * @param <M> The metadata type.
+         * @return The metadata or null if the document requires databind.
+         */
+        @Nullable
+        @SuppressWarnings ("unchecked")
+        private <M extends AuthenticationClaimMetadata> M read (@Nonnull Class<M> type, @Nonnull byte[] encoded, int offset, int length) {
+                boolean subclass = (type != AuthenticationClaimMetadata.class);
+                TokenBuffer remainder = null;
+
+                UUID identifier = null;
+                Instant issuance = null;
+                Instant expiration = null;
+
+                try (JsonParser parser = this.factory.createParser (encoded, offset, length)) {
+                        if (parser.nextToken () != JsonToken.START_OBJECT) return null;
+
+                        if (subclass) {
+                                remainder = new TokenBuffer (parser);
+                                remainder.writeStartObject ();
+                        }
+
+                        JsonToken token;
+
+                        while ((token = parser.nextToken ()) == JsonToken.FIELD_NAME) {
+                                String name = parser.getCurrentName ();
+                                JsonToken value = parser.nextToken ();
+
+                                switch (name) {
+                                        case FIELD_IDENTIFIER:
+                                                if (value != JsonToken.VALUE_STRING) return null;
+                                                identifier = UUID.fromString (parser.getText ());
+                                                break;
+                                        case FIELD_ISSUANCE:
+                                                if (value != JsonToken.VALUE_NUMBER_FLOAT) return null;
+                                                issuance = instant (parser.getDecimalValue ());
+                                                break;
+                                        case FIELD_EXPIRATION:
+                                                if (value == JsonToken.VALUE_NULL) {
+                                                        expiration = null;
+                                                        break;
+                                                }
+
+                                                if (value != JsonToken.VALUE_NUMBER_FLOAT) return null;
+                                                expiration = instant (parser.getDecimalValue ());
+                                                break;
+                                        default:
+                                                if (!subclass) return null;
+
+                                                remainder.writeFieldName (name);
+                                                remainder.copyCurrentStructure (parser);
+                                }
+                        }
+
+                        if (token != JsonToken.END_OBJECT || identifier == null || issuance == null) return null;
+                        if (!subclass) return ((M) new AuthenticationClaimMetadata (identifier, issuance, expiration));
+
+                        remainder.writeEndObject ();
+
+                        M metadata;
+
+                        try (JsonParser remainderParser = remainder.asParser (parser)) {
+                                metadata = this.reader (type).readValue (remainderParser);
+                        }
+
+                        if (metadata == null) return null;
+
+                        IDENTIFIER.set (metadata, identifier);
+                        ISSUANCE.set (metadata, issuance);
+                        EXPIRATION.set (metadata, expiration);
+
+                        return metadata;
+                } catch (IOException | IllegalArgumentException | DateTimeException | ArithmeticException | IllegalAccessException ex) {
+                        return null;
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <M extends AuthenticationClaimMetadata> ByteBuffer encode (@Nonnull Class<M> type, @Nonnull M decoded) throws IllegalStateException {
+                if (!this.streamingEncode) return super.encode (type, decoded);
+
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream (128);
+
+                try (JsonGenerator generator = this.factory.createGenerator (outputStream)) {
+                        generator.writeStartObject ();
+                        generator.writeStringField (FIELD_IDENTIFIER, decoded.identifier ().toString ());
+
+                        generator.writeFieldName (FIELD_ISSUANCE);
+                        writeInstant (generator, decoded.issuance ());
+
+                        generator.writeFieldName (FIELD_EXPIRATION);
+                        writeInstant (generator, decoded.expiration ());
+
+                        if (decoded.getClass () != AuthenticationClaimMetadata.class) this.writeRemainder (generator, decoded);
+
+                        generator.writeEndObject ();
+                } catch (IOException ex) {
+                        throw new IllegalStateException ("Could not encode claim metadata: " + ex.getMessage (), ex);
+                }
+
+                return ByteBuffer.wrap (outputStream.toByteArray ());
+        }
+
+        /**
+         * Writes all fields of a metadata subclass apart from the base fields through databind.
+         * @param generator The generator.
+         * @param decoded The metadata.
+         * @throws java.io.IOException when writing fails.
+         */
+        private void writeRemainder (@Nonnull JsonGenerator generator, @Nonnull AuthenticationClaimMetadata decoded) throws IOException {
+                TokenBuffer remainder = new TokenBuffer (generator.getCodec (), false);
+                this.remainderWriter.writeValue (remainder, decoded);
+
+                try (JsonParser parser = remainder.asParser ()) {
+                        if (parser.nextToken () != JsonToken.START_OBJECT) throw new IOException ("Expected metadata object");
+                        while (parser.nextToken () == JsonToken.FIELD_NAME) generator.copyCurrentStructure (parser);
+                }
+        }
+
+        /**
+         * Resolves a base field of {@link com.torchmind.padlock.metadata.AuthenticationClaimMetadata}.
+         * Base fields of subclass instances are populated directly (as databind would do) since they expose no setters.
+         * @param name The field name.
+         * @return The field.
+         */
+        @Nonnull
+        private static Field baseField (@Nonnull String name) {
+                try {
+                        Field field = AuthenticationClaimMetadata.class.getDeclaredField (name);
+                        field.setAccessible (true);
+                        return field;
+                } catch (NoSuchFieldException ex) {
+                        throw new IllegalStateException ("Missing metadata field: " + name, ex);
+                }
+        }
+
+        /**
+         * Writes an instant as a decimal timestamp.
+         * @param generator The generator.
+         * @param instant The instant.
+         * @throws java.io.IOException when writing fails.
+         */
+        private static void writeInstant (@Nonnull JsonGenerator generator, @Nullable Instant instant) throws IOException {
+                if (instant == null) {
+                        generator.writeNull ();
+                        return;
+                }
+
+                char[] nanos = new char[] { '0', '0', '0', '0', '0', '0', '0', '0', '0' };
+                int value = instant.getNano ();
+
+                for (int i = (nanos.length - 1); i >= 0 && value != 0; --i) {
+                        nanos[i] = (char) ('0' + (value % 10));
+                        value /= 10;
+                }
+
+                generator.writeNumber (instant.getEpochSecond () + "." + new String (nanos));
+        }
+
+        /**
+         * Excludes the base fields from databind serialization of the remaining subclass fields.
+         */
+        @JsonIgnoreProperties ({ FIELD_IDENTIFIER, FIELD_ISSUANCE, FIELD_EXPIRATION })
+        private static abstract class BaseFieldExclusion {
+        }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.revocation;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * Provides a check which decides whether an authentication claim has been revoked.
+ * Checks are consulted for every claim which passed verification, thus implementations are expected to answer the
+ * common case (a claim which has not been revoked) quickly and without blocking.
+ * @author Johannes Donath
+ */
+@FunctionalInterface
+public interface IRevocationCheck {
+
+        /**
+         * Checks whether the claim with the supplied identifier has been revoked.
+         * @param identifier The claim identifier.
+         * @return True if revoked, false otherwise.
+         */
+        boolean revoked (@Nonnull UUID identifier);
+}
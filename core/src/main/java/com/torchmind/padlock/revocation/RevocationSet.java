@@ -0,0 +1,408 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.revocation;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Provides a memory efficient set of revoked claim identifiers.
+ * Lookups are answered by a lock-free Bloom filter first, thus identifiers which have not been revoked are usually
+ * rejected after a handful of memory reads. Candidates which pass the filter are confirmed against an open addressing
+ * hash set which is stored off-heap (24 bytes per slot) and read optimistically.
+ *
+ * Every entry retains the expiration of the revoked claim. Entries are disregarded once their claim has expired and are
+ * evicted automatically when the set is modified after the earliest expiration has passed (or when {@link #purge()} is
+ * called). Since Bloom filters do not support removals, the filter is rebuilt whenever entries are evicted.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class RevocationSet implements IRevocationCheck {
+        public static final int MAXIMUM_CAPACITY = (1 << 26);
+
+        private static final int SLOT_SIZE = 24;
+        private static final int MINIMUM_CAPACITY = 16;
+        private static final long EMPTY = 0;
+        private static final long NEVER = Long.MAX_VALUE;
+
+        private final double falsePositiveRate;
+        private final Clock clock;
+        private final StampedLock lock = new StampedLock ();
+
+        private volatile Filter filter;
+        private volatile ByteBuffer table;
+        private int capacity;
+        private int size;
+        private long nextPurge = NEVER;
+
+        public RevocationSet (int expectedSize, double falsePositiveRate, @Nonnull Clock clock) {
+                if (expectedSize < 1) throw new IllegalArgumentException ("Expected size must be positive: " + expectedSize);
+                if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException ("False positive rate must be within (0, 1): " + falsePositiveRate);
+
+                this.falsePositiveRate = falsePositiveRate;
+                this.clock = clock;
+                this.capacity = tableCapacity (expectedSize);
+                this.table = ByteBuffer.allocateDirect (this.capacity * SLOT_SIZE);
+                this.filter = new Filter ((this.capacity >> 1), falsePositiveRate);
+        }
+
+        public RevocationSet (int expectedSize, double falsePositiveRate) {
+                this (expectedSize, falsePositiveRate, Clock.systemUTC ());
+        }
+
+        public RevocationSet () {
+                this (1024, 0.01);
+        }
+
+        /**
+         * Revokes a claim.
+         * @param metadata The claim metadata.
+         * @return True if the claim has been added, false if it was revoked already or has expired.
+         * @throws java.lang.IllegalStateException when the set has reached its maximum capacity.
+         */
+        public boolean revoke (@Nonnull AuthenticationClaimMetadata metadata) throws IllegalStateException {
+                return this.revoke (metadata.identifier (), metadata.expiration ());
+        }
+
+        /**
+         * Revokes a claim.
+         * @param identifier The claim identifier.
+         * @param expiration The claim expiration (or null if the claim never expires).
+         * @return True if the claim has been added, false if it was revoked already or has expired.
+         * @throws java.lang.IllegalStateException when the set has reached its maximum capacity.
+         */
+        public boolean revoke (@Nonnull UUID identifier, @Nullable Instant expiration) throws IllegalStateException {
+                long now = this.now ();
+                long expirationSecond = expirationSecond (expiration);
+                if (expirationSecond <= now) return false;
+
+                long mostSignificantBits = identifier.getMostSignificantBits ();
+                long leastSignificantBits = identifier.getLeastSignificantBits ();
+                long stamp = this.lock.writeLock ();
+
+                try {
+                        if (this.nextPurge <= now) this.rebuild (this.capacity, now);
+                        if (((this.size + 1) << 1) > this.capacity) this.rebuild (this.capacity << 1, now);
+
+                        ByteBuffer table = this.table;
+                        int slot = find (table, this.capacity, mostSignificantBits, leastSignificantBits);
+                        int offset = slot * SLOT_SIZE;
+                        long current = table.getLong (offset + 16);
+
+                        if (current != EMPTY) {
+                                if (current > now) return false;
+
+                                // an expired entry which has not been purged yet is revived in place
+                                table.putLong ((offset + 16), expirationSecond);
+                        } else {
+                                table.putLong (offset, mostSignificantBits);
+                                table.putLong ((offset + 8), leastSignificantBits);
+                                table.putLong ((offset + 16), expirationSecond);
+                                ++this.size;
+                        }
+
+                        this.filter.add (mostSignificantBits, leastSignificantBits);
+                        this.nextPurge = Math.min (this.nextPurge, expirationSecond);
+                        return true;
+                } finally {
+                        this.lock.unlockWrite (stamp);
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean revoked (@Nonnull UUID identifier) {
+                long mostSignificantBits = identifier.getMostSignificantBits ();
+                long leastSignificantBits = identifier.getLeastSignificantBits ();
+
+                if (!this.filter.mightContain (mostSignificantBits, leastSignificantBits)) return false;
+
+                long now = this.now ();
+                long stamp = this.lock.tryOptimisticRead ();
+
+                if (stamp != 0) {
+                        boolean revoked = this.lookup (mostSignificantBits, leastSignificantBits, now);
+                        if (this.lock.validate (stamp)) return revoked;
+                }
+
+                stamp = this.lock.readLock ();
+
+                try {
+                        return this.lookup (mostSignificantBits, leastSignificantBits, now);
+                } finally {
+                        this.lock.unlockRead (stamp);
+                }
+        }
+
+        /**
+         * Evicts all entries whose claims have expired.
+         * @return The amount of evicted entries.
+         */
+        public int purge () {
+                long stamp = this.lock.writeLock ();
+
+                try {
+                        int size = this.size;
+                        this.rebuild (this.capacity, this.now ());
+                        return (size - this.size);
+                } finally {
+                        this.lock.unlockWrite (stamp);
+                }
+        }
+
+        /**
+         * Retrieves the amount of entries (including expired entries which have not been evicted yet).
+         * @return The amount.
+         */
+        public int size () {
+                long stamp = this.lock.readLock ();
+
+                try {
+                        return this.size;
+                } finally {
+                        this.lock.unlockRead (stamp);
+                }
+        }
+
+        /**
+         * Retrieves the amount of slots in the off-heap table.
+         * @return The amount.
+         */
+        public int capacity () {
+                long stamp = this.lock.readLock ();
+
+                try {
+                        return this.capacity;
+                } finally {
+                        this.lock.unlockRead (stamp);
+                }
+        }
+
+        /**
+         * Retrieves the configured false positive rate of the filter.
+         * @return The rate.
+         */
+        public double falsePositiveRate () {
+                return this.falsePositiveRate;
+        }
+
+        /**
+         * Looks up an identifier within the table.
+         * When called without holding a lock, the result has to be validated as the table may be modified concurrently.
+         * @param mostSignificantBits The most significant identifier bits.
+         * @param leastSignificantBits The least significant identifier bits.
+         * @param now The current epoch second.
+         * @return True if a matching entry exists and has not expired.
+         */
+        private boolean lookup (long mostSignificantBits, long leastSignificantBits, long now) {
+                ByteBuffer table = this.table;
+                int capacity = (table.capacity () / SLOT_SIZE);
+                int slot = (int) (hash (mostSignificantBits, leastSignificantBits) & (capacity - 1));
+
+                // probing is bounded since concurrent modifications may momentarily present a table without empty slots
+                for (int i = 0; i < capacity; ++i) {
+                        int offset = slot * SLOT_SIZE;
+                        long expiration = table.getLong (offset + 16);
+
+                        if (expiration == EMPTY) return false;
+                        if (table.getLong (offset) == mostSignificantBits && table.getLong (offset + 8) == leastSignificantBits) return (expiration > now);
+
+                        slot = ((slot + 1) & (capacity - 1));
+                }
+
+                return false;
+        }
+
+        /**
+         * Rebuilds the table and filter while evicting expired entries.
+         * Must be called while holding the write lock.
+         * @param capacity The new table capacity.
+         * @param now The current epoch second.
+         * @throws java.lang.IllegalStateException when the capacity exceeds {@link #MAXIMUM_CAPACITY}.
+         */
+        private void rebuild (int capacity, long now) throws IllegalStateException {
+                if (capacity > MAXIMUM_CAPACITY || capacity <= 0) throw new IllegalStateException ("Revocation set exhausted: Cannot exceed " + MAXIMUM_CAPACITY + " slots");
+
+                ByteBuffer source = this.table;
+                ByteBuffer table = ByteBuffer.allocateDirect (capacity * SLOT_SIZE);
+                Filter filter = new Filter ((capacity >> 1), this.falsePositiveRate);
+
+                int size = 0;
+                long nextPurge = NEVER;
+
+                for (int i = 0; i < this.capacity; ++i) {
+                        int offset = i * SLOT_SIZE;
+                        long expiration = source.getLong (offset + 16);
+                        if (expiration == EMPTY || expiration <= now) continue;
+
+                        long mostSignificantBits = source.getLong (offset);
+                        long leastSignificantBits = source.getLong (offset + 8);
+                        int targetOffset = find (table, capacity, mostSignificantBits, leastSignificantBits) * SLOT_SIZE;
+
+                        table.putLong (targetOffset, mostSignificantBits);
+                        table.putLong ((targetOffset + 8), leastSignificantBits);
+                        table.putLong ((targetOffset + 16), expiration);
+                        filter.add (mostSignificantBits, leastSignificantBits);
+
+                        ++size;
+                        nextPurge = Math.min (nextPurge, expiration);
+                }
+
+                this.table = table;
+                this.filter = filter;
+                this.capacity = capacity;
+                this.size = size;
+                this.nextPurge = nextPurge;
+        }
+
+        /**
+         * Locates the slot which holds an identifier or the empty slot it would be inserted into.
+         * Must be called while holding the write lock.
+         * @param table The table.
+         * @param capacity The table capacity.
+         * @param mostSignificantBits The most significant identifier bits.
+         * @param leastSignificantBits The least significant identifier bits.
+         * @return The slot index.
+         */
+        private static int find (@Nonnull ByteBuffer table, int capacity, long mostSignificantBits, long leastSignificantBits) {
+                int slot = (int) (hash (mostSignificantBits, leastSignificantBits) & (capacity - 1));
+
+                while (true) {
+                        int offset = slot * SLOT_SIZE;
+
+                        if (table.getLong (offset + 16) == EMPTY) return slot;
+                        if (table.getLong (offset) == mostSignificantBits && table.getLong (offset + 8) == leastSignificantBits) return slot;
+
+                        slot = ((slot + 1) & (capacity - 1));
+                }
+        }
+
+        /**
+         * Calculates the table capacity for an expected amount of entries (at a load factor of at most 0.5).
+         * @param expectedSize The expected amount of entries.
+         * @return The capacity.
+         */
+        private static int tableCapacity (int expectedSize) {
+                long capacity = Long.highestOneBit (Math.max (MINIMUM_CAPACITY, (long) expectedSize << 1) - 1) << 1;
+                if (capacity > MAXIMUM_CAPACITY) throw new IllegalArgumentException ("Expected size exceeds maximum capacity: " + expectedSize);
+
+                return (int) capacity;
+        }
+
+        /**
+         * Converts a claim expiration into the epoch second at which its entry may be evicted.
+         * @param expiration The expiration (or null).
+         * @return The epoch second.
+         */
+        private static long expirationSecond (@Nullable Instant expiration) {
+                if (expiration == null) return NEVER;
+                return Math.max (1, (expiration.getEpochSecond () + (expiration.getNano () != 0 ? 1 : 0)));
+        }
+
+        /**
+         * Retrieves the current epoch second.
+         * @return The epoch second.
+         */
+        private long now () {
+                return (this.clock.millis () / 1000);
+        }
+
+        /**
+         * Mixes the bits of an identifier (using the finalizer of MurmurHash3).
+         * @param mostSignificantBits The most significant identifier bits.
+         * @param leastSignificantBits The least significant identifier bits.
+         * @return The hash.
+         */
+        private static long hash (long mostSignificantBits, long leastSignificantBits) {
+                long hash = (mostSignificantBits ^ (leastSignificantBits * 0x9E3779B97F4A7C15L));
+
+                hash ^= (hash >>> 33);
+                hash *= 0xFF51AFD7ED558CCDL;
+                hash ^= (hash >>> 33);
+                hash *= 0xC4CEB9FE1A85EC53L;
+                hash ^= (hash >>> 33);
+
+                return hash;
+        }
+
+        /**
+         * Provides a lock-free Bloom filter over identifiers.
+         * Bits are only ever set (through atomic updates) and thus lookups never observe false negatives for identifiers
+         * which have been added before.
+         */
+        private static final class Filter {
+                private final AtomicLongArray words;
+                private final long bits;
+                private final int hashFunctions;
+
+                private Filter (int expectedSize, double falsePositiveRate) {
+                        double optimalBits = (-expectedSize * Math.log (falsePositiveRate) / (Math.log (2) * Math.log (2)));
+                        int words = (int) Math.max (1, Math.min (Integer.MAX_VALUE, Math.ceil (optimalBits / 64)));
+
+                        this.words = new AtomicLongArray (words);
+                        this.bits = ((long) words << 6);
+                        this.hashFunctions = (int) Math.max (1, Math.min (16, Math.round ((double) this.bits / expectedSize * Math.log (2))));
+                }
+
+                /**
+                 * Adds an identifier.
+                 * @param mostSignificantBits The most significant identifier bits.
+                 * @param leastSignificantBits The least significant identifier bits.
+                 */
+                private void add (long mostSignificantBits, long leastSignificantBits) {
+                        long hash1 = hash (mostSignificantBits, leastSignificantBits);
+                        long hash2 = (hash (leastSignificantBits, mostSignificantBits) | 1);
+
+                        for (int i = 0; i < this.hashFunctions; ++i) {
+                                long bit = Math.floorMod ((hash1 + i * hash2), this.bits);
+                                long mask = (1L << bit);
+                                int word = (int) (bit >>> 6);
+
+                                if ((this.words.get (word) & mask) == 0) this.words.getAndAccumulate (word, mask, (a, b) -> (a | b));
+                        }
+                }
+
+                /**
+                 * Checks whether an identifier may have been added.
+                 * @param mostSignificantBits The most significant identifier bits.
+                 * @param leastSignificantBits The least significant identifier bits.
+                 * @return False if the identifier has definitely not been added, true otherwise.
+                 */
+                private boolean mightContain (long mostSignificantBits, long leastSignificantBits) {
+                        long hash1 = hash (mostSignificantBits, leastSignificantBits);
+                        long hash2 = (hash (leastSignificantBits, mostSignificantBits) | 1);
+
+                        for (int i = 0; i < this.hashFunctions; ++i) {
+                                long bit = Math.floorMod ((hash1 + i * hash2), this.bits);
+                                if ((this.words.get ((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+                        }
+
+                        return true;
+                }
+        }
+}
@@ -33,6 +33,16 @@ public abstract class AbstractDelegatingProvider<P, K extends Key> extends Abstr
                 this.key (key);
         }
 
+        /**
+         * Constructs a provider without assigning a key.
+         * Implementations are expected to assign the key (e.g. through {@link AbstractProvider#key(Key)}) when their
+         * delegate has already been initialized.
+         * @param provider The provider.
+         */
+        protected AbstractDelegatingProvider (@Nonnull P provider) {
+                this.provider = provider;
+        }
+
         /**
          * Retrieves the provider.
          * @return The provider.
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.ECParameterSpec;
+
+/**
+ * Provides utility methods for converting ECDSA signatures between their DER encoding and the fixed length
+ * concatenation of R and S (also known as IEEE P1363 format, as used by JWS).
+ * @author Johannes Donath
+ */
+public final class EcdsaSignatures {
+        public static final String RAW_FORMAT_SUFFIX = "inP1363Format";
+
+        private EcdsaSignatures () {
+        }
+
+        /**
+         * Creates a signature instance which produces and accepts raw signatures if supported by the runtime.
+         * @param algorithm The ECDSA algorithm (such as {@code SHA256withECDSA}).
+         * @return The instance (which uses DER encoded signatures if no raw variant is available).
+         * @throws java.lang.IllegalStateException when the algorithm is not supported at all.
+         */
+        @Nonnull
+        public static Signature signature (@Nonnull String algorithm) throws IllegalStateException {
+                try {
+                        return Signature.getInstance (algorithm + RAW_FORMAT_SUFFIX);
+                } catch (NoSuchAlgorithmException ignore) {
+                }
+
+                try {
+                        return Signature.getInstance (algorithm);
+                } catch (NoSuchAlgorithmException ex) {
+                        throw new IllegalStateException ("Unsupported asymmetric signature algorithm: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Checks whether a signature instance produces and accepts raw signatures.
+         * @param signature The instance.
+         * @return True if raw, false if DER encoded.
+         */
+        public static boolean raw (@Nonnull Signature signature) {
+                return signature.getAlgorithm ().endsWith (RAW_FORMAT_SUFFIX);
+        }
+
+        /**
+         * Calculates the length of a single signature component.
+         * @param parameters The curve parameters.
+         * @return The length in bytes (32 for P-256, 48 for P-384 and 66 for P-521).
+         */
+        public static int componentLength (@Nonnull ECParameterSpec parameters) {
+                return ((parameters.getOrder ().bitLength () + 7) >> 3);
+        }
+
+        /**
+         * Calculates the maximum length of a DER encoded signature.
+         * @param componentLength The component length.
+         * @return The length in bytes.
+         */
+        public static int maximumDerLength (int componentLength) {
+                // SEQUENCE (tag + up to two length bytes) of two INTEGERs (tag, length and a sign byte each)
+                return (3 + 2 * (3 + componentLength));
+        }
+
+        /**
+         * Converts a DER encoded signature into its raw representation.
+         * @param der The encoded signature.
+         * @param componentLength The component length.
+         * @return The raw signature.
+         * @throws java.security.SignatureException when the encoding is malformed or a component exceeds its length.
+         */
+        @Nonnull
+        public static byte[] toRaw (@Nonnull byte[] der, int componentLength) throws SignatureException {
+                byte[] raw = new byte[componentLength << 1];
+                int offset = 0;
+
+                if (der.length < 2 || der[offset++] != 0x30) throw new SignatureException ("Malformed ECDSA signature: Expected sequence");
+
+                int length = (der[offset++] & 0xFF);
+                if (length == 0x81) length = (der[offset++] & 0xFF);
+                if (length != (der.length - offset)) throw new SignatureException ("Malformed ECDSA signature: Invalid sequence length");
+
+                offset = component (der, offset, raw, 0, componentLength);
+                offset = component (der, offset, raw, componentLength, componentLength);
+
+                if (offset != der.length) throw new SignatureException ("Malformed ECDSA signature: Trailing data");
+                return raw;
+        }
+
+        /**
+         * Converts a raw signature into its DER encoding.
+         * The position of the source buffer is not modified.
+         * @param raw The raw signature (of exactly two components).
+         * @param componentLength The component length.
+         * @param target The target array (of at least {@link #maximumDerLength(int)} bytes).
+         * @return The amount of bytes written.
+         */
+        public static int toDer (@Nonnull ByteBuffer raw, int componentLength, @Nonnull byte[] target) {
+                int position = raw.position ();
+
+                int rOffset = significant (raw, position, componentLength);
+                int sOffset = significant (raw, (position + componentLength), componentLength);
+
+                int rLength = integerLength (raw, rOffset, (position + componentLength));
+                int sLength = integerLength (raw, sOffset, (position + 2 * componentLength));
+                int length = (4 + rLength + sLength);
+
+                int offset = 0;
+                target[offset++] = 0x30;
+                if (length > 0x7F) target[offset++] = (byte) 0x81;
+                target[offset++] = (byte) length;
+
+                offset = integer (raw, rOffset, (position + componentLength), rLength, target, offset);
+                return integer (raw, sOffset, (position + 2 * componentLength), sLength, target, offset);
+        }
+
+        /**
+         * Copies a DER encoded INTEGER into a fixed length region.
+         * @param der The encoded signature.
+         * @param offset The INTEGER offset.
+         * @param raw The target array.
+         * @param rawOffset The region offset.
+         * @param componentLength The region length.
+         * @return The offset following the INTEGER.
+         * @throws java.security.SignatureException when the INTEGER is malformed or exceeds the region.
+         */
+        private static int component (@Nonnull byte[] der, int offset, @Nonnull byte[] raw, int rawOffset, int componentLength) throws SignatureException {
+                if ((offset + 2) > der.length || der[offset++] != 0x02) throw new SignatureException ("Malformed ECDSA signature: Expected integer");
+
+                int length = (der[offset++] & 0xFF);
+                if (length == 0 || (offset + length) > der.length) throw new SignatureException ("Malformed ECDSA signature: Invalid integer length");
+
+                int end = (offset + length);
+                while (length > componentLength && der[offset] == 0) {
+                        ++offset;
+                        --length;
+                }
+
+                if (length > componentLength) throw new SignatureException ("Malformed ECDSA signature: Component exceeds curve size");
+
+                System.arraycopy (der, offset, raw, (rawOffset + componentLength - length), length);
+                return end;
+        }
+
+        /**
+         * Locates the first significant byte of a raw component (retaining a single zero byte for zero values).
+         * @param raw The raw signature.
+         * @param offset The absolute component offset.
+         * @param componentLength The component length.
+         * @return The absolute offset of the first significant byte.
+         */
+        private static int significant (@Nonnull ByteBuffer raw, int offset, int componentLength) {
+                int end = (offset + componentLength - 1);
+                while (offset < end && raw.get (offset) == 0) ++offset;
+                return offset;
+        }
+
+        /**
+         * Calculates the length of an INTEGER's contents (including a sign byte where required).
+         * @param raw The raw signature.
+         * @param offset The absolute offset of the first significant byte.
+         * @param end The absolute component end.
+         * @return The length.
+         */
+        private static int integerLength (@Nonnull ByteBuffer raw, int offset, int end) {
+                return ((end - offset) + ((raw.get (offset) & 0x80) != 0 ? 1 : 0));
+        }
+
+        /**
+         * Writes a DER encoded INTEGER.
+         * @param raw The raw signature.
+         * @param offset The absolute offset of the first significant byte.
+         * @param end The absolute component end.
+         * @param length The content length (as calculated by {@link #integerLength(ByteBuffer, int, int)}).
+         * @param target The target array.
+         * @param targetOffset The target offset.
+         * @return The offset following the INTEGER.
+         */
+        private static int integer (@Nonnull ByteBuffer raw, int offset, int end, int length, @Nonnull byte[] target, int targetOffset) {
+                target[targetOffset++] = 0x02;
+                target[targetOffset++] = (byte) length;
+                if (length != (end - offset)) target[targetOffset++] = 0x00;
+
+                while (offset < end) target[targetOffset++] = raw.get (offset++);
+                return targetOffset;
+        }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import javax.annotation.Nonnull;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * Provides utility methods for handling Ed25519 keys.
+ * Keys are converted from and to their raw 32 byte representation (as used by JWK and most key management systems)
+ * through their fixed DER encodings. Ed25519 requires a Java runtime which provides the respective algorithm (Java 15
+ * or newer); on older runtimes all methods fail with an {@link java.lang.IllegalStateException}.
+ * @author Johannes Donath
+ */
+public final class Ed25519Keys {
+        public static final String ALGORITHM = "Ed25519";
+        public static final int KEY_LENGTH = 32;
+        public static final int SIGNATURE_LENGTH = 64;
+
+        private static final byte[] PRIVATE_KEY_PREFIX = new byte[] { 0x30, 0x2E, 0x02, 0x01, 0x00, 0x30, 0x05, 0x06, 0x03, 0x2B, 0x65, 0x70, 0x04, 0x22, 0x04, 0x20 };
+        private static final byte[] PUBLIC_KEY_PREFIX = new byte[] { 0x30, 0x2A, 0x30, 0x05, 0x06, 0x03, 0x2B, 0x65, 0x70, 0x03, 0x21, 0x00 };
+
+        private Ed25519Keys () {
+        }
+
+        /**
+         * Generates a new key pair.
+         * @return The key pair.
+         * @throws java.lang.IllegalStateException when Ed25519 is not supported by the runtime.
+         */
+        @Nonnull
+        public static KeyPair generateKeyPair () throws IllegalStateException {
+                try {
+                        return KeyPairGenerator.getInstance (ALGORITHM).generateKeyPair ();
+                } catch (NoSuchAlgorithmException ex) {
+                        throw unsupported (ex);
+                }
+        }
+
+        /**
+         * Creates a new Ed25519 signature instance.
+         * @return The instance.
+         * @throws java.lang.IllegalStateException when Ed25519 is not supported by the runtime.
+         */
+        @Nonnull
+        public static Signature signature () throws IllegalStateException {
+                try {
+                        return Signature.getInstance (ALGORITHM);
+                } catch (NoSuchAlgorithmException ex) {
+                        throw unsupported (ex);
+                }
+        }
+
+        /**
+         * Decodes a raw private key (also known as seed).
+         * @param seed The 32 byte seed.
+         * @return The private key.
+         * @throws java.lang.IllegalArgumentException when the seed is malformed.
+         * @throws java.lang.IllegalStateException when Ed25519 is not supported by the runtime.
+         */
+        @Nonnull
+        public static PrivateKey privateKey (@Nonnull byte[] seed) throws IllegalArgumentException, IllegalStateException {
+                if (seed.length != KEY_LENGTH) throw new IllegalArgumentException ("Ed25519 private keys must be " + KEY_LENGTH + " bytes long: " + seed.length);
+
+                try {
+                        return keyFactory ().generatePrivate (new PKCS8EncodedKeySpec (concat (PRIVATE_KEY_PREFIX, seed)));
+                } catch (GeneralSecurityException ex) {
+                        throw new IllegalArgumentException ("Malformed Ed25519 private key: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Decodes a raw public key.
+         * @param encoded The 32 byte encoded point.
+         * @return The public key.
+         * @throws java.lang.IllegalArgumentException when the key is malformed.
+         * @throws java.lang.IllegalStateException when Ed25519 is not supported by the runtime.
+         */
+        @Nonnull
+        public static PublicKey publicKey (@Nonnull byte[] encoded) throws IllegalArgumentException, IllegalStateException {
+                if (encoded.length != KEY_LENGTH) throw new IllegalArgumentException ("Ed25519 public keys must be " + KEY_LENGTH + " bytes long: " + encoded.length);
+
+                try {
+                        return keyFactory ().generatePublic (new X509EncodedKeySpec (concat (PUBLIC_KEY_PREFIX, encoded)));
+                } catch (GeneralSecurityException ex) {
+                        throw new IllegalArgumentException ("Malformed Ed25519 public key: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Encodes a private key in its raw representation.
+         * @param privateKey The private key.
+         * @return The 32 byte seed.
+         * @throws java.lang.IllegalArgumentException when the key is not a PKCS#8 encoded Ed25519 key.
+         */
+        @Nonnull
+        public static byte[] raw (@Nonnull PrivateKey privateKey) throws IllegalArgumentException {
+                return strip (privateKey.getEncoded (), PRIVATE_KEY_PREFIX);
+        }
+
+        /**
+         * Encodes a public key in its raw representation.
+         * @param publicKey The public key.
+         * @return The 32 byte encoded point.
+         * @throws java.lang.IllegalArgumentException when the key is not a X.509 encoded Ed25519 key.
+         */
+        @Nonnull
+        public static byte[] raw (@Nonnull PublicKey publicKey) throws IllegalArgumentException {
+                return strip (publicKey.getEncoded (), PUBLIC_KEY_PREFIX);
+        }
+
+        /**
+         * Retrieves the Ed25519 key factory.
+         * @return The factory.
+         * @throws java.lang.IllegalStateException when Ed25519 is not supported by the runtime.
+         */
+        @Nonnull
+        private static KeyFactory keyFactory () throws IllegalStateException {
+                try {
+                        return KeyFactory.getInstance (ALGORITHM);
+                } catch (NoSuchAlgorithmException ex) {
+                        throw unsupported (ex);
+                }
+        }
+
+        /**
+         * Prepends a DER prefix to a raw key.
+         * @param prefix The prefix.
+         * @param key The raw key.
+         * @return The encoded key.
+         */
+        @Nonnull
+        private static byte[] concat (@Nonnull byte[] prefix, @Nonnull byte[] key) {
+                byte[] encoded = Arrays.copyOf (prefix, (prefix.length + key.length));
+                System.arraycopy (key, 0, encoded, prefix.length, key.length);
+                return encoded;
+        }
+
+        /**
+         * Removes a DER prefix from an encoded key.
+         * @param encoded The encoded key.
+         * @param prefix The expected prefix.
+         * @return The raw key.
+         */
+        @Nonnull
+        private static byte[] strip (@Nonnull byte[] encoded, @Nonnull byte[] prefix) throws IllegalArgumentException {
+                if (encoded == null || encoded.length != (prefix.length + KEY_LENGTH) || !Arrays.equals (prefix, Arrays.copyOf (encoded, prefix.length)))
+                        throw new IllegalArgumentException ("Not an Ed25519 key");
+
+                return Arrays.copyOfRange (encoded, prefix.length, encoded.length);
+        }
+
+        /**
+         * Creates an exception which indicates a lack of runtime support.
+         * @param cause The cause.
+         * @return The exception.
+         */
+        @Nonnull
+        private static IllegalStateException unsupported (@Nonnull NoSuchAlgorithmException cause) {
+                return new IllegalStateException ("Ed25519 is not supported by this runtime: " + cause.getMessage (), cause);
+        }
+}
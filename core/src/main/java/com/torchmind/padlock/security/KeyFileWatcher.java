@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Watches a PEM or JWK encoded key file and passes its contents to a listener whenever it changes.
+ * Keys are parsed on a dedicated daemon thread, thus reloads do not block any signature or verification operations. If
+ * a changed file cannot be parsed (for instance while it is still being written), the previous keys remain in effect
+ * until the next change is observed. Writing a temporary file and atomically moving it in place is recommended.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class KeyFileWatcher implements Closeable {
+        private final Path file;
+        private final Consumer<? super KeyMaterial> listener;
+
+        private final LongAdder reloads = new LongAdder ();
+        private final LongAdder failures = new LongAdder ();
+        private volatile Exception lastFailure;
+
+        private WatchService watchService;
+        private Thread thread;
+
+        public KeyFileWatcher (@Nonnull Path file, @Nonnull Consumer<? super KeyMaterial> listener) {
+                this.file = file.toAbsolutePath ();
+                this.listener = listener;
+        }
+
+        public KeyFileWatcher (@Nonnull Path file, @Nonnull String algorithm, @Nonnull ReloadableProviderFactory providerFactory) {
+                this (file, (m) -> providerFactory.reload (m.signatureProviderFactory (algorithm), m.verificationProviderFactory (algorithm)));
+        }
+
+        /**
+         * Loads the key file and starts watching it for changes.
+         * @return The watcher.
+         * @throws java.io.IOException when reading the file or registering the watch fails.
+         * @throws java.lang.IllegalArgumentException when the file does not contain any supported keys.
+         * @throws java.lang.IllegalStateException when the watcher has already been started.
+         */
+        @Nonnull
+        public synchronized KeyFileWatcher start () throws IOException, IllegalArgumentException, IllegalStateException {
+                if (this.watchService != null) throw new IllegalStateException ("Watcher has already been started");
+
+                this.listener.accept (KeyLoader.load (this.file));
+                this.reloads.increment ();
+
+                WatchService watchService = this.file.getFileSystem ().newWatchService ();
+
+                try {
+                        this.file.getParent ().register (watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (IOException ex) {
+                        watchService.close ();
+                        throw ex;
+                }
+
+                this.watchService = watchService;
+                this.thread = new Thread (this::watch, "padlock-key-watcher-" + this.file.getFileName ());
+                this.thread.setDaemon (true);
+                this.thread.start ();
+
+                return this;
+        }
+
+        /**
+         * Reloads the key file.
+         * @return True if the file was loaded successfully, false otherwise.
+         */
+        public boolean reload () {
+                try {
+                        this.listener.accept (KeyLoader.load (this.file));
+                        this.reloads.increment ();
+
+                        return true;
+                } catch (IOException | RuntimeException ex) {
+                        this.lastFailure = ex;
+                        this.failures.increment ();
+
+                        return false;
+                }
+        }
+
+        /**
+         * Processes file system events until the watcher is closed.
+         */
+        private void watch () {
+                WatchService watchService = this.watchService;
+
+                while (true) {
+                        WatchKey key;
+
+                        try {
+                                key = watchService.take ();
+                        } catch (InterruptedException | ClosedWatchServiceException ex) {
+                                return;
+                        }
+
+                        boolean changed = false;
+
+                        for (WatchEvent<?> event : key.pollEvents ()) {
+                                if (event.kind () == StandardWatchEventKinds.OVERFLOW || this.file.getFileName ().equals (event.context ())) changed = true;
+                        }
+
+                        if (changed) this.reload ();
+                        if (!key.reset ()) return;
+                }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void close () throws IOException {
+                if (this.watchService == null) return;
+
+                this.watchService.close ();
+                this.thread.interrupt ();
+        }
+
+        /**
+         * Retrieves the watched file.
+         * @return The file.
+         */
+        @Nonnull
+        public Path file () {
+                return this.file;
+        }
+
+        /**
+         * Retrieves the amount of successful loads (including the initial load).
+         * @return The amount.
+         */
+        public long reloads () {
+                return this.reloads.sum ();
+        }
+
+        /**
+         * Retrieves the amount of failed reloads.
+         * @return The amount.
+         */
+        public long failures () {
+                return this.failures.sum ();
+        }
+
+        /**
+         * Retrieves the cause of the most recent failed reload.
+         * @return The cause or null if no reload has failed yet.
+         */
+        @Nullable
+        public Exception lastFailure () {
+                return this.lastFailure;
+        }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPrivateKeySpec;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.KeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Provides utility methods for loading keys from PEM and JWK encoded files.
+ * PEM files may contain a PKCS#8 private key, a X.509 public key and/or a X.509 certificate. JWK files may contain
+ * a single RSA, EC, Ed25519 (OKP) or octet sequence key or a key set (in which case the first key is used).
+ * @author Johannes Donath
+ */
+public final class KeyLoader {
+        private static final Pattern PEM_PATTERN = Pattern.compile ("-----BEGIN ([A-Z0-9 ]+)-----([A-Za-z0-9+/=\\s]*)-----END \\1-----");
+        private static final String[] ASYMMETRIC_ALGORITHMS = new String[] { "RSA", "EC", Ed25519Keys.ALGORITHM };
+        private static final ObjectMapper MAPPER = new ObjectMapper ();
+
+        private KeyLoader () {
+        }
+
+        /**
+         * Loads a key file.
+         * @param path The file path.
+         * @return The key material.
+         * @throws java.io.IOException when reading the file fails.
+         * @throws java.lang.IllegalArgumentException when the file does not contain any supported keys.
+         */
+        @Nonnull
+        public static KeyMaterial load (@Nonnull Path path) throws IOException, IllegalArgumentException {
+                return parse (new String (Files.readAllBytes (path), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Parses a PEM or JWK encoded key.
+         * @param encoded The encoded key.
+         * @return The key material.
+         * @throws java.lang.IllegalArgumentException when the input does not contain any supported keys.
+         */
+        @Nonnull
+        public static KeyMaterial parse (@Nonnull String encoded) throws IllegalArgumentException {
+                String trimmed = encoded.trim ();
+                if (trimmed.startsWith ("{")) return parseJwk (trimmed);
+                return parsePem (trimmed);
+        }
+
+        /**
+         * Parses one or more PEM blocks.
+         * @param encoded The encoded blocks.
+         * @return The key material.
+         * @throws java.lang.IllegalArgumentException when the input does not contain any supported blocks.
+         */
+        @Nonnull
+        public static KeyMaterial parsePem (@Nonnull String encoded) throws IllegalArgumentException {
+                PrivateKey privateKey = null;
+                PublicKey publicKey = null;
+
+                Matcher matcher = PEM_PATTERN.matcher (encoded);
+
+                while (matcher.find ()) {
+                        String type = matcher.group (1);
+                        byte[] der = Base64.getMimeDecoder ().decode (matcher.group (2));
+
+                        try {
+                                switch (type) {
+                                        case "PRIVATE KEY":
+                                                privateKey = (PrivateKey) generate (new PKCS8EncodedKeySpec (der), true);
+                                                break;
+                                        case "PUBLIC KEY":
+                                                publicKey = (PublicKey) generate (new X509EncodedKeySpec (der), false);
+                                                break;
+                                        case "CERTIFICATE":
+                                                publicKey = CertificateFactory.getInstance ("X.509").generateCertificate (new ByteArrayInputStream (der)).getPublicKey ();
+                                                break;
+                                        default:
+                                                throw new IllegalArgumentException ("Unsupported PEM block: " + type);
+                                }
+                        } catch (GeneralSecurityException ex) {
+                                throw new IllegalArgumentException ("Malformed PEM block " + type + ": " + ex.getMessage (), ex);
+                        }
+                }
+
+                if (privateKey == null && publicKey == null) throw new IllegalArgumentException ("No PEM encoded keys found");
+                if (publicKey == null && privateKey instanceof RSAPrivateCrtKey) publicKey = publicKey ((RSAPrivateCrtKey) privateKey);
+
+                return new KeyMaterial (null, privateKey, publicKey);
+        }
+
+        /**
+         * Parses a JSON Web Key (or the first key of a JSON Web Key Set).
+         * @param encoded The encoded key.
+         * @return The key material.
+         * @throws java.lang.IllegalArgumentException when the key is malformed or of an unsupported type.
+         */
+        @Nonnull
+        public static KeyMaterial parseJwk (@Nonnull String encoded) throws IllegalArgumentException {
+                JsonNode node;
+
+                try {
+                        node = MAPPER.readTree (encoded);
+                } catch (IOException ex) {
+                        throw new IllegalArgumentException ("Malformed JWK: " + ex.getMessage (), ex);
+                }
+
+                if (node.has ("keys")) {
+                        JsonNode keys = node.get ("keys");
+                        if (!keys.isArray () || keys.size () == 0) throw new IllegalArgumentException ("Empty JWK set");
+
+                        node = keys.get (0);
+                }
+
+                String keyId = (node.hasNonNull ("kid") ? node.get ("kid").asText () : null);
+                String type = text (node, "kty");
+
+                try {
+                        switch (type) {
+                                case "oct":
+                                        return new KeyMaterial (keyId, new SecretKeySpec (bytes (node, "k"), macAlgorithm (node)));
+                                case "RSA": {
+                                        BigInteger modulus = integer (node, "n");
+                                        KeyFactory factory = KeyFactory.getInstance ("RSA");
+
+                                        PublicKey publicKey = factory.generatePublic (new RSAPublicKeySpec (modulus, integer (node, "e")));
+                                        PrivateKey privateKey = null;
+
+                                        if (node.has ("d")) {
+                                                KeySpec spec;
+
+                                                if (node.has ("p"))
+                                                        spec = new RSAPrivateCrtKeySpec (modulus, integer (node, "e"), integer (node, "d"), integer (node, "p"), integer (node, "q"), integer (node, "dp"), integer (node, "dq"), integer (node, "qi"));
+                                                else
+                                                        spec = new RSAPrivateKeySpec (modulus, integer (node, "d"));
+
+                                                privateKey = factory.generatePrivate (spec);
+                                        }
+
+                                        return new KeyMaterial (keyId, privateKey, publicKey);
+                                }
+                                case "EC": {
+                                        AlgorithmParameters parameters = AlgorithmParameters.getInstance ("EC");
+                                        parameters.init (new ECGenParameterSpec (curve (text (node, "crv"))));
+
+                                        ECParameterSpec spec = parameters.getParameterSpec (ECParameterSpec.class);
+                                        KeyFactory factory = KeyFactory.getInstance ("EC");
+
+                                        PublicKey publicKey = factory.generatePublic (new ECPublicKeySpec (new ECPoint (integer (node, "x"), integer (node, "y")), spec));
+                                        PrivateKey privateKey = (node.has ("d") ? factory.generatePrivate (new ECPrivateKeySpec (integer (node, "d"), spec)) : null);
+
+                                        return new KeyMaterial (keyId, privateKey, publicKey);
+                                }
+                                case "OKP": {
+                                        String curve = text (node, "crv");
+                                        if (!Ed25519Keys.ALGORITHM.equals (curve)) throw new IllegalArgumentException ("Unsupported JWK curve: " + curve);
+
+                                        PublicKey publicKey = Ed25519Keys.publicKey (bytes (node, "x"));
+                                        PrivateKey privateKey = (node.has ("d") ? Ed25519Keys.privateKey (bytes (node, "d")) : null);
+
+                                        return new KeyMaterial (keyId, privateKey, publicKey);
+                                }
+                                default:
+                                        throw new IllegalArgumentException ("Unsupported JWK key type: " + type);
+                        }
+                } catch (GeneralSecurityException ex) {
+                        throw new IllegalArgumentException ("Malformed JWK: " + ex.getMessage (), ex);
+                }
+        }
+
+        /**
+         * Derives the public key of a RSA private key.
+         * @param privateKey The private key.
+         * @return The public key or null if the key cannot be derived.
+         */
+        @Nullable
+        private static PublicKey publicKey (@Nonnull RSAPrivateCrtKey privateKey) {
+                try {
+                        return KeyFactory.getInstance ("RSA").generatePublic (new RSAPublicKeySpec (privateKey.getModulus (), privateKey.getPublicExponent ()));
+                } catch (GeneralSecurityException ex) {
+                        return null;
+                }
+        }
+
+        /**
+         * Generates a key of an unknown asymmetric algorithm.
+         * @param spec The encoded key specification.
+         * @param privateKey Indicates whether a private key shall be generated.
+         * @return The key.
+         * @throws java.security.GeneralSecurityException when none of the supported algorithms accepts the key.
+         */
+        @Nonnull
+        private static Key generate (@Nonnull KeySpec spec, boolean privateKey) throws GeneralSecurityException {
+                GeneralSecurityException failure = null;
+
+                for (String algorithm : ASYMMETRIC_ALGORITHMS) {
+                        try {
+                                KeyFactory factory = KeyFactory.getInstance (algorithm);
+                                return (privateKey ? factory.generatePrivate (spec) : factory.generatePublic (spec));
+                        } catch (GeneralSecurityException ex) {
+                                failure = ex;
+                        }
+                }
+
+                throw failure;
+        }
+
+        /**
+         * Maps a JWK curve name to its JCA equivalent.
+         * @param curve The JWK curve name.
+         * @return The JCA curve name.
+         */
+        @Nonnull
+        private static String curve (@Nonnull String curve) {
+                switch (curve) {
+                        case "P-256":
+                                return "secp256r1";
+                        case "P-384":
+                                return "secp384r1";
+                        case "P-521":
+                                return "secp521r1";
+                        default:
+                                throw new IllegalArgumentException ("Unsupported JWK curve: " + curve);
+                }
+        }
+
+        /**
+         * Maps the JWK algorithm of an octet sequence key to its JCA equivalent.
+         * @param node The key.
+         * @return The JCA algorithm (defaults to HmacSHA256).
+         */
+        @Nonnull
+        private static String macAlgorithm (@Nonnull JsonNode node) {
+                String algorithm = (node.hasNonNull ("alg") ? node.get ("alg").asText () : "HS256");
+
+                switch (algorithm) {
+                        case "HS256":
+                                return "HmacSHA256";
+                        case "HS384":
+                                return "HmacSHA384";
+                        case "HS512":
+                                return "HmacSHA512";
+                        default:
+                                throw new IllegalArgumentException ("Unsupported JWK algorithm: " + algorithm);
+                }
+        }
+
+        /**
+         * Retrieves a mandatory string member.
+         * @param node The key.
+         * @param name The member name.
+         * @return The value.
+         */
+        @Nonnull
+        private static String text (@Nonnull JsonNode node, @Nonnull String name) {
+                JsonNode value = node.get (name);
+                if (value == null || !value.isTextual ()) throw new IllegalArgumentException ("Malformed JWK: Missing member " + name);
+                return value.asText ();
+        }
+
+        /**
+         * Retrieves a mandatory base64url encoded member.
+         * @param node The key.
+         * @param name The member name.
+         * @return The decoded value.
+         */
+        @Nonnull
+        private static byte[] bytes (@Nonnull JsonNode node, @Nonnull String name) {
+                try {
+                        return Base64.getUrlDecoder ().decode (text (node, name));
+                } catch (IllegalArgumentException ex) {
+                        throw new IllegalArgumentException ("Malformed JWK: Invalid encoding of member " + name, ex);
+                }
+        }
+
+        /**
+         * Retrieves a mandatory base64url encoded unsigned integer member.
+         * @param node The key.
+         * @param name The member name.
+         * @return The decoded value.
+         */
+        @Nonnull
+        private static BigInteger integer (@Nonnull JsonNode node, @Nonnull String name) {
+                return new BigInteger (1, bytes (node, name));
+        }
+}
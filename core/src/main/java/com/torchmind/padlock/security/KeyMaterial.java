@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import com.torchmind.padlock.security.signature.AsymmetricSignatureProviderFactory;
+import com.torchmind.padlock.security.signature.ISignatureProviderFactory;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory;
+import com.torchmind.padlock.security.verification.AsymmetricVerificationProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProviderFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.crypto.SecretKey;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Represents a set of keys as loaded by {@link com.torchmind.padlock.security.KeyLoader}.
+ * A set either consists of a secret key or of a private and/or public key.
+ * @author Johannes Donath
+ */
+@Immutable
+public final class KeyMaterial {
+        private final String keyId;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final SecretKey secretKey;
+
+        public KeyMaterial (@Nullable String keyId, @Nullable PrivateKey privateKey, @Nullable PublicKey publicKey) {
+                this (keyId, privateKey, publicKey, null);
+        }
+
+        public KeyMaterial (@Nullable String keyId, @Nonnull SecretKey secretKey) {
+                this (keyId, null, null, secretKey);
+        }
+
+        private KeyMaterial (@Nullable String keyId, @Nullable PrivateKey privateKey, @Nullable PublicKey publicKey, @Nullable SecretKey secretKey) {
+                if (privateKey == null && publicKey == null && secretKey == null) throw new IllegalArgumentException ("Key material requires at least one key");
+
+                this.keyId = keyId;
+                this.privateKey = privateKey;
+                this.publicKey = publicKey;
+                this.secretKey = secretKey;
+        }
+
+        /**
+         * Retrieves the key identifier (if any).
+         * @return The identifier.
+         */
+        @Nullable
+        public String keyId () {
+                return this.keyId;
+        }
+
+        /**
+         * Retrieves the private key.
+         * @return The key.
+         */
+        @Nullable
+        public PrivateKey privateKey () {
+                return this.privateKey;
+        }
+
+        /**
+         * Retrieves the public key.
+         * @return The key.
+         */
+        @Nullable
+        public PublicKey publicKey () {
+                return this.publicKey;
+        }
+
+        /**
+         * Retrieves the secret key.
+         * @return The key.
+         */
+        @Nullable
+        public SecretKey secretKey () {
+                return this.secretKey;
+        }
+
+        /**
+         * Creates a signature provider factory for this key material.
+         * @param algorithm The signature (or MAC) algorithm.
+         * @return The factory or null if this material cannot be used to sign claims.
+         */
+        @Nullable
+        public ISignatureProviderFactory signatureProviderFactory (@Nonnull String algorithm) {
+                if (this.secretKey != null) return new SymmetricUniversalProviderFactory (algorithm, this.secretKey)::build;
+                if (this.privateKey != null) return new AsymmetricSignatureProviderFactory (algorithm, this.privateKey);
+                return null;
+        }
+
+        /**
+         * Creates a verification provider factory for this key material.
+         * @param algorithm The signature (or MAC) algorithm.
+         * @return The factory or null if this material cannot be used to verify claims.
+         */
+        @Nullable
+        public IVerificationProviderFactory verificationProviderFactory (@Nonnull String algorithm) {
+                if (this.secretKey != null) return new SymmetricUniversalProviderFactory (algorithm, this.secretKey)::build;
+                if (this.publicKey != null) return new AsymmetricVerificationProviderFactory (algorithm, this.publicKey);
+                return null;
+        }
+}
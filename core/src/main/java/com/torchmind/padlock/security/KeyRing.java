@@ -0,0 +1,374 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.signature.ISignatureProviderFactory;
+import com.torchmind.padlock.security.universal.IUniversalProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProvider;
+import com.torchmind.padlock.security.verification.IVerificationProviderFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides a set of keys which are referenced by their identifiers within encoded tokens.
+ *
+ * Every key is backed by its own pair of {@link com.torchmind.padlock.security.ProviderPool} instances. New claims are
+ * signed with the primary key while claims are verified with the key referenced by their identifier. The ring is
+ * stored as an immutable snapshot which is replaced as a whole upon modification. Lookups thus neither lock nor
+ * contend with concurrent key rotations.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class KeyRing {
+        public static final int MAXIMUM_KEY_ID_LENGTH = 64;
+
+        private final int providerPoolSize;
+        private final ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy;
+        private final Duration providerPoolTimeout;
+
+        private volatile Snapshot snapshot = new Snapshot (Collections.emptyMap (), null, 0);
+
+        public KeyRing (int providerPoolSize, @Nonnull ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy, @Nullable Duration providerPoolTimeout) {
+                if (providerPoolSize < 1) throw new IllegalArgumentException ("Pool capacity must be positive: " + providerPoolSize);
+
+                this.providerPoolSize = providerPoolSize;
+                this.providerPoolExhaustionPolicy = providerPoolExhaustionPolicy;
+                this.providerPoolTimeout = providerPoolTimeout;
+        }
+
+        public KeyRing (int providerPoolSize) {
+                this (providerPoolSize, ProviderPool.ExhaustionPolicy.BLOCK, null);
+        }
+
+        public KeyRing () {
+                this (Runtime.getRuntime ().availableProcessors ());
+        }
+
+        /**
+         * Checks whether a key identifier may be embedded within tokens.
+         * Identifiers consist of 1 to {@link #MAXIMUM_KEY_ID_LENGTH} characters of the URL-safe Base64 alphabet.
+         * @param keyId The identifier.
+         * @return True if valid.
+         */
+        public static boolean validKeyId (@Nonnull CharSequence keyId) {
+                if (keyId.length () == 0 || keyId.length () > MAXIMUM_KEY_ID_LENGTH) return false;
+
+                for (int i = 0; i < keyId.length (); ++i) {
+                        char character = keyId.charAt (i);
+
+                        if ((character < 'a' || character > 'z') && (character < 'A' || character > 'Z') && (character < '0' || character > '9') && character != '-' && character != '_')
+                                return false;
+                }
+
+                return true;
+        }
+
+        /**
+         * Adds (or replaces) a key.
+         * The first key which supports signing becomes the primary key.
+         * @param keyId The key identifier.
+         * @param signatureProviderFactory The signature provider factory (or null if the key may only verify claims).
+         * @param verificationProviderFactory The verification provider factory (or null if the key may only sign claims).
+         * @return The ring.
+         * @throws java.lang.IllegalArgumentException when the key identifier is invalid.
+         */
+        @Nonnull
+        public synchronized KeyRing add (@Nonnull String keyId, @Nullable ISignatureProviderFactory signatureProviderFactory, @Nullable IVerificationProviderFactory verificationProviderFactory) throws IllegalArgumentException {
+                if (!validKeyId (keyId)) throw new IllegalArgumentException ("Invalid key identifier: " + keyId);
+
+                Snapshot snapshot = this.snapshot;
+                Map<String, Entry> entries = new HashMap<> (snapshot.entries);
+                boolean replaced = (entries.put (keyId, new Entry (keyId, signatureProviderFactory, verificationProviderFactory)) != null);
+
+                String primary = snapshot.primary;
+                if (primary == null && signatureProviderFactory != null) primary = keyId;
+
+                this.snapshot = new Snapshot (entries, primary, (replaced ? snapshot.generation + 1 : snapshot.generation));
+                return this;
+        }
+
+        /**
+         * Adds (or replaces) a key which is used for both signing and verification.
+         * @param keyId The key identifier.
+         * @param factory The universal provider factory.
+         * @return The ring.
+         * @throws java.lang.IllegalArgumentException when the key identifier is invalid.
+         */
+        @Nonnull
+        public KeyRing add (@Nonnull String keyId, @Nonnull IUniversalProviderFactory factory) throws IllegalArgumentException {
+                return this.add (keyId, factory::build, factory::build);
+        }
+
+        /**
+         * Removes a key.
+         * Tokens which reference the key are rejected once this method returns.
+         * @param keyId The key identifier.
+         * @return The ring.
+         * @throws java.lang.IllegalStateException when the key is the primary key.
+         */
+        @Nonnull
+        public synchronized KeyRing remove (@Nonnull String keyId) throws IllegalStateException {
+                Snapshot snapshot = this.snapshot;
+                if (keyId.equals (snapshot.primary)) throw new IllegalStateException ("Cannot remove primary key " + keyId);
+                if (!snapshot.entries.containsKey (keyId)) return this;
+
+                Map<String, Entry> entries = new HashMap<> (snapshot.entries);
+                entries.remove (keyId);
+
+                this.snapshot = new Snapshot (entries, snapshot.primary, (snapshot.generation + 1));
+                return this;
+        }
+
+        /**
+         * Selects the primary key which is used to sign new claims.
+         * @param keyId The key identifier.
+         * @return The ring.
+         * @throws java.lang.IllegalArgumentException when no such key exists or the key does not support signing.
+         */
+        @Nonnull
+        public synchronized KeyRing primary (@Nonnull String keyId) throws IllegalArgumentException {
+                Snapshot snapshot = this.snapshot;
+                Entry entry = snapshot.entries.get (keyId);
+
+                if (entry == null) throw new IllegalArgumentException ("No such key: " + keyId);
+                if (entry.signatureProviderPool () == null) throw new IllegalArgumentException ("Key does not support signing: " + keyId);
+
+                this.snapshot = new Snapshot (snapshot.entries, keyId, snapshot.generation);
+                return this;
+        }
+
+        /**
+         * Retrieves the ring generation.
+         * The generation is incremented whenever a key is removed or replaced (but not when keys are added or the primary
+         * key changes) and thus indicates whether previous verification results may still be relied upon.
+         * @return The generation.
+         */
+        public long generation () {
+                return this.snapshot.generation;
+        }
+
+        /**
+         * Retrieves the identifier of the primary key.
+         * @return The identifier or null if no key supports signing.
+         */
+        @Nullable
+        public String primary () {
+                return this.snapshot.primary;
+        }
+
+        /**
+         * Retrieves the entry of the primary key.
+         * @return The entry or null if no key supports signing.
+         */
+        @Nullable
+        public Entry primaryEntry () {
+                Snapshot snapshot = this.snapshot;
+                if (snapshot.primary == null) return null;
+
+                return snapshot.entries.get (snapshot.primary);
+        }
+
+        /**
+         * Retrieves the entry of a key.
+         * @param keyId The key identifier.
+         * @return The entry or null if no such key exists.
+         */
+        @Nullable
+        public Entry entry (@Nonnull String keyId) {
+                return this.snapshot.entries.get (keyId);
+        }
+
+        /**
+         * Retrieves the identifiers of all keys.
+         * @return The identifiers.
+         */
+        @Nonnull
+        public Set<String> keyIds () {
+                return this.snapshot.entries.keySet ();
+        }
+
+        /**
+         * Retrieves the capacity of the provider pools of each key.
+         * @return The capacity.
+         */
+        public int providerPoolSize () {
+                return this.providerPoolSize;
+        }
+
+        /**
+         * Retrieves the exhaustion policy of the provider pools of each key.
+         * @return The policy.
+         */
+        @Nonnull
+        public ProviderPool.ExhaustionPolicy providerPoolExhaustionPolicy () {
+                return this.providerPoolExhaustionPolicy;
+        }
+
+        /**
+         * Retrieves the timeout of the provider pools of each key.
+         * @return The timeout (or null).
+         */
+        @Nullable
+        public Duration providerPoolTimeout () {
+                return this.providerPoolTimeout;
+        }
+
+        /**
+         * Represents an immutable state of the ring.
+         */
+        private static final class Snapshot {
+                private final Map<String, Entry> entries;
+                private final String primary;
+                private final long generation;
+
+                private Snapshot (@Nonnull Map<String, Entry> entries, @Nullable String primary, long generation) {
+                        this.entries = Collections.unmodifiableMap (entries);
+                        this.primary = primary;
+                        this.generation = generation;
+                }
+        }
+
+        /**
+         * Represents a single key within the ring.
+         */
+        public final class Entry {
+                private final String keyId;
+                private final ProviderPool<KeyedSignatureProvider> signatureProviderPool;
+                private final ProviderPool<IVerificationProvider> verificationProviderPool;
+
+                private Entry (@Nonnull String keyId, @Nullable ISignatureProviderFactory signatureProviderFactory, @Nullable IVerificationProviderFactory verificationProviderFactory) {
+                        this.keyId = keyId;
+
+                        if (signatureProviderFactory != null)
+                                this.signatureProviderPool = new ProviderPool<> (() -> new KeyedSignatureProvider (this, signatureProviderFactory.build ()), KeyRing.this.providerPoolSize, KeyRing.this.providerPoolExhaustionPolicy, KeyRing.this.providerPoolTimeout);
+                        else
+                                this.signatureProviderPool = null;
+
+                        if (verificationProviderFactory != null)
+                                this.verificationProviderPool = new ProviderPool<> (verificationProviderFactory::build, KeyRing.this.providerPoolSize, KeyRing.this.providerPoolExhaustionPolicy, KeyRing.this.providerPoolTimeout);
+                        else
+                                this.verificationProviderPool = null;
+                }
+
+                /**
+                 * Retrieves the key identifier.
+                 * @return The identifier.
+                 */
+                @Nonnull
+                public String keyId () {
+                        return this.keyId;
+                }
+
+                /**
+                 * Retrieves the signature provider pool.
+                 * @return The pool or null if the key does not support signing.
+                 */
+                @Nullable
+                public ProviderPool<KeyedSignatureProvider> signatureProviderPool () {
+                        return this.signatureProviderPool;
+                }
+
+                /**
+                 * Retrieves the verification provider pool.
+                 * @return The pool or null if the key does not support verification.
+                 */
+                @Nullable
+                public ProviderPool<IVerificationProvider> verificationProviderPool () {
+                        return this.verificationProviderPool;
+                }
+        }
+
+        /**
+         * Provides a signature provider which remembers the key it belongs to.
+         * Instances are pooled along with their delegates and thus impose no additional allocations upon signing.
+         */
+        @SuppressWarnings ("unchecked")
+        public static final class KeyedSignatureProvider implements ISignatureProvider {
+                private final Entry entry;
+                private final ISignatureProvider delegate;
+
+                private KeyedSignatureProvider (@Nonnull Entry entry, @Nonnull ISignatureProvider delegate) {
+                        this.entry = entry;
+                        this.delegate = delegate;
+                }
+
+                /**
+                 * Retrieves the key ring entry this provider belongs to.
+                 * @return The entry.
+                 */
+                @Nonnull
+                public Entry entry () {
+                        return this.entry;
+                }
+
+                /**
+                 * Retrieves the identifier of the key this provider signs with.
+                 * @return The identifier.
+                 */
+                @Nonnull
+                public String keyId () {
+                        return this.entry.keyId ();
+                }
+
+                /**
+                 * Retrieves the wrapped provider.
+                 * @return The provider.
+                 */
+                @Nonnull
+                public ISignatureProvider delegate () {
+                        return this.delegate;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nonnull
+                @Override
+                public Key key () {
+                        return this.delegate.key ();
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nonnull
+                @Override
+                public IProvider key (@Nonnull Key key) throws IllegalArgumentException {
+                        this.delegate.key (key);
+                        return this;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public ByteBuffer sign (@Nonnull ByteBuffer metadata) throws SignatureException {
+                        return this.delegate.sign (metadata);
+                }
+        }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Provides a bounded pool of {@link com.torchmind.padlock.security.IProvider} instances.
+ * Providers are constructed lazily (or upon {@link #prestart()}) up to the pool capacity and handed out exclusively to
+ * a single caller at a time.
+ *
+ * Idle providers are kept in a fixed array of slots which are claimed through compare-and-set operations starting at a
+ * per-thread offset. Borrowing and releasing providers thus neither allocates nor locks while callers which need to
+ * wait for a provider are parked through {@link java.util.concurrent.Semaphore} which does not pin virtual threads to
+ * their carrier. This makes pools suitable for large numbers of short-lived (or virtual) threads where
+ * {@link java.lang.ThreadLocal} based providers would be re-created for every thread.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class ProviderPool<P extends IProvider> {
+        private final Supplier<? extends P> factory;
+        private final int capacity;
+        private final ExhaustionPolicy exhaustionPolicy;
+        private final Duration timeout;
+
+        private final Semaphore permits;
+        private final AtomicReferenceArray<P> slots;
+        private final AtomicInteger size = new AtomicInteger ();
+
+        private final LongAdder borrows = new LongAdder ();
+        private final LongAdder waits = new LongAdder ();
+        private final LongAdder rejections = new LongAdder ();
+        private final LongAdder waitTime = new LongAdder ();
+        private final LongAccumulator maximumWaitTime = new LongAccumulator (Math::max, 0);
+
+        public ProviderPool (@Nonnull Supplier<? extends P> factory, int capacity, @Nonnull ExhaustionPolicy exhaustionPolicy, @Nullable Duration timeout) {
+                if (capacity < 1) throw new IllegalArgumentException ("Pool capacity must be positive: " + capacity);
+
+                this.factory = factory;
+                this.capacity = capacity;
+                this.exhaustionPolicy = exhaustionPolicy;
+                this.timeout = timeout;
+
+                this.permits = new Semaphore (capacity);
+                this.slots = new AtomicReferenceArray<> (capacity);
+        }
+
+        public ProviderPool (@Nonnull Supplier<? extends P> factory, int capacity) {
+                this (factory, capacity, ExhaustionPolicy.BLOCK, null);
+        }
+
+        /**
+         * Borrows a provider from the pool.
+         * Every borrowed provider has to be passed back to {@link #release(IProvider)} once the caller is done with it.
+         * @return The provider.
+         * @throws java.lang.IllegalStateException when the pool is exhausted (and its policy forbids waiting), the
+         *                                         timeout elapses or the calling thread is interrupted.
+         */
+        @Nonnull
+        public P borrow () throws IllegalStateException {
+                if (!this.permits.tryAcquire ()) this.await ();
+                this.borrows.increment ();
+
+                // holding a permit guarantees that either an idle provider exists or a new one may be constructed
+                // however, concurrent releases may move providers into slots we have already visited
+                int offset = (probe () % this.capacity);
+
+                while (true) {
+                        for (int i = 0; i < this.capacity; ++i) {
+                                int index = (offset + i);
+                                if (index >= this.capacity) index -= this.capacity;
+
+                                P provider = this.slots.get (index);
+
+                                if (provider != null && this.slots.compareAndSet (index, provider, null)) return provider;
+                        }
+
+                        int size = this.size.get ();
+
+                        if (size < this.capacity && this.size.compareAndSet (size, (size + 1))) {
+                                P provider = null;
+
+                                // the reservation is undone for any failure (including errors) to avoid shrinking the pool
+                                try {
+                                        provider = this.factory.get ();
+                                        return provider;
+                                } finally {
+                                        if (provider == null) {
+                                                this.size.decrementAndGet ();
+                                                this.permits.release ();
+                                        }
+                                }
+                        }
+
+                        Thread.yield ();
+                }
+        }
+
+        /**
+         * Constructs all providers which have not been constructed yet.
+         * This ensures that no provider (and its key) needs to be initialized while the pool is in use.
+         * @return The pool.
+         */
+        @Nonnull
+        public ProviderPool<P> prestart () {
+                for (int size = this.size.get (); size < this.capacity; size = this.size.get ()) {
+                        if (!this.size.compareAndSet (size, (size + 1))) continue;
+
+                        P provider = null;
+
+                        try {
+                                provider = this.factory.get ();
+                        } finally {
+                                if (provider == null) this.size.decrementAndGet ();
+                        }
+
+                        this.store (provider);
+                }
+
+                return this;
+        }
+
+        /**
+         * Waits for a provider to be released in accordance with the pool's exhaustion policy.
+         * @throws java.lang.IllegalStateException when waiting is not permitted, times out or gets interrupted.
+         */
+        private void await () throws IllegalStateException {
+                if (this.exhaustionPolicy == ExhaustionPolicy.FAIL_FAST) {
+                        this.rejections.increment ();
+                        throw new IllegalStateException ("Provider pool exhausted");
+                }
+
+                long start = System.nanoTime ();
+
+                try {
+                        if (this.timeout == null)
+                                this.permits.acquire ();
+                        else if (!this.permits.tryAcquire (this.timeout.toNanos (), TimeUnit.NANOSECONDS)) {
+                                this.rejections.increment ();
+                                throw new IllegalStateException ("Provider pool exhausted: Timed out after " + this.timeout.toMillis () + " ms");
+                        }
+                } catch (InterruptedException ex) {
+                        Thread.currentThread ().interrupt ();
+                        throw new IllegalStateException ("Interrupted while waiting for pooled provider", ex);
+                } finally {
+                        long elapsed = (System.nanoTime () - start);
+
+                        this.waits.increment ();
+                        this.waitTime.add (elapsed);
+                        this.maximumWaitTime.accumulate (elapsed);
+                }
+        }
+
+        /**
+         * Returns a previously borrowed provider to the pool.
+         * @param provider The provider.
+         */
+        public void release (@Nonnull P provider) {
+                this.store (provider);
+                this.permits.release ();
+        }
+
+        /**
+         * Stores an idle provider within a free slot.
+         * @param provider The provider.
+         */
+        private void store (@Nonnull P provider) {
+                int offset = (probe () % this.capacity);
+
+                // a free slot is guaranteed to exist since the pool never holds more providers than slots
+                while (true) {
+                        for (int i = 0; i < this.capacity; ++i) {
+                                int index = (offset + i);
+                                if (index >= this.capacity) index -= this.capacity;
+
+                                if (this.slots.get (index) == null && this.slots.compareAndSet (index, null, provider)) return;
+                        }
+
+                        Thread.yield ();
+                }
+        }
+
+        /**
+         * Calculates the slot offset of the calling thread.
+         * Spreading threads across the slot array reduces contention on individual slots.
+         * @return The offset.
+         */
+        private static int probe () {
+                long id = Thread.currentThread ().getId () * 0x9E3779B97F4A7C15L;
+                return (int) ((id ^ (id >>> 32)) & Integer.MAX_VALUE);
+        }
+
+        /**
+         * Retrieves the maximum amount of providers within this pool.
+         * @return The capacity.
+         */
+        public int capacity () {
+                return this.capacity;
+        }
+
+        /**
+         * Retrieves the policy applied when all providers are in use.
+         * @return The policy.
+         */
+        @Nonnull
+        public ExhaustionPolicy exhaustionPolicy () {
+                return this.exhaustionPolicy;
+        }
+
+        /**
+         * Retrieves the maximum time a caller waits for a provider.
+         * If {@code null}, callers wait indefinitely.
+         * @return The timeout (or null).
+         */
+        @Nullable
+        public Duration timeout () {
+                return this.timeout;
+        }
+
+        /**
+         * Retrieves the amount of providers constructed by this pool.
+         * @return The size.
+         */
+        public int size () {
+                return this.size.get ();
+        }
+
+        /**
+         * Retrieves the amount of providers currently idle.
+         * @return The amount.
+         */
+        public int idle () {
+                int idle = 0;
+
+                for (int i = 0; i < this.capacity; ++i) {
+                        if (this.slots.get (i) != null) ++idle;
+                }
+
+                return idle;
+        }
+
+        /**
+         * Retrieves the amount of providers currently in use.
+         * @return The amount.
+         */
+        public int borrowed () {
+                return (this.capacity - this.permits.availablePermits ());
+        }
+
+        /**
+         * Retrieves the total amount of successful borrows.
+         * @return The borrow count.
+         */
+        public long borrows () {
+                return this.borrows.sum ();
+        }
+
+        /**
+         * Retrieves the amount of borrows which had to wait for a provider to become available.
+         * @return The wait count.
+         */
+        public long waits () {
+                return this.waits.sum ();
+        }
+
+        /**
+         * Retrieves the amount of borrows which have been rejected due to pool exhaustion.
+         * @return The rejection count.
+         */
+        public long rejections () {
+                return this.rejections.sum ();
+        }
+
+        /**
+         * Retrieves the accumulated time spent waiting for providers.
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration waitTime () {
+                return Duration.ofNanos (this.waitTime.sum ());
+        }
+
+        /**
+         * Retrieves the longest time a single caller has spent waiting for a provider.
+         * @return The duration.
+         */
+        @Nonnull
+        public Duration maximumWaitTime () {
+                return Duration.ofNanos (this.maximumWaitTime.get ());
+        }
+
+        /**
+         * Defines how pools behave when all of their providers are in use.
+         */
+        public enum ExhaustionPolicy {
+
+                /**
+                 * Callers wait until a provider is released (or the timeout elapses).
+                 */
+                BLOCK,
+
+                /**
+                 * Callers are rejected immediately.
+                 */
+                FAIL_FAST
+        }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security;
+
+import com.torchmind.padlock.security.signature.ISignatureProviderFactory;
+import com.torchmind.padlock.security.universal.IUniversalProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProviderFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides an atomically replaceable pair of provider factories.
+ * Every reload publishes a new immutable {@link Generation}. Consumers which cache providers (such as per-thread
+ * providers) remember the generation they were built from and construct replacements once a newer generation has been
+ * published. Providers which are in use while a reload happens are never modified and thus finish their current
+ * operation with the previous key.
+ * @author Johannes Donath
+ */
+@ThreadSafe
+public class ReloadableProviderFactory {
+        private volatile Generation generation;
+
+        public ReloadableProviderFactory (@Nullable ISignatureProviderFactory signatureProviderFactory, @Nullable IVerificationProviderFactory verificationProviderFactory) {
+                this.generation = new Generation (0, signatureProviderFactory, verificationProviderFactory);
+        }
+
+        public ReloadableProviderFactory (@Nonnull IUniversalProviderFactory factory) {
+                this (factory::build, factory::build);
+        }
+
+        /**
+         * Retrieves the current generation.
+         * @return The generation.
+         */
+        @Nonnull
+        public Generation generation () {
+                return this.generation;
+        }
+
+        /**
+         * Replaces the provider factories.
+         * Factories which are not supplied are not available in the new generation.
+         * @param signatureProviderFactory The signature provider factory (or null).
+         * @param verificationProviderFactory The verification provider factory (or null).
+         * @return The new generation.
+         */
+        @Nonnull
+        public synchronized Generation reload (@Nullable ISignatureProviderFactory signatureProviderFactory, @Nullable IVerificationProviderFactory verificationProviderFactory) {
+                Generation generation = new Generation ((this.generation.number + 1), signatureProviderFactory, verificationProviderFactory);
+                this.generation = generation;
+                return generation;
+        }
+
+        /**
+         * Replaces the provider factories with a universal factory.
+         * @param factory The factory.
+         * @return The new generation.
+         */
+        @Nonnull
+        public Generation reload (@Nonnull IUniversalProviderFactory factory) {
+                return this.reload (factory::build, factory::build);
+        }
+
+        /**
+         * Represents an immutable set of provider factories.
+         */
+        public static final class Generation {
+                private final long number;
+                private final ISignatureProviderFactory signatureProviderFactory;
+                private final IVerificationProviderFactory verificationProviderFactory;
+
+                private Generation (long number, @Nullable ISignatureProviderFactory signatureProviderFactory, @Nullable IVerificationProviderFactory verificationProviderFactory) {
+                        this.number = number;
+                        this.signatureProviderFactory = signatureProviderFactory;
+                        this.verificationProviderFactory = verificationProviderFactory;
+                }
+
+                /**
+                 * Retrieves the generation number.
+                 * Numbers start at zero and increase by one with every reload.
+                 * @return The number.
+                 */
+                public long number () {
+                        return this.number;
+                }
+
+                /**
+                 * Retrieves the signature provider factory.
+                 * @return The factory.
+                 */
+                @Nullable
+                public ISignatureProviderFactory signatureProviderFactory () {
+                        return this.signatureProviderFactory;
+                }
+
+                /**
+                 * Retrieves the verification provider factory.
+                 * @return The factory.
+                 */
+                @Nullable
+                public IVerificationProviderFactory verificationProviderFactory () {
+                        return this.verificationProviderFactory;
+                }
+        }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.signature;
+
+import com.torchmind.padlock.security.EcdsaSignatures;
+import com.torchmind.padlock.security.IProvider;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+
+/**
+ * Provides an ECDSA implementation of {@link com.torchmind.padlock.security.signature.ISignatureProvider} which emits
+ * fixed length raw (R||S) signatures instead of their variable length DER encoding (64 instead of up to 72 bytes for
+ * P-256).
+ * Where supported by the runtime, signatures are produced in raw format directly. Otherwise DER encoded signatures are
+ * converted.
+ * @author Johannes Donath
+ */
+public class EcdsaSignatureProvider extends AsymmetricSignatureProvider {
+        private final boolean raw;
+        private int componentLength;
+
+        public EcdsaSignatureProvider (@Nonnull String algorithm, @Nonnull ECPrivateKey key) throws IllegalArgumentException, IllegalStateException {
+                this (EcdsaSignatures.signature (algorithm), key);
+        }
+
+        public EcdsaSignatureProvider (@Nonnull Signature provider, @Nonnull ECPrivateKey key) throws IllegalArgumentException {
+                super (provider, key);
+                this.raw = EcdsaSignatures.raw (provider);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IProvider<PrivateKey> key (@Nonnull PrivateKey key) throws IllegalArgumentException {
+                if (!(key instanceof ECPrivateKey)) throw new IllegalArgumentException ("Invalid private key: Expected EC key but got " + key.getAlgorithm ());
+
+                IProvider<PrivateKey> provider = super.key (key);
+                this.componentLength = EcdsaSignatures.componentLength (((ECPrivateKey) key).getParams ());
+                return provider;
+        }
+
+        /**
+         * Retrieves the length of a single signature component.
+         * @return The length in bytes.
+         */
+        public int componentLength () {
+                return this.componentLength;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteBuffer sign (@Nonnull ByteBuffer metadata) throws SignatureException {
+                if (this.raw) return super.sign (metadata);
+
+                this.provider ().update (metadata);
+                metadata.rewind ();
+
+                return ByteBuffer.wrap (EcdsaSignatures.toRaw (this.provider ().sign (), this.componentLength));
+        }
+}
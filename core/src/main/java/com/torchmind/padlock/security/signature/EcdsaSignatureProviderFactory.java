@@ -14,29 +14,29 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.torchmind.padlock.security.universal;
+package com.torchmind.padlock.security.signature;
+
+import com.torchmind.padlock.security.EcdsaSignatures;
 
 import javax.annotation.Nonnull;
-import javax.crypto.Mac;
-import javax.crypto.SecretKey;
-import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPrivateKey;
 
 /**
- * Provides a factory for {@link com.torchmind.padlock.security.universal.SymmetricUniversalProvider} instances.
+ * Provides a factory for {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider} instances.
  * @author Johannes Donath
  */
-public class SymmetricUniversalProviderFactory implements IUniversalProviderFactory {
+public class EcdsaSignatureProviderFactory implements ISignatureProviderFactory {
         private final String algorithm;
-        private final SecretKey secretKey;
+        private final ECPrivateKey privateKey;
 
-        public SymmetricUniversalProviderFactory (@Nonnull String algorithm, @Nonnull SecretKey secretKey) {
+        public EcdsaSignatureProviderFactory (@Nonnull String algorithm, @Nonnull ECPrivateKey privateKey) {
                 this.algorithm = algorithm;
-                this.secretKey = secretKey;
+                this.privateKey = privateKey;
         }
 
         /**
-         * Retrieves the algorithm name.
-         * @return The name.
+         * Retrieves the signature algorithm.
+         * @return The algorithm.
          */
         @Nonnull
         public String algorithm () {
@@ -44,12 +44,12 @@ public class SymmetricUniversalProviderFactory implements IUniversalProviderFact
         }
 
         /**
-         * Retrieves the secret key.
-         * @return The secret key.
+         * Retrieves the private key.
+         * @return The key.
          */
         @Nonnull
-        public SecretKey secretKey () {
-                return this.secretKey;
+        public ECPrivateKey privateKey () {
+                return this.privateKey;
         }
 
         /**
@@ -57,11 +57,7 @@ public class SymmetricUniversalProviderFactory implements IUniversalProviderFact
          */
         @Nonnull
         @Override
-        public SymmetricUniversalProvider build () throws IllegalStateException {
-                try {
-                        return new SymmetricUniversalProvider (Mac.getInstance (this.algorithm ()), this.secretKey ());
-                } catch (NoSuchAlgorithmException ex) {
-                        throw new IllegalStateException ("Unsupported symmetric signature algorithm: " + ex.getMessage (), ex);
-                }
+        public EcdsaSignatureProvider build () throws IllegalStateException {
+                return new EcdsaSignatureProvider (EcdsaSignatures.signature (this.algorithm ()), this.privateKey ());
         }
 }
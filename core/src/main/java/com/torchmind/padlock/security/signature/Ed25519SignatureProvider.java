@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.signature;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+
+import javax.annotation.Nonnull;
+import java.security.PrivateKey;
+
+/**
+ * Provides an Ed25519 (EdDSA) implementation of {@link com.torchmind.padlock.security.signature.ISignatureProvider}.
+ * Ed25519 produces deterministic 64 byte signatures which keeps encoded tokens considerably smaller than with RSA.
+ * @author Johannes Donath
+ */
+public class Ed25519SignatureProvider extends AsymmetricSignatureProvider {
+
+        public Ed25519SignatureProvider (@Nonnull PrivateKey key) throws IllegalArgumentException, IllegalStateException {
+                super (Ed25519Keys.signature (), key);
+        }
+}
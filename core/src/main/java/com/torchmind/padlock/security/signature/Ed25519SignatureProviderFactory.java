@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.signature;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+
+import javax.annotation.Nonnull;
+import java.security.PrivateKey;
+
+/**
+ * Provides a factory for {@link com.torchmind.padlock.security.signature.Ed25519SignatureProvider} instances.
+ * @author Johannes Donath
+ */
+public class Ed25519SignatureProviderFactory implements ISignatureProviderFactory {
+        private final PrivateKey privateKey;
+
+        public Ed25519SignatureProviderFactory (@Nonnull PrivateKey privateKey) {
+                this.privateKey = privateKey;
+        }
+
+        public Ed25519SignatureProviderFactory (@Nonnull byte[] seed) throws IllegalArgumentException, IllegalStateException {
+                this (Ed25519Keys.privateKey (seed));
+        }
+
+        /**
+         * Retrieves the private key.
+         * @return The key.
+         */
+        @Nonnull
+        public PrivateKey privateKey () {
+                return this.privateKey;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Ed25519SignatureProvider build () throws IllegalStateException {
+                return new Ed25519SignatureProvider (this.privateKey ());
+        }
+}
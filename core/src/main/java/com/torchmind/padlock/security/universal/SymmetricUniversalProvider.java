@@ -22,10 +22,10 @@ import com.torchmind.padlock.security.IProvider;
 import javax.annotation.Nonnull;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.SignatureException;
-import java.util.Arrays;
 
 /**
  * Provides a universal, symmetric implementation of {@link com.torchmind.padlock.security.signature.ISignatureProvider}
@@ -33,9 +33,40 @@ import java.util.Arrays;
  * @author Johannes Donath
  */
 public class SymmetricUniversalProvider extends AbstractDelegatingProvider<Mac, SecretKey> implements IUniversalProvider<SecretKey> {
+        private final byte[] tag;
 
         public SymmetricUniversalProvider (@Nonnull Mac provider, @Nonnull SecretKey key) throws IllegalArgumentException {
                 super (provider, key);
+                this.tag = new byte[provider.getMacLength ()];
+        }
+
+        private SymmetricUniversalProvider (@Nonnull Mac provider) {
+                super (provider);
+                this.tag = new byte[provider.getMacLength ()];
+        }
+
+        /**
+         * Constructs a provider around a clone of a MAC instance which has already been initialized with the supplied
+         * key. The clone carries the key schedule of its prototype, thus the key is not processed again.
+         * <strong>Note:</strong> The prototype itself is never updated and may thus be shared between threads.
+         * @param prototype The initialized prototype.
+         * @param key The key the prototype has been initialized with.
+         * @return The provider.
+         * @throws java.lang.CloneNotSupportedException when the MAC implementation does not support cloning.
+         */
+        @Nonnull
+        static SymmetricUniversalProvider fromKeyedPrototype (@Nonnull Mac prototype, @Nonnull SecretKey key) throws CloneNotSupportedException {
+                SymmetricUniversalProvider provider = new SymmetricUniversalProvider ((Mac) prototype.clone ());
+                provider.setKey (key);
+                return provider;
+        }
+
+        /**
+         * Updates the stored key without re-initializing the underlying MAC instance.
+         * @param key The key.
+         */
+        private void setKey (@Nonnull SecretKey key) {
+                super.key (key);
         }
 
         /**
@@ -65,16 +96,29 @@ public class SymmetricUniversalProvider extends AbstractDelegatingProvider<Mac,
 
         /**
          * {@inheritDoc}
+         * The computed tag is written into a buffer owned by this provider and compared in constant time, thus
+         * verification does not allocate.
          */
         @Override
         public boolean verify (@Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) {
-                this.provider ().update (metadata);
+                // the tag length is public knowledge, thus rejecting mismatching lengths early does not leak anything
+                if (signature.remaining () != this.tag.length) return false;
+
+                Mac provider = this.provider ();
+                provider.update (metadata);
                 metadata.rewind ();
 
-                byte[] signatureBytes = new byte[signature.remaining ()];
-                signature.get (signatureBytes);
-                signature.rewind ();
+                try {
+                        provider.doFinal (this.tag, 0);
+                } catch (ShortBufferException ex) {
+                        throw new IllegalStateException ("Tag buffer too small for " + provider.getAlgorithm (), ex);
+                }
+
+                int position = signature.position ();
+                int difference = 0;
+
+                for (int i = 0; i < this.tag.length; ++i) difference |= (this.tag[i] ^ signature.get (position + i));
 
-                return Arrays.equals (this.provider ().doFinal (), signatureBytes);
+                return (difference == 0);
         }
 }
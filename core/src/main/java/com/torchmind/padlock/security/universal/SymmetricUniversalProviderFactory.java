@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.universal;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Provides a factory for {@link com.torchmind.padlock.security.universal.SymmetricUniversalProvider} instances.
+ * The factory keys a single prototype {@link javax.crypto.Mac} upon first use and clones it for every provider it
+ * constructs. Clones carry the precomputed inner and outer pad state of the prototype, thus neither a provider lookup
+ * nor a key schedule is required per provider. MAC implementations which do not support cloning are initialized
+ * individually instead.
+ * @author Johannes Donath
+ */
+public class SymmetricUniversalProviderFactory implements IUniversalProviderFactory {
+        private final String algorithm;
+        private final SecretKey secretKey;
+        private volatile Mac prototype;
+
+        public SymmetricUniversalProviderFactory (@Nonnull String algorithm, @Nonnull SecretKey secretKey) {
+                this.algorithm = algorithm;
+                this.secretKey = secretKey;
+        }
+
+        /**
+         * Retrieves the algorithm name.
+         * @return The name.
+         */
+        @Nonnull
+        public String algorithm () {
+                return this.algorithm;
+        }
+
+        /**
+         * Retrieves the secret key.
+         * @return The secret key.
+         */
+        @Nonnull
+        public SecretKey secretKey () {
+                return this.secretKey;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public SymmetricUniversalProvider build () throws IllegalStateException {
+                try {
+                        return SymmetricUniversalProvider.fromKeyedPrototype (this.prototype (), this.secretKey ());
+                } catch (CloneNotSupportedException ex) {
+                        return new SymmetricUniversalProvider (this.createMac (), this.secretKey ());
+                }
+        }
+
+        /**
+         * Retrieves (and lazily initializes) the keyed prototype.
+         * @return The prototype.
+         * @throws java.lang.IllegalStateException when the algorithm is not supported or rejects the key.
+         */
+        @Nonnull
+        private Mac prototype () throws IllegalStateException {
+                Mac prototype = this.prototype;
+                if (prototype != null) return prototype;
+
+                synchronized (this) {
+                        if (this.prototype == null) {
+                                prototype = this.createMac ();
+
+                                try {
+                                        prototype.init (this.secretKey ());
+                                } catch (InvalidKeyException ex) {
+                                        throw new IllegalStateException ("Invalid secret key: " + ex.getMessage (), ex);
+                                }
+
+                                this.prototype = prototype;
+                        }
+
+                        return this.prototype;
+                }
+        }
+
+        /**
+         * Creates a new uninitialized MAC instance.
+         * @return The instance.
+         * @throws java.lang.IllegalStateException when the algorithm is not supported.
+         */
+        @Nonnull
+        private Mac createMac () throws IllegalStateException {
+                try {
+                        return Mac.getInstance (this.algorithm ());
+                } catch (NoSuchAlgorithmException ex) {
+                        throw new IllegalStateException ("Unsupported symmetric signature algorithm: " + ex.getMessage (), ex);
+                }
+        }
+}
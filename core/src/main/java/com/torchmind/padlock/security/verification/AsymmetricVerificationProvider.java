@@ -68,7 +68,21 @@ public class AsymmetricVerificationProvider extends AbstractDelegatingProvider<S
                 } catch (SignatureException ex) {
                         // a SignatureException cannot signify an invalid mode in our case - Thus we will just assume
                         // the signature is intentionally invalid
+                        this.reset ();
                         return false;
                 }
         }
+
+        /**
+         * Resets the provider state after a failed verification.
+         * Implementations are not required to discard buffered data when rejecting a malformed signature, thus the
+         * provider is re-initialized in order to keep subsequent verifications from being corrupted.
+         */
+        protected void reset () {
+                try {
+                        this.provider ().initVerify (this.key ());
+                } catch (InvalidKeyException ex) {
+                        throw new IllegalStateException ("Previously accepted public key has been rejected: " + ex.getMessage (), ex);
+                }
+        }
 }
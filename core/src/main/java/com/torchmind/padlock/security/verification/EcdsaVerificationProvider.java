@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.verification;
+
+import com.torchmind.padlock.security.EcdsaSignatures;
+import com.torchmind.padlock.security.IProvider;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Provides an ECDSA implementation of {@link com.torchmind.padlock.security.verification.IVerificationProvider} which
+ * accepts fixed length raw (R||S) signatures as produced by
+ * {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider}.
+ * Signatures of any other length are rejected without invoking the underlying implementation. Signatures are copied
+ * (or converted) into a buffer owned by this provider, thus verification does not allocate.
+ * @author Johannes Donath
+ */
+public class EcdsaVerificationProvider extends AsymmetricVerificationProvider {
+        private final boolean raw;
+        private int componentLength;
+        private byte[] buffer;
+
+        public EcdsaVerificationProvider (@Nonnull String algorithm, @Nonnull ECPublicKey key) throws IllegalArgumentException, IllegalStateException {
+                this (EcdsaSignatures.signature (algorithm), key);
+        }
+
+        public EcdsaVerificationProvider (@Nonnull Signature provider, @Nonnull ECPublicKey key) throws IllegalArgumentException {
+                super (provider, key);
+                this.raw = EcdsaSignatures.raw (provider);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IProvider<PublicKey> key (@Nonnull PublicKey key) throws IllegalArgumentException {
+                if (!(key instanceof ECPublicKey)) throw new IllegalArgumentException ("Invalid public key: Expected EC key but got " + key.getAlgorithm ());
+
+                IProvider<PublicKey> provider = super.key (key);
+                this.componentLength = EcdsaSignatures.componentLength (((ECPublicKey) key).getParams ());
+                this.buffer = new byte[EcdsaSignatures.maximumDerLength (this.componentLength)];
+                return provider;
+        }
+
+        /**
+         * Retrieves the length of a single signature component.
+         * @return The length in bytes.
+         */
+        public int componentLength () {
+                return this.componentLength;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean verify (@Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) {
+                int length = (this.componentLength << 1);
+                if (signature.remaining () != length) return false;
+
+                if (this.raw) {
+                        int position = signature.position ();
+                        for (int i = 0; i < length; ++i) this.buffer[i] = signature.get (position + i);
+                } else
+                        length = EcdsaSignatures.toDer (signature, this.componentLength, this.buffer);
+
+                try {
+                        this.provider ().update (metadata);
+                        return this.provider ().verify (this.buffer, 0, length);
+                } catch (SignatureException ex) {
+                        this.reset ();
+                        return false;
+                }
+        }
+}
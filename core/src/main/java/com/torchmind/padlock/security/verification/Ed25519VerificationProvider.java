@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.security.verification;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.security.SignatureException;
+
+/**
+ * Provides an Ed25519 (EdDSA) implementation of
+ * {@link com.torchmind.padlock.security.verification.IVerificationProvider}.
+ * Since Ed25519 signatures are of fixed length, signatures of any other length are rejected without invoking the
+ * underlying implementation and signatures are copied into a buffer owned by the provider.
+ * @author Johannes Donath
+ */
+public class Ed25519VerificationProvider extends AsymmetricVerificationProvider {
+        private final byte[] signature = new byte[Ed25519Keys.SIGNATURE_LENGTH];
+
+        public Ed25519VerificationProvider (@Nonnull PublicKey key) throws IllegalArgumentException, IllegalStateException {
+                super (Ed25519Keys.signature (), key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean verify (@Nonnull ByteBuffer metadata, @Nonnull ByteBuffer signature) {
+                if (signature.remaining () != this.signature.length) return false;
+
+                int position = signature.position ();
+                for (int i = 0; i < this.signature.length; ++i) this.signature[i] = signature.get (position + i);
+
+                try {
+                        this.provider ().update (metadata);
+                        return this.provider ().verify (this.signature);
+                } catch (SignatureException ex) {
+                        this.reset ();
+                        return false;
+                }
+        }
+}
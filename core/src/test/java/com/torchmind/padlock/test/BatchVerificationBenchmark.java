@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test;
+
+import com.torchmind.padlock.Padlock;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.BinaryMetadataCodec;
+import com.torchmind.padlock.security.signature.EcdsaSignatureProviderFactory;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProviderFactory;
+
+import javax.annotation.Nonnull;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a coarse timing harness which measures how the throughput of
+ * {@link com.torchmind.padlock.Padlock#decodeAndVerifyAll(Class, java.util.Collection)} scales with the parallelism of
+ * the batch pool.
+ * This class is not a test case and thus not executed by the build. It may be run manually from within the
+ * {@code core} module after compiling the test sources:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp "target/classes:target/test-classes:$(cat target/classpath.txt)" com.torchmind.padlock.test.BatchVerificationBenchmark
+ * </pre>
+ * The parallelism is doubled up to the amount of available processors. Results are indicative only (no forking, no JIT
+ * isolation) and are only meaningful on machines with several otherwise idle cores.
+ * @author Johannes Donath
+ */
+public final class BatchVerificationBenchmark {
+        private static final int BATCH_SIZE = 4096;
+        private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos (2);
+        private static final long MEASUREMENT_NANOS = TimeUnit.SECONDS.toNanos (5);
+
+        private static volatile Object sink;
+
+        private BatchVerificationBenchmark () {
+        }
+
+        public static void main (String[] arguments) throws Exception {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance ("EC");
+                generator.initialize (256);
+                KeyPair keyPair = generator.generateKeyPair ();
+
+                EcdsaSignatureProviderFactory signatureProviderFactory = new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) keyPair.getPrivate ());
+                EcdsaVerificationProviderFactory verificationProviderFactory = new EcdsaVerificationProviderFactory ("SHA256withECDSA", (ECPublicKey) keyPair.getPublic ());
+                List<String> tokens = tokens (Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).signatureProviderFactory (signatureProviderFactory).build ());
+
+                Padlock sequential = Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).verificationProviderFactory (verificationProviderFactory).build ();
+                double reference = measure (() -> {
+                        for (String token : tokens) sink = sequential.verifyToken (AuthenticationClaimMetadata.class, token);
+                });
+                System.out.printf ("sequential   %10.0f tokens/s%n", reference);
+
+                for (int parallelism = 1; parallelism <= Runtime.getRuntime ().availableProcessors (); parallelism <<= 1) {
+                        ForkJoinPool pool = new ForkJoinPool (parallelism);
+
+                        try {
+                                Padlock padlock = Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).verificationProviderFactory (verificationProviderFactory).batchPool (pool).build ();
+                                double throughput = measure (() -> sink = padlock.decodeAndVerifyAll (AuthenticationClaimMetadata.class, tokens));
+
+                                System.out.printf ("batch x%-4d %10.0f tokens/s (%.2fx sequential, %.0f%% efficiency)%n", parallelism, throughput, (throughput / reference), (throughput * 100 / reference / parallelism));
+                        } finally {
+                                pool.shutdown ();
+                        }
+                }
+        }
+
+        /**
+         * Issues a batch of tokens.
+         * @param padlock The issuing instance.
+         * @return The encoded tokens.
+         * @throws java.security.SignatureException when signing fails.
+         */
+        @Nonnull
+        private static List<String> tokens (@Nonnull Padlock padlock) throws SignatureException {
+                List<String> tokens = new ArrayList<> (BATCH_SIZE);
+
+                for (int i = 0; i < BATCH_SIZE; ++i)
+                        tokens.add (padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1)))));
+
+                return tokens;
+        }
+
+        /**
+         * Measures the token throughput of a batch operation after warming it up.
+         * @param operation The operation verifying {@link #BATCH_SIZE} tokens.
+         * @return The amount of tokens verified per second.
+         */
+        private static double measure (@Nonnull Runnable operation) {
+                long start = System.nanoTime ();
+                while (System.nanoTime () - start < WARMUP_NANOS) operation.run ();
+
+                long batches = 0;
+                start = System.nanoTime ();
+                long elapsed;
+
+                do {
+                        operation.run ();
+                        ++batches;
+                } while ((elapsed = System.nanoTime () - start) < MEASUREMENT_NANOS);
+
+                return (batches * BATCH_SIZE * 1e9 / elapsed);
+        }
+}
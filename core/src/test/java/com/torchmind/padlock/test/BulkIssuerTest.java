@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test;
+
+import com.torchmind.padlock.BulkIssuer;
+import com.torchmind.padlock.Padlock;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.SignatureException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.BulkIssuer}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class BulkIssuerTest {
+        private static final AuthenticationClaimMetadata TEST_METADATA = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2));
+        private static final byte[] TEST_METADATA_ENCODED = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+        private static final byte[] TEST_SIGNATURE = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+
+        @Mock
+        private IMetadataCodec metadataCodec;
+        @Mock
+        private ISignatureProvider signatureProvider;
+
+        /**
+         * Prepares the test class.
+         */
+        @Before
+        public void setup () throws SignatureException {
+                // @formatter:off
+                {
+                        Mockito.when (this.metadataCodec.encode (AuthenticationClaimMetadata.class, TEST_METADATA))
+                                .thenAnswer ((i) -> ByteBuffer.wrap (TEST_METADATA_ENCODED));
+                }
+
+                {
+                        Mockito.when (this.signatureProvider.sign (ByteBuffer.wrap (TEST_METADATA_ENCODED)))
+                                .thenAnswer ((i) -> ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+                // @formatter:on
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.BulkIssuer#issue(Class, java.util.stream.Stream, java.nio.channels.WritableByteChannel)}.
+         */
+        @Test
+        public void testIssue () throws IOException, SignatureException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProviderFactory (() -> this.signatureProvider).build ();
+                ExecutorService executor = Executors.newFixedThreadPool (2);
+
+                try {
+                        BulkIssuer issuer = new BulkIssuer (padlock, executor, 16, 2);
+                        ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+
+                        Assert.assertEquals (100, issuer.issue (AuthenticationClaimMetadata.class, Stream.generate (() -> TEST_METADATA).limit (100), Channels.newChannel (outputStream)));
+                        Assert.assertEquals (String.join ("", Collections.nCopies (100, "AQIDBA==.AQIDBA==\n")), new String (outputStream.toByteArray (), StandardCharsets.US_ASCII));
+
+                        Assert.assertEquals (100, issuer.issued ());
+                        Assert.assertEquals (1800, issuer.bytesWritten ());
+                } finally {
+                        executor.shutdown ();
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.BulkIssuer} when signing fails.
+         */
+        @Test (expected = SignatureException.class)
+        public void testIssueFailure () throws IOException, SignatureException {
+                Mockito.when (this.signatureProvider.sign (Mockito.any ())).thenThrow (new SignatureException ());
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProviderFactory (() -> this.signatureProvider).build ();
+                BulkIssuer issuer = new BulkIssuer (padlock, Runnable::run, 16, 2);
+
+                issuer.issue (AuthenticationClaimMetadata.class, Stream.generate (() -> TEST_METADATA).limit (100), Channels.newChannel (new ByteArrayOutputStream ()));
+        }
+}
@@ -0,0 +1,896 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test;
+
+import com.torchmind.padlock.IAuthenticationClaim;
+import com.torchmind.padlock.Padlock;
+import com.torchmind.padlock.TokenStatus;
+import com.torchmind.padlock.cache.RejectedTokenCache;
+import com.torchmind.padlock.cache.VerifiedClaimCache;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.revocation.RevocationSet;
+import com.torchmind.padlock.security.KeyRing;
+import com.torchmind.padlock.security.signature.EcdsaSignatureProviderFactory;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.Padlock}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class PadlockTest {
+        private static final AuthenticationClaimMetadata TEST_METADATA = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2));
+        private static final byte[] TEST_METADATA_ENCODED = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+        private static final byte[] TEST_SIGNATURE = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+
+        @Mock
+        private IMetadataCodec metadataCodec;
+        @Mock
+        private IAuthenticationClaim<AuthenticationClaimMetadata> claim;
+        @Mock
+        private ISignatureProvider signatureProvider;
+        @Mock
+        private IVerificationProvider verificationProvider;
+
+        /**
+         * Prepares the test class.
+         */
+        @Before
+        public void setup () throws SignatureException {
+                // @formatter:off
+                {
+                        Mockito.when (this.metadataCodec.encode (AuthenticationClaimMetadata.class, TEST_METADATA))
+                                .thenReturn (ByteBuffer.wrap (TEST_METADATA_ENCODED));
+
+                        Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED)))
+                                .thenReturn (TEST_METADATA);
+                }
+
+                {
+                        Mockito.when (this.claim.metadata ())
+                               .thenReturn (TEST_METADATA);
+
+                        Mockito.when (this.claim.metadataType ())
+                                .thenReturn (AuthenticationClaimMetadata.class);
+
+                        Mockito.when (this.claim.signature ())
+                                .thenReturn (ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+
+                {
+                        Mockito.when (this.signatureProvider.sign (ByteBuffer.wrap (TEST_METADATA_ENCODED)))
+                                .thenReturn (ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+
+                {
+                        Mockito.when (this.verificationProvider.verify (ByteBuffer.wrap (TEST_METADATA_ENCODED), ByteBuffer.wrap (TEST_SIGNATURE)))
+                                .thenReturn (true);
+                }
+                // @formatter:off
+        }
+
+        /**
+         * Tests the default metadata codec and the opt-in codec discovery.
+         */
+        @Test
+        public void testMetadataCodecDefault () {
+                Assert.assertTrue (Padlock.builder ().build ().metadataCodec () instanceof JacksonMetadataCodec);
+
+                // no generated codecs are registered within the test class path
+                Assert.assertSame (this.metadataCodec, Padlock.builder ().metadataCodec (this.metadataCodec).discoverMetadataCodecs (true).build ().metadataCodec ());
+                Assert.assertTrue (new Padlock.Builder (Padlock.builder ().discoverMetadataCodecs (true)).discoverMetadataCodecs ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim)}.
+         */
+        @Test
+        public void testEncode () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                String encoded = padlock.encode (this.claim);
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.metadataCodec)
+                                .encode (AuthenticationClaimMetadata.class, TEST_METADATA);
+                }
+
+                {
+                        Mockito.verify (this.claim)
+                                .metadataType ();
+
+                        Mockito.verify (this.claim)
+                                .metadata ();
+
+                        Mockito.verify (this.claim)
+                                .signature ();
+                }
+                // @formatter:on
+
+                Assert.assertEquals ("AQIDBA==.AQIDBA==", encoded);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testEncodeBuffer () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                Assert.assertEquals (17, padlock.encodedLength (this.claim));
+
+                for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate (20), ByteBuffer.allocateDirect (20) }) {
+                        buffer.put ((byte) ' ');
+                        Assert.assertEquals (17, padlock.encode (this.claim, buffer));
+                        Assert.assertEquals (18, buffer.position ());
+
+                        byte[] encoded = new byte[17];
+                        buffer.flip ().position (1);
+                        buffer.get (encoded);
+
+                        Assert.assertEquals ("AQIDBA==.AQIDBA==", new String (encoded, StandardCharsets.US_ASCII));
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim, java.nio.ByteBuffer)}
+         * with insufficient space.
+         */
+        @Test
+        public void testEncodeBufferOverflow () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                ByteBuffer buffer = ByteBuffer.allocate (16);
+
+                try {
+                        padlock.encode (this.claim, buffer);
+                        Assert.fail ();
+                } catch (BufferOverflowException ignore) {
+                }
+
+                Assert.assertEquals (0, buffer.position ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim, byte[], int)}.
+         */
+        @Test
+        public void testEncodeArray () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                byte[] encoded = new byte[19];
+
+                Assert.assertEquals (17, padlock.encode (this.claim, encoded, 2));
+                Assert.assertEquals ("AQIDBA==.AQIDBA==", new String (encoded, 2, 17, StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim, Appendable)}.
+         */
+        @Test
+        public void testEncodeAppendable () throws IOException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                StringBuilder builder = new StringBuilder ("Bearer ");
+
+                Assert.assertEquals (17, padlock.encode (this.claim, builder));
+                Assert.assertEquals ("Bearer AQIDBA==.AQIDBA==", builder.toString ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#encode(com.torchmind.padlock.IAuthenticationClaim)} against the JDK
+         * encoder for all remainder lengths.
+         */
+        @Test
+        public void testEncodeLengths () throws IOException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+
+                for (int i = 0; i < 8; ++i) {
+                        byte[] metadata = new byte[i];
+                        for (int j = 0; j < i; ++j) metadata[j] = (byte) (0xF0 + j * 7);
+
+                        Mockito.when (this.metadataCodec.encode (AuthenticationClaimMetadata.class, TEST_METADATA)).thenReturn (ByteBuffer.wrap (metadata));
+                        String expected = Base64.getUrlEncoder ().encodeToString (metadata) + ".AQIDBA==";
+
+                        Assert.assertEquals (expected, padlock.encode (this.claim));
+
+                        ByteBuffer direct = ByteBuffer.allocateDirect (expected.length ());
+                        padlock.encode (this.claim, direct);
+                        Assert.assertFalse (direct.hasRemaining ());
+
+                        StringBuilder builder = new StringBuilder ();
+                        padlock.encode (this.claim, builder);
+                        Assert.assertEquals (expected, builder.toString ());
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decode(Class, String)}.
+         */
+        @Test
+        public void testDecode () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.decode (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==");
+
+                // @formatter:on
+                {
+                        Mockito.verify (this.metadataCodec)
+                               .decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED));
+                }
+                // @formatter:off
+
+                Assert.assertEquals (AuthenticationClaimMetadata.class, claim.metadataType ());
+                Assert.assertEquals (TEST_METADATA, claim.metadata ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_SIGNATURE), claim.signature ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#sign(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}.
+         */
+        @Test
+        public void testSign () throws SignatureException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProvider (this.signatureProvider).build ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.sign (AuthenticationClaimMetadata.class, TEST_METADATA);
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.metadataCodec)
+                                .encode (AuthenticationClaimMetadata.class, TEST_METADATA);
+                }
+
+                {
+                        Mockito.verify (this.signatureProvider)
+                                .sign (ByteBuffer.wrap (TEST_METADATA_ENCODED));
+                }
+                // @formatter:on
+
+                Assert.assertEquals (AuthenticationClaimMetadata.class, claim.metadataType ());
+                Assert.assertEquals (TEST_METADATA, claim.metadata ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_SIGNATURE), claim.signature ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#sign(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}
+         * sanity checks.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testSignLimitation () throws SignatureException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProvider (this.signatureProvider).maximumValidityDuration (Duration.ZERO).build ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.sign (AuthenticationClaimMetadata.class, TEST_METADATA);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verify(com.torchmind.padlock.IAuthenticationClaim)}.
+         */
+        @Test
+        public void testVerify () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                Assert.assertTrue (padlock.verify (this.claim));
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.metadataCodec)
+                                .encode (AuthenticationClaimMetadata.class, TEST_METADATA);
+                }
+
+                {
+                        Mockito.verify (this.verificationProvider)
+                                .verify (ByteBuffer.wrap (TEST_METADATA_ENCODED), ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+                // @formatter:on
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verify(com.torchmind.padlock.IAuthenticationClaim)} with decoded
+         * claims.
+         */
+        @Test
+        public void testVerifyDecoded () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.decode (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==");
+
+                Assert.assertEquals (ByteBuffer.wrap (TEST_METADATA_ENCODED), claim.encodedMetadata ());
+                Assert.assertTrue (padlock.verify (claim));
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.metadataCodec, Mockito.never ())
+                                .encode (Mockito.any (), Mockito.any ());
+                }
+
+                {
+                        Mockito.verify (this.verificationProvider)
+                                .verify (ByteBuffer.wrap (TEST_METADATA_ENCODED), ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+                // @formatter:on
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String)}.
+         */
+        @Test
+        public void testVerifyToken () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED))).thenReturn (metadata);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA=="));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, CharSequence, java.util.function.Consumer)}.
+         */
+        @Test
+        public void testVerifyTokenCharSequence () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED))).thenReturn (metadata);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                AtomicReference<AuthenticationClaimMetadata> result = new AtomicReference<> ();
+
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, new StringBuilder ("AQIDBA==.AQIDBA=="), result::set));
+                Assert.assertEquals (metadata, result.get ());
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, new StringBuilder ("AQIDBA==.AQIDBQ=="), (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, new StringBuilder ("AQIDBA=="), (m) -> Assert.fail ()));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, CharSequence, java.util.function.Consumer)} with
+         * tokens exceeding the retained scratch buffer capacity.
+         */
+        @Test
+        public void testVerifyTokenLarge () {
+                byte[] metadataEncoded = new byte[16384];
+                byte[] signature = new byte[8192];
+                for (int i = 0; i < metadataEncoded.length; ++i) metadataEncoded[i] = (byte) i;
+                for (int i = 0; i < signature.length; ++i) signature[i] = (byte) (i * 7);
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (metadataEncoded))).thenReturn (metadata);
+                Mockito.when (this.verificationProvider.verify (ByteBuffer.wrap (metadataEncoded), ByteBuffer.wrap (signature))).thenReturn (true);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                String token = Base64.getUrlEncoder ().encodeToString (metadataEncoded) + "." + Base64.getUrlEncoder ().encodeToString (signature);
+                AtomicReference<AuthenticationClaimMetadata> result = new AtomicReference<> ();
+
+                for (int i = 0; i < 2; ++i) {
+                        result.set (null);
+                        Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, new StringBuilder (token), result::set));
+                        Assert.assertEquals (metadata, result.get ());
+                }
+
+                // small tokens continue to be decoded into the retained buffers (the test metadata is expired)
+                Assert.assertEquals (TokenStatus.EXPIRED, padlock.verifyToken (AuthenticationClaimMetadata.class, new StringBuilder ("AQIDBA==.AQIDBA=="), (m) -> Assert.fail ()));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, byte[], int, int, java.util.function.Consumer)}
+         * and {@link com.torchmind.padlock.Padlock#verifyToken(Class, java.nio.ByteBuffer, java.util.function.Consumer)}.
+         */
+        @Test
+        public void testVerifyTokenBytes () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED))).thenReturn (metadata);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                AtomicReference<AuthenticationClaimMetadata> result = new AtomicReference<> ();
+                byte[] header = "Bearer AQIDBA==.AQIDBA==\r\n".getBytes (StandardCharsets.US_ASCII);
+
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, header, 7, 17, result::set));
+                Assert.assertEquals (metadata, result.get ());
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect (header.length);
+                buffer.put (header).flip ();
+                buffer.position (7).limit (24);
+
+                result.set (null);
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, buffer, result::set));
+                Assert.assertEquals (metadata, result.get ());
+                Assert.assertEquals (7, buffer.position ());
+
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, header, 7, 18, (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, header, 0, 17, (m) -> Assert.fail ()));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decode(Class, byte[], int, int)}.
+         */
+        @Test
+        public void testDecodeBytes () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                byte[] header = "Bearer AQIDBA==.AQIDBA==".getBytes (StandardCharsets.US_ASCII);
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.decode (AuthenticationClaimMetadata.class, header, 7, 17);
+                Assert.assertEquals (TEST_METADATA, claim.metadata ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_SIGNATURE), claim.signature ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_METADATA_ENCODED), claim.encodedMetadata ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decode(Class, CharSequence)} with malformed claims.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeMalformed () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                padlock.decode (AuthenticationClaimMetadata.class, "AQI*BA==.AQIDBA==");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decodeLazily(Class, String)}.
+         */
+        @Test
+        public void testDecodeLazily () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+                AuthenticationClaimMetadata base = new AuthenticationClaimMetadata (TEST_METADATA);
+
+                // @formatter:off
+                Mockito.when (this.metadataCodec.decodeBase (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED)))
+                        .thenReturn (base);
+                // @formatter:on
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.decodeLazily (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==");
+                Assert.assertEquals (TEST_METADATA.identifier (), claim.identifier ());
+                Assert.assertEquals (TEST_METADATA.issuance (), claim.issuance ());
+                Assert.assertEquals (TEST_METADATA.expiration (), claim.expiration ());
+                Assert.assertSame (base, claim.baseMetadata ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_SIGNATURE), claim.signature ());
+                Assert.assertEquals (ByteBuffer.wrap (TEST_METADATA_ENCODED), claim.encodedMetadata ());
+
+                Mockito.verify (this.metadataCodec, Mockito.never ()).decode (Mockito.eq (AuthenticationClaimMetadata.class), Mockito.any (ByteBuffer.class));
+
+                Assert.assertSame (TEST_METADATA, claim.metadata ());
+                Assert.assertSame (TEST_METADATA, claim.metadata ());
+                Mockito.verify (this.metadataCodec, Mockito.times (1)).decode (Mockito.eq (AuthenticationClaimMetadata.class), Mockito.any (ByteBuffer.class));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decodeLazily(Class, String)} with codecs which do not support partial
+         * decoding.
+         */
+        @Test
+        public void testDecodeLazilyFallback () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).build ();
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.decodeLazily (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==");
+                Assert.assertEquals (TEST_METADATA.expiration (), claim.expiration ());
+                Assert.assertSame (TEST_METADATA, claim.baseMetadata ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String)} with expired claims.
+         */
+        @Test
+        public void testVerifyTokenExpired () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                Assert.assertNull (padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA=="));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String, java.util.function.Consumer)} with expired
+         * claims while the expiry pre-check is enabled.
+         */
+        @Test
+        public void testVerifyTokenExpiryPrecheck () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).expiryPrecheck (true).build ();
+
+                // @formatter:off
+                Mockito.when (this.metadataCodec.decodeBase (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED)))
+                        .thenReturn (new AuthenticationClaimMetadata (TEST_METADATA));
+                // @formatter:on
+
+                Assert.assertEquals (TokenStatus.EXPIRED, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBQ==", (m) -> Assert.fail ()));
+                Mockito.verify (this.verificationProvider, Mockito.never ()).verify (Mockito.any (ByteBuffer.class), Mockito.any (ByteBuffer.class));
+                Mockito.verify (this.metadataCodec, Mockito.never ()).decode (Mockito.eq (AuthenticationClaimMetadata.class), Mockito.any (ByteBuffer.class));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String)} with forged claims.
+         */
+        @Test
+        public void testVerifyTokenForged () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                Assert.assertNull (padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBQ=="));
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.metadataCodec, Mockito.never ())
+                                .decode (Mockito.any (), Mockito.any ());
+                }
+                // @formatter:on
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String)} with a verified claim cache.
+         */
+        @Test
+        public void testVerifyTokenCached () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED))).thenReturn (metadata);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).verifiedClaimCache (new VerifiedClaimCache (16)).build ();
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA=="));
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA=="));
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.verificationProvider, Mockito.times (1))
+                                .verify (ByteBuffer.wrap (TEST_METADATA_ENCODED), ByteBuffer.wrap (TEST_SIGNATURE));
+                }
+                // @formatter:on
+
+                Assert.assertEquals (1, padlock.verifiedClaimCache ().hits ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String, java.util.function.Consumer)} with
+         * malformed claims.
+         */
+        @Test
+        public void testVerifyTokenMalformed () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==", (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQI*BA==.AQIDBA==", (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA=.AQIDBA==", (m) -> Assert.fail ()));
+        }
+
+        /**
+         * Tests that arbitrary codec failures are reported as malformed tokens.
+         */
+        @Test
+        public void testVerifyTokenCodecFailure () {
+                Mockito.when (this.metadataCodec.decode (Mockito.eq (AuthenticationClaimMetadata.class), Mockito.any ())).thenThrow (new NullPointerException ());
+                Mockito.when (this.metadataCodec.decodeBase (Mockito.eq (AuthenticationClaimMetadata.class), Mockito.any ())).thenThrow (new ClassCastException ());
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).build ();
+                Assert.assertEquals (TokenStatus.MALFORMED, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==", (m) -> Assert.fail ()));
+
+                Padlock precheck = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).expiryPrecheck (true).build ();
+                Assert.assertEquals (TokenStatus.MALFORMED, precheck.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBA==", (m) -> Assert.fail ()));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyToken(Class, String, java.util.function.Consumer)} with a
+         * rejected token cache.
+         */
+        @Test
+        public void testVerifyTokenRejectedCache () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).rejectedTokenCache (new RejectedTokenCache (16, Duration.ofMinutes (1))).build ();
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBQ==", (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBQ==", (m) -> Assert.fail ()));
+
+                // @formatter:off
+                {
+                        Mockito.verify (this.verificationProvider, Mockito.times (1))
+                                .verify (Mockito.any (), Mockito.any ());
+                }
+                // @formatter:on
+
+                Assert.assertEquals (1, padlock.rejectedTokenCache ().hits ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock.PooledPadlock}.
+         */
+        @Test
+        public void testPooled () throws SignatureException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProviderFactory (() -> this.signatureProvider).verificationProviderFactory (() -> this.verificationProvider).providerPoolSize (2).build ();
+                Assert.assertTrue (padlock instanceof Padlock.PooledPadlock);
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.sign (AuthenticationClaimMetadata.class, TEST_METADATA);
+                Assert.assertTrue (padlock.verify (claim));
+
+                Padlock.PooledPadlock pooled = (Padlock.PooledPadlock) padlock;
+                Assert.assertEquals (1, pooled.signatureProviderPool ().borrows ());
+                Assert.assertEquals (1, pooled.verificationProviderPool ().borrows ());
+                Assert.assertEquals (0, pooled.verificationProviderPool ().borrowed ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock.Builder#Builder(com.torchmind.padlock.Padlock.Builder)}.
+         */
+        @Test
+        public void testBuilderCopy () {
+                Padlock.Builder builder = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProviderFactory (() -> this.signatureProvider).verificationProviderFactory (() -> this.verificationProvider).providerPoolSize (2).providerPoolTimeout (Duration.ofSeconds (1)).expiryPrecheck (true);
+                Padlock.Builder copy = new Padlock.Builder (builder);
+
+                Assert.assertSame (builder.metadataCodec (), copy.metadataCodec ());
+                Assert.assertSame (builder.signatureProviderFactory (), copy.signatureProviderFactory ());
+                Assert.assertSame (builder.verificationProviderFactory (), copy.verificationProviderFactory ());
+                Assert.assertEquals (2, copy.providerPoolSize ());
+                Assert.assertEquals (builder.providerPoolExhaustionPolicy (), copy.providerPoolExhaustionPolicy ());
+                Assert.assertEquals (Duration.ofSeconds (1), copy.providerPoolTimeout ());
+                Assert.assertTrue (copy.expiryPrecheck ());
+                Assert.assertTrue (copy.build () instanceof Padlock.PooledPadlock);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#signAsync(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}
+         * and {@link com.torchmind.padlock.Padlock#verifyAsync(com.torchmind.padlock.IAuthenticationClaim)}.
+         */
+        @Test
+        public void testAsync () throws ExecutionException, InterruptedException {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProviderFactory (() -> this.signatureProvider).verificationProviderFactory (() -> this.verificationProvider).asyncExecutor (Runnable::run).build ();
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.signAsync (AuthenticationClaimMetadata.class, TEST_METADATA).get ();
+                Assert.assertEquals (ByteBuffer.wrap (TEST_SIGNATURE), claim.signature ());
+                Assert.assertTrue (padlock.verifyAsync (claim).get ());
+        }
+
+        /**
+         * Tests asynchronous operations without an executor.
+         */
+        @Test (expected = IllegalStateException.class)
+        public void testAsyncUnavailable () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).signatureProvider (this.signatureProvider).build ();
+                padlock.signAsync (AuthenticationClaimMetadata.class, TEST_METADATA);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock.ThreadLocalPadlock#providerFactory()} reloads.
+         */
+        @Test
+        public void testThreadLocalReload () throws SignatureException, InterruptedException {
+                SymmetricUniversalProviderFactory oldFactory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+                SymmetricUniversalProviderFactory newFactory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 5, 6, 7, 8 }, "HmacSHA256"));
+
+                Padlock padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (oldFactory::build).verificationProviderFactory (oldFactory::build).verifiedClaimCache (new VerifiedClaimCache (16)).build ();
+                Padlock.ThreadLocalPadlock threadLocal = (Padlock.ThreadLocalPadlock) padlock;
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                String token = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, metadata));
+
+                AtomicReference<IVerificationProvider> otherThreadProvider = new AtomicReference<> ();
+                Thread thread = new Thread (() -> otherThreadProvider.set (padlock.verificationProvider ()));
+                thread.start ();
+                thread.join ();
+
+                IVerificationProvider oldProvider = padlock.verificationProvider ();
+                Assert.assertSame (oldProvider, padlock.verificationProvider ());
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, token));
+
+                threadLocal.providerFactory ().reload (newFactory);
+                Assert.assertEquals (1, threadLocal.providerFactory ().generation ().number ());
+                Assert.assertNotSame (oldProvider, padlock.verificationProvider ());
+                Assert.assertNull (padlock.verifyToken (AuthenticationClaimMetadata.class, token));
+
+                String reloaded = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, metadata));
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, reloaded));
+                Assert.assertArrayEquals (new byte[] { 1, 2, 3, 4 }, oldProvider.key ().getEncoded ());
+                Assert.assertArrayEquals (new byte[] { 1, 2, 3, 4 }, otherThreadProvider.get ().key ().getEncoded ());
+        }
+
+        /**
+         * Tests that rejections recorded within the rejected token cache are disregarded after a key reload.
+         */
+        @Test
+        public void testThreadLocalReloadRejectedCache () throws SignatureException {
+                SymmetricUniversalProviderFactory oldFactory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+                SymmetricUniversalProviderFactory newFactory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 5, 6, 7, 8 }, "HmacSHA256"));
+
+                Padlock padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (oldFactory::build).verificationProviderFactory (oldFactory::build).rejectedTokenCache (new RejectedTokenCache (16, Duration.ofMinutes (1))).build ();
+                Padlock issuer = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (newFactory::build).verificationProviderFactory (newFactory::build).build ();
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                String token = issuer.encode (issuer.sign (AuthenticationClaimMetadata.class, metadata));
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, token, (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, token, (m) -> Assert.fail ()));
+                Assert.assertEquals (1, padlock.rejectedTokenCache ().hits ());
+
+                ((Padlock.ThreadLocalPadlock) padlock).providerFactory ().reload (newFactory);
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, token));
+                Assert.assertEquals (1, padlock.rejectedTokenCache ().hits ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#exchange(Class, String, com.torchmind.padlock.Padlock, java.time.Duration)}.
+         */
+        @Test
+        public void testExchange () throws Exception {
+                KeyPair keyPair = KeyPairGenerator.getInstance ("EC").generateKeyPair ();
+                Padlock padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) keyPair.getPrivate ())).verificationProviderFactory (new EcdsaVerificationProviderFactory ("SHA256withECDSA", (ECPublicKey) keyPair.getPublic ())).build ();
+
+                SymmetricUniversalProviderFactory sessionFactory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+                Padlock session = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (sessionFactory::build).verificationProviderFactory (sessionFactory::build).build ();
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofMinutes (2));
+                String token = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, metadata));
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> sessionClaim = padlock.exchange (AuthenticationClaimMetadata.class, token, session, Duration.ofMinutes (1));
+                Assert.assertNotNull (sessionClaim);
+                Assert.assertEquals (metadata.identifier (), sessionClaim.identifier ());
+                Assert.assertTrue (sessionClaim.expiration ().isBefore (metadata.expiration ()));
+
+                String sessionToken = session.encode (sessionClaim);
+                Assert.assertNotNull (session.verifyToken (AuthenticationClaimMetadata.class, sessionToken));
+                Assert.assertNull (padlock.verifyToken (AuthenticationClaimMetadata.class, sessionToken));
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> clamped = padlock.exchange (padlock.decode (AuthenticationClaimMetadata.class, token), session, Duration.ofHours (1));
+                Assert.assertEquals (metadata.expiration (), clamped.expiration ());
+
+                Assert.assertNull (padlock.exchange (AuthenticationClaimMetadata.class, sessionToken, session, Duration.ofMinutes (1)));
+        }
+
+        /**
+         * Tests construction of custom subclasses through the positional constructors.
+         */
+        @Test
+        public void testSubclassConstructors () throws SignatureException {
+                SymmetricUniversalProviderFactory factory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+
+                Padlock blocking = new Padlock.BlockingPadlock (Duration.ofHours (1), new JacksonMetadataCodec (), factory.build (), factory.build ()) {};
+                Padlock threadLocal = new Padlock.ThreadLocalPadlock (Duration.ofHours (1), new JacksonMetadataCodec (), factory::build, factory::build) {};
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofMinutes (1));
+                Assert.assertEquals (Duration.ofHours (1), blocking.maximumValidityDuration ());
+                Assert.assertEquals (metadata, threadLocal.verifyToken (AuthenticationClaimMetadata.class, blocking.encode (blocking.sign (AuthenticationClaimMetadata.class, metadata))));
+                Assert.assertNull (blocking.verifiedClaimCache ());
+        }
+
+        /**
+         * Tests rejection of revoked claims.
+         */
+        @Test
+        public void testRevocation () throws SignatureException {
+                SymmetricUniversalProviderFactory factory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+                RevocationSet revocationSet = new RevocationSet ();
+                Padlock padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (factory::build).verificationProviderFactory (factory::build).verifiedClaimCache (new VerifiedClaimCache (16)).revocationCheck (revocationSet).build ();
+                Assert.assertSame (revocationSet, padlock.revocationCheck ());
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                AuthenticationClaimMetadata other = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                String token = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, metadata));
+                String otherToken = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, other));
+
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, token, (m) -> {}));
+
+                Assert.assertTrue (revocationSet.revoke (metadata));
+                Assert.assertEquals (TokenStatus.REVOKED, padlock.verifyToken (AuthenticationClaimMetadata.class, token, (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, otherToken, (m) -> {}));
+
+                revocationSet.revoke (other);
+                Assert.assertNull (padlock.verifyToken (AuthenticationClaimMetadata.class, otherToken));
+
+                AuthenticationClaimMetadata active = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                IAuthenticationClaim<AuthenticationClaimMetadata> activeClaim = padlock.sign (AuthenticationClaimMetadata.class, active);
+                IAuthenticationClaim<AuthenticationClaimMetadata> revokedClaim = padlock.decode (AuthenticationClaimMetadata.class, token);
+
+                Assert.assertTrue (padlock.verify (activeClaim));
+                Assert.assertFalse (padlock.verify (revokedClaim));
+
+                List<IAuthenticationClaim<AuthenticationClaimMetadata>> claims = new ArrayList<> ();
+                claims.add (activeClaim);
+                claims.add (revokedClaim);
+                BitSet valid = padlock.verifyAll (claims);
+                Assert.assertTrue (valid.get (0));
+                Assert.assertFalse (valid.get (1));
+
+                Assert.assertNotNull (padlock.exchange (activeClaim, padlock, Duration.ofMinutes (1)));
+                Assert.assertNull (padlock.exchange (revokedClaim, padlock, Duration.ofMinutes (1)));
+                Assert.assertNull (padlock.exchange (AuthenticationClaimMetadata.class, token, padlock, Duration.ofMinutes (1)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock.KeyRingPadlock} across key rotations.
+         */
+        @Test
+        public void testKeyRing () throws SignatureException {
+                KeyRing keyRing = new KeyRing (1);
+                keyRing.add ("a", new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256")));
+                keyRing.add ("b", new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 5, 6, 7, 8 }, "HmacSHA256")));
+
+                Padlock padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).keyRing (keyRing).verifiedClaimCache (new VerifiedClaimCache (16)).build ();
+                Assert.assertTrue (padlock instanceof Padlock.KeyRingPadlock);
+                Assert.assertSame (keyRing, padlock.keyRing ());
+
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofHours (1));
+                IAuthenticationClaim<AuthenticationClaimMetadata> claim = padlock.sign (AuthenticationClaimMetadata.class, metadata);
+                Assert.assertEquals ("a", claim.keyId ());
+
+                String token = padlock.encode (claim);
+                Assert.assertTrue (token.startsWith ("a."));
+                Assert.assertEquals ("a", padlock.decode (AuthenticationClaimMetadata.class, token).keyId ());
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, token));
+
+                keyRing.primary ("b");
+                String rotated = padlock.encode (padlock.sign (AuthenticationClaimMetadata.class, metadata));
+                Assert.assertTrue (rotated.startsWith ("b."));
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, rotated));
+                Assert.assertEquals (metadata, padlock.verifyToken (AuthenticationClaimMetadata.class, token));
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, padlock.verifyToken (AuthenticationClaimMetadata.class, "b" + token.substring (1), (m) -> Assert.fail ()));
+
+                keyRing.remove ("a");
+                Assert.assertEquals (TokenStatus.UNKNOWN_KEY, padlock.verifyToken (AuthenticationClaimMetadata.class, token, (m) -> Assert.fail ()));
+                Assert.assertEquals (TokenStatus.VALID, padlock.verifyToken (AuthenticationClaimMetadata.class, rotated.substring (2), (m) -> {}));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#verifyAll(java.util.Collection)}.
+         */
+        @Test
+        public void testVerifyAll () {
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProviderFactory (() -> this.verificationProvider).providerPoolSize (2).batchPool (new ForkJoinPool (2)).build ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> forged = padlock.decode (AuthenticationClaimMetadata.class, "AQIDBA==.AQIDBQ==");
+
+                List<IAuthenticationClaim<AuthenticationClaimMetadata>> claims = new ArrayList<> ();
+                for (int i = 0; i < 300; ++i) claims.add ((i % 3 == 0 ? forged : this.claim));
+
+                BitSet valid = padlock.verifyAll (claims);
+                for (int i = 0; i < 300; ++i) Assert.assertEquals ((i % 3 != 0), valid.get (i));
+
+                Padlock.PooledPadlock pooled = (Padlock.PooledPadlock) padlock;
+                Assert.assertEquals (2, pooled.verificationProviderPool ().borrows ());
+                Assert.assertEquals (0, pooled.verificationProviderPool ().borrowed ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.Padlock#decodeAndVerifyAll(Class, java.util.Collection)}.
+         */
+        @Test
+        public void testDecodeAndVerifyAll () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Duration.ofHours (1));
+                Mockito.when (this.metadataCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (TEST_METADATA_ENCODED))).thenReturn (metadata);
+
+                Padlock padlock = Padlock.builder ().metadataCodec (this.metadataCodec).verificationProvider (this.verificationProvider).batchPool (new ForkJoinPool (1)).build ();
+
+                List<String> tokens = new ArrayList<> ();
+                for (int i = 0; i < 300; ++i) tokens.add ((i % 2 == 0 ? "AQIDBA==.AQIDBA==" : "AQIDBA==.AQIDBQ=="));
+
+                AuthenticationClaimMetadata[] result = padlock.decodeAndVerifyAll (AuthenticationClaimMetadata.class, tokens);
+                Assert.assertEquals (300, result.length);
+
+                for (int i = 0; i < 300; ++i) {
+                        if (i % 2 == 0)
+                                Assert.assertEquals (metadata, result[i]);
+                        else
+                                Assert.assertNull (result[i]);
+                }
+        }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test;
+
+import com.torchmind.padlock.IAuthenticationClaim;
+import com.torchmind.padlock.Padlock;
+import com.torchmind.padlock.PresignedClaimPool;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.PresignedClaimPool}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class PresignedClaimPoolTest {
+        private Padlock padlock;
+
+        /**
+         * Prepares the test class.
+         */
+        @Before
+        public void setup () {
+                SymmetricUniversalProviderFactory factory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4 }, "HmacSHA256"));
+                this.padlock = Padlock.builder ().metadataCodec (new JacksonMetadataCodec ()).signatureProviderFactory (factory::build).verificationProviderFactory (factory::build).build ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.PresignedClaimPool#issue()} while the pool has been filled.
+         */
+        @Test
+        public void testIssue () throws SignatureException, InterruptedException {
+                try (PresignedClaimPool pool = new PresignedClaimPool (this.padlock, Duration.ofHours (1), 8).start ()) {
+                        long deadline = System.currentTimeMillis () + 10000;
+                        while (pool.depth () < 8 && System.currentTimeMillis () < deadline) Thread.sleep (5);
+
+                        Assert.assertEquals (8, pool.depth ());
+                        Assert.assertEquals (8, pool.capacity ());
+
+                        IAuthenticationClaim<AuthenticationClaimMetadata> claim = pool.issue ();
+                        Assert.assertEquals (1, pool.hits ());
+                        Assert.assertEquals (0, pool.fallbacks ());
+
+                        AuthenticationClaimMetadata metadata = this.padlock.verifyToken (AuthenticationClaimMetadata.class, this.padlock.encode (claim));
+                        Assert.assertNotNull (metadata);
+                        Assert.assertEquals (Duration.ofHours (1), Duration.between (metadata.issuance (), metadata.expiration ()));
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.PresignedClaimPool#issue()} while the pool is empty.
+         */
+        @Test
+        public void testIssueFallback () throws SignatureException {
+                PresignedClaimPool pool = new PresignedClaimPool (this.padlock, Duration.ofHours (1), 8);
+
+                IAuthenticationClaim<AuthenticationClaimMetadata> first = pool.issue ();
+                IAuthenticationClaim<AuthenticationClaimMetadata> second = pool.issue ();
+
+                Assert.assertNotEquals (first.metadata ().identifier (), second.metadata ().identifier ());
+                Assert.assertEquals (0, pool.hits ());
+                Assert.assertEquals (2, pool.fallbacks ());
+                Assert.assertNotNull (this.padlock.verifyToken (AuthenticationClaimMetadata.class, this.padlock.encode (first)));
+        }
+
+        /**
+         * Tests whether claims exceeding their maximum age are discarded.
+         */
+        @Test
+        public void testIssueStale () throws SignatureException, InterruptedException {
+                try (PresignedClaimPool pool = new PresignedClaimPool (this.padlock, Duration.ofHours (1), 4, Duration.ofMillis (40)).start ()) {
+                        long deadline = System.currentTimeMillis () + 10000;
+                        while (pool.discarded () == 0 && System.currentTimeMillis () < deadline) Thread.sleep (5);
+
+                        Assert.assertNotEquals (0, pool.discarded ());
+
+                        Instant threshold = Instant.now ().minusMillis (40);
+                        IAuthenticationClaim<AuthenticationClaimMetadata> claim = pool.issue ();
+                        Assert.assertFalse (claim.metadata ().issuance ().isBefore (threshold));
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.PresignedClaimPool#clear()}.
+         */
+        @Test
+        public void testClear () throws InterruptedException {
+                try (PresignedClaimPool pool = new PresignedClaimPool (this.padlock, Duration.ofHours (1), 4).start ()) {
+                        long deadline = System.currentTimeMillis () + 10000;
+                        while (pool.depth () < 4 && System.currentTimeMillis () < deadline) Thread.sleep (5);
+
+                        pool.close ();
+                        Thread.sleep (20);
+                        pool.clear ();
+
+                        Assert.assertEquals (0, pool.depth ());
+                        Assert.assertTrue (pool.discarded () >= 4);
+                }
+        }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test;
+
+import com.torchmind.padlock.Padlock;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.BinaryMetadataCodec;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProvider;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory;
+
+import javax.annotation.Nonnull;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Provides a coarse timing harness which compares the blocking, thread-local and pooled provider modes when every
+ * token is verified on its own virtual thread.
+ * This class is not a test case and thus not executed by the build. It may be run manually from within the
+ * {@code core} module after compiling the test sources (the amount of tasks may optionally be passed as an argument):
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp "target/classes:target/test-classes:$(cat target/classpath.txt)" com.torchmind.padlock.test.VirtualThreadBenchmark [tasks]
+ * </pre>
+ * Virtual threads are only available on Java 21 or newer. On older runtimes every task is executed on a fixed pool of
+ * platform threads instead which does not reflect the per-task thread creation of virtual threads. Results are
+ * indicative only (no forking, no JIT isolation) and should be compared between modes on the same machine rather than
+ * taken as absolute figures.
+ * @author Johannes Donath
+ */
+public final class VirtualThreadBenchmark {
+        private static final int DEFAULT_TASK_COUNT = 1_000_000;
+        private static final int FALLBACK_THREAD_COUNT = 256;
+        private static final int POOL_SIZE = Runtime.getRuntime ().availableProcessors () * 2;
+
+        private VirtualThreadBenchmark () {
+        }
+
+        public static void main (String[] arguments) throws Exception {
+                int tasks = (arguments.length == 0 ? DEFAULT_TASK_COUNT : Integer.parseInt (arguments[0]));
+                System.out.println (virtualThreadsAvailable () ? "Executing " + tasks + " tasks on virtual threads" : "Virtual threads are unavailable, executing " + tasks + " tasks on " + FALLBACK_THREAD_COUNT + " platform threads");
+
+                SymmetricUniversalProviderFactory factory = new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, "HmacSHA256"));
+                Padlock issuer = Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).signatureProviderFactory (factory::build).build ();
+                String token = issuer.encode (issuer.sign (AuthenticationClaimMetadata.class, new AuthenticationClaimMetadata (UUID.randomUUID (), Duration.ofDays (1))));
+
+                run ("blocking", tasks, token, (counting) -> {
+                        SymmetricUniversalProvider provider = counting.build ();
+                        return Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).signatureProvider (provider).verificationProvider (provider).build ();
+                }, factory);
+                run ("thread-local", tasks, token, (counting) -> Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).signatureProviderFactory (counting::build).verificationProviderFactory (counting::build).build (), factory);
+                run ("pooled x" + POOL_SIZE, tasks, token, (counting) -> Padlock.builder ().metadataCodec (new BinaryMetadataCodec ()).signatureProviderFactory (counting::build).verificationProviderFactory (counting::build).providerPoolSize (POOL_SIZE).build (), factory);
+        }
+
+        /**
+         * Measures the time required to verify a token once per task in a certain mode.
+         * Every mode is executed twice and only the second run is reported in order to exclude warmup effects.
+         * @param name The mode name.
+         * @param tasks The amount of tasks.
+         * @param token The token to verify.
+         * @param padlockFactory The factory which creates an instance operating in the measured mode.
+         * @param factory The provider factory.
+         * @throws java.lang.Exception when the execution fails.
+         */
+        private static void run (@Nonnull String name, int tasks, @Nonnull String token, @Nonnull Function<CountingFactory, Padlock> padlockFactory, @Nonnull SymmetricUniversalProviderFactory factory) throws Exception {
+                for (int i = 0; i < 2; ++i) {
+                        CountingFactory counting = new CountingFactory (factory);
+                        Padlock padlock = padlockFactory.apply (counting);
+                        LongAdder failures = new LongAdder ();
+
+                        long start = System.nanoTime ();
+                        ExecutorService executor = executor ();
+
+                        for (int j = 0; j < tasks; ++j) {
+                                executor.execute (() -> {
+                                        if (padlock.verifyToken (AuthenticationClaimMetadata.class, token) == null) failures.increment ();
+                                });
+                        }
+
+                        executor.shutdown ();
+                        if (!executor.awaitTermination (1, TimeUnit.HOURS)) throw new IllegalStateException ("Tasks did not complete");
+
+                        long elapsed = System.nanoTime () - start;
+                        if (failures.sum () != 0) throw new IllegalStateException (name + " rejected " + failures.sum () + " tokens");
+
+                        if (i == 1)
+                                System.out.printf ("%-14s %8.0f ms, %10.0f tokens/s, %8d providers created%n", name, (elapsed / 1e6), (tasks * 1e9 / elapsed), counting.created.sum ());
+                }
+        }
+
+        /**
+         * Checks whether virtual threads are available within the current runtime.
+         * @return True if available.
+         */
+        private static boolean virtualThreadsAvailable () {
+                try {
+                        Executors.class.getMethod ("newVirtualThreadPerTaskExecutor");
+                        return true;
+                } catch (NoSuchMethodException ex) {
+                        return false;
+                }
+        }
+
+        /**
+         * Creates an executor which executes every task on its own virtual thread (or a fixed pool of platform threads
+         * if virtual threads are unavailable).
+         * @return The executor.
+         * @throws java.lang.ReflectiveOperationException when the virtual thread executor cannot be created.
+         */
+        @Nonnull
+        private static ExecutorService executor () throws ReflectiveOperationException {
+                if (!virtualThreadsAvailable ()) return Executors.newFixedThreadPool (FALLBACK_THREAD_COUNT);
+                return (ExecutorService) Executors.class.getMethod ("newVirtualThreadPerTaskExecutor").invoke (null);
+        }
+
+        /**
+         * Provides a provider factory which counts the providers it creates.
+         */
+        private static final class CountingFactory {
+                private final SymmetricUniversalProviderFactory factory;
+                private final LongAdder created = new LongAdder ();
+
+                private CountingFactory (@Nonnull SymmetricUniversalProviderFactory factory) {
+                        this.factory = factory;
+                }
+
+                /**
+                 * Creates a new provider.
+                 * @return The provider.
+                 */
+                @Nonnull
+                private SymmetricUniversalProvider build () {
+                        this.created.increment ();
+                        return this.factory.build ();
+                }
+        }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.cache;
+
+import com.torchmind.padlock.TokenStatus;
+import com.torchmind.padlock.cache.RejectedTokenCache;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.cache.RejectedTokenCache}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class RejectedTokenCacheTest {
+        private static final Clock CLOCK = Clock.fixed (Instant.ofEpochSecond (10), ZoneOffset.UTC);
+
+        /**
+         * Tests {@link com.torchmind.padlock.cache.RejectedTokenCache#get(String)}.
+         */
+        @Test
+        public void testGet () {
+                RejectedTokenCache cache = new RejectedTokenCache (16, Duration.ofSeconds (10), 16, CLOCK);
+                cache.put ("a.b", TokenStatus.INVALID_SIGNATURE);
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, cache.get ("a.b"));
+                Assert.assertNull (cache.get ("a.c"));
+                Assert.assertEquals (1, cache.hits ());
+        }
+
+        /**
+         * Tests expiration of cache entries.
+         */
+        @Test
+        public void testTimeToLive () {
+                RejectedTokenCache cache = new RejectedTokenCache (16, Duration.ZERO, 16, CLOCK);
+                cache.put ("a.b", TokenStatus.INVALID_SIGNATURE);
+
+                Assert.assertNull (cache.get ("a.b"));
+        }
+
+        /**
+         * Tests the token length limitation.
+         */
+        @Test
+        public void testMaximumTokenLength () {
+                RejectedTokenCache cache = new RejectedTokenCache (16, Duration.ofSeconds (10), 2, CLOCK);
+                cache.put ("a.b", TokenStatus.INVALID_SIGNATURE);
+
+                Assert.assertNull (cache.get ("a.b"));
+        }
+
+        /**
+         * Tests that entries are disregarded once the key generation changes.
+         */
+        @Test
+        public void testGeneration () {
+                RejectedTokenCache cache = new RejectedTokenCache (16, Duration.ofSeconds (10), 16, CLOCK);
+                cache.put ("a.b", TokenStatus.INVALID_SIGNATURE, 1);
+
+                Assert.assertEquals (TokenStatus.INVALID_SIGNATURE, cache.get ("a.b", 1));
+                Assert.assertNull (cache.get ("a.b", 2));
+                Assert.assertNull (cache.get ("a.b"));
+        }
+
+        /**
+         * Tests the slot count calculation.
+         */
+        @Test
+        public void testCapacity () {
+                Assert.assertEquals (1, new RejectedTokenCache (1, Duration.ofSeconds (10)).capacity ());
+                Assert.assertEquals (16, new RejectedTokenCache (9, Duration.ofSeconds (10)).capacity ());
+                Assert.assertEquals (RejectedTokenCache.MAXIMUM_CAPACITY, new RejectedTokenCache (Integer.MAX_VALUE, Duration.ofSeconds (10)).capacity ());
+        }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.cache;
+
+import com.torchmind.padlock.cache.VerifiedClaimCache;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.cache.VerifiedClaimCache}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class VerifiedClaimCacheTest {
+        private static final Clock CLOCK = Clock.fixed (Instant.ofEpochSecond (10), ZoneOffset.UTC);
+        private static final AuthenticationClaimMetadata TEST_METADATA = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (20));
+        private static final AuthenticationClaimMetadata TEST_METADATA_EXPIRED = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (5));
+
+        /**
+         * Tests {@link com.torchmind.padlock.cache.VerifiedClaimCache#get(Class, String)}.
+         */
+        @Test
+        public void testGet () {
+                VerifiedClaimCache cache = new VerifiedClaimCache (16, null, CLOCK);
+                cache.put (AuthenticationClaimMetadata.class, "a.b", TEST_METADATA);
+
+                Assert.assertEquals (TEST_METADATA, cache.get (AuthenticationClaimMetadata.class, "a.b"));
+                Assert.assertNull (cache.get (AuthenticationClaimMetadata.class, "a.c"));
+
+                Assert.assertEquals (1, cache.hits ());
+                Assert.assertEquals (1, cache.misses ());
+                Assert.assertEquals (0.5, cache.hitRate (), 0);
+        }
+
+        /**
+         * Tests that cached metadata is isolated from modifications by callers.
+         */
+        @Test
+        public void testCopy () {
+                VerifiedClaimCache cache = new VerifiedClaimCache (16, null, CLOCK);
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (TEST_METADATA);
+                cache.put (AuthenticationClaimMetadata.class, "a.b", metadata);
+                metadata.expiration (Instant.ofEpochSecond (30));
+
+                AuthenticationClaimMetadata cached = cache.get (AuthenticationClaimMetadata.class, "a.b");
+                Assert.assertNotSame (metadata, cached);
+                Assert.assertEquals (TEST_METADATA, cached);
+
+                cached.expiration (Instant.ofEpochSecond (40));
+                Assert.assertEquals (TEST_METADATA, cache.get (AuthenticationClaimMetadata.class, "a.b"));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.cache.VerifiedClaimCache#get(Class, String, long)}.
+         */
+        @Test
+        public void testGeneration () {
+                VerifiedClaimCache cache = new VerifiedClaimCache (16, null, CLOCK);
+                cache.put (AuthenticationClaimMetadata.class, "a.b", TEST_METADATA, 1);
+
+                Assert.assertNotNull (cache.get (AuthenticationClaimMetadata.class, "a.b", 1));
+                Assert.assertNull (cache.get (AuthenticationClaimMetadata.class, "a.b", 2));
+                Assert.assertNull (cache.get (AuthenticationClaimMetadata.class, "a.b", 1));
+                Assert.assertEquals (0, cache.size ());
+        }
+
+        /**
+         * Tests expiration of cache entries.
+         */
+        @Test
+        public void testExpiration () {
+                VerifiedClaimCache cache = new VerifiedClaimCache (16, null, CLOCK);
+                cache.put (AuthenticationClaimMetadata.class, "a.b", TEST_METADATA_EXPIRED);
+
+                Assert.assertNull (cache.get (AuthenticationClaimMetadata.class, "a.b"));
+                Assert.assertEquals (0, cache.size ());
+        }
+
+        /**
+         * Tests eviction of cache entries.
+         */
+        @Test
+        public void testEviction () {
+                VerifiedClaimCache cache = new VerifiedClaimCache (1, null, CLOCK);
+                cache.put (AuthenticationClaimMetadata.class, "a.b", TEST_METADATA);
+                cache.put (AuthenticationClaimMetadata.class, "a.c", TEST_METADATA);
+
+                Assert.assertNull (cache.get (AuthenticationClaimMetadata.class, "a.b"));
+                Assert.assertEquals (TEST_METADATA, cache.get (AuthenticationClaimMetadata.class, "a.c"));
+
+                Assert.assertEquals (1, cache.size ());
+                Assert.assertEquals (1, cache.evictions ());
+        }
+}
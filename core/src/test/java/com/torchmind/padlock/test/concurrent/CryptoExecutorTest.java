@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.concurrent;
+
+import com.torchmind.padlock.concurrent.CryptoExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.concurrent.CryptoExecutor}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class CryptoExecutorTest {
+
+        /**
+         * Tests the queue limitation of {@link com.torchmind.padlock.concurrent.CryptoExecutor}.
+         */
+        @Test
+        public void testQueueCapacity () throws InterruptedException {
+                CryptoExecutor executor = new CryptoExecutor (1, 1);
+                CountDownLatch started = new CountDownLatch (1);
+                CountDownLatch latch = new CountDownLatch (1);
+
+                try {
+                        executor.execute (() -> {
+                                started.countDown ();
+
+                                try {
+                                        latch.await ();
+                                } catch (InterruptedException ignore) {
+                                }
+                        });
+                        started.await ();
+
+                        executor.execute (() -> {});
+                        Assert.assertEquals (1, executor.queueDepth ());
+
+                        try {
+                                executor.execute (() -> {});
+                                Assert.fail ();
+                        } catch (RejectedExecutionException ignore) {
+                        }
+                } finally {
+                        latch.countDown ();
+                        executor.shutdown ();
+                }
+        }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.BinaryMetadataCodec;
+import com.torchmind.padlock.metadata.codec.IBinaryMetadataExtension;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.metadata.codec.BinaryMetadataCodec}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class BinaryMetadataCodecTest {
+        private static final AuthenticationClaimMetadata METADATA_DECODED = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2, 5));
+        private static final byte[] METADATA_ENCODED = new byte[] { 1, 1, -116, -53, 3, -36, 85, -35, 78, -67, -101, 104, 121, -22, 59, 31, -57, -102, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 5, 0, 0 };
+
+        private BinaryMetadataCodec codec;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () {
+                this.codec = new BinaryMetadataCodec ();
+                this.codec.extension (ScopedMetadata.class, new ScopedMetadataExtension ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.BinaryMetadataCodec#encode(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}.
+         */
+        @Test
+        public void testEncode () {
+                ByteBuffer encoded = this.codec.encode (AuthenticationClaimMetadata.class, METADATA_DECODED);
+                Assert.assertEquals (ByteBuffer.wrap (METADATA_ENCODED), encoded);
+
+                ByteBuffer json = new JacksonMetadataCodec ().encode (AuthenticationClaimMetadata.class, METADATA_DECODED);
+                Assert.assertTrue (encoded.remaining () * 2 < json.remaining ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.BinaryMetadataCodec#decode(Class, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testDecode () {
+                AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (METADATA_ENCODED));
+                Assert.assertEquals (METADATA_DECODED, decoded);
+        }
+
+        /**
+         * Tests encoding and decoding of metadata without expiration.
+         */
+        @Test
+        public void testNoExpiration () {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Instant.ofEpochSecond (1), (Instant) null);
+                AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, this.codec.encode (AuthenticationClaimMetadata.class, metadata));
+
+                Assert.assertEquals (metadata, decoded);
+                Assert.assertNull (decoded.expiration ());
+        }
+
+        /**
+         * Tests encoding and decoding of metadata subclasses through extensions.
+         */
+        @Test
+        public void testExtension () {
+                ScopedMetadata metadata = new ScopedMetadata (UUID.randomUUID (), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2), 42);
+                ByteBuffer encoded = this.codec.encode (ScopedMetadata.class, metadata);
+                Assert.assertEquals ((BinaryMetadataCodec.BASE_LENGTH + 4), encoded.remaining ());
+
+                ScopedMetadata decoded = this.codec.decode (ScopedMetadata.class, encoded);
+                Assert.assertEquals (metadata, decoded);
+                Assert.assertEquals (42, decoded.scope);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.BinaryMetadataCodec#decodeBase(Class, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testDecodeBase () {
+                ScopedMetadata metadata = new ScopedMetadata (UUID.randomUUID (), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2), 42);
+                ByteBuffer encoded = this.codec.encode (ScopedMetadata.class, metadata);
+
+                AuthenticationClaimMetadata decoded = this.codec.decodeBase (ScopedMetadata.class, encoded);
+                Assert.assertEquals (AuthenticationClaimMetadata.class, decoded.getClass ());
+                Assert.assertEquals (new AuthenticationClaimMetadata (metadata), decoded);
+                Assert.assertEquals (0, encoded.position ());
+        }
+
+        /**
+         * Tests decoding of truncated metadata.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeTruncated () {
+                this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (METADATA_ENCODED, 0, (METADATA_ENCODED.length - 1)));
+        }
+
+        /**
+         * Tests decoding of metadata with an unknown version.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeVersion () {
+                byte[] encoded = METADATA_ENCODED.clone ();
+                encoded[0] = 2;
+
+                this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (encoded));
+        }
+
+        /**
+         * Tests encoding of metadata subclasses without a registered extension.
+         */
+        @Test (expected = IllegalStateException.class)
+        public void testEncodeUnregistered () {
+                new BinaryMetadataCodec ().encode (ScopedMetadata.class, new ScopedMetadata (UUID.randomUUID (), Instant.ofEpochSecond (1), null, 42));
+        }
+
+        /**
+         * Provides a metadata subclass for testing purposes.
+         */
+        private static class ScopedMetadata extends AuthenticationClaimMetadata {
+                private final int scope;
+
+                public ScopedMetadata (@Nonnull UUID identifier, @Nonnull Instant issuance, @Nullable Instant expiration, int scope) {
+                        super (identifier, issuance, expiration);
+                        this.scope = scope;
+                }
+        }
+
+        /**
+         * Provides an extension for {@link ScopedMetadata}.
+         */
+        private static class ScopedMetadataExtension implements IBinaryMetadataExtension<ScopedMetadata> {
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Nonnull
+                @Override
+                public ScopedMetadata decode (@Nonnull UUID identifier, @Nonnull Instant issuance, @Nullable Instant expiration, @Nonnull ByteBuffer extension) throws IllegalArgumentException {
+                        if (extension.remaining () != 4) throw new IllegalArgumentException ("Malformed scope");
+                        return new ScopedMetadata (identifier, issuance, expiration, extension.getInt ());
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public int encodedLength (@Nonnull ScopedMetadata metadata) {
+                        return 4;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public void encode (@Nonnull ScopedMetadata metadata, @Nonnull ByteBuffer target) {
+                        target.putInt (metadata.scope);
+                }
+        }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.metadata.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.AbstractGeneratedMetadataCodec;
+import com.torchmind.padlock.metadata.codec.CompositeMetadataCodec;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class CompositeMetadataCodecTest {
+        private static final AuthenticationClaimMetadata METADATA_DECODED = new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2));
+        private static final String METADATA_ENCODED = "{\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1.000000000,\"expiration\":2.000000000}";
+
+        private JacksonMetadataCodec fallback;
+        private CompositeMetadataCodec codec;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () {
+                this.fallback = new JacksonMetadataCodec ();
+                this.codec = new CompositeMetadataCodec (this.fallback, Collections.singleton (new BaseMetadataCodec ()));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#encode(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}.
+         */
+        @Test
+        public void testEncode () {
+                ByteBuffer encoded = this.codec.encode (AuthenticationClaimMetadata.class, METADATA_DECODED);
+
+                Assert.assertEquals (METADATA_ENCODED, StandardCharsets.UTF_8.decode (encoded).toString ());
+                Assert.assertEquals (this.fallback.encode (AuthenticationClaimMetadata.class, METADATA_DECODED), this.codec.encode (AuthenticationClaimMetadata.class, METADATA_DECODED));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#decode(Class, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testDecode () {
+                AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (METADATA_ENCODED.getBytes (StandardCharsets.UTF_8)));
+                Assert.assertEquals (METADATA_DECODED, decoded);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#decode(Class, java.nio.ByteBuffer)} with
+         * unknown fields.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeUnknownField () {
+                this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap ("{\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1,\"unknown\":true}".getBytes (StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.CompositeMetadataCodec#discover(com.torchmind.padlock.metadata.codec.IMetadataCodec, ClassLoader)}.
+         */
+        @Test
+        public void testDiscover () {
+                IMetadataCodec codec = CompositeMetadataCodec.discover (this.fallback, this.getClass ().getClassLoader ());
+                Assert.assertSame (this.fallback, codec);
+        }
+
+        /**
+         * Provides a hand written codec for the base metadata type.
+         */
+        private static class BaseMetadataCodec extends AbstractGeneratedMetadataCodec<AuthenticationClaimMetadata> {
+
+                public BaseMetadataCodec () {
+                        super (AuthenticationClaimMetadata.class);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected AuthenticationClaimMetadata read (JsonParser parser) throws IOException {
+                        UUID identifier = null;
+                        Instant issuance = null;
+                        Instant expiration = null;
+
+                        while (parser.nextToken () == JsonToken.FIELD_NAME) {
+                                String name = parser.getCurrentName ();
+                                parser.nextToken ();
+
+                                switch (name) {
+                                        case "identifier":
+                                                identifier = readUUID (parser);
+                                                break;
+                                        case "issuance":
+                                                issuance = readInstant (parser);
+                                                break;
+                                        case "expiration":
+                                                expiration = readInstant (parser);
+                                                break;
+                                        default:
+                                                throw unknownField (parser, name);
+                                }
+                        }
+
+                        expect (parser, JsonToken.END_OBJECT);
+                        return new AuthenticationClaimMetadata (required (parser, "identifier", identifier), required (parser, "issuance", issuance), expiration);
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected void write (JsonGenerator generator, AuthenticationClaimMetadata metadata) throws IOException {
+                        writeUUID (generator, "identifier", metadata.identifier ());
+                        writeInstant (generator, "issuance", metadata.issuance ());
+                        writeInstant (generator, "expiration", metadata.expiration ());
+                }
+        }
+}
@@ -25,6 +25,7 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -64,4 +65,25 @@ public class JacksonMetadataCodecTest {
                 AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (METADATA_ENCODED));
                 Assert.assertEquals (METADATA_DECODED, decoded);
         }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec#decodeBase(Class, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testDecodeBase () {
+                Assert.assertEquals (METADATA_DECODED, this.codec.decodeBase (AuthenticationClaimMetadata.class, ByteBuffer.wrap (METADATA_ENCODED)));
+
+                byte[] extended = "{\"scopes\":[\"read\",{\"write\":true}],\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1.000000000,\"expiration\":2.000000000,\"name\":\"Johannes\"}".getBytes (StandardCharsets.UTF_8);
+                Assert.assertEquals (METADATA_DECODED, this.codec.decodeBase (AuthenticationClaimMetadata.class, ByteBuffer.wrap (extended)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec#decodeBase(Class, java.nio.ByteBuffer)}
+         * with duplicate base fields.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeBaseDuplicate () {
+                byte[] duplicate = "{\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1.000000000,\"expiration\":2.000000000,\"name\":\"Johannes\",\"expiration\":9.000000000}".getBytes (StandardCharsets.UTF_8);
+                this.codec.decodeBase (AuthenticationClaimMetadata.class, ByteBuffer.wrap (duplicate));
+        }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.BinaryMetadataCodec;
+import com.torchmind.padlock.metadata.codec.CBORMetadataCodec;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.metadata.codec.SmileMetadataCodec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a coarse single threaded timing harness which compares the encoded size and throughput of the metadata
+ * codecs against {@link com.torchmind.padlock.metadata.codec.JacksonMetadataCodec}. Metadata subclasses are only
+ * measured with the schemaless (JSON, Smile and CBOR) codecs.
+ * This class is not a test case and thus not executed by the build. It may be run manually from within the
+ * {@code core} module after compiling the test sources:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp "target/classes:target/test-classes:$(cat target/classpath.txt)" com.torchmind.padlock.test.metadata.codec.MetadataCodecBenchmark
+ * </pre>
+ * Results are indicative only (no forking, no JIT isolation) and should be compared between codecs on the same machine
+ * rather than taken as absolute figures.
+ * @author Johannes Donath
+ */
+public final class MetadataCodecBenchmark {
+        private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos (2);
+        private static final long MEASUREMENT_NANOS = TimeUnit.SECONDS.toNanos (5);
+
+        private static volatile Object sink;
+
+        private MetadataCodecBenchmark () {
+        }
+
+        public static void main (String[] arguments) {
+                AuthenticationClaimMetadata metadata = new AuthenticationClaimMetadata (UUID.randomUUID (), Instant.now (), Instant.now ().plus (Duration.ofHours (1)));
+
+                System.out.println ("Base fields:");
+                Result reference = run ("Jackson", new JacksonMetadataCodec (), metadata, null);
+                run ("Binary", new BinaryMetadataCodec (), metadata, reference);
+                run ("Smile", new SmileMetadataCodec (), metadata, reference);
+                run ("CBOR", new CBORMetadataCodec (), metadata, reference);
+
+                SessionMetadata session = new SessionMetadata (UUID.randomUUID (), Instant.now (), Instant.now ().plus (Duration.ofHours (1)), "Johannes", 42, Arrays.asList ("read", "write", "administrate"));
+
+                System.out.println ("Subclass fields:");
+                reference = run ("Jackson", new JacksonMetadataCodec (), session, null);
+                run ("Smile", new SmileMetadataCodec (), session, reference);
+                run ("CBOR", new CBORMetadataCodec (), session, reference);
+        }
+
+        /**
+         * Measures the encoded size and throughput of a codec.
+         * @param name The codec name.
+         * @param codec The codec.
+         * @param metadata The metadata to encode.
+         * @param reference The results to compare against (or null).
+         * @param <M> The metadata type.
+         * @return The results.
+         */
+        @Nonnull
+        @SuppressWarnings ("unchecked")
+        private static <M extends AuthenticationClaimMetadata> Result run (@Nonnull String name, @Nonnull IMetadataCodec codec, @Nonnull M metadata, @Nullable Result reference) {
+                Class<M> type = (Class<M>) metadata.getClass ();
+                ByteBuffer encoded = codec.encode (type, metadata);
+
+                if (!metadata.equals (codec.decode (type, encoded.duplicate ())))
+                        throw new IllegalStateException (name + " does not preserve the metadata");
+
+                int length = encoded.remaining ();
+                double encodes = measure (() -> codec.encode (type, metadata));
+                double decodes = measure (() -> codec.decode (type, encoded.duplicate ()));
+                Result result = new Result (length, encodes, decodes);
+
+                System.out.printf ("%-8s %4d bytes (%4d chars), encode %10.0f ops/s, decode %10.0f ops/s", name, length, ((length + 2) / 3) * 4, encodes, decodes);
+                if (reference != null) System.out.printf (" (%.1fx smaller, %.1fx encode, %.1fx decode)", ((double) reference.length / length), (encodes / reference.encodes), (decodes / reference.decodes));
+                System.out.println ();
+
+                return result;
+        }
+
+        /**
+         * Measures the throughput of an operation after warming it up.
+         * @param operation The operation.
+         * @return The amount of operations per second.
+         */
+        private static double measure (@Nonnull Operation operation) {
+                long start = System.nanoTime ();
+                while (System.nanoTime () - start < WARMUP_NANOS) sink = operation.run ();
+
+                long operations = 0;
+                start = System.nanoTime ();
+                long elapsed;
+
+                do {
+                        sink = operation.run ();
+                        ++operations;
+                } while ((elapsed = System.nanoTime () - start) < MEASUREMENT_NANOS);
+
+                return (operations * 1e9 / elapsed);
+        }
+
+        /**
+         * Represents a measured operation.
+         */
+        @FunctionalInterface
+        private interface Operation {
+                Object run ();
+        }
+
+        /**
+         * Represents the results of a single codec.
+         */
+        private static final class Result {
+                private final int length;
+                private final double encodes;
+                private final double decodes;
+
+                private Result (int length, double encodes, double decodes) {
+                        this.length = length;
+                        this.encodes = encodes;
+                        this.decodes = decodes;
+                }
+        }
+
+        /**
+         * Provides a metadata subclass carrying additional schemaless fields.
+         */
+        private static final class SessionMetadata extends AuthenticationClaimMetadata {
+                private final String name;
+                private final int level;
+                private final List<String> roles;
+
+                private SessionMetadata () {
+                        super (new UUID (0, 0), Instant.EPOCH, (Instant) null);
+                        this.name = null;
+                        this.level = 0;
+                        this.roles = null;
+                }
+
+                private SessionMetadata (@Nonnull UUID identifier, @Nonnull Instant issuance, @Nullable Instant expiration, @Nonnull String name, int level, @Nonnull List<String> roles) {
+                        super (identifier, issuance, expiration);
+                        this.name = name;
+                        this.level = level;
+                        this.roles = roles;
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public boolean equals (Object o) {
+                        if (!super.equals (o) || !(o instanceof SessionMetadata)) return false;
+                        SessionMetadata that = (SessionMetadata) o;
+
+                        return (this.level == that.level && Objects.equals (this.name, that.name) && Objects.equals (this.roles, that.roles));
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public int hashCode () {
+                        return (31 * super.hashCode () + Objects.hash (this.name, this.level, this.roles));
+                }
+        }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.metadata.codec;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.SmileMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.metadata.codec.SmileMetadataCodec}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class SmileMetadataCodecTest {
+        private static final AuthenticationClaimMetadata[] METADATA = new AuthenticationClaimMetadata[] {
+                new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2)),
+                new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1444000000, 123456789), Instant.ofEpochSecond (1444003600, 5)),
+                new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (-1, 5), (Instant) null)
+        };
+
+        private SmileMetadataCodec codec;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () {
+                this.codec = new SmileMetadataCodec ();
+        }
+
+        /**
+         * Tests encoding and decoding of metadata.
+         */
+        @Test
+        public void testRoundTrip () {
+                for (AuthenticationClaimMetadata metadata : METADATA) {
+                        AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, this.codec.encode (AuthenticationClaimMetadata.class, metadata));
+
+                        Assert.assertEquals (metadata, decoded);
+                        Assert.assertEquals (metadata.issuance (), decoded.issuance ());
+                        Assert.assertEquals (metadata.expiration (), decoded.expiration ());
+                }
+        }
+
+        /**
+         * Tests the size of encoded metadata in comparison to JSON.
+         */
+        @Test
+        public void testSize () {
+                ByteBuffer json = new JacksonMetadataCodec ().encode (AuthenticationClaimMetadata.class, METADATA[1]);
+                ByteBuffer encoded = this.codec.encode (AuthenticationClaimMetadata.class, METADATA[1]);
+
+                Assert.assertTrue (encoded.remaining () < json.remaining ());
+        }
+}
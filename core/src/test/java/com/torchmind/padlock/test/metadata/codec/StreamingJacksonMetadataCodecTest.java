@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.metadata.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class StreamingJacksonMetadataCodecTest {
+        private static final AuthenticationClaimMetadata[] METADATA = new AuthenticationClaimMetadata[] {
+                new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1), Instant.ofEpochSecond (2)),
+                new AuthenticationClaimMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1444000000, 123456789), Instant.ofEpochSecond (1444003600, 5)),
+                new AuthenticationClaimMetadata (UUID.fromString ("00000000-0000-0000-0000-000000000000"), Instant.ofEpochSecond (1444000000, 100), (Instant) null)
+        };
+
+        private JacksonMetadataCodec referenceCodec;
+        private StreamingJacksonMetadataCodec codec;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () {
+                this.referenceCodec = new JacksonMetadataCodec ();
+                this.codec = new StreamingJacksonMetadataCodec ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec#encode(Class, com.torchmind.padlock.metadata.AuthenticationClaimMetadata)}
+         * against the databind implementation.
+         */
+        @Test
+        public void testEncode () {
+                for (AuthenticationClaimMetadata metadata : METADATA)
+                        Assert.assertEquals (this.referenceCodec.encode (AuthenticationClaimMetadata.class, metadata), this.codec.encode (AuthenticationClaimMetadata.class, metadata));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec#decode(Class, java.nio.ByteBuffer)}
+         * against the databind implementation.
+         */
+        @Test
+        public void testDecode () {
+                for (AuthenticationClaimMetadata metadata : METADATA) {
+                        ByteBuffer encoded = this.referenceCodec.encode (AuthenticationClaimMetadata.class, metadata);
+                        AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, encoded);
+
+                        Assert.assertEquals (metadata, decoded);
+                        Assert.assertEquals (metadata.issuance (), decoded.issuance ());
+                        Assert.assertEquals (metadata.expiration (), decoded.expiration ());
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec#decode(Class, java.nio.ByteBuffer)}
+         * with documents which require databind.
+         */
+        @Test
+        public void testDecodeFallback () {
+                String document = "{\"expiration\":null,\"issuance\":1444000000,\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\"}";
+                AuthenticationClaimMetadata decoded = this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (document.getBytes (StandardCharsets.UTF_8)));
+
+                Assert.assertEquals (this.referenceCodec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (document.getBytes (StandardCharsets.UTF_8))), decoded);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.metadata.codec.StreamingJacksonMetadataCodec#decode(Class, java.nio.ByteBuffer)}
+         * with unknown properties.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testDecodeUnknownProperty () {
+                String document = "{\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1.000000000,\"expiration\":null,\"scope\":1}";
+                this.codec.decode (AuthenticationClaimMetadata.class, ByteBuffer.wrap (document.getBytes (StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * Tests encoding and decoding of metadata subclasses against the databind implementation.
+         */
+        @Test
+        public void testSubclass () {
+                ScopedMetadata metadata = new ScopedMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1444000000, 123456789), Instant.ofEpochSecond (1444003600), "admin", Arrays.asList ("read", "write"));
+
+                ByteBuffer encoded = this.codec.encode (ScopedMetadata.class, metadata);
+                Assert.assertEquals (this.referenceCodec.encode (ScopedMetadata.class, metadata), encoded);
+
+                ScopedMetadata decoded = this.codec.decode (ScopedMetadata.class, encoded);
+                Assert.assertEquals (metadata, decoded);
+                Assert.assertEquals (metadata.issuance (), decoded.issuance ());
+                Assert.assertEquals (metadata.expiration (), decoded.expiration ());
+                Assert.assertEquals ("admin", decoded.scope);
+                Assert.assertEquals (Arrays.asList ("read", "write"), decoded.roles);
+        }
+
+        /**
+         * Tests that the base fields of metadata subclasses are streamed rather than processed by databind.
+         * The codec is backed by a mapper which cannot process instants, thus any databind fallback fails.
+         */
+        @Test
+        public void testSubclassStreaming () {
+                StreamingJacksonMetadataCodec codec = new StreamingJacksonMetadataCodec () {
+                        @Override
+                        protected ObjectMapper createMapper () {
+                                SimpleModule module = new SimpleModule ();
+
+                                // @formatter:off
+                                module.addSerializer (Instant.class, new JsonSerializer<Instant> () {
+                                        @Override public void serialize (Instant value, JsonGenerator generator, SerializerProvider provider) { throw new UnsupportedOperationException ("databind"); }
+                                });
+                                module.addDeserializer (Instant.class, new JsonDeserializer<Instant> () {
+                                        @Override public Instant deserialize (JsonParser parser, DeserializationContext context) { throw new UnsupportedOperationException ("databind"); }
+                                });
+                                // @formatter:on
+
+                                ObjectMapper mapper = super.createMapper ();
+                                mapper.registerModule (module);
+                                return mapper;
+                        }
+                };
+
+                ScopedMetadata metadata = new ScopedMetadata (UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a"), Instant.ofEpochSecond (1444000000, 5), null, "admin", Arrays.asList ("read"));
+
+                ByteBuffer encoded = codec.encode (ScopedMetadata.class, metadata);
+                Assert.assertEquals (this.referenceCodec.encode (ScopedMetadata.class, metadata), encoded);
+
+                ScopedMetadata decoded = codec.decode (ScopedMetadata.class, encoded);
+                Assert.assertEquals (metadata, decoded);
+                Assert.assertEquals ("admin", decoded.scope);
+        }
+
+        /**
+         * Provides a metadata subclass carrying additional fields.
+         */
+        private static class ScopedMetadata extends AuthenticationClaimMetadata {
+                private final String scope;
+                private final List<String> roles;
+
+                private ScopedMetadata () {
+                        super (new UUID (0, 0), Instant.EPOCH, (Instant) null);
+                        this.scope = null;
+                        this.roles = null;
+                }
+
+                private ScopedMetadata (@Nonnull UUID identifier, @Nonnull Instant issuance, @Nullable Instant expiration, @Nonnull String scope, @Nonnull List<String> roles) {
+                        super (identifier, issuance, expiration);
+                        this.scope = scope;
+                        this.roles = roles;
+                }
+        }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.revocation;
+
+import com.torchmind.padlock.revocation.RevocationSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.revocation.RevocationSet}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class RevocationSetTest {
+        private static final Clock CLOCK = Clock.fixed (Instant.ofEpochSecond (10), ZoneOffset.UTC);
+
+        /**
+         * Tests {@link com.torchmind.padlock.revocation.RevocationSet#revoked(java.util.UUID)}.
+         */
+        @Test
+        public void testRevoked () {
+                RevocationSet set = new RevocationSet (16, 0.01, CLOCK);
+                UUID identifier = UUID.randomUUID ();
+
+                Assert.assertFalse (set.revoked (identifier));
+                Assert.assertTrue (set.revoke (identifier, Instant.ofEpochSecond (20)));
+                Assert.assertFalse (set.revoke (identifier, Instant.ofEpochSecond (20)));
+                Assert.assertTrue (set.revoked (identifier));
+                Assert.assertFalse (set.revoked (UUID.randomUUID ()));
+                Assert.assertEquals (1, set.size ());
+
+                Assert.assertFalse (set.revoke (UUID.randomUUID (), Instant.ofEpochSecond (10)));
+                Assert.assertTrue (set.revoke (UUID.randomUUID (), null));
+                Assert.assertEquals (2, set.size ());
+        }
+
+        /**
+         * Tests growth of the set beyond its expected size.
+         */
+        @Test
+        public void testGrowth () {
+                RevocationSet set = new RevocationSet (16, 0.01, CLOCK);
+                List<UUID> identifiers = new ArrayList<> ();
+
+                for (int i = 0; i < 10000; ++i) {
+                        UUID identifier = UUID.randomUUID ();
+                        identifiers.add (identifier);
+                        Assert.assertTrue (set.revoke (identifier, null));
+                }
+
+                Assert.assertEquals (10000, set.size ());
+                Assert.assertTrue (set.capacity () >= 20000);
+                for (UUID identifier : identifiers) Assert.assertTrue (set.revoked (identifier));
+
+                int falsePositives = 0;
+                for (int i = 0; i < 10000; ++i) if (set.revoked (UUID.randomUUID ())) ++falsePositives;
+                Assert.assertEquals (0, falsePositives);
+        }
+
+        /**
+         * Tests eviction of expired entries.
+         */
+        @Test
+        public void testPurge () {
+                AtomicReference<Instant> now = new AtomicReference<> (Instant.ofEpochSecond (10));
+
+                // @formatter:off
+                Clock clock = new Clock () {
+                        @Override public ZoneOffset getZone () { return ZoneOffset.UTC; }
+                        @Override public Clock withZone (java.time.ZoneId zone) { return this; }
+                        @Override public Instant instant () { return now.get (); }
+                };
+                // @formatter:on
+
+                RevocationSet set = new RevocationSet (16, 0.01, clock);
+                UUID shortLived = UUID.randomUUID ();
+                UUID longLived = UUID.randomUUID ();
+
+                set.revoke (shortLived, Instant.ofEpochSecond (20));
+                set.revoke (longLived, Instant.ofEpochSecond (20).plus (Duration.ofHours (1)));
+                Assert.assertEquals (0, set.purge ());
+
+                now.set (Instant.ofEpochSecond (20));
+                Assert.assertFalse (set.revoked (shortLived));
+                Assert.assertTrue (set.revoked (longLived));
+                Assert.assertEquals (2, set.size ());
+
+                set.revoke (UUID.randomUUID (), null);
+                Assert.assertEquals (2, set.size ());
+                Assert.assertFalse (set.revoked (shortLived));
+                Assert.assertTrue (set.revoked (longLived));
+
+                now.set (Instant.ofEpochSecond (20).plus (Duration.ofHours (1)));
+                Assert.assertEquals (1, set.purge ());
+                Assert.assertEquals (1, set.size ());
+        }
+
+        /**
+         * Tests concurrent revocations and lookups.
+         */
+        @Test
+        public void testConcurrency () throws InterruptedException {
+                RevocationSet set = new RevocationSet (16, 0.01, CLOCK);
+                List<Thread> threads = new ArrayList<> ();
+                AtomicReference<Throwable> failure = new AtomicReference<> ();
+
+                for (int i = 0; i < 4; ++i) {
+                        Thread thread = new Thread (() -> {
+                                for (int j = 0; j < 2000; ++j) {
+                                        UUID identifier = UUID.randomUUID ();
+                                        set.revoke (identifier, null);
+                                        if (!set.revoked (identifier)) failure.set (new AssertionError ("Lost revocation: " + identifier));
+                                }
+                        });
+                        thread.setUncaughtExceptionHandler ((t, ex) -> failure.set (ex));
+
+                        threads.add (thread);
+                        thread.start ();
+                }
+
+                for (Thread thread : threads) thread.join ();
+
+                Assert.assertNull (failure.get ());
+                Assert.assertEquals (8000, set.size ());
+        }
+}
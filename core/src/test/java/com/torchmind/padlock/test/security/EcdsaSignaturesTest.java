@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.EcdsaSignatures;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.EcdsaSignatures}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class EcdsaSignaturesTest {
+
+        /**
+         * Tests conversions between DER encoded and raw signatures of all supported curves.
+         */
+        @Test
+        public void testConversion () throws Exception {
+                for (String curve : new String[] { "secp256r1", "secp384r1", "secp521r1" }) {
+                        KeyPairGenerator generator = KeyPairGenerator.getInstance ("EC");
+                        generator.initialize (new ECGenParameterSpec (curve));
+                        KeyPair keyPair = generator.generateKeyPair ();
+
+                        Signature signature = Signature.getInstance ("SHA256withECDSA");
+                        int componentLength = EcdsaSignatures.componentLength (((ECPublicKey) keyPair.getPublic ()).getParams ());
+
+                        // signatures vary in length, thus a few iterations cover leading zeros and sign bytes
+                        for (int i = 0; i < 32; ++i) {
+                                signature.initSign (keyPair.getPrivate ());
+                                signature.update ((byte) i);
+                                byte[] der = signature.sign ();
+
+                                byte[] raw = EcdsaSignatures.toRaw (der, componentLength);
+                                Assert.assertEquals ((componentLength << 1), raw.length);
+
+                                byte[] target = new byte[EcdsaSignatures.maximumDerLength (componentLength)];
+                                int length = EcdsaSignatures.toDer (ByteBuffer.wrap (raw), componentLength, target);
+
+                                Assert.assertArrayEquals (der, Arrays.copyOf (target, length));
+                        }
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.EcdsaSignatures#toDer(java.nio.ByteBuffer, int, byte[])} with small
+         * components.
+         */
+        @Test
+        public void testToDerPadding () throws SignatureException {
+                byte[] raw = new byte[8];
+                raw[3] = (byte) 0x80;
+                raw[7] = 0x01;
+
+                byte[] target = new byte[EcdsaSignatures.maximumDerLength (4)];
+                int length = EcdsaSignatures.toDer (ByteBuffer.wrap (raw), 4, target);
+
+                Assert.assertArrayEquals (new byte[] { 0x30, 0x07, 0x02, 0x02, 0x00, (byte) 0x80, 0x02, 0x01, 0x01 }, Arrays.copyOf (target, length));
+                Assert.assertArrayEquals (raw, EcdsaSignatures.toRaw (Arrays.copyOf (target, length), 4));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.EcdsaSignatures#toRaw(byte[], int)} with malformed encodings.
+         */
+        @Test
+        public void testToRawMalformed () {
+                byte[][] malformed = new byte[][] {
+                        new byte[] { 0x31, 0x06, 0x02, 0x01, 0x01, 0x02, 0x01, 0x01 },
+                        new byte[] { 0x30, 0x07, 0x02, 0x01, 0x01, 0x02, 0x01, 0x01 },
+                        new byte[] { 0x30, 0x06, 0x02, 0x01, 0x01, 0x04, 0x01, 0x01 },
+                        new byte[] { 0x30, 0x08, 0x02, 0x03, 0x01, 0x01, 0x01, 0x02, 0x01, 0x01 }
+                };
+
+                for (byte[] der : malformed) {
+                        try {
+                                EcdsaSignatures.toRaw (der, 2);
+                                Assert.fail ();
+                        } catch (SignatureException ignore) {
+                        }
+                }
+        }
+}
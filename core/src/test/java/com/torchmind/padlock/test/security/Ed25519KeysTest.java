@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.util.Arrays;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.Ed25519Keys}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class Ed25519KeysTest {
+
+        // RFC 8032, section 7.1, test 2
+        public static final byte[] TEST_SEED = bytes ("4ccd089b28ff96da9db6c346ec114e0f5b8a319f35aba624da8cf6ed4fb8a6fb");
+        public static final byte[] TEST_PUBLIC_KEY = bytes ("3d4017c3e843895a92b70aa74d1b7ebc9c982ccf2ec4968cc0cd55f12af4660c");
+        public static final byte[] TEST_MESSAGE = new byte[] { 0x72 };
+        public static final byte[] TEST_SIGNATURE = bytes ("92a009a9f0d4cab8720e820b5f642540a2b27b5416503f8fb3762223ebdb69da085ac1e43e15996e458f3613d0f11d8c387b2eaeb4302aeeb00d291612bb0c00");
+
+        /**
+         * Skips the current test case when the runtime does not provide Ed25519 (e.g. Java 8).
+         */
+        public static void assumeSupported () {
+                Assume.assumeTrue ("Ed25519 is not supported by this runtime", Security.getProviders ("Signature.Ed25519") != null);
+        }
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void setup () {
+                assumeSupported ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.Ed25519Keys#privateKey(byte[])} and
+         * {@link com.torchmind.padlock.security.Ed25519Keys#publicKey(byte[])}.
+         */
+        @Test
+        public void testRaw () {
+                PrivateKey privateKey = Ed25519Keys.privateKey (TEST_SEED);
+                PublicKey publicKey = Ed25519Keys.publicKey (TEST_PUBLIC_KEY);
+
+                Assert.assertArrayEquals (TEST_SEED, Ed25519Keys.raw (privateKey));
+                Assert.assertArrayEquals (TEST_PUBLIC_KEY, Ed25519Keys.raw (publicKey));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.Ed25519Keys#generateKeyPair()}.
+         */
+        @Test
+        public void testGenerateKeyPair () {
+                KeyPair keyPair = Ed25519Keys.generateKeyPair ();
+
+                Assert.assertEquals (keyPair.getPrivate (), Ed25519Keys.privateKey (Ed25519Keys.raw (keyPair.getPrivate ())));
+                Assert.assertEquals (keyPair.getPublic (), Ed25519Keys.publicKey (Ed25519Keys.raw (keyPair.getPublic ())));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.Ed25519Keys#privateKey(byte[])} with truncated keys.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testPrivateKeyTruncated () {
+                Ed25519Keys.privateKey (Arrays.copyOf (TEST_SEED, 31));
+        }
+
+        /**
+         * Decodes a hexadecimal string.
+         * @param hex The string.
+         * @return The bytes.
+         */
+        private static byte[] bytes (String hex) {
+                byte[] bytes = new BigInteger ("01" + hex, 16).toByteArray ();
+                return Arrays.copyOfRange (bytes, 1, bytes.length);
+        }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.KeyFileWatcher;
+import com.torchmind.padlock.security.ReloadableProviderFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.KeyFileWatcher}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class KeyFileWatcherTest {
+        private Path directory;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () throws IOException {
+                this.directory = Files.createTempDirectory ("padlock");
+        }
+
+        /**
+         * Cleans up the environment.
+         */
+        @After
+        public void cleanup () throws IOException {
+                try (Stream<Path> paths = Files.walk (this.directory)) {
+                        paths.sorted (Comparator.reverseOrder ()).forEach ((p) -> p.toFile ().delete ());
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyFileWatcher#start()}.
+         */
+        @Test
+        public void testWatch () throws IOException, InterruptedException {
+                Path file = this.directory.resolve ("key.jwk");
+                write (file, "AQIDBA");
+
+                ReloadableProviderFactory factory = new ReloadableProviderFactory (null, null);
+
+                try (KeyFileWatcher watcher = new KeyFileWatcher (file, "HmacSHA256", factory).start ()) {
+                        Assert.assertEquals (1, factory.generation ().number ());
+                        Assert.assertNotNull (factory.generation ().signatureProviderFactory ());
+
+                        write (file, "BQYHCA");
+
+                        long deadline = System.currentTimeMillis () + 10000;
+                        while (factory.generation ().number () < 2 && System.currentTimeMillis () < deadline) Thread.sleep (10);
+
+                        Assert.assertEquals (2, factory.generation ().number ());
+                        Assert.assertEquals (2, watcher.reloads ());
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyFileWatcher#reload()} with malformed files.
+         */
+        @Test
+        public void testReloadMalformed () throws IOException {
+                Path file = this.directory.resolve ("key.jwk");
+                write (file, "AQIDBA");
+
+                ReloadableProviderFactory factory = new ReloadableProviderFactory (null, null);
+                KeyFileWatcher watcher = new KeyFileWatcher (file, "HmacSHA256", factory);
+                Assert.assertTrue (watcher.reload ());
+
+                Files.write (file, "{\"kty\":".getBytes (StandardCharsets.UTF_8));
+                Assert.assertFalse (watcher.reload ());
+
+                Assert.assertEquals (1, factory.generation ().number ());
+                Assert.assertEquals (1, watcher.failures ());
+                Assert.assertTrue (watcher.lastFailure () instanceof IllegalArgumentException);
+        }
+
+        /**
+         * Atomically replaces a key file with an octet sequence key.
+         * @param file The file.
+         * @param key The encoded key.
+         */
+        private static void write (Path file, String key) throws IOException {
+                Path temporary = Files.createTempFile (file.getParent (), "key", ".tmp");
+                Files.write (temporary, ("{\"kty\":\"oct\",\"k\":\"" + key + "\"}").getBytes (StandardCharsets.UTF_8));
+                Files.move (temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+import com.torchmind.padlock.security.KeyLoader;
+import com.torchmind.padlock.security.KeyMaterial;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.verification.IVerificationProvider;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.Base64;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.KeyLoader}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class KeyLoaderTest {
+        private static final ByteBuffer TEST_METADATA = ByteBuffer.wrap ("metadata".getBytes (StandardCharsets.UTF_8));
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parsePem(String)} with a RSA private key.
+         */
+        @Test
+        public void testPemRsa () throws NoSuchAlgorithmException, SignatureException {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance ("RSA");
+                generator.initialize (1024);
+                KeyPair keyPair = generator.generateKeyPair ();
+
+                KeyMaterial material = KeyLoader.parse (pem ("PRIVATE KEY", keyPair.getPrivate ().getEncoded ()));
+                Assert.assertEquals (keyPair.getPrivate (), material.privateKey ());
+                Assert.assertEquals (keyPair.getPublic (), material.publicKey ());
+
+                assertUsable (material, "SHA256withRSA");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parsePem(String)} with an EC key pair.
+         */
+        @Test
+        public void testPemEc () throws NoSuchAlgorithmException, SignatureException {
+                KeyPair keyPair = KeyPairGenerator.getInstance ("EC").generateKeyPair ();
+
+                KeyMaterial material = KeyLoader.parse (pem ("PRIVATE KEY", keyPair.getPrivate ().getEncoded ()) + "\n" + pem ("PUBLIC KEY", keyPair.getPublic ().getEncoded ()));
+                Assert.assertEquals (keyPair.getPrivate (), material.privateKey ());
+                Assert.assertEquals (keyPair.getPublic (), material.publicKey ());
+
+                assertUsable (material, "SHA256withECDSA");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parsePem(String)} with unsupported blocks.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testPemUnsupported () {
+                KeyLoader.parse (pem ("RSA PRIVATE KEY", new byte[] { 1, 2, 3 }));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parseJwk(String)} with an octet sequence key.
+         */
+        @Test
+        public void testJwkOct () throws SignatureException {
+                KeyMaterial material = KeyLoader.parse ("{\"kty\":\"oct\",\"kid\":\"hmac\",\"alg\":\"HS512\",\"k\":\"AQIDBAUGBwg\"}");
+
+                Assert.assertEquals ("hmac", material.keyId ());
+                Assert.assertEquals ("HmacSHA512", material.secretKey ().getAlgorithm ());
+                Assert.assertArrayEquals (new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, material.secretKey ().getEncoded ());
+
+                assertUsable (material, "HmacSHA512");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parseJwk(String)} with a RSA key set.
+         */
+        @Test
+        public void testJwkRsa () throws NoSuchAlgorithmException, SignatureException {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance ("RSA");
+                generator.initialize (1024);
+                RSAPrivateCrtKey key = (RSAPrivateCrtKey) generator.generateKeyPair ().getPrivate ();
+
+                // @formatter:off
+                String jwk = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"rsa\"" +
+                        ",\"n\":\"" + encode (key.getModulus ().toByteArray ()) + "\"" +
+                        ",\"e\":\"" + encode (key.getPublicExponent ().toByteArray ()) + "\"" +
+                        ",\"d\":\"" + encode (key.getPrivateExponent ().toByteArray ()) + "\"" +
+                        ",\"p\":\"" + encode (key.getPrimeP ().toByteArray ()) + "\"" +
+                        ",\"q\":\"" + encode (key.getPrimeQ ().toByteArray ()) + "\"" +
+                        ",\"dp\":\"" + encode (key.getPrimeExponentP ().toByteArray ()) + "\"" +
+                        ",\"dq\":\"" + encode (key.getPrimeExponentQ ().toByteArray ()) + "\"" +
+                        ",\"qi\":\"" + encode (key.getCrtCoefficient ().toByteArray ()) + "\"}]}";
+                // @formatter:on
+
+                KeyMaterial material = KeyLoader.parse (jwk);
+                Assert.assertEquals ("rsa", material.keyId ());
+                Assert.assertEquals (key, material.privateKey ());
+
+                assertUsable (material, "SHA256withRSA");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parseJwk(String)} with an EC key.
+         */
+        @Test
+        public void testJwkEc () throws NoSuchAlgorithmException, SignatureException {
+                KeyPair keyPair = KeyPairGenerator.getInstance ("EC").generateKeyPair ();
+                ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic ();
+                ECPrivateKey privateKey = (ECPrivateKey) keyPair.getPrivate ();
+
+                // @formatter:off
+                String jwk = "{\"kty\":\"EC\",\"crv\":\"P-" + publicKey.getParams ().getCurve ().getField ().getFieldSize () + "\"" +
+                        ",\"x\":\"" + encode (publicKey.getW ().getAffineX ().toByteArray ()) + "\"" +
+                        ",\"y\":\"" + encode (publicKey.getW ().getAffineY ().toByteArray ()) + "\"" +
+                        ",\"d\":\"" + encode (privateKey.getS ().toByteArray ()) + "\"}";
+                // @formatter:on
+
+                KeyMaterial material = KeyLoader.parse (jwk);
+                Assert.assertNull (material.keyId ());
+                Assert.assertEquals (publicKey, material.publicKey ());
+
+                assertUsable (material, "SHA256withECDSA");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parseJwk(String)} with an Ed25519 key.
+         */
+        @Test
+        public void testJwkOkp () throws SignatureException {
+                Ed25519KeysTest.assumeSupported ();
+
+                String jwk = "{\"kty\":\"OKP\",\"crv\":\"Ed25519\",\"x\":\"" + encode (Ed25519KeysTest.TEST_PUBLIC_KEY) + "\",\"d\":\"" + encode (Ed25519KeysTest.TEST_SEED) + "\"}";
+
+                KeyMaterial material = KeyLoader.parse (jwk);
+                Assert.assertArrayEquals (Ed25519KeysTest.TEST_PUBLIC_KEY, Ed25519Keys.raw (material.publicKey ()));
+
+                assertUsable (material, Ed25519Keys.ALGORITHM);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parsePem(String)} with an Ed25519 private key.
+         */
+        @Test
+        public void testPemEd25519 () {
+                Ed25519KeysTest.assumeSupported ();
+
+                KeyPair keyPair = Ed25519Keys.generateKeyPair ();
+
+                KeyMaterial material = KeyLoader.parse (pem ("PRIVATE KEY", keyPair.getPrivate ().getEncoded ()));
+                Assert.assertEquals (keyPair.getPrivate (), material.privateKey ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyLoader#parseJwk(String)} with unsupported key types.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testJwkUnsupported () {
+                KeyLoader.parse ("{\"kty\":\"unknown\"}");
+        }
+
+        /**
+         * Asserts that the supplied key material produces matching signatures.
+         * @param material The key material.
+         * @param algorithm The signature algorithm.
+         */
+        private static void assertUsable (KeyMaterial material, String algorithm) throws SignatureException {
+                ISignatureProvider signatureProvider = material.signatureProviderFactory (algorithm).build ();
+                IVerificationProvider verificationProvider = material.verificationProviderFactory (algorithm).build ();
+
+                ByteBuffer signature = signatureProvider.sign (TEST_METADATA.duplicate ());
+                Assert.assertTrue (verificationProvider.verify (TEST_METADATA.duplicate (), signature));
+        }
+
+        /**
+         * Encodes a PEM block.
+         * @param type The block type.
+         * @param der The block contents.
+         * @return The block.
+         */
+        private static String pem (String type, byte[] der) {
+                return "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder ().encodeToString (der) + "\n-----END " + type + "-----\n";
+        }
+
+        /**
+         * Encodes a JWK member.
+         * @param value The value.
+         * @return The encoded value.
+         */
+        private static String encode (byte[] value) {
+                return Base64.getUrlEncoder ().withoutPadding ().encodeToString (value);
+        }
+}
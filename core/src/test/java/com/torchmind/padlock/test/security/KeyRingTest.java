@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.KeyRing;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.KeyRing}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class KeyRingTest {
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#add(String, com.torchmind.padlock.security.universal.IUniversalProviderFactory)}.
+         */
+        @Test
+        public void testAdd () {
+                KeyRing keyRing = new KeyRing (1);
+                keyRing.add ("a", factory ((byte) 1)).add ("b", factory ((byte) 2));
+
+                Assert.assertEquals ("a", keyRing.primary ());
+                Assert.assertEquals (2, keyRing.keyIds ().size ());
+                Assert.assertNotNull (keyRing.entry ("b"));
+                Assert.assertNull (keyRing.entry ("c"));
+
+                ISignatureProvider provider = keyRing.primaryEntry ().signatureProviderPool ().borrow ();
+                Assert.assertEquals ("a", ((KeyRing.KeyedSignatureProvider) provider).keyId ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#primary(String)}.
+         */
+        @Test
+        public void testPrimary () {
+                KeyRing keyRing = new KeyRing (1);
+                keyRing.add ("a", factory ((byte) 1)).add ("b", factory ((byte) 2)).primary ("b");
+
+                Assert.assertEquals ("b", keyRing.primary ());
+                Assert.assertEquals ("b", keyRing.primaryEntry ().keyId ());
+
+                keyRing.remove ("a");
+                Assert.assertNull (keyRing.entry ("a"));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#generation()}.
+         */
+        @Test
+        public void testGeneration () {
+                KeyRing keyRing = new KeyRing (1);
+                keyRing.add ("a", factory ((byte) 1)).add ("b", factory ((byte) 2)).primary ("b");
+                Assert.assertEquals (0, keyRing.generation ());
+
+                keyRing.add ("a", factory ((byte) 3));
+                Assert.assertEquals (1, keyRing.generation ());
+
+                keyRing.remove ("a");
+                Assert.assertEquals (2, keyRing.generation ());
+
+                keyRing.remove ("a");
+                Assert.assertEquals (2, keyRing.generation ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#remove(String)} with the primary key.
+         */
+        @Test (expected = IllegalStateException.class)
+        public void testRemovePrimary () {
+                new KeyRing (1).add ("a", factory ((byte) 1)).remove ("a");
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#add(String, com.torchmind.padlock.security.universal.IUniversalProviderFactory)}
+         * with malformed key identifiers.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testAddMalformed () {
+                new KeyRing (1).add ("a.b", factory ((byte) 1));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.KeyRing#validKeyId(CharSequence)}.
+         */
+        @Test
+        public void testValidKeyId () {
+                Assert.assertTrue (KeyRing.validKeyId ("key-2015_01"));
+                Assert.assertFalse (KeyRing.validKeyId (""));
+                Assert.assertFalse (KeyRing.validKeyId ("a.b"));
+                Assert.assertFalse (KeyRing.validKeyId ("a=b"));
+                Assert.assertFalse (KeyRing.validKeyId (new String (new char[KeyRing.MAXIMUM_KEY_ID_LENGTH + 1]).replace ('\0', 'a')));
+        }
+
+        /**
+         * Creates a HMAC provider factory for testing purposes.
+         * @param seed The key seed.
+         * @return The factory.
+         */
+        private static SymmetricUniversalProviderFactory factory (byte seed) {
+                byte[] key = new byte[32];
+                key[0] = seed;
+
+                return new SymmetricUniversalProviderFactory ("HmacSHA256", new SecretKeySpec (key, "HmacSHA256"));
+        }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.ProviderPool;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.ProviderPool}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class ProviderPoolTest {
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.ProviderPool#borrow()}.
+         */
+        @Test
+        public void testBorrow () {
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> Mockito.mock (ISignatureProvider.class), 2);
+
+                ISignatureProvider provider1 = pool.borrow ();
+                ISignatureProvider provider2 = pool.borrow ();
+
+                Assert.assertNotSame (provider1, provider2);
+                Assert.assertEquals (2, pool.borrowed ());
+
+                pool.release (provider1);
+                Assert.assertSame (provider1, pool.borrow ());
+
+                Assert.assertEquals (2, pool.size ());
+                Assert.assertEquals (3, pool.borrows ());
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.ProviderPool.ExhaustionPolicy#FAIL_FAST}.
+         */
+        @Test (expected = IllegalStateException.class)
+        public void testFailFast () {
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> Mockito.mock (ISignatureProvider.class), 1, ProviderPool.ExhaustionPolicy.FAIL_FAST, null);
+
+                pool.borrow ();
+                pool.borrow ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.ProviderPool#timeout()}.
+         */
+        @Test
+        public void testTimeout () {
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> Mockito.mock (ISignatureProvider.class), 1, ProviderPool.ExhaustionPolicy.BLOCK, Duration.ofMillis (10));
+                pool.borrow ();
+
+                try {
+                        pool.borrow ();
+                        Assert.fail ();
+                } catch (IllegalStateException ignore) {
+                }
+
+                Assert.assertEquals (1, pool.waits ());
+                Assert.assertEquals (1, pool.rejections ());
+                Assert.assertTrue (pool.maximumWaitTime ().compareTo (Duration.ofMillis (10)) >= 0);
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.ProviderPool#prestart()}.
+         */
+        @Test
+        public void testPrestart () {
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> Mockito.mock (ISignatureProvider.class), 4).prestart ();
+
+                Assert.assertEquals (4, pool.size ());
+                Assert.assertEquals (4, pool.idle ());
+                Assert.assertEquals (0, pool.borrowed ());
+
+                pool.borrow ();
+                Assert.assertEquals (4, pool.size ());
+                Assert.assertEquals (3, pool.idle ());
+        }
+
+        /**
+         * Tests that failing factories (including errors) do not leak pool capacity.
+         */
+        @Test (timeout = 30000)
+        public void testFactoryFailure () {
+                AtomicBoolean fail = new AtomicBoolean (true);
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> {
+                        if (fail.get ()) throw new AssertionError ("Factory failure");
+                        return Mockito.mock (ISignatureProvider.class);
+                }, 1);
+
+                try {
+                        pool.borrow ();
+                        Assert.fail ();
+                } catch (AssertionError ex) {
+                        Assert.assertEquals ("Factory failure", ex.getMessage ());
+                }
+
+                try {
+                        pool.prestart ();
+                        Assert.fail ();
+                } catch (AssertionError ex) {
+                        Assert.assertEquals ("Factory failure", ex.getMessage ());
+                }
+
+                Assert.assertEquals (0, pool.size ());
+                Assert.assertEquals (0, pool.borrowed ());
+
+                fail.set (false);
+                Assert.assertNotNull (pool.borrow ());
+                Assert.assertEquals (1, pool.size ());
+        }
+
+        /**
+         * Tests concurrent access to {@link com.torchmind.padlock.security.ProviderPool}.
+         */
+        @Test (timeout = 30000)
+        public void testConcurrentAccess () throws InterruptedException {
+                ProviderPool<ISignatureProvider> pool = new ProviderPool<> (() -> Mockito.mock (ISignatureProvider.class), 2);
+                Set<ISignatureProvider> inUse = Collections.newSetFromMap (new ConcurrentHashMap<> ());
+                AtomicBoolean failed = new AtomicBoolean ();
+
+                Thread[] threads = new Thread[8];
+
+                for (int i = 0; i < threads.length; ++i) {
+                        threads[i] = new Thread (() -> {
+                                for (int j = 0; j < 1000; ++j) {
+                                        ISignatureProvider provider = pool.borrow ();
+                                        if (!inUse.add (provider)) failed.set (true);
+
+                                        inUse.remove (provider);
+                                        pool.release (provider);
+                                }
+                        });
+                        threads[i].setUncaughtExceptionHandler ((t, ex) -> failed.set (true));
+                        threads[i].start ();
+                }
+
+                for (Thread thread : threads) thread.join ();
+
+                // providers are only constructed when borrows overlap, thus fewer than two may exist
+                Assert.assertFalse (failed.get ());
+                Assert.assertTrue (pool.size () <= 2);
+                Assert.assertEquals (pool.size (), pool.idle ());
+                Assert.assertEquals (0, pool.borrowed ());
+        }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security;
+
+import com.torchmind.padlock.security.Ed25519Keys;
+import com.torchmind.padlock.security.signature.AsymmetricSignatureProviderFactory;
+import com.torchmind.padlock.security.signature.EcdsaSignatureProviderFactory;
+import com.torchmind.padlock.security.signature.Ed25519SignatureProviderFactory;
+import com.torchmind.padlock.security.signature.ISignatureProvider;
+import com.torchmind.padlock.security.verification.AsymmetricVerificationProviderFactory;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProviderFactory;
+import com.torchmind.padlock.security.verification.Ed25519VerificationProviderFactory;
+import com.torchmind.padlock.security.verification.IVerificationProvider;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a coarse single threaded timing harness for the asymmetric signature providers.
+ * This class is not a test case and thus not executed by the build. It may be run manually from within the
+ * {@code core} module after compiling the test sources:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp "target/classes:target/test-classes:$(cat target/classpath.txt)" com.torchmind.padlock.test.security.SignatureBenchmark
+ * </pre>
+ * Results are indicative only (no forking, no JIT isolation) and should be compared between algorithms on the same
+ * machine rather than taken as absolute figures.
+ * @author Johannes Donath
+ */
+public final class SignatureBenchmark {
+        private static final int METADATA_LENGTH = 80;
+        private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos (2);
+        private static final long MEASUREMENT_NANOS = TimeUnit.SECONDS.toNanos (5);
+
+        private SignatureBenchmark () {
+        }
+
+        public static void main (String[] arguments) throws Exception {
+                KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance ("RSA");
+                rsaGenerator.initialize (2048);
+                KeyPair rsa = rsaGenerator.generateKeyPair ();
+                run ("RSA-2048", new AsymmetricSignatureProviderFactory ("SHA256withRSA", rsa.getPrivate ()).build (), new AsymmetricVerificationProviderFactory ("SHA256withRSA", rsa.getPublic ()).build ());
+
+                KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance ("EC");
+                ecGenerator.initialize (256);
+                KeyPair ec = ecGenerator.generateKeyPair ();
+                run ("ECDSA P-256", new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) ec.getPrivate ()).build (), new EcdsaVerificationProviderFactory ("SHA256withECDSA", (ECPublicKey) ec.getPublic ()).build ());
+
+                KeyPair ed25519;
+
+                try {
+                        ed25519 = Ed25519Keys.generateKeyPair ();
+                } catch (IllegalStateException ex) {
+                        System.out.println ("Ed25519: skipped (" + ex.getMessage () + ")");
+                        return;
+                }
+
+                run ("Ed25519", new Ed25519SignatureProviderFactory (ed25519.getPrivate ()).build (), new Ed25519VerificationProviderFactory (ed25519.getPublic ()).build ());
+        }
+
+        /**
+         * Measures the signature and verification throughput of a provider pair.
+         * @param name The algorithm name.
+         * @param signatureProvider The signature provider.
+         * @param verificationProvider The verification provider.
+         * @throws java.security.SignatureException when signing fails.
+         */
+        private static void run (@Nonnull String name, @Nonnull ISignatureProvider signatureProvider, @Nonnull IVerificationProvider verificationProvider) throws SignatureException {
+                ByteBuffer metadata = ByteBuffer.wrap (new byte[METADATA_LENGTH]);
+                ByteBuffer signature = copy (signatureProvider.sign (metadata.duplicate ()));
+
+                if (!verificationProvider.verify (metadata.duplicate (), signature.duplicate ()))
+                        throw new IllegalStateException (name + " produced a signature which does not verify");
+
+                double signatures = measure (() -> signatureProvider.sign (metadata.duplicate ()));
+                double verifications = measure (() -> verificationProvider.verify (metadata.duplicate (), signature.duplicate ()));
+                int encodedLength = Base64.getUrlEncoder ().encodeToString (toArray (signature)).length ();
+
+                System.out.printf ("%-12s sign %10.0f ops/s, verify %10.0f ops/s, %d byte signature (%d chars)%n", name, signatures, verifications, signature.remaining (), encodedLength);
+        }
+
+        /**
+         * Measures the throughput of an operation after warming it up.
+         * @param operation The operation.
+         * @return The amount of operations per second.
+         * @throws java.security.SignatureException when the operation fails.
+         */
+        private static double measure (@Nonnull Operation operation) throws SignatureException {
+                long start = System.nanoTime ();
+                while (System.nanoTime () - start < WARMUP_NANOS) operation.run ();
+
+                long operations = 0;
+                start = System.nanoTime ();
+                long elapsed;
+
+                do {
+                        operation.run ();
+                        ++operations;
+                } while ((elapsed = System.nanoTime () - start) < MEASUREMENT_NANOS);
+
+                return (operations * 1e9 / elapsed);
+        }
+
+        /**
+         * Copies the remaining contents of a buffer.
+         * @param buffer The buffer.
+         * @return The copy.
+         */
+        @Nonnull
+        private static ByteBuffer copy (@Nonnull ByteBuffer buffer) {
+                return ByteBuffer.wrap (toArray (buffer));
+        }
+
+        /**
+         * Retrieves the remaining contents of a buffer.
+         * @param buffer The buffer.
+         * @return The contents.
+         */
+        @Nonnull
+        private static byte[] toArray (@Nonnull ByteBuffer buffer) {
+                byte[] data = new byte[buffer.remaining ()];
+                buffer.duplicate ().get (data);
+                return data;
+        }
+
+        /**
+         * Represents a measured operation.
+         */
+        @FunctionalInterface
+        private interface Operation {
+                void run () throws SignatureException;
+        }
+}
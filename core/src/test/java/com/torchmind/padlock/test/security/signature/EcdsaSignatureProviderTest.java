@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security.signature;
+
+import com.torchmind.padlock.security.signature.EcdsaSignatureProvider;
+import com.torchmind.padlock.security.signature.EcdsaSignatureProviderFactory;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class EcdsaSignatureProviderTest {
+        public static final byte[] TEST_BYTES = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+
+        private KeyPair keyPair;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void setup () throws Exception {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance ("EC");
+                generator.initialize (256);
+                this.keyPair = generator.generateKeyPair ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider#sign(java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testSign () throws Exception {
+                EcdsaSignatureProvider provider = new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) this.keyPair.getPrivate ()).build ();
+                Assert.assertEquals (32, provider.componentLength ());
+
+                ByteBuffer signature = provider.sign (ByteBuffer.wrap (TEST_BYTES));
+                Assert.assertEquals (64, signature.remaining ());
+
+                EcdsaVerificationProvider verificationProvider = new EcdsaVerificationProvider (Signature.getInstance ("SHA256withECDSA"), (ECPublicKey) this.keyPair.getPublic ());
+                Assert.assertTrue (verificationProvider.verify (ByteBuffer.wrap (TEST_BYTES), signature));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider#sign(java.nio.ByteBuffer)} with
+         * DER encoding implementations.
+         */
+        @Test
+        public void testSignConverted () throws Exception {
+                EcdsaSignatureProvider provider = new EcdsaSignatureProvider (Signature.getInstance ("SHA256withECDSA"), (ECPrivateKey) this.keyPair.getPrivate ());
+
+                for (int i = 0; i < 16; ++i) {
+                        ByteBuffer signature = provider.sign (ByteBuffer.wrap (TEST_BYTES));
+                        Assert.assertEquals (64, signature.remaining ());
+
+                        EcdsaVerificationProvider verificationProvider = new EcdsaVerificationProvider ("SHA256withECDSA", (ECPublicKey) this.keyPair.getPublic ());
+                        Assert.assertTrue (verificationProvider.verify (ByteBuffer.wrap (TEST_BYTES), signature));
+                }
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.signature.EcdsaSignatureProvider#key(java.security.PrivateKey)}
+         * with keys of other algorithms.
+         */
+        @Test (expected = IllegalArgumentException.class)
+        public void testKeyMismatch () throws Exception {
+                EcdsaSignatureProvider provider = new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) this.keyPair.getPrivate ()).build ();
+                provider.key (KeyPairGenerator.getInstance ("RSA").generateKeyPair ().getPrivate ());
+        }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security.signature;
+
+import com.torchmind.padlock.security.signature.Ed25519SignatureProvider;
+import com.torchmind.padlock.security.signature.Ed25519SignatureProviderFactory;
+import com.torchmind.padlock.test.security.Ed25519KeysTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.security.SignatureException;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.signature.Ed25519SignatureProvider}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class Ed25519SignatureProviderTest {
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void setup () {
+                Ed25519KeysTest.assumeSupported ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.signature.Ed25519SignatureProvider#sign(java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testSign () throws SignatureException {
+                Ed25519SignatureProvider provider = new Ed25519SignatureProviderFactory (Ed25519KeysTest.TEST_SEED).build ();
+
+                ByteBuffer metadata = ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE);
+                Assert.assertArrayEquals (Ed25519KeysTest.TEST_SIGNATURE, provider.sign (metadata).array ());
+                Assert.assertArrayEquals (Ed25519KeysTest.TEST_SIGNATURE, provider.sign (metadata).array ());
+        }
+}
@@ -27,7 +27,9 @@ import org.mockito.runners.MockitoJUnitRunner;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
 
 /**
  * Provides test cases for {@link com.torchmind.padlock.security.universal.SymmetricUniversalProviderFactory}.
@@ -61,4 +63,23 @@ public class SymmetricUniversalProviderFactoryTest {
                 Assert.assertNotNull (provider2);
                 Assert.assertNotEquals (provider1, provider2);
         }
+
+        /**
+         * Tests whether providers constructed from the keyed prototype operate independently.
+         */
+        @Test
+        public void testBuildIndependent () throws SignatureException {
+                SymmetricUniversalProviderFactory factory = new SymmetricUniversalProviderFactory ("HmacSHA1", this.secretKey);
+
+                SymmetricUniversalProvider provider1 = factory.build ();
+                SymmetricUniversalProvider provider2 = factory.build ();
+
+                Assert.assertSame (this.secretKey, provider1.key ());
+                Assert.assertNotSame (provider1.provider (), provider2.provider ());
+
+                provider1.provider ().update ((byte) 42);
+                ByteBuffer signature = provider2.sign (ByteBuffer.wrap (SymmetricUniversalProviderTest.TEST_BYTES));
+
+                Assert.assertArrayEquals (SymmetricUniversalProviderTest.TEST_BYTES_SIGNED, signature.array ());
+        }
 }
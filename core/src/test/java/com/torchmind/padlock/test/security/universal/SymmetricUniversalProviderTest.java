@@ -68,4 +68,32 @@ public class SymmetricUniversalProviderTest {
         public void testVerify () {
                 Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (TEST_BYTES_SIGNED)));
         }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.universal.SymmetricUniversalProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}
+         * with forged and truncated signatures.
+         */
+        @Test
+        public void testVerifyForged () {
+                byte[] forged = TEST_BYTES_SIGNED.clone ();
+                forged[forged.length - 1] ^= 1;
+
+                Assert.assertFalse (this.provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (forged)));
+                Assert.assertFalse (this.provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (TEST_BYTES_SIGNED, 0, (TEST_BYTES_SIGNED.length - 1))));
+                Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (TEST_BYTES_SIGNED)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.universal.SymmetricUniversalProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}
+         * with signatures which do not start at the beginning of their buffer.
+         */
+        @Test
+        public void testVerifyOffset () {
+                byte[] padded = new byte[TEST_BYTES_SIGNED.length + 3];
+                System.arraycopy (TEST_BYTES_SIGNED, 0, padded, 2, TEST_BYTES_SIGNED.length);
+
+                ByteBuffer signature = ByteBuffer.wrap (padded, 2, TEST_BYTES_SIGNED.length);
+                Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (TEST_BYTES), signature));
+                Assert.assertEquals (2, signature.position ());
+        }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security.verification;
+
+import com.torchmind.padlock.security.signature.EcdsaSignatureProviderFactory;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProvider;
+import com.torchmind.padlock.security.verification.EcdsaVerificationProviderFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.verification.EcdsaVerificationProvider}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class EcdsaVerificationProviderTest {
+        public static final byte[] TEST_BYTES = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+
+        private KeyPair keyPair;
+        private byte[] signature;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void setup () throws Exception {
+                this.keyPair = KeyPairGenerator.getInstance ("EC").generateKeyPair ();
+                this.signature = new EcdsaSignatureProviderFactory ("SHA256withECDSA", (ECPrivateKey) this.keyPair.getPrivate ()).build ().sign (ByteBuffer.wrap (TEST_BYTES)).array ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.verification.EcdsaVerificationProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testVerify () throws Exception {
+                EcdsaVerificationProvider provider = new EcdsaVerificationProviderFactory ("SHA256withECDSA", (ECPublicKey) this.keyPair.getPublic ()).build ();
+                Assert.assertTrue (provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (this.signature)));
+
+                EcdsaVerificationProvider converting = new EcdsaVerificationProvider (Signature.getInstance ("SHA256withECDSA"), (ECPublicKey) this.keyPair.getPublic ());
+                Assert.assertTrue (converting.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (this.signature)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.verification.EcdsaVerificationProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}
+         * with forged and malformed signatures.
+         */
+        @Test
+        public void testVerifyForged () throws Exception {
+                EcdsaVerificationProvider provider = new EcdsaVerificationProviderFactory ("SHA256withECDSA", (ECPublicKey) this.keyPair.getPublic ()).build ();
+
+                byte[] forged = this.signature.clone ();
+                forged[40] ^= 1;
+
+                Assert.assertFalse (provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (forged)));
+                Assert.assertFalse (provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (this.signature, 0, 63)));
+                Assert.assertFalse (provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (new byte[64])));
+                Assert.assertTrue (provider.verify (ByteBuffer.wrap (TEST_BYTES), ByteBuffer.wrap (this.signature)));
+        }
+}
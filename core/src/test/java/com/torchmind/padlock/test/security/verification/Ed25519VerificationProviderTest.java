@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.test.security.verification;
+
+import com.torchmind.padlock.security.verification.Ed25519VerificationProvider;
+import com.torchmind.padlock.security.verification.Ed25519VerificationProviderFactory;
+import com.torchmind.padlock.test.security.Ed25519KeysTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.security.verification.Ed25519VerificationProvider}.
+ * @author Johannes Donath
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class Ed25519VerificationProviderTest {
+        private Ed25519VerificationProvider provider;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void setup () {
+                Ed25519KeysTest.assumeSupported ();
+                this.provider = new Ed25519VerificationProviderFactory (Ed25519KeysTest.TEST_PUBLIC_KEY).build ();
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.verification.Ed25519VerificationProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}.
+         */
+        @Test
+        public void testVerify () {
+                Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE), ByteBuffer.wrap (Ed25519KeysTest.TEST_SIGNATURE)));
+                Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE), ByteBuffer.wrap (Ed25519KeysTest.TEST_SIGNATURE)));
+        }
+
+        /**
+         * Tests {@link com.torchmind.padlock.security.verification.Ed25519VerificationProvider#verify(java.nio.ByteBuffer, java.nio.ByteBuffer)}
+         * with forged and truncated signatures.
+         */
+        @Test
+        public void testVerifyForged () {
+                byte[] forged = Ed25519KeysTest.TEST_SIGNATURE.clone ();
+                forged[0] ^= 1;
+
+                Assert.assertFalse (this.provider.verify (ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE), ByteBuffer.wrap (forged)));
+                Assert.assertFalse (this.provider.verify (ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE), ByteBuffer.wrap (Arrays.copyOf (Ed25519KeysTest.TEST_SIGNATURE, 63))));
+                Assert.assertTrue (this.provider.verify (ByteBuffer.wrap (Ed25519KeysTest.TEST_MESSAGE), ByteBuffer.wrap (Ed25519KeysTest.TEST_SIGNATURE)));
+        }
+}
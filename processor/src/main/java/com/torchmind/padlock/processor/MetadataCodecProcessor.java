@@ -0,0 +1,540 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates dedicated metadata codecs for types annotated with
+ * {@code com.torchmind.padlock.metadata.codec.GenerateCodec}.
+ *
+ * Each generated codec extends {@code com.torchmind.padlock.metadata.codec.AbstractGeneratedMetadataCodec} and reads
+ * or writes all fields of its type through straight-line code without any reflection. Generated codecs are listed
+ * within {@code META-INF/services/com.torchmind.padlock.metadata.codec.ITypedMetadataCodec} in order to be picked up by
+ * {@code com.torchmind.padlock.metadata.codec.CompositeMetadataCodec}.
+ * @author Johannes Donath
+ */
+@SupportedAnnotationTypes (MetadataCodecProcessor.ANNOTATION_TYPE)
+public class MetadataCodecProcessor extends AbstractProcessor {
+        static final String ANNOTATION_TYPE = "com.torchmind.padlock.metadata.codec.GenerateCodec";
+        private static final String METADATA_TYPE = "com.torchmind.padlock.metadata.AuthenticationClaimMetadata";
+        private static final String CODEC_TYPE = "com.torchmind.padlock.metadata.codec.AbstractGeneratedMetadataCodec";
+        private static final String SERVICE_FILE = "META-INF/services/com.torchmind.padlock.metadata.codec.ITypedMetadataCodec";
+
+        private final Set<String> codecs = new TreeSet<> ();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SourceVersion getSupportedSourceVersion () {
+                return SourceVersion.latestSupported ();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean process (Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+                if (roundEnvironment.processingOver ()) {
+                        if (!this.codecs.isEmpty ()) this.writeServiceFile ();
+                        return false;
+                }
+
+                TypeElement annotation = this.processingEnv.getElementUtils ().getTypeElement (ANNOTATION_TYPE);
+                if (annotation == null) return false;
+
+                for (Element element : roundEnvironment.getElementsAnnotatedWith (annotation)) {
+                        try {
+                                this.generate (this.validate (element));
+                        } catch (ProcessingException ex) {
+                                this.processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR, ex.getMessage (), ex.element);
+                        } catch (IOException ex) {
+                                this.processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR, "Could not write metadata codec: " + ex.getMessage (), element);
+                        }
+                }
+
+                return true;
+        }
+
+        /**
+         * Validates an annotated element and collects its fields.
+         * @param element The element.
+         * @return The model.
+         * @throws com.torchmind.padlock.processor.MetadataCodecProcessor.ProcessingException when the element is not supported.
+         */
+        private Model validate (Element element) throws ProcessingException {
+                Elements elements = this.processingEnv.getElementUtils ();
+                Types types = this.processingEnv.getTypeUtils ();
+
+                if (element.getKind () != ElementKind.CLASS) throw new ProcessingException (element, "@GenerateCodec may only be applied to classes");
+
+                TypeElement type = (TypeElement) element;
+                TypeElement metadataType = elements.getTypeElement (METADATA_TYPE);
+
+                if (metadataType == null || !types.isSubtype (type.asType (), metadataType.asType ()))
+                        throw new ProcessingException (type, "@GenerateCodec may only be applied to subtypes of " + METADATA_TYPE);
+                if (type.getModifiers ().contains (Modifier.ABSTRACT)) throw new ProcessingException (type, "@GenerateCodec may not be applied to abstract classes");
+
+                for (Element current = type; current.getKind () != ElementKind.PACKAGE; current = current.getEnclosingElement ()) {
+                        if (current.getModifiers ().contains (Modifier.PRIVATE)) throw new ProcessingException (type, "@GenerateCodec may not be applied to private classes");
+                        if (current != type && !type.getModifiers ().contains (Modifier.STATIC)) throw new ProcessingException (type, "@GenerateCodec may not be applied to inner classes");
+                }
+
+                PackageElement packageElement = elements.getPackageOf (type);
+                Model model = new Model (type, packageElement.getQualifiedName ().toString ());
+
+                List<TypeElement> hierarchy = new ArrayList<> ();
+
+                for (TypeElement current = type; !types.isSameType (current.asType (), metadataType.asType ()); current = (TypeElement) ((DeclaredType) current.getSuperclass ()).asElement ())
+                        hierarchy.add (current);
+
+                Collections.reverse (hierarchy);
+
+                for (TypeElement current : hierarchy) {
+                        for (VariableElement field : ElementFilter.fieldsIn (current.getEnclosedElements ())) {
+                                if (field.getModifiers ().contains (Modifier.STATIC) || field.getModifiers ().contains (Modifier.TRANSIENT)) continue;
+
+                                String name = field.getSimpleName ().toString ();
+                                if (name.equals ("identifier") || name.equals ("issuance") || name.equals ("expiration"))
+                                        throw new ProcessingException (field, "Field \"" + name + "\" shadows a base metadata field");
+
+                                model.fields.add (new Field (name, field.asType (), this.kind (field), this.accessor (model, field)));
+                        }
+                }
+
+                this.validateConstructor (model);
+                return model;
+        }
+
+        /**
+         * Resolves the kind of a field.
+         * @param field The field.
+         * @return The kind.
+         * @throws com.torchmind.padlock.processor.MetadataCodecProcessor.ProcessingException when the field type is not supported.
+         */
+        private Kind kind (VariableElement field) throws ProcessingException {
+                TypeMirror type = field.asType ();
+
+                switch (type.getKind ()) {
+                        case BOOLEAN:
+                                return Kind.BOOLEAN;
+                        case BYTE:
+                        case SHORT:
+                        case INT:
+                        case LONG:
+                                return Kind.INTEGRAL;
+                        case FLOAT:
+                        case DOUBLE:
+                                return Kind.FLOATING;
+                        case DECLARED:
+                                Element element = ((DeclaredType) type).asElement ();
+                                if (element.getKind () == ElementKind.ENUM) return Kind.ENUM;
+
+                                switch (((TypeElement) element).getQualifiedName ().toString ()) {
+                                        case "java.lang.String":
+                                                return Kind.STRING;
+                                        case "java.util.UUID":
+                                                return Kind.UUID;
+                                        case "java.time.Instant":
+                                                return Kind.INSTANT;
+                                        case "java.lang.Boolean":
+                                                return Kind.BOOLEAN;
+                                        case "java.lang.Byte":
+                                        case "java.lang.Short":
+                                        case "java.lang.Integer":
+                                        case "java.lang.Long":
+                                                return Kind.INTEGRAL;
+                                        case "java.lang.Float":
+                                        case "java.lang.Double":
+                                                return Kind.FLOATING;
+                                }
+                        default:
+                                throw new ProcessingException (field, "Unsupported field type " + type);
+                }
+        }
+
+        /**
+         * Resolves the expression used to read a field.
+         * @param model The model.
+         * @param field The field.
+         * @return The expression.
+         * @throws com.torchmind.padlock.processor.MetadataCodecProcessor.ProcessingException when the field is not accessible.
+         */
+        private String accessor (Model model, VariableElement field) throws ProcessingException {
+                String name = field.getSimpleName ().toString ();
+                if (this.accessible (model, field)) return "metadata." + name;
+
+                Types types = this.processingEnv.getTypeUtils ();
+
+                for (ExecutableElement method : ElementFilter.methodsIn (this.processingEnv.getElementUtils ().getAllMembers (model.type))) {
+                        if (!method.getSimpleName ().contentEquals (name) || !method.getParameters ().isEmpty () || method.getModifiers ().contains (Modifier.STATIC)) continue;
+                        if (!types.isSameType (method.getReturnType (), field.asType ()) || !this.accessible (model, method)) continue;
+
+                        return "metadata." + name + " ()";
+                }
+
+                throw new ProcessingException (field, "Field \"" + name + "\" is neither accessible nor exposed through an accessible accessor method");
+        }
+
+        /**
+         * Checks whether an element is accessible from within the generated codec.
+         * @param model The model.
+         * @param element The element.
+         * @return True if accessible.
+         */
+        private boolean accessible (Model model, Element element) {
+                if (element.getModifiers ().contains (Modifier.PRIVATE)) return false;
+                if (element.getModifiers ().contains (Modifier.PUBLIC) && element.getEnclosingElement ().getModifiers ().contains (Modifier.PUBLIC)) return true;
+
+                return this.processingEnv.getElementUtils ().getPackageOf (element).getQualifiedName ().contentEquals (model.packageName);
+        }
+
+        /**
+         * Ensures that the model type provides a compatible constructor.
+         * @param model The model.
+         * @throws com.torchmind.padlock.processor.MetadataCodecProcessor.ProcessingException when no compatible constructor exists.
+         */
+        private void validateConstructor (Model model) throws ProcessingException {
+                Elements elements = this.processingEnv.getElementUtils ();
+                Types types = this.processingEnv.getTypeUtils ();
+
+                List<TypeMirror> parameters = new ArrayList<> ();
+                parameters.add (elements.getTypeElement ("java.util.UUID").asType ());
+                parameters.add (elements.getTypeElement ("java.time.Instant").asType ());
+                parameters.add (elements.getTypeElement ("java.time.Instant").asType ());
+                for (Field field : model.fields) parameters.add (field.type);
+
+                constructors:
+                for (ExecutableElement constructor : ElementFilter.constructorsIn (model.type.getEnclosedElements ())) {
+                        if (!this.accessible (model, constructor) || constructor.getParameters ().size () != parameters.size ()) continue;
+
+                        for (int i = 0; i < parameters.size (); ++i)
+                                if (!types.isSameType (constructor.getParameters ().get (i).asType (), parameters.get (i))) continue constructors;
+
+                        return;
+                }
+
+                StringBuilder signature = new StringBuilder ("UUID identifier, Instant issuance, Instant expiration");
+                for (Field field : model.fields) signature.append (", ").append (field.type).append (' ').append (field.name);
+
+                throw new ProcessingException (model.type, "@GenerateCodec requires an accessible constructor (" + signature + ")");
+        }
+
+        /**
+         * Generates the codec source for a model.
+         * @param model The model.
+         * @throws java.io.IOException when writing the source fails.
+         */
+        private void generate (Model model) throws IOException {
+                Filer filer = this.processingEnv.getFiler ();
+                String typeName = model.type.getQualifiedName ().toString ();
+
+                StringBuilder source = new StringBuilder ();
+                if (!model.packageName.isEmpty ()) source.append ("package ").append (model.packageName).append (";\n\n");
+
+                source.append ("import com.fasterxml.jackson.core.JsonGenerator;\n");
+                source.append ("import com.fasterxml.jackson.core.JsonParser;\n");
+                source.append ("import com.fasterxml.jackson.core.JsonToken;\n\n");
+                source.append ("import java.io.IOException;\n\n");
+
+                source.append ("/**\n * Provides a generated codec for {@link ").append (typeName).append ("}.\n * Generated by ").append (this.getClass ().getName ()).append (" - Do not modify.\n */\n");
+                source.append ("public final class ").append (model.codecName ()).append (" extends ").append (CODEC_TYPE).append ('<').append (typeName).append ("> {\n\n");
+
+                source.append ("        public ").append (model.codecName ()).append (" () {\n");
+                source.append ("                super (").append (typeName).append (".class);\n");
+                source.append ("        }\n\n");
+
+                // read
+                source.append ("        @Override\n");
+                source.append ("        protected ").append (typeName).append (" read (JsonParser parser) throws IOException {\n");
+                source.append ("                java.util.UUID identifier = null;\n");
+                source.append ("                java.time.Instant issuance = null;\n");
+                source.append ("                java.time.Instant expiration = null;\n");
+
+                for (int i = 0; i < model.fields.size (); ++i) {
+                        Field field = model.fields.get (i);
+                        source.append ("                ").append (field.type).append (" field").append (i).append (" = ").append (field.defaultValue ()).append (";\n");
+                }
+
+                source.append ("\n                while (parser.nextToken () == JsonToken.FIELD_NAME) {\n");
+                source.append ("                        String name = parser.getCurrentName ();\n");
+                source.append ("                        parser.nextToken ();\n\n");
+                source.append ("                        switch (name) {\n");
+                source.append ("                                case \"identifier\":\n                                        identifier = readUUID (parser);\n                                        break;\n");
+                source.append ("                                case \"issuance\":\n                                        issuance = readInstant (parser);\n                                        break;\n");
+                source.append ("                                case \"expiration\":\n                                        expiration = readInstant (parser);\n                                        break;\n");
+
+                for (int i = 0; i < model.fields.size (); ++i) {
+                        Field field = model.fields.get (i);
+                        source.append ("                                case \"").append (field.name).append ("\":\n");
+                        source.append ("                                        ").append (field.read ("field" + i)).append ('\n');
+                        source.append ("                                        break;\n");
+                }
+
+                source.append ("                                default:\n                                        throw unknownField (parser, name);\n");
+                source.append ("                        }\n");
+                source.append ("                }\n\n");
+                source.append ("                expect (parser, JsonToken.END_OBJECT);\n");
+                source.append ("                return new ").append (typeName).append (" (required (parser, \"identifier\", identifier), required (parser, \"issuance\", issuance), expiration");
+                for (int i = 0; i < model.fields.size (); ++i) source.append (", field").append (i);
+                source.append (");\n");
+                source.append ("        }\n\n");
+
+                // write
+                source.append ("        @Override\n");
+                source.append ("        protected void write (JsonGenerator generator, ").append (typeName).append (" metadata) throws IOException {\n");
+                source.append ("                writeUUID (generator, \"identifier\", metadata.identifier ());\n");
+                source.append ("                writeInstant (generator, \"issuance\", metadata.issuance ());\n");
+                source.append ("                writeInstant (generator, \"expiration\", metadata.expiration ());\n");
+                for (Field field : model.fields) source.append ("                ").append (field.write ()).append ('\n');
+                source.append ("        }\n");
+                source.append ("}\n");
+
+                String codecName = (model.packageName.isEmpty () ? model.codecName () : model.packageName + "." + model.codecName ());
+                JavaFileObject file = filer.createSourceFile (codecName, model.type);
+
+                try (Writer writer = file.openWriter ()) {
+                        writer.write (source.toString ());
+                }
+
+                this.codecs.add (codecName);
+        }
+
+        /**
+         * Writes the service file which lists all generated codecs.
+         */
+        private void writeServiceFile () {
+                Filer filer = this.processingEnv.getFiler ();
+                Set<String> entries = new TreeSet<> (this.codecs);
+
+                try {
+                        FileObject existing = filer.getResource (StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+
+                        try (BufferedReader reader = new BufferedReader (existing.openReader (true))) {
+                                String line;
+
+                                while ((line = reader.readLine ()) != null) {
+                                        line = line.trim ();
+                                        if (!line.isEmpty () && !line.startsWith ("#")) entries.add (line);
+                                }
+                        }
+                } catch (IOException ignore) {
+                        // no previous service file
+                }
+
+                try {
+                        FileObject file = filer.createResource (StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+
+                        try (Writer writer = file.openWriter ()) {
+                                for (String entry : entries) writer.write (entry + "\n");
+                        }
+                } catch (FilerException ex) {
+                        this.processingEnv.getMessager ().printMessage (Diagnostic.Kind.WARNING, "Could not update " + SERVICE_FILE + ": " + ex.getMessage ());
+                } catch (IOException ex) {
+                        this.processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR, "Could not write " + SERVICE_FILE + ": " + ex.getMessage ());
+                }
+        }
+
+        /**
+         * Represents the kinds of supported field types.
+         */
+        private enum Kind {
+                STRING ("String"),
+                UUID ("UUID"),
+                INSTANT ("Instant"),
+                BOOLEAN ("Boolean"),
+                INTEGRAL ("Long"),
+                FLOATING ("Double"),
+                ENUM ("Enum");
+
+                private final String codecSuffix;
+
+                Kind (String codecSuffix) {
+                        this.codecSuffix = codecSuffix;
+                }
+        }
+
+        /**
+         * Represents an annotated type.
+         */
+        private static final class Model {
+                private final TypeElement type;
+                private final String packageName;
+                private final List<Field> fields = new ArrayList<> ();
+
+                private Model (TypeElement type, String packageName) {
+                        this.type = type;
+                        this.packageName = packageName;
+                }
+
+                /**
+                 * Retrieves the simple name of the generated codec.
+                 * @return The name.
+                 */
+                private String codecName () {
+                        StringBuilder name = new StringBuilder (this.type.getSimpleName ());
+
+                        for (Element current = this.type.getEnclosingElement (); current.getKind () != ElementKind.PACKAGE; current = current.getEnclosingElement ())
+                                name.insert (0, '_').insert (0, current.getSimpleName ());
+
+                        return name.append ("Codec").toString ();
+                }
+        }
+
+        /**
+         * Represents a serialized field.
+         */
+        private static final class Field {
+                private final String name;
+                private final TypeMirror type;
+                private final Kind kind;
+                private final String accessor;
+
+                private Field (String name, TypeMirror type, Kind kind, String accessor) {
+                        this.name = name;
+                        this.type = type;
+                        this.kind = kind;
+                        this.accessor = accessor;
+                }
+
+                /**
+                 * Retrieves the default value of the field's local variable.
+                 * @return The expression.
+                 */
+                private String defaultValue () {
+                        switch (this.type.getKind ()) {
+                                case BOOLEAN:
+                                        return "false";
+                                case FLOAT:
+                                case DOUBLE:
+                                case BYTE:
+                                case SHORT:
+                                case INT:
+                                case LONG:
+                                        return "(" + this.type + ") 0";
+                                default:
+                                        return "null";
+                        }
+                }
+
+                /**
+                 * Retrieves the statement which reads the field from a parser into a local variable.
+                 * @param variable The variable name.
+                 * @return The statement.
+                 */
+                private String read (String variable) {
+                        switch (this.kind) {
+                                case ENUM:
+                                        return variable + " = readEnum (parser, " + this.type + ".class);";
+                                case STRING:
+                                case UUID:
+                                case INSTANT:
+                                        return variable + " = read" + this.kind.codecSuffix + " (parser);";
+                        }
+
+                        String value = "read" + this.kind.codecSuffix + " (parser)";
+
+                        if (this.type.getKind () == TypeKind.BOOLEAN)
+                                return variable + " = Boolean.TRUE.equals (" + value + ");";
+                        if (this.type.getKind () == TypeKind.DECLARED && this.kind == Kind.BOOLEAN)
+                                return variable + " = " + value + ";";
+
+                        String primitive = this.primitiveName ();
+                        String conversion = "." + primitive + "Value ()";
+
+                        if (this.type.getKind ().isPrimitive ())
+                                return "{ " + this.kind.codecSuffix + " value = " + value + "; " + variable + " = (value == null ? (" + primitive + ") 0 : value" + conversion + "); }";
+
+                        return "{ " + this.kind.codecSuffix + " value = " + value + "; " + variable + " = (value == null ? null : " + this.type + ".valueOf (value" + conversion + ")); }";
+                }
+
+                /**
+                 * Retrieves the statement which writes the field to a generator.
+                 * @return The statement.
+                 */
+                private String write () {
+                        return "write" + this.kind.codecSuffix + " (generator, \"" + this.name + "\", " + this.accessor + ");";
+                }
+
+                /**
+                 * Retrieves the primitive name of a numeric field type.
+                 * @return The name.
+                 */
+                private String primitiveName () {
+                        if (this.type.getKind ().isPrimitive ()) return this.type.toString ();
+
+                        switch (this.type.toString ()) {
+                                case "java.lang.Byte":
+                                        return "byte";
+                                case "java.lang.Short":
+                                        return "short";
+                                case "java.lang.Integer":
+                                        return "int";
+                                case "java.lang.Long":
+                                        return "long";
+                                case "java.lang.Float":
+                                        return "float";
+                                default:
+                                        return "double";
+                        }
+                }
+        }
+
+        /**
+         * Signals that an element cannot be processed.
+         */
+        private static final class ProcessingException extends Exception {
+                private final Element element;
+
+                private ProcessingException (Element element, String message) {
+                        super (message);
+                        this.element = element;
+                }
+        }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.torchmind.padlock.processor.test;
+
+import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;
+import com.torchmind.padlock.metadata.codec.CompositeMetadataCodec;
+import com.torchmind.padlock.metadata.codec.IMetadataCodec;
+import com.torchmind.padlock.metadata.codec.ITypedMetadataCodec;
+import com.torchmind.padlock.metadata.codec.JacksonMetadataCodec;
+import com.torchmind.padlock.processor.MetadataCodecProcessor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Provides test cases for {@link com.torchmind.padlock.processor.MetadataCodecProcessor}.
+ * @author Johannes Donath
+ */
+public class MetadataCodecProcessorTest {
+        private static final UUID IDENTIFIER = UUID.fromString ("8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a");
+        private static final String METADATA_ENCODED = "{\"identifier\":\"8ccb03dc-55dd-4ebd-9b68-79ea3b1fc79a\",\"issuance\":1.000000005,\"expiration\":2.000000000,\"name\":\"Johannes\",\"level\":42,\"role\":\"ADMINISTRATOR\",\"quota\":1024,\"verified\":true}";
+
+        // @formatter:off
+        private static final String SOURCE_VALID =
+                "package com.example;\n" +
+                "\n" +
+                "import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;\n" +
+                "import com.torchmind.padlock.metadata.codec.GenerateCodec;\n" +
+                "import java.time.Instant;\n" +
+                "import java.util.UUID;\n" +
+                "\n" +
+                "@GenerateCodec\n" +
+                "public class SessionMetadata extends AuthenticationClaimMetadata {\n" +
+                "        public enum Role { USER, ADMINISTRATOR }\n" +
+                "\n" +
+                "        final String name;\n" +
+                "        final int level;\n" +
+                "        private final Role role;\n" +
+                "        final Long quota;\n" +
+                "        final boolean verified;\n" +
+                "\n" +
+                "        public SessionMetadata (UUID identifier, Instant issuance, Instant expiration, String name, int level, Role role, Long quota, boolean verified) {\n" +
+                "                super (identifier, issuance, expiration);\n" +
+                "                this.name = name;\n" +
+                "                this.level = level;\n" +
+                "                this.role = role;\n" +
+                "                this.quota = quota;\n" +
+                "                this.verified = verified;\n" +
+                "        }\n" +
+                "\n" +
+                "        public Role role () {\n" +
+                "                return this.role;\n" +
+                "        }\n" +
+                "}\n";
+
+        private static final String SOURCE_INVALID =
+                "package com.example;\n" +
+                "\n" +
+                "import com.torchmind.padlock.metadata.AuthenticationClaimMetadata;\n" +
+                "import com.torchmind.padlock.metadata.codec.GenerateCodec;\n" +
+                "import java.time.Instant;\n" +
+                "import java.util.UUID;\n" +
+                "\n" +
+                "@GenerateCodec\n" +
+                "public class BrokenMetadata extends AuthenticationClaimMetadata {\n" +
+                "        final String name;\n" +
+                "\n" +
+                "        public BrokenMetadata (UUID identifier, Instant issuance, Instant expiration) {\n" +
+                "                super (identifier, issuance, expiration);\n" +
+                "                this.name = null;\n" +
+                "        }\n" +
+                "}\n";
+        // @formatter:on
+
+        private Path outputDirectory;
+
+        /**
+         * Prepares the environment for test cases contained herein.
+         */
+        @Before
+        public void prepare () throws IOException {
+                this.outputDirectory = Files.createTempDirectory ("padlock-processor");
+        }
+
+        /**
+         * Tests code generation for a valid metadata type.
+         */
+        @Test
+        @SuppressWarnings ("unchecked")
+        public void testGenerate () throws Exception {
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<> ();
+                Assert.assertTrue (diagnostics.getDiagnostics ().toString (), this.compile ("com.example.SessionMetadata", SOURCE_VALID, diagnostics));
+
+                Assert.assertTrue (Files.exists (this.outputDirectory.resolve ("META-INF/services/com.torchmind.padlock.metadata.codec.ITypedMetadataCodec")));
+
+                try (URLClassLoader classLoader = new URLClassLoader (new URL[] { this.outputDirectory.toUri ().toURL () }, this.getClass ().getClassLoader ())) {
+                        Class<? extends AuthenticationClaimMetadata> type = (Class<? extends AuthenticationClaimMetadata>) classLoader.loadClass ("com.example.SessionMetadata");
+                        Class<?> roleType = classLoader.loadClass ("com.example.SessionMetadata$Role");
+                        Constructor<? extends AuthenticationClaimMetadata> constructor = type.getConstructor (UUID.class, Instant.class, Instant.class, String.class, int.class, roleType, Long.class, boolean.class);
+
+                        AuthenticationClaimMetadata metadata = constructor.newInstance (IDENTIFIER, Instant.ofEpochSecond (1, 5), Instant.ofEpochSecond (2), "Johannes", 42, roleType.getEnumConstants ()[1], 1024L, true);
+
+                        IMetadataCodec codec = CompositeMetadataCodec.discover (new JacksonMetadataCodec (), classLoader);
+                        Assert.assertTrue (codec instanceof CompositeMetadataCodec);
+
+                        ITypedMetadataCodec<? extends AuthenticationClaimMetadata> generated = ((CompositeMetadataCodec) codec).codec (type);
+                        Assert.assertNotNull (generated);
+                        Assert.assertEquals ("com.example.SessionMetadataCodec", generated.getClass ().getName ());
+
+                        ByteBuffer encoded = this.encode (codec, type, metadata);
+                        Assert.assertEquals (METADATA_ENCODED, StandardCharsets.UTF_8.decode (encoded.duplicate ()).toString ());
+
+                        AuthenticationClaimMetadata decoded = codec.decode (type, encoded);
+                        Assert.assertEquals (metadata, decoded);
+                        Assert.assertEquals (encoded.rewind (), this.encode (codec, type, decoded));
+
+                        Assert.assertEquals (new AuthenticationClaimMetadata (IDENTIFIER, Instant.ofEpochSecond (1, 5), Instant.ofEpochSecond (2)), codec.decodeBase (type, encoded));
+
+                        ByteBuffer duplicate = StandardCharsets.UTF_8.encode (METADATA_ENCODED.replace ("}", ",\"expiration\":9.000000000}"));
+
+                        try {
+                                codec.decodeBase (type, duplicate);
+                                Assert.fail ("Duplicate base field has been accepted");
+                        } catch (IllegalArgumentException ignore) {
+                        }
+                }
+        }
+
+        /**
+         * Tests code generation for a metadata type without a compatible constructor.
+         */
+        @Test
+        public void testGenerateInvalid () throws Exception {
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<> ();
+                Assert.assertFalse (this.compile ("com.example.BrokenMetadata", SOURCE_INVALID, diagnostics));
+
+                boolean reported = false;
+
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics ())
+                        reported |= (diagnostic.getKind () == Diagnostic.Kind.ERROR && diagnostic.getMessage (null).contains ("constructor"));
+
+                Assert.assertTrue (diagnostics.getDiagnostics ().toString (), reported);
+        }
+
+        /**
+         * Compiles a source file using the processor.
+         * @param name The qualified type name.
+         * @param source The source.
+         * @param diagnostics The diagnostic listener.
+         * @return True if compilation succeeded.
+         */
+        private boolean compile (String name, String source, DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
+                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler ();
+
+                try (StandardJavaFileManager fileManager = compiler.getStandardFileManager (diagnostics, null, null)) {
+                        JavaFileObject file = new SimpleJavaFileObject (URI.create ("string:///" + name.replace ('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+                                @Override
+                                public CharSequence getCharContent (boolean ignoreEncodingErrors) {
+                                        return source;
+                                }
+                        };
+
+                        JavaCompiler.CompilationTask task = compiler.getTask (null, fileManager, diagnostics, Arrays.asList ("-classpath", System.getProperty ("java.class.path"), "-d", this.outputDirectory.toString (), "-s", this.outputDirectory.toString ()), null, Collections.singleton (file));
+                        task.setProcessors (Collections.singleton (new MetadataCodecProcessor ()));
+
+                        return task.call ();
+                }
+        }
+
+        /**
+         * Encodes metadata using an unchecked type.
+         */
+        @SuppressWarnings ("unchecked")
+        private <M extends AuthenticationClaimMetadata> ByteBuffer encode (IMetadataCodec codec, Class<M> type, AuthenticationClaimMetadata metadata) {
+                return codec.encode (type, (M) metadata);
+        }
+}